@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.util.Random;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+
+public class AttributeReadBenchmark {
+
+    private Object object;
+
+    public Runnable concurrentAttributeReads(int threads, int nodes, final int reads) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Column column = graphModel.getNodeTable().addColumn("score", Integer.class);
+        final Node[] nodeArray = generate(graphModel, nodes);
+        final Edge[] edgeArray = graphModel.getGraph().getEdges().toArray();
+        for (Node node : nodeArray) {
+            node.setAttribute(column, node.getStoreId());
+        }
+
+        return concurrently(threads, new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+                for (int i = 0; i < reads; i++) {
+                    Node node = nodeArray[random.nextInt(nodeArray.length)];
+                    object = node.getAttribute(column);
+                    if (edgeArray.length > 0) {
+                        object = edgeArray[random.nextInt(edgeArray.length)].getWeight();
+                    }
+                }
+            }
+        });
+    }
+
+    public Runnable concurrentAttributeReadsWithWriter(int threads, int nodes, final int reads) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Column column = graphModel.getNodeTable().addColumn("score", Integer.class);
+        final Node[] nodeArray = generate(graphModel, nodes);
+        for (Node node : nodeArray) {
+            node.setAttribute(column, node.getStoreId());
+        }
+
+        final Runnable reader = new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+                for (int i = 0; i < reads; i++) {
+                    object = nodeArray[random.nextInt(nodeArray.length)].getAttribute(column);
+                }
+            }
+        };
+        final Runnable writer = new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+                for (int i = 0; i < reads / 10; i++) {
+                    nodeArray[random.nextInt(nodeArray.length)].setAttribute(column, i);
+                }
+            }
+        };
+
+        final Runnable readers = concurrently(threads, reader);
+        return new Runnable() {
+            @Override
+            public void run() {
+                Thread thread = new Thread(writer);
+                thread.start();
+                readers.run();
+                join(thread);
+            }
+        };
+    }
+
+    private Runnable concurrently(final int threads, final Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                Thread[] threadArray = new Thread[threads];
+                for (int i = 0; i < threads; i++) {
+                    threadArray[i] = new Thread(task);
+                    threadArray[i].start();
+                }
+                for (Thread thread : threadArray) {
+                    join(thread);
+                }
+            }
+        };
+    }
+
+    private void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private Node[] generate(GraphModel graphModel, int nodes) {
+        GraphFactory factory = graphModel.factory();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Node[] nodeArray = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeArray[i] = factory.newNode(String.valueOf(i));
+            graph.addNode(nodeArray[i]);
+        }
+        Random random = new Random(4587);
+        for (int i = 0; i < nodes * 5; i++) {
+            Node source = nodeArray[random.nextInt(nodes)];
+            Node target = nodeArray[random.nextInt(nodes)];
+            if (graph.getEdge(source, target) == null) {
+                graph.addEdge(factory.newEdge(source, target));
+            }
+        }
+        return nodeArray;
+    }
+}
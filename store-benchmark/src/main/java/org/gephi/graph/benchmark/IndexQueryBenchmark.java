@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Node;
+
+public class IndexQueryBenchmark {
+
+    private final int GROUPS = 100;
+    private final int QUERIES = 2000;
+    private final int CONSUMER_WORK = 20;
+    private final int MAX_WRITES = 1 << 22;
+    private final long[] writeLatencies = new long[MAX_WRITES];
+    private int writeLatencyCount;
+    private volatile boolean reading;
+    private double number;
+
+    public Runnable concurrentQueriesAndWrites(final int readerThreads, final int writerThreads, int nodes) {
+        final GraphModel graphModel = GraphModel.Factory.newInstance();
+        final Column column = graphModel.getNodeTable().addColumn("group", Integer.class);
+        final Node[] nodeArray = generate(graphModel, nodes);
+        for (int i = 0; i < nodeArray.length; i++) {
+            nodeArray[i].setAttribute(column, i % GROUPS);
+        }
+        final Index<Node> index = graphModel.getNodeIndex();
+
+        final Runnable reader = new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+                for (int i = 0; i < QUERIES; i++) {
+                    double sum = 0;
+                    Iterable<Node> result = index.get(column, random.nextInt(GROUPS));
+                    if (result != null) {
+                        //Slow consumer
+                        for (Node node : result) {
+                            for (int j = 0; j < CONSUMER_WORK; j++) {
+                                sum += Math.sqrt(node.getStoreId() + sum);
+                            }
+                        }
+                    }
+                    number = sum;
+                }
+            }
+        };
+        final Runnable writer = new Runnable() {
+            @Override
+            public void run() {
+                Random random = new Random();
+                while (reading) {
+                    long start = System.nanoTime();
+                    nodeArray[random.nextInt(nodeArray.length)].setAttribute(column, random.nextInt(GROUPS));
+                    long latency = System.nanoTime() - start;
+                    synchronized (writeLatencies) {
+                        if (writeLatencyCount < MAX_WRITES) {
+                            writeLatencies[writeLatencyCount++] = latency;
+                        }
+                    }
+                }
+            }
+        };
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                synchronized (writeLatencies) {
+                    writeLatencyCount = 0;
+                }
+                reading = true;
+                Thread[] writers = start(writer, writerThreads);
+                Thread[] readers = start(reader, readerThreads);
+                join(readers);
+                reading = false;
+                join(writers);
+            }
+        };
+    }
+
+    public int getWriteCount() {
+        synchronized (writeLatencies) {
+            return writeLatencyCount;
+        }
+    }
+
+    public long getWriteLatencyPercentile(double percentile) {
+        synchronized (writeLatencies) {
+            if (writeLatencyCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(writeLatencies, writeLatencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    private Thread[] start(Runnable task, int count) {
+        Thread[] threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            threads[i] = new Thread(task);
+            threads[i].start();
+        }
+        return threads;
+    }
+
+    private void join(Thread[] threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private Node[] generate(GraphModel graphModel, int nodes) {
+        GraphFactory factory = graphModel.factory();
+        Node[] nodeArray = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeArray[i] = factory.newNode(String.valueOf(i));
+            graphModel.getGraph().addNode(nodeArray[i]);
+        }
+        return nodeArray;
+    }
+}
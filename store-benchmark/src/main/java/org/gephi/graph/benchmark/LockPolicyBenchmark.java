@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.LockPolicy;
+import org.gephi.graph.api.Node;
+
+public class LockPolicyBenchmark {
+
+    private final int READS = 500;
+    private final int WRITES = 100;
+    private final int READER_THREADS = 4;
+    private final int WRITER_THREADS = 2;
+    private final long[] writeLatencies = new long[WRITES * WRITER_THREADS];
+    private int writeLatencyCount;
+    private int writeTimeouts;
+    private double number;
+
+    public Runnable readWrites(LockPolicy policy, int nodes) {
+        return readWrites(policy, nodes, 0);
+    }
+
+    public Runnable readWritesWithTimeout(LockPolicy policy, int nodes, long timeoutMillis) {
+        return readWrites(policy, nodes, timeoutMillis);
+    }
+
+    public long getWriteLatencyPercentile(double percentile) {
+        synchronized (writeLatencies) {
+            if (writeLatencyCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(writeLatencies, writeLatencyCount);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    public int getWriteTimeouts() {
+        synchronized (writeLatencies) {
+            return writeTimeouts;
+        }
+    }
+
+    private Runnable readWrites(LockPolicy policy, int nodes, final long timeoutMillis) {
+        Configuration configuration = new Configuration();
+        configuration.setLockPolicy(policy);
+        final GraphModel graphModel = GraphModel.Factory.newInstance(configuration);
+        final DirectedGraph graph = generate(graphModel, nodes);
+        final Node[] nodeArray = graph.getNodes().toArray();
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                synchronized (writeLatencies) {
+                    writeLatencyCount = 0;
+                    writeTimeouts = 0;
+                }
+                Runnable reader = new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < READS; i++) {
+                            graph.readLock();
+                            try {
+                                read(graph);
+                            } finally {
+                                graph.readUnlock();
+                            }
+                        }
+                    }
+                };
+                Runnable writer = new Runnable() {
+                    @Override
+                    public void run() {
+                        Random random = new Random(45445);
+                        for (int i = 0; i < WRITES; i++) {
+                            long start = System.nanoTime();
+                            if (timeoutMillis > 0) {
+                                if (!graph.tryWriteLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                                    synchronized (writeLatencies) {
+                                        writeTimeouts++;
+                                    }
+                                    continue;
+                                }
+                            } else {
+                                graph.writeLock();
+                            }
+                            long latency = System.nanoTime() - start;
+                            try {
+                                nodeArray[random.nextInt(nodeArray.length)].setX(random.nextFloat());
+                            } finally {
+                                graph.writeUnlock();
+                            }
+                            synchronized (writeLatencies) {
+                                writeLatencies[writeLatencyCount++] = latency;
+                            }
+                        }
+                    }
+                };
+                Thread[] threads = new Thread[READER_THREADS + WRITER_THREADS];
+                for (int i = 0; i < READER_THREADS; i++) {
+                    threads[i] = new Thread(reader);
+                }
+                for (int i = 0; i < WRITER_THREADS; i++) {
+                    threads[READER_THREADS + i] = new Thread(writer);
+                }
+                for (Thread thread : threads) {
+                    thread.start();
+                }
+                for (Thread t : threads) {
+                    try {
+                        t.join();
+                    } catch (InterruptedException ex) {
+                        Logger.getLogger(LockPolicyBenchmark.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                }
+            }
+        };
+    }
+
+    private void read(DirectedGraph graph) {
+        double sum = 0;
+        for (Node node : graph.getNodes()) {
+            sum += graph.getDegree(node) * node.x();
+        }
+        number = sum;
+    }
+
+    private DirectedGraph generate(GraphModel graphModel, int nodes) {
+        GraphFactory factory = graphModel.factory();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Node[] nodeArray = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeArray[i] = factory.newNode(String.valueOf(i));
+            graph.addNode(nodeArray[i]);
+        }
+        Random random = new Random(4587);
+        for (int i = 0; i < nodes * 5; i++) {
+            Node source = nodeArray[random.nextInt(nodes)];
+            Node target = nodeArray[random.nextInt(nodes)];
+            if (graph.getEdge(source, target) == null) {
+                graph.addEdge(factory.newEdge(source, target));
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import java.util.Random;
+import org.gephi.graph.api.DirectedGraph;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.ReadTask;
+
+public class ReadScopeBenchmark {
+
+    private Object object;
+
+    public Runnable nestedTraversal(int nodes, int edges) {
+        final Graph graph = generate(nodes, edges);
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                traverse(graph);
+            }
+        };
+    }
+
+    public Runnable nestedTraversalWithReadScope(int nodes, int edges) {
+        final Graph graph = generate(nodes, edges);
+        final ReadTask<Object> task = new ReadTask<Object>() {
+            @Override
+            public Object run(Graph graph) {
+                traverse(graph);
+                return null;
+            }
+        };
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                graph.read(task);
+            }
+        };
+    }
+
+    private void traverse(Graph graph) {
+        for (Node node : graph.getNodes()) {
+            for (Node neighbor : graph.getNeighbors(node)) {
+                for (Node neighborOfNeighbor : graph.getNeighbors(neighbor)) {
+                    object = neighborOfNeighbor;
+                }
+            }
+        }
+    }
+
+    private Graph generate(int nodes, int edges) {
+        GraphModel graphModel = GraphModel.Factory.newInstance();
+        GraphFactory factory = graphModel.factory();
+        DirectedGraph graph = graphModel.getDirectedGraph();
+        Node[] nodeArray = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            nodeArray[i] = factory.newNode(String.valueOf(i));
+            graph.addNode(nodeArray[i]);
+        }
+        Random random = new Random(4587);
+        for (int i = 0; i < edges; i++) {
+            Node source = nodeArray[random.nextInt(nodes)];
+            Node target = nodeArray[random.nextInt(nodes)];
+            if (graph.getEdge(source, target) == null) {
+                graph.addEdge(factory.newEdge(source, target));
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class AttributeReadBenchmarkTest {
+
+    @Test
+    public void testConcurrentAttributeReads() {
+        int[] t = {1, 2, 4, 8};
+        for (int threads : t) {
+            NanoBench.create().measurements(10).measure("concurrent attribute reads threads=" + threads, new AttributeReadBenchmark().concurrentAttributeReads(threads, 10000, 100000));
+        }
+    }
+
+    @Test
+    public void testConcurrentAttributeReadsWithWriter() {
+        int[] t = {1, 2, 4, 8};
+        for (int threads : t) {
+            NanoBench.create().measurements(10).measure("concurrent attribute reads with writer threads=" + threads, new AttributeReadBenchmark().concurrentAttributeReadsWithWriter(threads, 10000, 100000));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class IndexQueryBenchmarkTest {
+
+    @Test
+    public void testConcurrentQueriesAndWrites() {
+        int[] t = {1, 2, 4};
+        for (int readers : t) {
+            IndexQueryBenchmark benchmark = new IndexQueryBenchmark();
+            NanoBench.create().measurements(5).measure("index queries with writers readers=" + readers, benchmark.concurrentQueriesAndWrites(readers, 2, 20000));
+            NanoBench.getLogger().info("writes=" + benchmark.getWriteCount() + " p99 write latency readers=" + readers + " " + benchmark.getWriteLatencyPercentile(99) / 1000 + " us");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.graph.api.LockPolicy;
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class LockPolicyBenchmarkTest {
+
+    @Test
+    public void testReadWrites() {
+        for (LockPolicy policy : LockPolicy.values()) {
+            LockPolicyBenchmark benchmark = new LockPolicyBenchmark();
+            NanoBench.create().measurements(5).measure("read writes policy=" + policy, benchmark.readWrites(policy, 5000));
+            NanoBench.getLogger().info("p99 write latency policy=" + policy + " " + benchmark.getWriteLatencyPercentile(99) / 1000 + " us");
+        }
+    }
+
+    @Test
+    public void testReadWritesWithTimeout() {
+        for (LockPolicy policy : LockPolicy.values()) {
+            LockPolicyBenchmark benchmark = new LockPolicyBenchmark();
+            NanoBench.create().measurements(5).measure("read writes with timeout policy=" + policy, benchmark.readWritesWithTimeout(policy, 5000, 5));
+            NanoBench.getLogger().info("p99 write latency policy=" + policy + " " + benchmark.getWriteLatencyPercentile(99) / 1000 + " us, timeouts=" + benchmark.getWriteTimeouts());
+        }
+    }
+}
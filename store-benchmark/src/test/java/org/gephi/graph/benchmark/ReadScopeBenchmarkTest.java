@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.benchmark;
+
+import org.gephi.nanobench.NanoBench;
+import org.testng.annotations.Test;
+
+public class ReadScopeBenchmarkTest {
+
+    @Test
+    public void testNestedTraversal() {
+        int[] n = {100, 1000, 10000};
+        for (int nodes : n) {
+            int edges = nodes * 5;
+            NanoBench.create().cpuOnly().measurements(10).measure("nested traversal nodes=" + nodes + " edges=" + edges, new ReadScopeBenchmark().nestedTraversal(nodes, edges));
+        }
+    }
+
+    @Test
+    public void testNestedTraversalWithReadScope() {
+        int[] n = {100, 1000, 10000};
+        for (int nodes : n) {
+            int edges = nodes * 5;
+            NanoBench.create().cpuOnly().measurements(10).measure("nested traversal with read scope nodes=" + nodes + " edges=" + edges, new ReadScopeBenchmark().nestedTraversalWithReadScope(nodes, edges));
+        }
+    }
+}
@@ -77,11 +77,23 @@ public interface Column {
 
     /**
      * Returns true if this column is indexed.
+     * <p>
+     * An index added with {@link Table#addIndex(org.gephi.graph.api.Column, boolean)}
+     * only counts once built.
      *
      * @return true if indexed, false otherwise
      */
     public boolean isIndexed();
 
+    /**
+     * Returns true if this column has a text index, which supports prefix,
+     * substring and token search.
+     *
+     * @return true if text indexed, false otherwise
+     * @see Index#getByPrefix(org.gephi.graph.api.Column, java.lang.String)
+     */
+    public boolean isTextIndexed();
+
     /**
      * Returns true if this column has an array type.
      *
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Predicate which only depends on the value of a single column.
+ * <p>
+ * When the column is indexed, live views defined with this predicate are
+ * initially populated from the column's index by evaluating each distinct
+ * value once instead of each element.
+ * <p>
+ * Implementations should be consistent, <code>evaluate(element)</code>
+ * returning the same result as
+ * <code>evaluateValue(element.getAttribute(getColumn()))</code>.
+ *
+ * @param <T> element class
+ */
+public interface ColumnPredicate<T extends Element> extends ElementPredicate<T> {
+
+    /**
+     * Returns the column this predicate depends on.
+     *
+     * @return column
+     */
+    public Column getColumn();
+
+    /**
+     * Returns true if the given column value is accepted by this predicate.
+     *
+     * @param value value to evaluate, may be null
+     * @return true if accepted, false otherwise
+     */
+    public boolean evaluateValue(Object value);
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Summary statistics of a column's values.
+ * <p>
+ * Statistics are computed in a single pass over the elements, or derived from
+ * the index when the column is indexed. They are cached until the column's
+ * values or the elements of its table change. Numerical statistics only apply
+ * to numerical columns.
+ * <p>
+ * For non-indexed columns, the distinct count, quantiles and histograms are
+ * estimated with sketches, see {@link #isApproximate()}.
+ *
+ * @see GraphModel#getColumnStatistics(org.gephi.graph.api.Column)
+ */
+public interface ColumnStatistics {
+
+    /**
+     * Returns the column these statistics describe.
+     *
+     * @return the column
+     */
+    public Column getColumn();
+
+    /**
+     * Returns the number of elements with a non-null value.
+     *
+     * @return the number of values
+     */
+    public int getCount();
+
+    /**
+     * Returns the number of elements with a null value.
+     *
+     * @return the number of null values
+     */
+    public int getNullCount();
+
+    /**
+     * Returns the number of distinct non-null values.
+     *
+     * @return the distinct count, estimated if approximate
+     */
+    public long getDistinctCount();
+
+    /**
+     * Returns the minimum value.
+     *
+     * @return the minimum value, or null if not numerical or no values
+     */
+    public Number getMin();
+
+    /**
+     * Returns the maximum value.
+     *
+     * @return the maximum value, or null if not numerical or no values
+     */
+    public Number getMax();
+
+    /**
+     * Returns the mean value.
+     *
+     * @return the mean, or <code>NaN</code> if not numerical or no values
+     */
+    public double getMean();
+
+    /**
+     * Returns the population standard deviation of the values.
+     *
+     * @return the standard deviation, or <code>NaN</code> if not numerical or
+     * no values
+     */
+    public double getStandardDeviation();
+
+    /**
+     * Returns the value at the given quantile, for instance 0.5 for the
+     * median.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the value at the quantile, or <code>NaN</code> if no values
+     * @throws UnsupportedOperationException if the column isn't numerical
+     */
+    public double getQuantile(double quantile);
+
+    /**
+     * Returns the number of values in each of <em>bins</em> equal-width bins
+     * between the minimum and the maximum value.
+     *
+     * @param bins the number of bins
+     * @return the count of values in each bin
+     * @throws UnsupportedOperationException if the column isn't numerical
+     */
+    public int[] getHistogram(int bins);
+
+    /**
+     * Returns true if the distinct count, quantiles and histograms are
+     * estimated with sketches rather than exact.
+     *
+     * @return true if approximate, false if exact
+     */
+    public boolean isApproximate();
+}
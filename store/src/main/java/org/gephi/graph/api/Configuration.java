@@ -41,6 +41,7 @@ public class Configuration {
     private Class edgeLabelType;
     private Class edgeWeightType;
     private TimeRepresentation timeRepresentation;
+    private LockPolicy lockPolicy;
 
     /**
      * Default constructor.
@@ -51,6 +52,7 @@ public class Configuration {
         edgeLabelType = GraphStoreConfiguration.DEFAULT_EDGE_LABEL_TYPE;
         edgeWeightType = GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT_TYPE;
         timeRepresentation = GraphStoreConfiguration.DEFAULT_TIME_REPRESENTATION;
+        lockPolicy = GraphStoreConfiguration.DEFAULT_LOCK_POLICY;
     }
 
     /**
@@ -164,6 +166,32 @@ public class Configuration {
         this.timeRepresentation = timeRepresentation;
     }
 
+    /**
+     * Returns the lock policy.
+     *
+     * @return lock policy
+     */
+    public LockPolicy getLockPolicy() {
+        return lockPolicy;
+    }
+
+    /**
+     * Sets the lock policy.
+     * <p>
+     * The lock policy isn't serialized with the graph. It can only be set
+     * when the graph model is created, not with
+     * {@link GraphModel#setConfiguration(org.gephi.graph.api.Configuration)}.
+     *
+     * @param lockPolicy lock policy
+     * @throws IllegalArgumentException if the policy is null
+     */
+    public void setLockPolicy(LockPolicy lockPolicy) {
+        if (lockPolicy == null) {
+            throw new IllegalArgumentException("The lock policy can't be null");
+        }
+        this.lockPolicy = lockPolicy;
+    }
+
     /**
      * Copy this configuration.
      *
@@ -176,6 +204,7 @@ public class Configuration {
         copy.edgeLabelType = edgeLabelType;
         copy.edgeWeightType = edgeWeightType;
         copy.timeRepresentation = timeRepresentation;
+        copy.lockPolicy = lockPolicy;
         return copy;
     }
 
@@ -187,6 +216,7 @@ public class Configuration {
         hash = 19 * hash + (this.edgeLabelType != null ? this.edgeLabelType.hashCode() : 0);
         hash = 19 * hash + (this.edgeWeightType != null ? this.edgeWeightType.hashCode() : 0);
         hash = 19 * hash + (this.timeRepresentation != null ? this.timeRepresentation.hashCode() : 0);
+        hash = 19 * hash + (this.lockPolicy != null ? this.lockPolicy.hashCode() : 0);
         return hash;
     }
 
@@ -217,6 +247,9 @@ public class Configuration {
         if (this.timeRepresentation != other.timeRepresentation && (this.timeRepresentation == null || !this.timeRepresentation.equals(other.timeRepresentation))) {
             return false;
         }
+        if (this.lockPolicy != other.lockPolicy) {
+            return false;
+        }
         return true;
     }
 }
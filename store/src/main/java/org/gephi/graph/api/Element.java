@@ -232,6 +232,11 @@ public interface Element extends ElementProperties {
 
     /**
      * Sets the attribute at the given column and timestamp.
+     * <p>
+     * The element's map of values is copied on each call so readers holding
+     * the previous map are unaffected, which makes each call linear in the
+     * number of values already set. To set many values at once, build the
+     * map first and set it with {@link #setAttribute(Column, Object)}.
      *
      * @param column column
      * @param value value to set
@@ -250,6 +255,9 @@ public interface Element extends ElementProperties {
 
     /**
      * Sets the attribute at the given column and interval.
+     * <p>
+     * Like {@link #setAttribute(Column, Object, double)}, each call copies the
+     * element's map of values.
      *
      * @param column column
      * @param value value to set
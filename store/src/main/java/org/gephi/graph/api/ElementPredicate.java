@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Predicate over an element, used to define live views.
+ * <p>
+ * A view created with a predicate contains all the elements for which
+ * <code>evaluate()</code> returns true and is kept up to date as elements are
+ * added or their attributes change.
+ *
+ * @param <T> element class
+ * @see GraphModel#createView(org.gephi.graph.api.ElementPredicate,
+ * org.gephi.graph.api.ElementPredicate)
+ */
+public interface ElementPredicate<T extends Element> {
+
+    /**
+     * Returns true if the element is accepted by this predicate.
+     *
+     * @param element element to evaluate
+     * @return true if accepted, false otherwise
+     */
+    public boolean evaluate(T element);
+}
@@ -17,6 +17,7 @@ package org.gephi.graph.api;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Graph interface.
@@ -403,11 +404,40 @@ public interface Graph {
      */
     public void readUnlockAll();
 
+    /**
+     * Runs the given task while holding a read lock.
+     * <p>
+     * The read lock is acquired once for the whole task. Iterators and read
+     * methods used by the current thread inside the task don't lock again, so
+     * nested loops are cheap and it's safe to break out of a loop without
+     * calling <code>doBreak()</code>. Iterables obtained inside the task
+     * shouldn't be used after it returns.
+     *
+     * @param <T> result type
+     * @param task task to run
+     * @return the value returned by the task
+     */
+    public <T> T read(ReadTask<T> task);
+
     /**
      * Opens a write lock for the current thread.
      */
     public void writeLock();
 
+    /**
+     * Tries to open a write lock for the current thread, waiting at most the
+     * given time.
+     * <p>
+     * When the lock is acquired it must be closed with
+     * {@link #writeUnlock()}.
+     *
+     * @param timeout maximum time to wait
+     * @param unit time unit of the timeout
+     * @return true if the write lock was acquired, false if the timeout
+     * elapsed or the thread was interrupted
+     */
+    public boolean tryWriteLock(long timeout, TimeUnit unit);
+
     /**
      * Closes a write lock for the current thread.
      */
@@ -326,6 +326,27 @@ public interface GraphModel {
      */
     public GraphView createView(boolean node, boolean edge);
 
+    /**
+     * Creates a new live graph view defined by predicates.
+     * <p>
+     * The view contains the nodes accepted by the node predicate and the edges
+     * accepted by the edge predicate whose source and target are in the view.
+     * It is kept up to date as elements are added to the graph and when their
+     * attributes, label or weight change. A change takes the write lock to
+     * update the view, unless it's made while holding a read lock, in which
+     * case it's applied at the next write lock.
+     * <p>
+     * A null node predicate creates an edge-only view and a null edge
+     * predicate a node-only view, where edges between view nodes are
+     * included. At least one predicate should be non-null.
+     *
+     * @param nodePredicate node predicate or null
+     * @param edgePredicate edge predicate or null
+     * @return newly created graph view
+     * @throws IllegalArgumentException if both predicates are null
+     */
+    public GraphView createView(ElementPredicate<Node> nodePredicate, ElementPredicate<Edge> edgePredicate);
+
     /**
      * Creates a new graph view based on an existing view.
      *
@@ -359,7 +380,11 @@ public interface GraphModel {
      * Sets the given time interval to the view.
      * <p>
      * Each view can be configured with a time interval to filter a graph over
-     * time.
+     * time. Once set, the view only contains elements which have at least one
+     * timestamp within the interval, or no time information at all. Edges are
+     * also filtered out if any of their extremities is. Iterators, counts,
+     * degrees and <code>contains()</code> all apply the interval, though
+     * counts and degrees are then computed by iterating over the view.
      *
      * @param view the view to configure
      * @param interval the time interval
@@ -418,6 +443,17 @@ public interface GraphModel {
      */
     public Index<Edge> getEdgeIndex(GraphView view);
 
+    /**
+     * Gets the statistics of the given node or edge column.
+     * <p>
+     * Statistics are cached and only computed again once the column's values
+     * or the elements change.
+     *
+     * @param column a non-array, non-dynamic column of the node or edge table
+     * @return the column statistics
+     */
+    public ColumnStatistics getColumnStatistics(Column column);
+
     /**
      * Gets the node time index.
      *
@@ -527,10 +563,82 @@ public interface GraphModel {
     /**
      * Sets a new configuration for this graph model.
      * <p>
-     * Note that this method only works if the graph model is empty.
+     * Note that this method only works if the graph model is empty. The lock
+     * policy can't be changed, it is set when the graph model is created.
      *
      * @param configuration new configuration
-     * @throws IllegalStateException if the graph model isn't empty
+     * @throws IllegalStateException if the graph model isn't empty or the
+     * configuration has a different lock policy
      */
     public void setConfiguration(Configuration configuration);
+
+    /**
+     * Starts a batch of modifications.
+     * <p>
+     * Until {@link #commit()} is called, graph and column versions are
+     * incremented only once, attribute index updates are applied in bulk per
+     * column and edges added to node-only views are propagated once. The
+     * write lock is held by the calling thread until the batch is committed.
+     * <p>
+     * Batches can be nested, in which case only the outermost commit applies
+     * the accumulated changes.
+     * <p>
+     * Each batch must be ended with {@link #commit()} or {@link #abortBatch()},
+     * otherwise the write lock is never released:
+     * <pre>
+     * graphModel.beginBatch();
+     * try {
+     *     //Modifications
+     *     graphModel.commit();
+     * } catch (RuntimeException e) {
+     *     graphModel.abortBatch();
+     *     throw e;
+     * }
+     * </pre>
+     */
+    public void beginBatch();
+
+    /**
+     * Commits the current batch of modifications and releases the write lock
+     * acquired by {@link #beginBatch()}.
+     * <p>
+     * The batch is ended and the lock released even if applying the
+     * accumulated changes fails, so this method can be called from a
+     * <code>finally</code> block.
+     *
+     * @throws IllegalStateException if no batch is in progress
+     */
+    public void commit();
+
+    /**
+     * Ends the current batch after a failure and releases the write lock
+     * acquired by {@link #beginBatch()}.
+     * <p>
+     * Modifications made within the batch aren't rolled back. Versions are
+     * incremented as on commit, but the attribute index updates recorded
+     * during the batch are discarded and the indices are rebuilt from the
+     * element values instead. When batches are nested, the outermost batch is
+     * ended this way.
+     *
+     * @throws IllegalStateException if no batch is in progress
+     */
+    public void abortBatch();
+
+    /**
+     * Returns the lock metrics of the graph lock.
+     * <p>
+     * Metrics are disabled by default, see {@link LockMetrics#setEnabled(boolean)
+     * }.
+     *
+     * @return graph lock metrics
+     */
+    public LockMetrics getGraphLockMetrics();
+
+    /**
+     * Returns the lock metrics of the given table's lock.
+     *
+     * @param table table, either the node or the edge table
+     * @return table lock metrics, or null if the table isn't locked
+     */
+    public LockMetrics getTableLockMetrics(Table table);
 }
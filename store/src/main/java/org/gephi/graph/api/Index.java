@@ -16,6 +16,7 @@
 package org.gephi.graph.api;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * An index is associated with each table and keeps track of each unique value
@@ -38,14 +39,203 @@ public interface Index<T extends Element> {
     /**
      * Gets an Iterable of all elements in the index with <em>value</em> in the
      * given <em>column</em>.
+     * <p>
+     * The result is a snapshot taken when called, so writers aren't blocked
+     * while it is iterated.
      *
      * @param column the column to get values
      * @param value the value
      * @return an iterable with element with <em>value</em> in <em>column</em>,
-     * or null if value not found
+     * empty if value not found
      */
     public Iterable<T> get(Column column, Object value);
 
+    /**
+     * Gets an Iterable of all elements in the index with a value between
+     * <em>low</em> and <em>high</em> in the given <em>column</em>.
+     * <p>
+     * Only applies for numerical, non-array columns. Elements are returned in
+     * ascending value order, as a snapshot taken when called. A null bound
+     * leaves that side of the range open. Null values are never part of a
+     * range.
+     * <p>
+     * Dynamic number columns with a dynamic index are also supported, on the
+     * values estimated at this index's view interval.
+     *
+     * @param column the column to get values
+     * @param low the lower bound, or null
+     * @param high the upper bound, or null
+     * @param lowInclusive true if elements with value <em>low</em> are included
+     * @param highInclusive true if elements with value <em>high</em> are
+     * included
+     * @return an iterable with elements with a value in the range
+     * @see Table#addDynamicIndex(org.gephi.graph.api.Column)
+     */
+    public Iterable<T> get(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive);
+
+    /**
+     * Counts the elements in the index with a value between <em>low</em> and
+     * <em>high</em> in the given <em>column</em>.
+     * <p>
+     * Only applies for numerical, non-array columns, or dynamic number columns
+     * with a dynamic index. A null bound leaves that side of the range open.
+     *
+     * @param column the column to count values
+     * @param low the lower bound, or null
+     * @param high the upper bound, or null
+     * @param lowInclusive true if elements with value <em>low</em> are counted
+     * @param highInclusive true if elements with value <em>high</em> are
+     * counted
+     * @return the number of elements with a value in the range
+     */
+    public int count(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive);
+
+    /**
+     * Gets the elements in the index with all the given <em>values</em> in the
+     * given <em>columns</em>.
+     * <p>
+     * The most selective index is picked to answer the query, which can be a
+     * composite index whose first columns are among <em>columns</em> or the
+     * single-column index with the fewest matching elements. The other
+     * conditions are checked on each candidate element. All columns must be
+     * indexed, non-array columns. The result is a copy.
+     *
+     * @param columns the columns
+     * @param values the values, one for each column
+     * @return an iterable with elements matching all values, never null
+     * @see Table#addCompositeIndex(org.gephi.graph.api.Column[])
+     */
+    public Iterable<T> get(Column[] columns, Object[] values);
+
+    /**
+     * Gets the elements in the index with the given <em>values</em> in all but
+     * the last of <em>columns</em>, and a value between <em>low</em> and
+     * <em>high</em> in the last column.
+     * <p>
+     * The last column must be numerical. A composite index is used when its
+     * first columns are among the equality columns and its next column is the
+     * range column. The result is a copy.
+     *
+     * @param columns the columns, the last one receiving the range
+     * @param values the values, one for each column but the last
+     * @param low the lower bound, or null
+     * @param high the upper bound, or null
+     * @param lowInclusive true if elements with value <em>low</em> are included
+     * @param highInclusive true if elements with value <em>high</em> are
+     * included
+     * @return an iterable with elements matching all conditions, never null
+     */
+    public Iterable<T> get(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive);
+
+    /**
+     * Counts the elements in the index with all the given <em>values</em> in
+     * the given <em>columns</em>.
+     *
+     * @param columns the columns
+     * @param values the values, one for each column
+     * @return the number of elements matching all values
+     * @see #get(org.gephi.graph.api.Column[], java.lang.Object[])
+     */
+    public int count(Column[] columns, Object[] values);
+
+    /**
+     * Counts the elements in the index with the given <em>values</em> in all
+     * but the last of <em>columns</em>, and a value between <em>low</em> and
+     * <em>high</em> in the last column.
+     *
+     * @param columns the columns, the last one receiving the range
+     * @param values the values, one for each column but the last
+     * @param low the lower bound, or null
+     * @param high the upper bound, or null
+     * @param lowInclusive true if elements with value <em>low</em> are counted
+     * @param highInclusive true if elements with value <em>high</em> are
+     * counted
+     * @return the number of elements matching all conditions
+     */
+    public int count(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive);
+
+    /**
+     * Returns the elements of the index in ascending value order of the given
+     * <em>column</em>.
+     * <p>
+     * Only applies for numerical, non-array columns. Elements with a null
+     * value come first, as in the index. The result is a snapshot taken when
+     * called, so writers aren't blocked while it is iterated.
+     *
+     * @param column the column to order elements by
+     * @return an iterable with all elements in ascending order
+     */
+    public ElementIterable<T> iterateAscending(Column column);
+
+    /**
+     * Returns the elements of the index in descending value order of the
+     * given <em>column</em>.
+     * <p>
+     * Only applies for numerical, non-array columns. Elements with a null
+     * value come last. The result is a snapshot taken when called, so
+     * writers aren't blocked while it is iterated.
+     *
+     * @param column the column to order elements by
+     * @return an iterable with all elements in descending order
+     */
+    public ElementIterable<T> iterateDescending(Column column);
+
+    /**
+     * Returns the <em>k</em> elements with the largest values in the given
+     * <em>column</em>, in descending value order.
+     * <p>
+     * Only applies for numerical, non-array columns. Elements with a null
+     * value are never returned. Ties are broken by the index order.
+     *
+     * @param column the column to rank elements by
+     * @param k the maximum number of elements to return
+     * @return a list of at most <em>k</em> elements
+     */
+    public List<T> topK(Column column, int k);
+
+    /**
+     * Gets the elements with a value starting with <em>prefix</em> in the
+     * given text indexed <em>column</em>.
+     * <p>
+     * The comparison ignores case. For array columns, an element matches if
+     * any of its values does. The result is a copy.
+     *
+     * @param column the text indexed column
+     * @param prefix the prefix
+     * @return an iterable with the matching elements
+     * @throws UnsupportedOperationException if the column isn't text indexed
+     */
+    public Iterable<T> getByPrefix(Column column, String prefix);
+
+    /**
+     * Gets the elements with a value containing <em>text</em> in the given
+     * text indexed <em>column</em>.
+     * <p>
+     * The comparison ignores case. For array columns, an element matches if
+     * any of its values does. The result is a copy.
+     *
+     * @param column the text indexed column
+     * @param text the text to find
+     * @return an iterable with the matching elements
+     * @throws UnsupportedOperationException if the column isn't text indexed
+     */
+    public Iterable<T> getBySubstring(Column column, String text);
+
+    /**
+     * Gets the elements with a value containing all the tokens of
+     * <em>text</em> in the given text indexed <em>column</em>.
+     * <p>
+     * Tokens are the runs of letters and digits, compared ignoring case. For
+     * array columns, an element matches if any of its values does. The result
+     * is a copy.
+     *
+     * @param column the text indexed column
+     * @param text the tokens to find
+     * @return an iterable with the matching elements
+     * @throws UnsupportedOperationException if the column isn't text indexed
+     */
+    public Iterable<T> getByTokens(Column column, String text);
+
     /**
      * Returns all unique values in the given column.
      *
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Collects contention and hold-time statistics on a lock.
+ * <p>
+ * Metrics are disabled by default and only collected once enabled with
+ * {@link #setEnabled(boolean) }.
+ * <p>
+ * Time histograms have {@link #HISTOGRAM_SIZE} buckets. The first bucket
+ * counts durations under one microsecond and bucket <code>i</code> counts
+ * durations between <code>2^(i-1)</code> and <code>2^i</code> microseconds.
+ * The last bucket also counts all longer durations.
+ * <p>
+ * Exclusive locks only report write acquisitions.
+ */
+public interface LockMetrics {
+
+    /**
+     * Number of buckets in time histograms.
+     */
+    public static final int HISTOGRAM_SIZE = 32;
+
+    /**
+     * Returns true if metrics are being collected.
+     *
+     * @return true if enabled, false otherwise
+     */
+    public boolean isEnabled();
+
+    /**
+     * Enables or disables the collection of metrics.
+     *
+     * @param enabled true to enable, false to disable
+     */
+    public void setEnabled(boolean enabled);
+
+    /**
+     * Resets all counts and histograms.
+     */
+    public void reset();
+
+    /**
+     * Returns the number of read lock acquisitions.
+     *
+     * @return read lock acquisitions count
+     */
+    public long getReadLockCount();
+
+    /**
+     * Returns the number of write lock acquisitions.
+     *
+     * @return write lock acquisitions count
+     */
+    public long getWriteLockCount();
+
+    /**
+     * Returns the histogram of wait times for read lock acquisitions.
+     *
+     * @return read wait time histogram
+     */
+    public long[] getReadWaitTimeHistogram();
+
+    /**
+     * Returns the histogram of wait times for write lock acquisitions.
+     *
+     * @return write wait time histogram
+     */
+    public long[] getWriteWaitTimeHistogram();
+
+    /**
+     * Returns the histogram of read lock hold times.
+     *
+     * @return read hold time histogram
+     */
+    public long[] getReadHoldTimeHistogram();
+
+    /**
+     * Returns the histogram of write lock hold times.
+     *
+     * @return write hold time histogram
+     */
+    public long[] getWriteHoldTimeHistogram();
+
+    /**
+     * Returns the thread holding the lock for the longest time.
+     *
+     * @return longest holder thread, or null if the lock is not held
+     */
+    public Thread getLongestHolder();
+
+    /**
+     * Returns for how long the longest holder has been holding the lock.
+     *
+     * @return hold time in nanoseconds, or zero if the lock is not held
+     */
+    public long getLongestHoldTime();
+
+    /**
+     * Returns the current stack trace of the longest holder.
+     *
+     * @return longest holder stack trace, or an empty array if the lock is
+     * not held
+     */
+    public StackTraceElement[] getLongestHolderStackTrace();
+
+    /**
+     * Returns the estimated number of threads waiting to acquire the read
+     * lock.
+     *
+     * @return queued readers count
+     */
+    public int getQueuedReaders();
+
+    /**
+     * Returns the estimated number of threads waiting to acquire the write
+     * lock.
+     *
+     * @return queued writers count
+     */
+    public int getQueuedWriters();
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Scheduling policies of the graph lock between readers and writers.
+ * <p>
+ * The policy decides who gets the lock next when both readers and writers are
+ * waiting. It's set on the {@link Configuration} before the <em>GraphModel</em>
+ * is created.
+ *
+ * @see Configuration
+ */
+public enum LockPolicy {
+    /**
+     * No ordering guarantee (default).
+     * <p>
+     * Best throughput but writers may wait a long time under constant reader
+     * traffic.
+     */
+    UNFAIR,
+    /**
+     * Threads get the lock in approximately arrival order.
+     */
+    FAIR,
+    /**
+     * New readers wait as long as a writer is waiting.
+     * <p>
+     * Bounds the write latency but readers may starve under constant writer
+     * traffic.
+     */
+    WRITER_PREFERRING,
+    /**
+     * Read and write phases alternate.
+     * <p>
+     * New readers wait for at most one write phase and readers waiting when a
+     * write phase ends all get the lock before the next writer.
+     */
+    PHASE_FAIR;
+}
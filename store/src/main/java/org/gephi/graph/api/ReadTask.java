@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Task executed while holding a graph's read lock.
+ *
+ * @param <T> result type
+ * @see Graph#read(org.gephi.graph.api.ReadTask)
+ */
+public interface ReadTask<T> {
+
+    /**
+     * Runs the task.
+     *
+     * @param graph graph the task is run on
+     * @return task result
+     */
+    public T run(Graph graph);
+}
@@ -15,6 +15,9 @@
  */
 package org.gephi.graph.api;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 /**
  * The table is the container for columns. Column ids in all methods are
  * converted to lower case.
@@ -64,6 +67,26 @@ public interface Table extends ColumnIterable {
      */
     public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed);
 
+    /**
+     * Adds a new column to this table, with an optional text index.
+     * <p>
+     * A text index can be added to indexed <code>String</code> and
+     * <code>String[]</code> columns. It enables prefix, substring and token
+     * search through the table's index.
+     *
+     * @param id the unique column identifier
+     * @param title the column title
+     * @param type the column type
+     * @param origin the column's origin
+     * @param defaultValue the default value
+     * @param indexed whether the column should be indexed
+     * @param textIndexed whether the column should have a text index
+     * @return the newly created column
+     * @throws IllegalArgumentException if a text index is requested for a non
+     * string or non indexed column
+     */
+    public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed, boolean textIndexed);
+
     /**
      * Returns the column at the given index.
      *
@@ -102,6 +125,109 @@ public interface Table extends ColumnIterable {
      */
     public void removeColumn(String id);
 
+    /**
+     * Adds an index to an existing column that isn't indexed.
+     * <p>
+     * If <code>lazy</code> is true, the index is only built on the first query
+     * on this column and writes to the column aren't maintained until then.
+     * Otherwise, it is built right away. The column is reported as indexed
+     * once its index is built.
+     * <p>
+     * Only data columns with static values can be indexed after creation.
+     *
+     * @param column the column to index
+     * @param lazy true to build the index on the first query, false to build
+     * it now
+     * @throws IllegalArgumentException if the column is already indexed,
+     * doesn't belong to this table or can't be indexed
+     */
+    public void addIndex(Column column, boolean lazy);
+
+    /**
+     * Builds an index for an existing column that isn't indexed, as a task
+     * submitted to <code>executor</code>.
+     * <p>
+     * The build snapshots the existing values and replays the writes made
+     * in the meantime before the index becomes visible. Queries on this column
+     * made before are answered by scanning the elements.
+     *
+     * @param column the column to index
+     * @param executor the executor to run the build on
+     * @return a future completed when the index is visible
+     * @throws IllegalArgumentException if the column is already indexed,
+     * doesn't belong to this table or can't be indexed
+     */
+    public Future<?> addIndex(Column column, ExecutorService executor);
+
+    /**
+     * Adds a composite index on the given columns, in this order.
+     * <p>
+     * A composite index answers queries with equality on its first columns and
+     * optionally a range on the next one, for instance equality on the first
+     * and a range on the second column. It is maintained along with the
+     * single-column indexes and used by
+     * {@link Index#get(org.gephi.graph.api.Column[], java.lang.Object[])}.
+     * Columns must be indexed, non-array columns of this table.
+     *
+     * @param columns the columns, at least two
+     * @throws IllegalArgumentException if the index already exists or a column
+     * isn't valid
+     */
+    public void addCompositeIndex(Column... columns);
+
+    /**
+     * Returns true if this table has a composite index on the given columns,
+     * in this order.
+     *
+     * @param columns the columns
+     * @return true if the composite index exists, false otherwise
+     */
+    public boolean hasCompositeIndex(Column... columns);
+
+    /**
+     * Removes the composite index on the given columns, in this order.
+     * <p>
+     * Composite indexes are also removed when one of their columns is removed.
+     *
+     * @param columns the columns
+     * @throws IllegalArgumentException if the index doesn't exist
+     */
+    public void removeCompositeIndex(Column... columns);
+
+    /**
+     * Adds an index on the estimated values of a dynamic number column.
+     * <p>
+     * Values are estimated with the column's estimator at the time interval
+     * of each view, and indexed so range queries like
+     * {@link Index#get(org.gephi.graph.api.Column, java.lang.Number, java.lang.Number, boolean, boolean)}
+     * don't evaluate every element. Estimated values are doubles, and elements
+     * without a value in the interval are indexed as null. The index of each
+     * view is built on its first query and updated incrementally after, when
+     * values change or the view's interval shifts.
+     *
+     * @param column the dynamic number column
+     * @throws IllegalArgumentException if the column already has a dynamic
+     * index, isn't a dynamic number column or doesn't belong to this table
+     */
+    public void addDynamicIndex(Column column);
+
+    /**
+     * Returns true if the given column has a dynamic index.
+     *
+     * @param column the column
+     * @return true if the column has a dynamic index, false otherwise
+     */
+    public boolean hasDynamicIndex(Column column);
+
+    /**
+     * Removes the dynamic index of the given column.
+     *
+     * @param column the column
+     * @throws IllegalArgumentException if the column doesn't have a dynamic
+     * index
+     */
+    public void removeDynamicIndex(Column column);
+
     /**
      * Counts the columns in this table.
      *
@@ -34,7 +34,7 @@ import org.joda.time.DateTimeZone;
  *
  * @param <T> Value type
  */
-public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
+public abstract class IntervalMap<T> implements TimeMap<Interval, T>, Cloneable {
 
     protected double[] array;
     protected int size = 0;
@@ -169,7 +169,7 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
     protected Object toNativeArray() {
         Object values = getValuesArray();
         int length = Array.getLength(values);
-        if (size < length - 1) {
+        if (size < length) {
             Object res = Array.newInstance(values.getClass().getComponentType(), size);
             System.arraycopy(values, 0, res, 0, size);
             return res;
@@ -387,6 +387,24 @@ public abstract class IntervalMap<T> implements TimeMap<Interval, T> {
         throw new IllegalArgumentException("Overlapping intervals aren't allowed");
     }
 
+    @Override
+    public IntervalMap<T> copy() {
+        IntervalMap<T> copy;
+        try {
+            copy = (IntervalMap<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+        copy.array = new double[size * 2 + 3];
+        System.arraycopy(array, 0, copy.array, 0, size * 2);
+        Arrays.fill(copy.array, size * 2, copy.array.length, Double.MAX_VALUE);
+        Object values = getValuesArray();
+        Object valuesCopy = Array.newInstance(values.getClass().getComponentType(), size + 1);
+        System.arraycopy(values, 0, valuesCopy, 0, size);
+        copy.setValuesArray(valuesCopy);
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         int hash = 7;
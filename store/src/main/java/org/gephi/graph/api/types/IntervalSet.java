@@ -280,6 +280,16 @@ public final class IntervalSet implements TimeSet<Interval> {
         throw new IllegalArgumentException("Overlapping intervals aren't allowed");
     }
 
+    @Override
+    public IntervalSet copy() {
+        IntervalSet copy = new IntervalSet();
+        copy.array = new double[size * 2 + 3];
+        System.arraycopy(array, 0, copy.array, 0, size * 2);
+        Arrays.fill(copy.array, size * 2, copy.array.length, Double.MAX_VALUE);
+        copy.size = size;
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         int hash = 7;
@@ -94,6 +94,16 @@ public interface TimeMap<K, V> {
      */
     public void clear();
 
+    /**
+     * Returns a copy of this map, which shares no state with it.
+     * <p>
+     * The copy has room for one more key so a put right after copying
+     * doesn't resize it.
+     *
+     * @return a copy of this map
+     */
+    public TimeMap<K, V> copy();
+
     /**
      * Returns the value type class.
      *
@@ -83,4 +83,14 @@ public interface TimeSet<K> {
      * Empties this set.
      */
     public void clear();
+
+    /**
+     * Returns a copy of this set, which shares no state with it.
+     * <p>
+     * The copy has room for one more key so an add right after copying
+     * doesn't resize it.
+     *
+     * @return a copy of this set
+     */
+    public TimeSet<K> copy();
 }
@@ -35,7 +35,7 @@ import org.joda.time.DateTimeZone;
  *
  * @param <T> Value type
  */
-public abstract class TimestampMap<T> implements TimeMap<Double, T> {
+public abstract class TimestampMap<T> implements TimeMap<Double, T>, Cloneable {
 
     protected double[] array;
     protected int size = 0;
@@ -170,7 +170,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
     protected Object toPrimitiveArray() {
         Object values = getValuesArray();
         int length = Array.getLength(values);
-        if (size < length - 1) {
+        if (size < length) {
             Object res = Array.newInstance(values.getClass().getComponentType(), size);
             System.arraycopy(values, 0, res, 0, size);
             return res;
@@ -283,6 +283,24 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         setValuesArray(Array.newInstance(getValuesArray().getClass().getComponentType(), 0));
     }
 
+    @Override
+    public TimestampMap<T> copy() {
+        TimestampMap<T> copy;
+        try {
+            copy = (TimestampMap<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+        copy.array = new double[size + 1];
+        System.arraycopy(array, 0, copy.array, 0, size);
+        Arrays.fill(copy.array, size, copy.array.length, Double.MAX_VALUE);
+        Object values = getValuesArray();
+        Object valuesCopy = Array.newInstance(values.getClass().getComponentType(), size + 1);
+        System.arraycopy(values, 0, valuesCopy, 0, size);
+        copy.setValuesArray(valuesCopy);
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         int hash = 7;
@@ -308,7 +326,7 @@ public abstract class TimestampMap<T> implements TimeMap<Double, T> {
         if (this.size != other.size) {
             return false;
         }
-        for (int i = 0; i < this.array.length && i < other.array.length; i++) {
+        for (int i = 0; i < size; i++) {
             double i1 = this.array[i];
             double i2 = other.array[i];
             if (i1 != i2) {
@@ -86,8 +86,8 @@ public final class TimestampSet implements TimeSet<Double> {
 
     @Override
     public boolean contains(Double timestamp) {
-        int index = Arrays.binarySearch(array, timestamp);
-        return index >= 0 && index < size;
+        int index = Arrays.binarySearch(array, 0, size, timestamp);
+        return index >= 0;
     }
 
     @Override
@@ -157,6 +157,16 @@ public final class TimestampSet implements TimeSet<Double> {
         return -1;
     }
 
+    @Override
+    public TimestampSet copy() {
+        TimestampSet copy = new TimestampSet();
+        copy.array = new double[size + 2];
+        System.arraycopy(array, 0, copy.array, 0, size);
+        Arrays.fill(copy.array, size, copy.array.length, Double.MAX_VALUE);
+        copy.size = size;
+        return copy;
+    }
+
     @Override
     public int hashCode() {
         int hash = 7;
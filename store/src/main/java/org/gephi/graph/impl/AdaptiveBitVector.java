@@ -0,0 +1,616 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import cern.colt.bitvector.BitVector;
+import java.util.Arrays;
+
+public class AdaptiveBitVector {
+
+    //Containers
+    protected static final int CONTAINER_BITS = 16;
+    protected static final int CONTAINER_WORDS = 1 << (CONTAINER_BITS - 6);
+    protected static final int ARRAY_CONTAINER_MAX = 4096;
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final char[][] EMPTY_ARRAYS = new char[0][];
+    private static final long[][] EMPTY_BITMAPS = new long[0][];
+    //Data
+    protected int size;
+    protected int cardinality;
+    //Dense
+    protected long[] words;
+    //Compressed
+    protected int containerCount;
+    protected int[] keys;
+    protected char[][] arrays;
+    protected long[][] bitmaps;
+    protected int[] cardinalities;
+    //Copy-on-write
+    protected boolean shared;
+    protected boolean[] sharedContainers;
+    //Filled, all bits below cardinality are set and nothing is allocated
+    protected boolean filled;
+
+    public AdaptiveBitVector(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size=" + size);
+        }
+        this.size = size;
+        resetContainers();
+    }
+
+    public static AdaptiveBitVector fromBitVector(BitVector bitVector) {
+        if (bitVector == null) {
+            return null;
+        }
+        AdaptiveBitVector res = new AdaptiveBitVector(bitVector.size());
+        res.words = Arrays.copyOf(bitVector.elements(), wordCount(res.size));
+        res.maskLastWord();
+        res.cardinality = bitCount(res.words);
+        res.checkCompress();
+        return res;
+    }
+
+    public BitVector toBitVector() {
+        long[] elements;
+        if (words != null) {
+            elements = Arrays.copyOf(words, wordCount(size));
+        } else {
+            elements = new long[wordCount(size)];
+            for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+                elements[i >>> 6] |= 1l << i;
+            }
+        }
+        return new BitVector(elements, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isDense() {
+        return words != null;
+    }
+
+    public boolean isFilled() {
+        return filled;
+    }
+
+    public long[] elements() {
+        return words;
+    }
+
+    public void clearWordBits(int wordIndex, long bits) {
+        long cleared = words[wordIndex] & bits;
+        if (cleared != 0) {
+            unshare();
+            words[wordIndex] &= ~bits;
+            cardinality -= Long.bitCount(cleared);
+        }
+    }
+
+    public void ensureSize(int newSize) {
+        if (newSize > size) {
+            if (words != null) {
+                words = Arrays.copyOf(words, wordCount(newSize));
+                shared = false;
+            }
+            size = newSize;
+        }
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        if (filled) {
+            return index < cardinality;
+        }
+        if (words != null) {
+            return (words[index >>> 6] & (1l << index)) != 0;
+        }
+        int c = containerIndex(index >>> CONTAINER_BITS);
+        if (c < 0) {
+            return false;
+        }
+        char low = (char) index;
+        if (bitmaps[c] != null) {
+            return (bitmaps[c][low >>> 6] & (1l << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[c], 0, cardinalities[c], low) >= 0;
+    }
+
+    public void set(int index) {
+        checkIndex(index);
+        if (filled) {
+            if (index < cardinality) {
+                return;
+            } else if (index == cardinality) {
+                cardinality++;
+                return;
+            }
+            materialize();
+        }
+        if (words != null) {
+            long mask = 1l << index;
+            int w = index >>> 6;
+            if ((words[w] & mask) == 0) {
+                unshare();
+                words[w] |= mask;
+                cardinality++;
+            }
+            return;
+        }
+        int key = index >>> CONTAINER_BITS;
+        char low = (char) index;
+        int c = containerIndex(key);
+        if (c >= 0 && get(index)) {
+            return;
+        }
+        unshare();
+        if (c < 0) {
+            c = insertContainer(-c - 1, key);
+        } else {
+            unshareContainer(c);
+        }
+        if (bitmaps[c] != null) {
+            bitmaps[c][low >>> 6] |= 1l << low;
+        } else {
+            char[] array = arrays[c];
+            int card = cardinalities[c];
+            int pos = -Arrays.binarySearch(array, 0, card, low) - 1;
+            if (card == ARRAY_CONTAINER_MAX) {
+                toBitmapContainer(c);
+                bitmaps[c][low >>> 6] |= 1l << low;
+            } else {
+                if (card == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_CONTAINER_MAX, card * 2));
+                    arrays[c] = array;
+                }
+                System.arraycopy(array, pos, array, pos + 1, card - pos);
+                array[pos] = low;
+            }
+        }
+        cardinalities[c]++;
+        cardinality++;
+        checkDense();
+    }
+
+    public void clear(int index) {
+        checkIndex(index);
+        if (filled) {
+            if (index >= cardinality) {
+                return;
+            } else if (index == cardinality - 1) {
+                cardinality--;
+                return;
+            }
+            materialize();
+        }
+        if (words != null) {
+            long mask = 1l << index;
+            int w = index >>> 6;
+            if ((words[w] & mask) != 0) {
+                unshare();
+                words[w] &= ~mask;
+                cardinality--;
+                checkCompress();
+            }
+            return;
+        }
+        int c = containerIndex(index >>> CONTAINER_BITS);
+        if (c < 0 || !get(index)) {
+            return;
+        }
+        unshare();
+        unshareContainer(c);
+        char low = (char) index;
+        if (bitmaps[c] != null) {
+            bitmaps[c][low >>> 6] &= ~(1l << low);
+            cardinalities[c]--;
+            if (cardinalities[c] < ARRAY_CONTAINER_MAX / 2) {
+                toArrayContainer(c);
+            }
+        } else {
+            char[] array = arrays[c];
+            int card = cardinalities[c];
+            int pos = Arrays.binarySearch(array, 0, card, low);
+            System.arraycopy(array, pos + 1, array, pos, card - pos - 1);
+            cardinalities[c]--;
+            if (cardinalities[c] == 0) {
+                removeContainer(c);
+            }
+        }
+        cardinality--;
+    }
+
+    public void clear() {
+        words = null;
+        cardinality = 0;
+        shared = false;
+        filled = false;
+        resetContainers();
+    }
+
+    public void not() {
+        if (filled && cardinality == size) {
+            clear();
+            return;
+        } else if (!filled && cardinality == 0) {
+            clear();
+            filled = true;
+            cardinality = size;
+            return;
+        }
+        toDense();
+        unshare();
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ~words[i];
+        }
+        maskLastWord();
+        cardinality = size - cardinality;
+        checkCompress();
+    }
+
+    public int nextSetBit(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= size) {
+            return -1;
+        }
+        if (filled) {
+            return from < cardinality ? from : -1;
+        }
+        if (words != null) {
+            int w = from >>> 6;
+            long word = words[w] & (-1l << from);
+            while (true) {
+                if (word != 0) {
+                    return (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+                if (++w >= words.length) {
+                    return -1;
+                }
+                word = words[w];
+            }
+        }
+        int key = from >>> CONTAINER_BITS;
+        int c = containerIndex(key);
+        if (c < 0) {
+            c = -c - 1;
+        }
+        for (; c < containerCount; c++) {
+            int base = keys[c] << CONTAINER_BITS;
+            int low = keys[c] == key ? from & (CONTAINER_WORDS * 64 - 1) : 0;
+            if (bitmaps[c] != null) {
+                long[] bitmap = bitmaps[c];
+                int w = low >>> 6;
+                long word = bitmap[w] & (-1l << low);
+                while (true) {
+                    if (word != 0) {
+                        return base + (w << 6) + Long.numberOfTrailingZeros(word);
+                    }
+                    if (++w >= CONTAINER_WORDS) {
+                        break;
+                    }
+                    word = bitmap[w];
+                }
+            } else {
+                int pos = Arrays.binarySearch(arrays[c], 0, cardinalities[c], (char) low);
+                if (pos < 0) {
+                    pos = -pos - 1;
+                }
+                if (pos < cardinalities[c]) {
+                    return base + arrays[c][pos];
+                }
+            }
+        }
+        return -1;
+    }
+
+    public AdaptiveBitVector copy() {
+        AdaptiveBitVector copy = new AdaptiveBitVector(size);
+        copy.cardinality = cardinality;
+        copy.words = words;
+        copy.containerCount = containerCount;
+        copy.keys = keys;
+        copy.cardinalities = cardinalities;
+        copy.arrays = arrays;
+        copy.bitmaps = bitmaps;
+        copy.filled = filled;
+        copy.shared = true;
+        shared = true;
+        if (words == null) {
+            copy.sharedContainers = new boolean[keys.length];
+            Arrays.fill(copy.sharedContainers, 0, containerCount, true);
+            sharedContainers = Arrays.copyOf(copy.sharedContainers, keys.length);
+        }
+        return copy;
+    }
+
+    public long getMemorySize() {
+        if (words != null) {
+            return words.length * 8l;
+        }
+        long res = 0;
+        for (int c = 0; c < containerCount; c++) {
+            res += bitmaps[c] != null ? CONTAINER_WORDS * 8l : arrays[c].length * 2l;
+        }
+        return res;
+    }
+
+    protected void checkDense() {
+        if (words == null && cardinality > (size >>> 4)) {
+            toDense();
+        }
+    }
+
+    protected void checkCompress() {
+        if (words != null && cardinality < (size >>> 5)) {
+            toCompressed();
+        }
+    }
+
+    protected void toDense() {
+        materialize();
+        if (words != null) {
+            return;
+        }
+        long[] dense = new long[wordCount(size)];
+        shared = false;
+        for (int c = 0; c < containerCount; c++) {
+            int base = keys[c] << CONTAINER_BITS;
+            if (bitmaps[c] != null) {
+                int offset = base >>> 6;
+                System.arraycopy(bitmaps[c], 0, dense, offset, Math.min(CONTAINER_WORDS, dense.length - offset));
+            } else {
+                char[] array = arrays[c];
+                int card = cardinalities[c];
+                for (int i = 0; i < card; i++) {
+                    int index = base + array[i];
+                    dense[index >>> 6] |= 1l << index;
+                }
+            }
+        }
+        resetContainers();
+        words = dense;
+    }
+
+    protected void toCompressed() {
+        materialize();
+        if (words == null) {
+            return;
+        }
+        long[] dense = words;
+        words = null;
+        shared = false;
+        resetContainers();
+        for (int offset = 0; offset < dense.length; offset += CONTAINER_WORDS) {
+            int end = Math.min(dense.length, offset + CONTAINER_WORDS);
+            int card = 0;
+            for (int w = offset; w < end; w++) {
+                card += Long.bitCount(dense[w]);
+            }
+            if (card == 0) {
+                continue;
+            }
+            int c = insertContainer(containerCount, offset / CONTAINER_WORDS);
+            cardinalities[c] = card;
+            if (card > ARRAY_CONTAINER_MAX) {
+                long[] bitmap = new long[CONTAINER_WORDS];
+                System.arraycopy(dense, offset, bitmap, 0, end - offset);
+                bitmaps[c] = bitmap;
+                arrays[c] = null;
+            } else {
+                char[] array = new char[card];
+                int i = 0;
+                for (int w = offset; w < end; w++) {
+                    long word = dense[w];
+                    while (word != 0) {
+                        array[i++] = (char) (((w - offset) << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                arrays[c] = array;
+            }
+        }
+    }
+
+    private void toBitmapContainer(int c) {
+        long[] bitmap = new long[CONTAINER_WORDS];
+        char[] array = arrays[c];
+        int card = cardinalities[c];
+        for (int i = 0; i < card; i++) {
+            bitmap[array[i] >>> 6] |= 1l << array[i];
+        }
+        bitmaps[c] = bitmap;
+        arrays[c] = null;
+        if (sharedContainers != null) {
+            sharedContainers[c] = false;
+        }
+    }
+
+    private void toArrayContainer(int c) {
+        long[] bitmap = bitmaps[c];
+        char[] array = new char[cardinalities[c]];
+        int i = 0;
+        for (int w = 0; w < CONTAINER_WORDS; w++) {
+            long word = bitmap[w];
+            while (word != 0) {
+                array[i++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        arrays[c] = array;
+        bitmaps[c] = null;
+        if (sharedContainers != null) {
+            sharedContainers[c] = false;
+        }
+    }
+
+    private void materialize() {
+        if (filled) {
+            long[] dense = new long[wordCount(size)];
+            int fullWords = cardinality >>> 6;
+            Arrays.fill(dense, 0, fullWords, -1l);
+            if ((cardinality & 63) != 0) {
+                dense[fullWords] = (1l << cardinality) - 1;
+            }
+            filled = false;
+            shared = false;
+            words = dense;
+            checkCompress();
+        }
+    }
+
+    private void unshare() {
+        if (shared) {
+            if (words != null) {
+                words = Arrays.copyOf(words, words.length);
+            } else {
+                keys = Arrays.copyOf(keys, keys.length);
+                cardinalities = Arrays.copyOf(cardinalities, cardinalities.length);
+                arrays = Arrays.copyOf(arrays, arrays.length);
+                bitmaps = Arrays.copyOf(bitmaps, bitmaps.length);
+            }
+            shared = false;
+        }
+    }
+
+    private void unshareContainer(int c) {
+        if (sharedContainers != null && sharedContainers[c]) {
+            if (bitmaps[c] != null) {
+                bitmaps[c] = Arrays.copyOf(bitmaps[c], CONTAINER_WORDS);
+            } else {
+                arrays[c] = Arrays.copyOf(arrays[c], arrays[c].length);
+            }
+            sharedContainers[c] = false;
+        }
+    }
+
+    private int containerIndex(int key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private int insertContainer(int pos, int key) {
+        if (containerCount == keys.length) {
+            int newLength = Math.max(4, containerCount * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            cardinalities = Arrays.copyOf(cardinalities, newLength);
+            arrays = Arrays.copyOf(arrays, newLength);
+            bitmaps = Arrays.copyOf(bitmaps, newLength);
+            if (sharedContainers != null) {
+                sharedContainers = Arrays.copyOf(sharedContainers, newLength);
+            }
+        }
+        int length = containerCount - pos;
+        System.arraycopy(keys, pos, keys, pos + 1, length);
+        System.arraycopy(cardinalities, pos, cardinalities, pos + 1, length);
+        System.arraycopy(arrays, pos, arrays, pos + 1, length);
+        System.arraycopy(bitmaps, pos, bitmaps, pos + 1, length);
+        if (sharedContainers != null) {
+            System.arraycopy(sharedContainers, pos, sharedContainers, pos + 1, length);
+            sharedContainers[pos] = false;
+        }
+        keys[pos] = key;
+        cardinalities[pos] = 0;
+        arrays[pos] = new char[4];
+        bitmaps[pos] = null;
+        containerCount++;
+        return pos;
+    }
+
+    private void removeContainer(int c) {
+        int length = containerCount - c - 1;
+        System.arraycopy(keys, c + 1, keys, c, length);
+        System.arraycopy(cardinalities, c + 1, cardinalities, c, length);
+        System.arraycopy(arrays, c + 1, arrays, c, length);
+        System.arraycopy(bitmaps, c + 1, bitmaps, c, length);
+        if (sharedContainers != null) {
+            System.arraycopy(sharedContainers, c + 1, sharedContainers, c, length);
+        }
+        containerCount--;
+        arrays[containerCount] = null;
+        bitmaps[containerCount] = null;
+    }
+
+    private void resetContainers() {
+        containerCount = 0;
+        keys = EMPTY_INTS;
+        cardinalities = EMPTY_INTS;
+        arrays = EMPTY_ARRAYS;
+        bitmaps = EMPTY_BITMAPS;
+        sharedContainers = null;
+    }
+
+    private void maskLastWord() {
+        int rem = size & 63;
+        if (rem != 0 && words.length > 0) {
+            words[words.length - 1] &= (1l << rem) - 1;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index=" + index + " size=" + size);
+        }
+    }
+
+    private static int wordCount(int size) {
+        return size == 0 ? 0 : ((size - 1) >>> 6) + 1;
+    }
+
+    private static int bitCount(long[] words) {
+        int res = 0;
+        for (long word : words) {
+            res += Long.bitCount(word);
+        }
+        return res;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 29 * hash + size;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            hash = 29 * hash + i;
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final AdaptiveBitVector other = (AdaptiveBitVector) obj;
+        if (size != other.size || cardinality != other.cardinality) {
+            return false;
+        }
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (!other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -35,16 +35,25 @@ public class ColumnImpl implements Column {
     protected final Object defaultValue;
     protected final Origin origin;
     protected final ColumnVersion version;
-    protected final boolean indexed;
+    protected volatile boolean indexed;
+    protected final boolean textIndexed;
     protected final boolean dynamic;
     protected final boolean readOnly;
     protected Estimator estimator;
+    //Index build in progress, records the writes made while it runs
+    protected volatile IndexBuild indexBuild;
+    //Whether the estimated values of this dynamic column are indexed
+    protected volatile boolean dynamicIndexed;
     //Observers
     protected final List<ColumnObserverImpl> observers;
     //Store Id
     protected int storeId = ColumnStore.NULL_ID;
 
     public ColumnImpl(TableImpl table, String id, Class typeClass, String title, Object defaultValue, Origin origin, boolean indexed, boolean readOnly) {
+        this(table, id, typeClass, title, defaultValue, origin, indexed, false, readOnly);
+    }
+
+    public ColumnImpl(TableImpl table, String id, Class typeClass, String title, Object defaultValue, Origin origin, boolean indexed, boolean textIndexed, boolean readOnly) {
         if (id == null || id.isEmpty()) {
             throw new IllegalArgumentException("The column ID can't be null or empty");
         }
@@ -59,6 +68,7 @@ public class ColumnImpl implements Column {
         this.version = new ColumnVersion(this);
         this.origin = origin;
         this.indexed = indexed;
+        this.textIndexed = textIndexed;
         this.readOnly = readOnly;
         this.dynamic = TimeMap.class.isAssignableFrom(typeClass) || TimeSet.class.isAssignableFrom(typeClass);
         this.observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<ColumnObserverImpl>() : null;
@@ -109,6 +119,15 @@ public class ColumnImpl implements Column {
         return indexed;
     }
 
+    protected boolean isIndexTracked() {
+        return indexed || indexBuild != null;
+    }
+
+    @Override
+    public boolean isTextIndexed() {
+        return textIndexed;
+    }
+
     @Override
     public boolean isArray() {
         return typeClass.isArray();
@@ -192,7 +211,11 @@ public class ColumnImpl implements Column {
     }
 
     protected void incrementVersion() {
-        version.incrementAndGetVersion();
+        if (table != null && table.store.batch) {
+            table.store.deferVersion(this);
+        } else {
+            version.incrementAndGetVersion();
+        }
     }
 
     @Override
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnStatistics;
+
+public class ColumnStatisticsImpl implements ColumnStatistics {
+
+    protected final ColumnImpl column;
+    //Versions these statistics have been computed against
+    protected int columnVersion;
+    protected int storeVersion;
+    //Statistics
+    protected int count;
+    protected int nullCount;
+    protected long distinctCount;
+    protected Number min;
+    protected Number max;
+    protected double mean = Double.NaN;
+    protected double variance = Double.NaN;
+    protected boolean approximate;
+    //Exact distribution, sorted distinct values and their counts
+    protected double[] values;
+    protected int[] valueCounts;
+    //Estimated distribution
+    protected QuantileSketch sketch;
+
+    public ColumnStatisticsImpl(ColumnImpl column) {
+        this.column = column;
+    }
+
+    @Override
+    public Column getColumn() {
+        return column;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    @Override
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    @Override
+    public Number getMin() {
+        return min;
+    }
+
+    @Override
+    public Number getMax() {
+        return max;
+    }
+
+    @Override
+    public double getMean() {
+        return mean;
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    @Override
+    public double getQuantile(double quantile) {
+        checkNumerical();
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (sketch != null) {
+            return sketch.getQuantile(quantile);
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += valueCounts[i];
+            if (cumulative > rank) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    @Override
+    public int[] getHistogram(int bins) {
+        checkNumerical();
+        if (bins < 1) {
+            throw new IllegalArgumentException("The number of bins must be positive");
+        }
+        if (count == 0) {
+            return new int[bins];
+        }
+        double minValue = min.doubleValue();
+        double maxValue = max.doubleValue();
+        if (sketch != null) {
+            return sketch.getHistogram(minValue, maxValue, bins);
+        }
+        int[] histogram = new int[bins];
+        for (int i = 0; i < values.length; i++) {
+            histogram[QuantileSketch.getBin(values[i], minValue, maxValue, bins)] += valueCounts[i];
+        }
+        return histogram;
+    }
+
+    @Override
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    protected boolean isNumerical() {
+        return Number.class.isAssignableFrom(column.getTypeClass());
+    }
+
+    private void checkNumerical() {
+        if (!isNumerical()) {
+            throw new UnsupportedOperationException("The column '" + column.getId() + "' isn't numerical");
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Element;
+
+public class ColumnStatisticsStore {
+
+    //Const
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+    //Data
+    protected final GraphStore graphStore;
+    protected final Map<ColumnImpl, ColumnStatisticsImpl> cache;
+    //Number of threads used to scan large stores
+    protected int parallelism;
+
+    public ColumnStatisticsStore(GraphStore graphStore) {
+        this.graphStore = graphStore;
+        this.cache = new Reference2ObjectOpenHashMap<ColumnImpl, ColumnStatisticsImpl>();
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    public ColumnStatisticsImpl getStatistics(Column column) {
+        ColumnImpl columnImpl = checkColumn(column);
+
+        graphStore.autoReadLock();
+        try {
+            int columnVersion = columnImpl.version.version.get();
+            int storeVersion = getStoreVersion(columnImpl);
+            synchronized (cache) {
+                ColumnStatisticsImpl statistics = cache.get(columnImpl);
+                if (statistics != null && graphStore.version != null
+                        && statistics.columnVersion == columnVersion && statistics.storeVersion == storeVersion) {
+                    return statistics;
+                }
+            }
+            int threads = getElementCount(columnImpl) >= PARALLEL_THRESHOLD ? parallelism : 1;
+            ColumnStatisticsImpl statistics = compute(columnImpl, threads);
+            statistics.columnVersion = columnVersion;
+            statistics.storeVersion = storeVersion;
+            synchronized (cache) {
+                cache.put(columnImpl, statistics);
+            }
+            return statistics;
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    protected ColumnStatisticsImpl compute(ColumnImpl column, int threads) {
+        IndexStore<? extends Element> indexStore = getColumnStore(column).indexStore;
+        if (column.isIndexed() && indexStore != null) {
+            indexStore.flushBatch();
+            return computeFromIndex(column, indexStore.mainIndex);
+        }
+        return computeFromScan(column, threads);
+    }
+
+    protected <T extends Element> ColumnStatisticsImpl computeFromIndex(ColumnImpl column, IndexImpl<T> index) {
+        ColumnStatisticsImpl statistics = new ColumnStatisticsImpl(column);
+        index.lock();
+        try {
+            IndexImpl<T>.AbstractIndex<?> columnIndex = index.getIndex(column);
+            statistics.nullCount = columnIndex.nullSet.size();
+            statistics.count = columnIndex.elements - statistics.nullCount;
+            statistics.distinctCount = columnIndex.map.size();
+            if (statistics.isNumerical() && statistics.count > 0) {
+                Set<? extends Map.Entry<?, Set<T>>> entries = columnIndex.map.entrySet();
+                double[] values = new double[entries.size()];
+                int[] valueCounts = new int[entries.size()];
+                double sum = 0;
+                int i = 0;
+                for (Map.Entry<?, Set<T>> entry : entries) {
+                    Number key = (Number) entry.getKey();
+                    if (i == 0) {
+                        statistics.min = key;
+                    }
+                    statistics.max = key;
+                    values[i] = key.doubleValue();
+                    valueCounts[i] = entry.getValue().size();
+                    sum += values[i] * valueCounts[i];
+                    i++;
+                }
+                double mean = sum / statistics.count;
+                double squares = 0;
+                for (i = 0; i < values.length; i++) {
+                    double d = values[i] - mean;
+                    squares += d * d * valueCounts[i];
+                }
+                statistics.mean = mean;
+                statistics.variance = squares / statistics.count;
+                statistics.values = values;
+                statistics.valueCounts = valueCounts;
+            }
+        } finally {
+            index.unlock();
+        }
+        return statistics;
+    }
+
+    protected ColumnStatisticsImpl computeFromScan(final ColumnImpl column, int threads) {
+        final boolean numerical = Number.class.isAssignableFrom(column.getTypeClass());
+        final int maxStoreId = getMaxStoreId(column);
+        IndexStore<? extends Element> indexStore = getColumnStore(column).indexStore;
+        Accumulator accumulator;
+        if (threads > 1 && maxStoreId > threads && indexStore != null) {
+            //Chunks are scanned on the pool the index store uses for rebuilds
+            int chunk = (maxStoreId + threads - 1) / threads;
+            final Accumulator[] results = new Accumulator[(maxStoreId + chunk - 1) / chunk];
+            List<Runnable> tasks = new ArrayList<Runnable>(results.length);
+            for (int i = 0; i < results.length; i++) {
+                final int position = i;
+                final int start = i * chunk;
+                final int end = Math.min(maxStoreId, start + chunk);
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        results[position] = scan(column, numerical, start, end);
+                    }
+                });
+            }
+            indexStore.execute(tasks, threads);
+            accumulator = results[0];
+            for (int i = 1; i < results.length; i++) {
+                accumulator.merge(results[i]);
+            }
+        } else {
+            accumulator = scan(column, numerical, 0, maxStoreId);
+        }
+
+        ColumnStatisticsImpl statistics = new ColumnStatisticsImpl(column);
+        statistics.approximate = true;
+        statistics.count = accumulator.count;
+        statistics.nullCount = accumulator.nullCount;
+        statistics.distinctCount = accumulator.count > 0 ? accumulator.distinct.estimate() : 0;
+        if (numerical && accumulator.count > 0) {
+            statistics.min = accumulator.min;
+            statistics.max = accumulator.max;
+            statistics.mean = accumulator.mean;
+            statistics.variance = accumulator.squares / accumulator.count;
+            statistics.sketch = accumulator.sketch;
+        }
+        return statistics;
+    }
+
+    private Accumulator scan(ColumnImpl column, boolean numerical, int from, int to) {
+        Accumulator accumulator = new Accumulator(numerical);
+        boolean nodes = isNodeColumn(column);
+        int index = column.getIndex();
+        for (int id = from; id < to; id++) {
+            ElementImpl element = nodes ? graphStore.nodeStore.get(id) : graphStore.edgeStore.get(id);
+            if (element != null) {
+                Object[] attributes = element.attributes;
+                accumulator.add(index < attributes.length ? attributes[index] : null);
+            }
+        }
+        return accumulator;
+    }
+
+    private int getStoreVersion(ColumnImpl column) {
+        if (graphStore.version == null) {
+            return 0;
+        }
+        return isNodeColumn(column) ? graphStore.version.nodeVersion : graphStore.version.edgeVersion;
+    }
+
+    private int getElementCount(ColumnImpl column) {
+        return isNodeColumn(column) ? graphStore.nodeStore.size() : graphStore.edgeStore.size();
+    }
+
+    private int getMaxStoreId(ColumnImpl column) {
+        return isNodeColumn(column) ? graphStore.nodeStore.maxStoreId() : graphStore.edgeStore.maxStoreId();
+    }
+
+    private boolean isNodeColumn(ColumnImpl column) {
+        return getColumnStore(column) == graphStore.nodeTable.store;
+    }
+
+    private ColumnStore<? extends Element> getColumnStore(ColumnImpl column) {
+        if (belongsTo(column, graphStore.nodeTable.store)) {
+            return graphStore.nodeTable.store;
+        } else if (belongsTo(column, graphStore.edgeTable.store)) {
+            return graphStore.edgeTable.store;
+        }
+        return null;
+    }
+
+    private static boolean belongsTo(ColumnImpl column, ColumnStore<?> store) {
+        int index = column.getIndex();
+        return index != ColumnStore.NULL_ID && index < store.length && store.columns[index] == column;
+    }
+
+    private ColumnImpl checkColumn(Column column) {
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        if (!(column instanceof ColumnImpl)) {
+            throw new ClassCastException("Must be ColumnImpl object");
+        }
+        ColumnImpl columnImpl = (ColumnImpl) column;
+        if (getColumnStore(columnImpl) == null) {
+            throw new IllegalArgumentException("The column '" + column.getId() + "' doesn't belong to the node or edge table");
+        }
+        if (columnImpl.isArray() || columnImpl.isDynamic()) {
+            throw new UnsupportedOperationException("Statistics only apply to non-array, non-dynamic columns");
+        }
+        return columnImpl;
+    }
+
+    protected static final class Accumulator {
+
+        protected final HyperLogLog distinct;
+        protected final QuantileSketch sketch;
+        protected int count;
+        protected int nullCount;
+        protected Number min;
+        protected Number max;
+        protected double mean;
+        protected double squares;
+
+        public Accumulator(boolean numerical) {
+            distinct = new HyperLogLog();
+            sketch = numerical ? new QuantileSketch() : null;
+        }
+
+        public void add(Object value) {
+            if (value == null) {
+                nullCount++;
+                return;
+            }
+            count++;
+            distinct.add(value);
+            if (sketch != null) {
+                Number number = (Number) value;
+                double d = number.doubleValue();
+                if (min == null || d < min.doubleValue()) {
+                    min = number;
+                }
+                if (max == null || d > max.doubleValue()) {
+                    max = number;
+                }
+                double delta = d - mean;
+                mean += delta / count;
+                squares += delta * (d - mean);
+                sketch.add(d);
+            }
+        }
+
+        public void merge(Accumulator other) {
+            distinct.merge(other.distinct);
+            nullCount += other.nullCount;
+            if (other.count == 0) {
+                return;
+            }
+            if (sketch != null) {
+                if (min == null || other.min.doubleValue() < min.doubleValue()) {
+                    min = other.min;
+                }
+                if (max == null || other.max.doubleValue() > max.doubleValue()) {
+                    max = other.max;
+                }
+                int total = count + other.count;
+                double delta = other.mean - mean;
+                squares += other.squares + delta * delta * ((double) count * other.count / total);
+                mean += delta * other.count / total;
+                sketch.merge(other.sketch);
+            }
+            count += other.count;
+        }
+    }
+}
@@ -25,10 +25,15 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.ColumnIterable;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
+import org.gephi.graph.api.types.TimeMap;
 
 public class ColumnStore<T extends Element> implements ColumnIterable {
 
@@ -39,6 +44,8 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
     protected final static short NULL_SHORT = Short.MIN_VALUE;
     //Configuration
     protected final Configuration configuration;
+    //Graph store the elements belong to (optional)
+    protected final GraphStore graphStore;
     //Element
     protected final Class<T> elementType;
     //Columns
@@ -53,16 +60,24 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
     protected final TableLock lock;
     //Variables
     protected int length;
+    //Batch
+    protected boolean batch;
+    protected final Set<ColumnImpl> batchColumns;
 
     public ColumnStore(Class<T> elementType, boolean indexed) {
         this(new Configuration(), elementType, indexed);
     }
 
     public ColumnStore(Configuration configuration, Class<T> elementType, boolean indexed) {
+        this(null, configuration, elementType, indexed);
+    }
+
+    public ColumnStore(GraphStore graphStore, Configuration configuration, Class<T> elementType, boolean indexed) {
         if (MAX_SIZE >= Short.MAX_VALUE - Short.MIN_VALUE + 1) {
             throw new RuntimeException("Column Store size can't exceed 65534");
         }
         this.configuration = configuration;
+        this.graphStore = graphStore;
         this.lock = GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? new TableLock() : null;
         this.garbageQueue = new ShortRBTreeSet();
         this.idMap = new Object2ShortOpenHashMap<String>(MAX_SIZE);
@@ -71,6 +86,7 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         this.indexStore = indexed ? new IndexStore<T>(this) : null;
         idMap.defaultReturnValue(NULL_SHORT);
         this.observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<TableObserverImpl>() : null;
+        this.batchColumns = new ObjectOpenHashSet<ColumnImpl>();
     }
 
     public void addColumn(final Column column) {
@@ -140,6 +156,154 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         }
     }
 
+    public void addCompositeIndex(final Column[] columns) {
+        ColumnImpl[] cols = checkCompositeColumns(columns);
+        if (cols.length < 2) {
+            throw new IllegalArgumentException("A composite index requires at least two columns");
+        }
+        lock();
+        try {
+            if (indexStore.getCompositeIndex(cols) != null) {
+                throw new IllegalArgumentException("The composite index already exist");
+            }
+            indexStore.addCompositeIndex(cols);
+        } finally {
+            unlock();
+        }
+    }
+
+    public boolean hasCompositeIndex(final Column[] columns) {
+        ColumnImpl[] cols = checkCompositeColumns(columns);
+        lock();
+        try {
+            return indexStore.getCompositeIndex(cols) != null;
+        } finally {
+            unlock();
+        }
+    }
+
+    public void removeCompositeIndex(final Column[] columns) {
+        ColumnImpl[] cols = checkCompositeColumns(columns);
+        lock();
+        try {
+            if (!indexStore.removeCompositeIndex(cols)) {
+                throw new IllegalArgumentException("The composite index doesnt exist");
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    public void addDynamicIndex(final Column column) {
+        ColumnImpl columnImpl = checkDynamicIndexColumn(column);
+        lock();
+        try {
+            if (columnImpl.dynamicIndexed) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' already has a dynamic index");
+            }
+            indexStore.addDynamicIndex(columnImpl);
+        } finally {
+            unlock();
+        }
+    }
+
+    public boolean hasDynamicIndex(final Column column) {
+        checkNonNullColumnObject(column);
+        return ((ColumnImpl) column).dynamicIndexed;
+    }
+
+    public void removeDynamicIndex(final Column column) {
+        ColumnImpl columnImpl = checkDynamicIndexColumn(column);
+        lock();
+        try {
+            if (!columnImpl.dynamicIndexed) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' doesnt have a dynamic index");
+            }
+            indexStore.removeDynamicIndex(columnImpl);
+        } finally {
+            unlock();
+        }
+    }
+
+    private ColumnImpl checkDynamicIndexColumn(final Column column) {
+        checkNonNullColumnObject(column);
+        if (indexStore == null) {
+            throw new UnsupportedOperationException("Dynamic indexes require an indexed store");
+        }
+        if (graphStore == null) {
+            throw new UnsupportedOperationException("Dynamic indexes require a graph store");
+        }
+        ColumnImpl columnImpl = (ColumnImpl) column;
+        int index = columnImpl.getIndex();
+        if (index == NULL_ID || index >= length || columns[index] != columnImpl) {
+            throw new IllegalArgumentException("The column '" + column.getId() + "' doesnt belong to this store");
+        }
+        if (!TimeMap.class.isAssignableFrom(columnImpl.getTypeClass()) || !columnImpl.isNumber()) {
+            throw new IllegalArgumentException("The column '" + column.getId() + "' must be a dynamic number column");
+        }
+        return columnImpl;
+    }
+
+    public IndexBuild<T> addIndex(final Column column, final boolean lazy) {
+        IndexBuild<T> indexBuild = createIndexBuild(column, lazy);
+        if (!lazy) {
+            indexBuild.run();
+        }
+        return indexBuild;
+    }
+
+    public Future<?> addIndex(final Column column, final ExecutorService executor) {
+        checkNonNullObject(executor);
+        IndexBuild<T> indexBuild = createIndexBuild(column, false);
+        try {
+            return executor.submit(indexBuild);
+        } catch (RuntimeException e) {
+            indexStore.cancelIndexBuild(indexBuild);
+            throw e;
+        }
+    }
+
+    private IndexBuild<T> createIndexBuild(final Column column, final boolean lazy) {
+        checkNonNullColumnObject(column);
+        if (indexStore == null) {
+            throw new UnsupportedOperationException("Indexes require an indexed store");
+        }
+        if (graphStore == null) {
+            throw new UnsupportedOperationException("Index builds require a graph store");
+        }
+        lock();
+        try {
+            ColumnImpl columnImpl = (ColumnImpl) column;
+            int index = columnImpl.getIndex();
+            if (index == NULL_ID || index >= length || columns[index] != columnImpl) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' doesnt belong to this store");
+            }
+            if (columnImpl.isIndexed() || indexStore.indexBuilds.containsKey(columnImpl)) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' is already indexed");
+            }
+            if (columnImpl.getOrigin().equals(Origin.PROPERTY) || columnImpl.isDynamic()) {
+                throw new IllegalArgumentException("Only static data columns can be indexed after creation");
+            }
+            return indexStore.addIndexBuild(columnImpl, lazy);
+        } finally {
+            unlock();
+        }
+    }
+
+    int getMaxElementStoreId() {
+        if (Node.class.equals(elementType)) {
+            return graphStore.nodeStore.maxStoreId();
+        }
+        return graphStore.edgeStore.maxStoreId();
+    }
+
+    ElementImpl getElement(int storeId) {
+        if (Node.class.equals(elementType)) {
+            return graphStore.nodeStore.get(storeId);
+        }
+        return graphStore.edgeStore.get(storeId);
+    }
+
     public int getColumnIndex(final String key) {
         checkNonNullObject(key);
         lock();
@@ -257,6 +421,8 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
             Arrays.fill(columns, null);
             if (indexStore != null) {
                 indexStore.clear();
+                indexStore.compositeIndexes.clear();
+                indexStore.destroy();
             }
         } finally {
             unlock();
@@ -267,6 +433,59 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         return length - garbageQueue.size();
     }
 
+    protected void beginBatch() {
+        lock();
+        try {
+            batch = true;
+            if (indexStore != null) {
+                indexStore.beginBatch();
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void commitBatch(boolean aborted) {
+        lock();
+        try {
+            batch = false;
+            for (ColumnImpl column : batchColumns) {
+                column.version.incrementAndGetVersion();
+            }
+            batchColumns.clear();
+            if (indexStore != null) {
+                indexStore.commitBatch(aborted);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void beginBulk() {
+        if (indexStore != null) {
+            indexStore.beginBulk();
+        }
+    }
+
+    protected void endBulk() {
+        if (indexStore != null) {
+            indexStore.endBulk();
+        }
+    }
+
+    protected void deferVersion(ColumnImpl column) {
+        lock();
+        try {
+            if (batch) {
+                batchColumns.add(column);
+            } else {
+                column.version.incrementAndGetVersion();
+            }
+        } finally {
+            unlock();
+        }
+    }
+
     protected TableObserverImpl createTableObserver(TableImpl table, boolean withDiff) {
         if (observers != null) {
             lock();
@@ -329,6 +548,32 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         }
     }
 
+    ColumnImpl[] checkCompositeColumns(final Column[] columns) {
+        checkNonNullObject(columns);
+        if (indexStore == null) {
+            throw new UnsupportedOperationException("Composite indexes require an indexed store");
+        }
+        ColumnImpl[] cols = new ColumnImpl[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            checkNonNullColumnObject(columns[i]);
+            ColumnImpl column = (ColumnImpl) columns[i];
+            int index = column.getIndex();
+            if (index == NULL_ID || index >= length || this.columns[index] != column) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' doesnt belong to this store");
+            }
+            if (!column.isIndexed() || column.isArray()) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' must be indexed and not an array");
+            }
+            for (int j = 0; j < i; j++) {
+                if (cols[j] == column) {
+                    throw new IllegalArgumentException("The column '" + column.getId() + "' is repeated");
+                }
+            }
+            cols[i] = column;
+        }
+        return cols;
+    }
+
     void checkIndexStatus(final Column column) {
         if (indexStore == null && column.isIndexed()) {
             throw new IllegalArgumentException("Can't add an indexed column to a non indexed store");
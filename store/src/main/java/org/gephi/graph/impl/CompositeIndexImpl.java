@@ -0,0 +1,323 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Element;
+
+public class CompositeIndexImpl<T extends Element> {
+
+    protected final ColumnImpl[] columns;
+    protected final Level root;
+
+    public CompositeIndexImpl(ColumnImpl[] columns) {
+        this.columns = columns;
+        this.root = new Level(isSortable(columns[0]));
+    }
+
+    public boolean add(T element, Object[] values) {
+        Level level = root;
+        List<Level> path = new ArrayList<Level>(columns.length);
+        for (int i = 0; i < columns.length - 1; i++) {
+            path.add(level);
+            Level child = (Level) level.getChild(values[i]);
+            if (child == null) {
+                child = new Level(isSortable(columns[i + 1]));
+                level.putChild(values[i], child);
+            }
+            level = child;
+        }
+        path.add(level);
+        Object value = values[columns.length - 1];
+        Set<T> set = (Set<T>) level.getChild(value);
+        if (set == null) {
+            set = new IndexImpl.ValueSet<Object, T>(value);
+            level.putChild(value, set);
+        }
+        if (set.add(element)) {
+            for (Level l : path) {
+                l.elements++;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean remove(T element, Object[] values) {
+        Level[] path = new Level[columns.length];
+        Level level = root;
+        for (int i = 0; i < columns.length - 1; i++) {
+            path[i] = level;
+            level = (Level) level.getChild(values[i]);
+            if (level == null) {
+                return false;
+            }
+        }
+        path[columns.length - 1] = level;
+        Object value = values[columns.length - 1];
+        Set<T> set = (Set<T>) level.getChild(value);
+        if (set == null || !set.remove(element)) {
+            return false;
+        }
+        if (set.isEmpty()) {
+            level.removeChild(value);
+        }
+        for (int i = columns.length - 1; i >= 0; i--) {
+            path[i].elements--;
+            if (i > 0 && path[i].elements == 0) {
+                path[i - 1].removeChild(values[i - 1]);
+            }
+        }
+        return true;
+    }
+
+    public int count(Object[] values, int prefixLength) {
+        int count = 0;
+        for (Object node : getNodes(values, prefixLength)) {
+            count += getCount(node);
+        }
+        return count;
+    }
+
+    public int count(Object[] values, int prefixLength, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        int count = 0;
+        for (Object node : getNodes(values, prefixLength, low, high, lowInclusive, highInclusive)) {
+            count += getCount(node);
+        }
+        return count;
+    }
+
+    public Iterator<T> iterator(Object[] values, int prefixLength) {
+        return new ElementIterator(getNodes(values, prefixLength));
+    }
+
+    public Iterator<T> iterator(Object[] values, int prefixLength, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        return new ElementIterator(getNodes(values, prefixLength, low, high, lowInclusive, highInclusive));
+    }
+
+    public int size() {
+        return root.elements;
+    }
+
+    public ColumnImpl[] getColumns() {
+        return columns;
+    }
+
+    protected int matchPrefix(Column[] queryColumns) {
+        int prefix = 0;
+        while (prefix < columns.length && contains(queryColumns, columns[prefix])) {
+            prefix++;
+        }
+        return prefix;
+    }
+
+    protected boolean hasColumn(Column column) {
+        return indexOf(column) >= 0;
+    }
+
+    protected int indexOf(Column column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == column) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    protected boolean isRangeColumn(int prefixLength, Column column) {
+        return prefixLength < columns.length && columns[prefixLength] == column && isSortable(columns[prefixLength]);
+    }
+
+    protected Object[] getValues(T element, Column column, Object value) {
+        Object[] attributes = ((ElementImpl) element).attributes;
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            ColumnImpl c = columns[i];
+            if (c == column) {
+                values[i] = value;
+            } else {
+                int index = c.getIndex();
+                values[i] = index < attributes.length ? attributes[index] : null;
+            }
+        }
+        return values;
+    }
+
+    protected void clear() {
+        root.clear();
+    }
+
+    private List<Object> getNodes(Object[] values, int prefixLength) {
+        List<Object> nodes = new ArrayList<Object>(1);
+        Object node = getNode(values, prefixLength);
+        if (node != null) {
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private List<Object> getNodes(Object[] values, int prefixLength, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        if (prefixLength >= columns.length || !isSortable(columns[prefixLength])) {
+            throw new UnsupportedOperationException("Range queries only apply to sortable, non-array columns");
+        }
+        List<Object> nodes = new ArrayList<Object>();
+        Level level = (Level) getNode(values, prefixLength);
+        if (level != null) {
+            IndexImpl.Range<Object, Object> range = IndexImpl.getSortedRange(columns[prefixLength].getTypeClass(), (SortedMap<Object, Object>) level.map, low, high, lowInclusive, highInclusive);
+            if (range.map != null) {
+                for (Map.Entry<Object, Object> entry : range.map.entrySet()) {
+                    if (range.lowToSkip == null || !range.lowToSkip.equals(entry.getKey())) {
+                        nodes.add(entry.getValue());
+                    }
+                }
+            }
+            if (range.high != null) {
+                nodes.add(range.high);
+            }
+        }
+        return nodes;
+    }
+
+    private Object getNode(Object[] values, int prefixLength) {
+        Object node = root;
+        for (int i = 0; i < prefixLength && node != null; i++) {
+            node = ((Level) node).getChild(values[i]);
+        }
+        return node;
+    }
+
+    private int getCount(Object node) {
+        if (node instanceof Level) {
+            return ((Level) node).elements;
+        }
+        return ((Set) node).size();
+    }
+
+    private static boolean contains(Column[] array, Column column) {
+        for (Column c : array) {
+            if (c == column) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static boolean isSortable(ColumnImpl column) {
+        return !column.isArray() && Number.class.isAssignableFrom(column.getTypeClass());
+    }
+
+    protected static final class Level {
+
+        protected final Map<Object, Object> map;
+        protected Object nullChild;
+        protected int elements;
+
+        public Level(boolean sortable) {
+            if (sortable) {
+                map = new Object2ObjectAVLTreeMap<Object, Object>();
+            } else {
+                map = new Object2ObjectOpenHashMap<Object, Object>();
+            }
+        }
+
+        protected Object getChild(Object value) {
+            if (value == null) {
+                return nullChild;
+            }
+            return map.get(value);
+        }
+
+        protected void putChild(Object value, Object child) {
+            if (value == null) {
+                nullChild = child;
+            } else {
+                map.put(value, child);
+            }
+        }
+
+        protected void removeChild(Object value) {
+            if (value == null) {
+                nullChild = null;
+            } else {
+                map.remove(value);
+            }
+        }
+
+        protected void clear() {
+            map.clear();
+            nullChild = null;
+            elements = 0;
+        }
+    }
+
+    private final class ElementIterator implements Iterator<T> {
+
+        private final List<Object> stack;
+        private Iterator<T> setIterator;
+
+        public ElementIterator(List<Object> nodes) {
+            this.stack = new ArrayList<Object>(nodes.size());
+            for (int i = nodes.size() - 1; i >= 0; i--) {
+                stack.add(nodes.get(i));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (setIterator == null || !setIterator.hasNext()) {
+                if (stack.isEmpty()) {
+                    return false;
+                }
+                Object node = stack.remove(stack.size() - 1);
+                if (node instanceof Level) {
+                    Level level = (Level) node;
+                    if (level.nullChild != null) {
+                        stack.add(level.nullChild);
+                    }
+                    List<Object> children = new ArrayList<Object>(level.map.values());
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.add(children.get(i));
+                    }
+                } else {
+                    setIterator = ((Set<T>) node).iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return setIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported operation.");
+        }
+    }
+}
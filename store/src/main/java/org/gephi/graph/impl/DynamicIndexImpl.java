@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.doubles.Double2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.doubles.Double2ObjectSortedMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.types.TimeMap;
+import org.gephi.graph.api.types.TimestampMap;
+
+/**
+ * Index of a dynamic number column, keyed by the estimated value of each
+ * element at the time interval of the index's view.
+ * <p>
+ * Values are re-estimated incrementally: writes mark their element dirty and
+ * an interval shift only marks the elements that have a timestamp between the
+ * old and new bounds, as the estimators of the other elements see the same
+ * timestamps. Dirty elements are processed on the next query.
+ */
+public class DynamicIndexImpl<T extends Element> {
+
+    protected final IndexImpl<T> index;
+    protected final ColumnImpl column;
+    protected final IndexImpl.AbstractIndex values;
+    //Elements by timestamp, only for timestamp maps
+    protected final Double2ObjectSortedMap<IntSet> timestamps;
+    //Indexed elements, maps and estimates, by store id
+    protected ElementImpl[] elements;
+    protected TimeMap[] maps;
+    protected Double[] estimates;
+    //Elements to re-estimate, by store id
+    protected final IntSet dirty;
+    //Evaluation
+    protected Interval interval;
+    protected Estimator estimator;
+    protected boolean valid;
+
+    public DynamicIndexImpl(IndexImpl<T> index, ColumnImpl column) {
+        this.index = index;
+        this.column = column;
+        this.values = index.createDynamicValueIndex(column);
+        this.timestamps = TimestampMap.class.isAssignableFrom(column.getTypeClass()) ? new Double2ObjectAVLTreeMap<IntSet>() : null;
+        this.dirty = new IntOpenHashSet();
+        this.elements = new ElementImpl[0];
+        this.maps = new TimeMap[0];
+        this.estimates = new Double[0];
+    }
+
+    protected void refresh(Interval interval) {
+        Estimator columnEstimator = column.getEstimator();
+        if (columnEstimator == null) {
+            columnEstimator = GraphStoreConfiguration.DEFAULT_ESTIMATOR;
+        }
+        if (!valid || columnEstimator != estimator) {
+            rebuild(interval, columnEstimator);
+            return;
+        }
+        if (!interval.equals(this.interval)) {
+            shift(this.interval, interval);
+            this.interval = interval;
+        }
+        if (!dirty.isEmpty()) {
+            for (IntIterator itr = dirty.iterator(); itr.hasNext();) {
+                update(itr.nextInt());
+            }
+            dirty.clear();
+        }
+    }
+
+    protected void elementChanged(ElementImpl element) {
+        int storeId = element.getStoreId();
+        if (valid && storeId != NodeStore.NULL_ID) {
+            dirty.add(storeId);
+        }
+    }
+
+    protected void elementRemoved(ElementImpl element) {
+        int storeId = element.getStoreId();
+        if (valid && storeId != NodeStore.NULL_ID) {
+            remove(storeId);
+            dirty.remove(storeId);
+        }
+    }
+
+    protected void invalidate() {
+        clear();
+        valid = false;
+    }
+
+    protected void destroy() {
+        invalidate();
+        values.destroy();
+    }
+
+    private void rebuild(Interval interval, Estimator estimator) {
+        clear();
+        this.interval = interval;
+        this.estimator = estimator;
+        ColumnStore<T> columnStore = index.columnStore;
+        int maxStoreId = columnStore.getMaxElementStoreId();
+        ensureSize(maxStoreId);
+        for (int id = 0; id < maxStoreId; id++) {
+            ElementImpl element = columnStore.getElement(id);
+            if (element != null && index.accept((T) element)) {
+                add(id, element);
+            }
+        }
+        valid = true;
+    }
+
+    private void shift(Interval oldInterval, Interval newInterval) {
+        if (timestamps == null) {
+            //Interval estimators may depend on the overlap of each interval
+            for (int id = 0; id < elements.length; id++) {
+                if (elements[id] != null) {
+                    dirty.add(id);
+                }
+            }
+            return;
+        }
+        markDirty(Math.min(oldInterval.getLow(), newInterval.getLow()), Math.max(oldInterval.getLow(), newInterval.getLow()));
+        markDirty(Math.min(oldInterval.getHigh(), newInterval.getHigh()), Math.max(oldInterval.getHigh(), newInterval.getHigh()));
+    }
+
+    private void markDirty(double low, double high) {
+        for (IntSet ids : timestamps.subMap(low, high).values()) {
+            dirty.addAll(ids);
+        }
+        IntSet ids = timestamps.get(high);
+        if (ids != null) {
+            dirty.addAll(ids);
+        }
+    }
+
+    private void update(int storeId) {
+        ElementImpl element = index.columnStore.getElement(storeId);
+        if (element == null || !index.accept((T) element)) {
+            remove(storeId);
+            return;
+        }
+        ensureSize(storeId + 1);
+        if (elements[storeId] == element && maps[storeId] == getMap(element)) {
+            //Same values, only the interval changed
+            Double estimate = estimate(maps[storeId]);
+            Double oldEstimate = estimates[storeId];
+            if (estimate == null ? oldEstimate != null : !estimate.equals(oldEstimate)) {
+                values.removeStoreId(storeId, oldEstimate);
+                values.putValue((T) element, estimate);
+                estimates[storeId] = estimate;
+            }
+            return;
+        }
+        remove(storeId);
+        add(storeId, element);
+    }
+
+    private void add(int storeId, ElementImpl element) {
+        TimeMap map = getMap(element);
+        Double estimate = estimate(map);
+        elements[storeId] = element;
+        maps[storeId] = map;
+        estimates[storeId] = estimate;
+        values.putValue((T) element, estimate);
+        if (timestamps != null && map != null) {
+            for (double timestamp : ((TimestampMap) map).getTimestamps()) {
+                IntSet ids = timestamps.get(timestamp);
+                if (ids == null) {
+                    ids = new IntOpenHashSet();
+                    timestamps.put(timestamp, ids);
+                }
+                ids.add(storeId);
+            }
+        }
+    }
+
+    private void remove(int storeId) {
+        if (storeId >= elements.length || elements[storeId] == null) {
+            return;
+        }
+        values.removeStoreId(storeId, estimates[storeId]);
+        TimeMap map = maps[storeId];
+        if (timestamps != null && map != null) {
+            for (double timestamp : ((TimestampMap) map).getTimestamps()) {
+                IntSet ids = timestamps.get(timestamp);
+                if (ids != null && ids.remove(storeId) && ids.isEmpty()) {
+                    timestamps.remove(timestamp);
+                }
+            }
+        }
+        elements[storeId] = null;
+        maps[storeId] = null;
+        estimates[storeId] = null;
+    }
+
+    private void clear() {
+        values.clear();
+        if (timestamps != null) {
+            timestamps.clear();
+        }
+        dirty.clear();
+        elements = new ElementImpl[0];
+        maps = new TimeMap[0];
+        estimates = new Double[0];
+    }
+
+    private TimeMap getMap(ElementImpl element) {
+        Object[] attributes = element.attributes;
+        int columnIndex = column.getIndex();
+        return columnIndex < attributes.length ? (TimeMap) attributes[columnIndex] : null;
+    }
+
+    private Double estimate(TimeMap map) {
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        Object value = map.get(interval, estimator);
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    private void ensureSize(int size) {
+        if (size > elements.length) {
+            int newSize = Math.max(size, (int) Math.min(Integer.MAX_VALUE, elements.length * 2l));
+            ElementImpl[] newElements = new ElementImpl[newSize];
+            System.arraycopy(elements, 0, newElements, 0, elements.length);
+            elements = newElements;
+            TimeMap[] newMaps = new TimeMap[newSize];
+            System.arraycopy(maps, 0, newMaps, 0, maps.length);
+            maps = newMaps;
+            Double[] newEstimates = new Double[newSize];
+            System.arraycopy(estimates, 0, newEstimates, 0, estimates.length);
+            estimates = newEstimates;
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class EdgeImpl extends ElementImpl implements Edge {
     //Const
     protected static final byte DIRECTED_BYTE = 1;
     protected static final byte MUTUAL_BYTE = 1 << 1;
+    protected static final byte NON_CANONICAL_BYTE = 1 << 2;
     //Final Data
     protected final NodeImpl source;
     protected final NodeImpl target;
@@ -81,13 +82,11 @@ public class EdgeImpl extends ElementImpl implements Edge {
 
     @Override
     public double getWeight() {
-        synchronized (this) {
-            Object weightObject = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            if (weightObject instanceof Double) {
-                return (Double) weightObject;
-            }
-            throw new IllegalStateException("The weight is dynamic, call getWeight(timestamp) or getWeight(interval) instead");
+        Object weightObject = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (weightObject instanceof Double) {
+            return (Double) weightObject;
         }
+        throw new IllegalStateException("The weight is dynamic, call getWeight(timestamp) or getWeight(interval) instead");
     }
 
     @Override
@@ -112,20 +111,23 @@ public class EdgeImpl extends ElementImpl implements Edge {
 
         boolean res;
         synchronized (this) {
-            Object oldValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+            Object[] newArray = copyAttributes(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+            Object oldValue = newArray[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
             TimeMap dynamicValue = null;
             if (oldValue == null) {
                 try {
-                    attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = dynamicValue = (TimeMap) graphStore.configuration.getEdgeWeightType().newInstance();
+                    dynamicValue = (TimeMap) graphStore.configuration.getEdgeWeightType().newInstance();
                 } catch (InstantiationException ex) {
                     throw new RuntimeException(ex);
                 } catch (IllegalAccessException ex) {
                     throw new RuntimeException(ex);
                 }
             } else {
-                dynamicValue = (TimeMap) oldValue;
+                dynamicValue = ((TimeMap) oldValue).copy();
             }
             res = dynamicValue.put(timeObject, weight);
+            newArray[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = dynamicValue;
+            attributes = newArray;
         }
         TimeIndexStore timeIndexStore = getTimeIndexStore();
         if (res && timeIndexStore != null && isValid()) {
@@ -135,71 +137,64 @@ public class EdgeImpl extends ElementImpl implements Edge {
         if (res && columnStore != null && isValid()) {
             Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
             ((ColumnImpl) column).incrementVersion();
+            updateLiveViews();
         }
     }
 
     @Override
     public double getWeight(double timestamp) {
         checkTimeRepresentationTimestamp();
-        synchronized (this) {
-            Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            if (weightValue instanceof Double) {
-                throw new IllegalStateException("The weight is static, call getWeight() instead");
-            }
-            TimestampMap dynamicValue = (TimestampMap) weightValue;
-            return (Double) dynamicValue.get(timestamp, 0.0);
+        Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (weightValue instanceof Double) {
+            throw new IllegalStateException("The weight is static, call getWeight() instead");
         }
+        TimestampMap dynamicValue = (TimestampMap) weightValue;
+        return (Double) dynamicValue.get(timestamp, 0.0);
     }
 
     @Override
     public double getWeight(Interval interval) {
         checkTimeRepresentationInterval();
-        synchronized (this) {
-            Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            if (weightValue instanceof Double) {
-                throw new IllegalStateException("The weight is static, call getWeight() instead");
-            }
-            IntervalMap dynamicValue = (IntervalMap) weightValue;
-            return (Double) dynamicValue.get(interval, 0.0);
+        Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (weightValue instanceof Double) {
+            throw new IllegalStateException("The weight is static, call getWeight() instead");
         }
+        IntervalMap dynamicValue = (IntervalMap) weightValue;
+        return (Double) dynamicValue.get(interval, 0.0);
     }
 
     @Override
     public double getWeight(GraphView view) {
-        synchronized (this) {
-            Object value = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            if (value instanceof TimeMap) {
-                Interval interval = view.getTimeInterval();
-                checkViewExist((GraphView) view);
-
-                TimeMap dynamicValue = (TimeMap) value;
-                Estimator estimator = getColumnStore().getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX).getEstimator();
-                if (estimator == null) {
-                    estimator = GraphStoreConfiguration.DEFAULT_ESTIMATOR;
-                }
-                return (Double) dynamicValue.get(interval, estimator);
-            } else if (value == null) {
-                return GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT;
-            } else {
-                return (Double) value;
+        Object value = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (value instanceof TimeMap) {
+            Interval interval = view.getTimeInterval();
+            checkViewExist((GraphView) view);
+
+            TimeMap dynamicValue = (TimeMap) value;
+            Estimator estimator = getColumnStore().getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX).getEstimator();
+            if (estimator == null) {
+                estimator = GraphStoreConfiguration.DEFAULT_ESTIMATOR;
             }
+            return (Double) dynamicValue.get(interval, estimator);
+        } else if (value == null) {
+            return GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT;
+        } else {
+            return (Double) value;
         }
     }
 
     @Override
     public Iterable<Map.Entry> getWeights() {
-        synchronized (this) {
-            Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
-            if (weightValue instanceof Double) {
-                throw new IllegalStateException("The weight is static, call getWeight() instead");
-            }
-            TimeMap dynamicValue = (TimeMap) weightValue;
-            Object[] values = dynamicValue.toValuesArray();
-            if (dynamicValue instanceof TimestampMap) {
-                return new TimeAttributeIterable(((TimestampMap) dynamicValue).getTimestamps(), values);
-            } else if (dynamicValue instanceof IntervalMap) {
-                return new TimeAttributeIterable(((IntervalMap) dynamicValue).toKeysArray(), values);
-            }
+        Object weightValue = attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        if (weightValue instanceof Double) {
+            throw new IllegalStateException("The weight is static, call getWeight() instead");
+        }
+        TimeMap dynamicValue = (TimeMap) weightValue;
+        Object[] values = dynamicValue.toValuesArray();
+        if (dynamicValue instanceof TimestampMap) {
+            return new TimeAttributeIterable(((TimestampMap) dynamicValue).getTimestamps(), values);
+        } else if (dynamicValue instanceof IntervalMap) {
+            return new TimeAttributeIterable(((IntervalMap) dynamicValue).toKeysArray(), values);
         }
         return TimeAttributeIterable.EMPTY_ITERABLE;
     }
@@ -224,12 +219,15 @@ public class EdgeImpl extends ElementImpl implements Edge {
         checkWeightStaticType();
 
         synchronized (this) {
-            attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = weight;
+            Object[] newArray = copyAttributes(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+            newArray[GraphStoreConfiguration.EDGE_WEIGHT_INDEX] = weight;
+            attributes = newArray;
         }
         ColumnStore columnStore = getColumnStore();
         if (columnStore != null && isValid()) {
             Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
             ((ColumnImpl) column).incrementVersion();
+            updateLiveViews();
         }
     }
 
@@ -271,8 +269,11 @@ public class EdgeImpl extends ElementImpl implements Edge {
         if (isDirected()) {
             if (mutual) {
                 flags |= MUTUAL_BYTE;
+                if (source.storeId < target.storeId) {
+                    flags |= NON_CANONICAL_BYTE;
+                }
             } else {
-                flags &= ~MUTUAL_BYTE;
+                flags &= ~(MUTUAL_BYTE | NON_CANONICAL_BYTE);
             }
         }
     }
@@ -281,6 +282,10 @@ public class EdgeImpl extends ElementImpl implements Edge {
         return (flags & MUTUAL_BYTE) == MUTUAL_BYTE;
     }
 
+    protected boolean isCanonical() {
+        return (flags & NON_CANONICAL_BYTE) == 0;
+    }
+
     @Override
     public boolean isSelfLoop() {
         return source == target;
@@ -506,10 +506,6 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             target.inDegree++;
 
             dico.put(longId, edge.storeId);
-            if (viewStore != null) {
-                viewStore.addEdge(edge);
-            }
-            edge.indexAttributes();
 
             if (directed && !edge.isSelfLoop()) {
                 EdgeImpl mutual = getMutual(edge);
@@ -520,13 +516,25 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
                     target.mutualDegree++;
                     mutualEdgesSize++;
                     mutualEdgesTypeSize[type]++;
+                    if (viewStore != null) {
+                        viewStore.addMutualEdge(edge, mutual);
+                    }
                 }
             }
 
+            if (viewStore != null) {
+                viewStore.addEdge(edge);
+            }
+            edge.indexAttributes();
+
             if (!directed) {
                 undirectedSize++;
             }
 
+            if (viewStore != null) {
+                viewStore.updateEdge(edge);
+            }
+
             size++;
             return true;
         } else if (isValidIndex(edge.storeId) && get(edge.storeId) == edge) {
@@ -997,7 +1005,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     }
 
     boolean isUndirectedToIgnore(EdgeImpl edge) {
-        return edge.isMutual() && edge.source.storeId < edge.target.storeId;
+        return !edge.isCanonical();
     }
 
     int maxStoreId() {
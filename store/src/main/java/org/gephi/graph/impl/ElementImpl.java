@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import org.gephi.graph.api.Column;
@@ -54,7 +55,7 @@ public abstract class ElementImpl implements Element {
     //Reference to store
     protected final GraphStore graphStore;
     //Attributes
-    protected Object[] attributes;
+    protected volatile Object[] attributes;
 
     public ElementImpl(Object id, GraphStore graphStore) {
         if (id == null) {
@@ -76,6 +77,7 @@ public abstract class ElementImpl implements Element {
 
     @Override
     public String getLabel() {
+        final Object[] attributes = this.attributes;
         if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL && attributes.length > GraphStoreConfiguration.ELEMENT_LABEL_INDEX) {
             return (String) attributes[GraphStoreConfiguration.ELEMENT_LABEL_INDEX];
         }
@@ -92,11 +94,10 @@ public abstract class ElementImpl implements Element {
         checkColumn(column);
 
         int index = column.getIndex();
+        final Object[] attributes = this.attributes;
         Object res = null;
-        synchronized (this) {
-            if (index < attributes.length) {
-                res = attributes[index];
-            }
+        if (index < attributes.length) {
+            res = attributes[index];
         }
 
         if (res == null) {
@@ -133,14 +134,13 @@ public abstract class ElementImpl implements Element {
         checkColumnDynamic(column);
 
         int index = column.getIndex();
-        synchronized (this) {
-            TimeMap dynamicValue = null;
-            if (index < attributes.length) {
-                dynamicValue = (TimeMap) attributes[index];
-            }
-            if (dynamicValue != null) {
-                return dynamicValue.get(timeObject, column.getDefaultValue());
-            }
+        final Object[] attributes = this.attributes;
+        TimeMap dynamicValue = null;
+        if (index < attributes.length) {
+            dynamicValue = (TimeMap) attributes[index];
+        }
+        if (dynamicValue != null) {
+            return dynamicValue.get(timeObject, column.getDefaultValue());
         }
         return null;
     }
@@ -161,18 +161,17 @@ public abstract class ElementImpl implements Element {
             checkViewExist((GraphView) view);
 
             int index = column.getIndex();
-            synchronized (this) {
-                TimeMap dynamicValue = null;
-                if (index < attributes.length) {
-                    dynamicValue = (TimeMap) attributes[index];
-                }
-                if (dynamicValue != null && !dynamicValue.isEmpty()) {
-                    Estimator estimator = column.getEstimator();
-                    if (estimator == null) {
-                        estimator = GraphStoreConfiguration.DEFAULT_ESTIMATOR;
-                    }
-                    return dynamicValue.get(interval, estimator);
+            final Object[] attributes = this.attributes;
+            TimeMap dynamicValue = null;
+            if (index < attributes.length) {
+                dynamicValue = (TimeMap) attributes[index];
+            }
+            if (dynamicValue != null && !dynamicValue.isEmpty()) {
+                Estimator estimator = column.getEstimator();
+                if (estimator == null) {
+                    estimator = GraphStoreConfiguration.DEFAULT_ESTIMATOR;
                 }
+                return dynamicValue.get(interval, estimator);
             }
         }
 
@@ -207,8 +206,10 @@ public abstract class ElementImpl implements Element {
         int index = column.getIndex();
         Object oldValue;
         synchronized (this) {
-            oldValue = attributes[index];
-            attributes[index] = null;
+            Object[] newArray = copyAttributes(index);
+            oldValue = newArray[index];
+            newArray[index] = null;
+            attributes = newArray;
         }
 
         if (isValid()) {
@@ -223,10 +224,13 @@ public abstract class ElementImpl implements Element {
                         timeIndexStore.remove((TimeSet) oldValue);
                     }
                 }
-            } else if (column.isIndexed() && columnStore != null && isValid()) {
+            }
+            if (columnImpl.isIndexTracked() && columnStore != null && isValid()) {
                 columnStore.indexStore.set(column, oldValue, column.getDefaultValue(), this);
             }
+            updateDynamicIndex(columnImpl);
             columnImpl.incrementVersion();
+            updateLiveViews();
         }
         return oldValue;
     }
@@ -263,11 +267,20 @@ public abstract class ElementImpl implements Element {
         Object oldValue = null;
         boolean res = false;
         synchronized (this) {
-            TimeMap dynamicValue = (TimeMap) attributes[index];
+            TimeMap dynamicValue = index < attributes.length ? (TimeMap) attributes[index] : null;
             if (dynamicValue != null) {
                 oldValue = dynamicValue.get(timeObject, null);
 
-                res = dynamicValue.remove(timeObject);
+                if (dynamicValue.contains(timeObject)) {
+                    TimeMap oldMap = dynamicValue;
+                    dynamicValue = dynamicValue.copy();
+                    res = dynamicValue.remove(timeObject);
+                    dynamicValue = (TimeMap) setIndexedValue(column, oldMap, dynamicValue);
+
+                    Object[] newArray = copyAttributes(index);
+                    newArray[index] = dynamicValue;
+                    attributes = newArray;
+                }
             }
         }
 
@@ -276,7 +289,9 @@ public abstract class ElementImpl implements Element {
             if (timeIndexStore != null) {
                 timeIndexStore.remove(timeObject);
             }
+            updateDynamicIndex((ColumnImpl) column);
             ((ColumnImpl) column).incrementVersion();
+            updateLiveViews();
         }
         return oldValue;
     }
@@ -286,17 +301,15 @@ public abstract class ElementImpl implements Element {
         if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL) {
             int index = GraphStoreConfiguration.ELEMENT_LABEL_INDEX;
             synchronized (this) {
-                if (index >= attributes.length) {
-                    Object[] newArray = new Object[index + 1];
-                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                    attributes = newArray;
-                }
-                attributes[index] = label;
+                Object[] newArray = copyAttributes(index);
+                newArray[index] = label;
+                attributes = newArray;
             }
             ColumnStore columnStore = getColumnStore();
             if (columnStore != null && isValid()) {
                 Column col = columnStore.getColumnByIndex(index);
                 ((ColumnImpl) col).incrementVersion();
+                updateLiveViews();
             }
         }
     }
@@ -317,13 +330,8 @@ public abstract class ElementImpl implements Element {
         Object oldValue = null;
 
         synchronized (this) {
-            if (index >= attributes.length) {
-                Object[] newArray = new Object[index + 1];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                attributes = newArray;
-            } else {
-                oldValue = attributes[index];
-            }
+            Object[] newArray = copyAttributes(index);
+            oldValue = newArray[index];
 
             if (column.isDynamic() && isValid()) {
                 TimeIndexStore timeIndexStore = getTimeIndexStore();
@@ -341,13 +349,17 @@ public abstract class ElementImpl implements Element {
                         timeIndexStore.add((TimeSet) value);
                     }
                 }
-            } else if (column.isIndexed() && columnStore != null && isValid()) {
+            }
+            if (((ColumnImpl) column).isIndexTracked() && columnStore != null && isValid()) {
                 value = columnStore.indexStore.set(column, oldValue, value, this);
             }
-            attributes[index] = value;
+            newArray[index] = value;
+            attributes = newArray;
         }
         if (isValid()) {
+            updateDynamicIndex((ColumnImpl) column);
             ((ColumnImpl) column).incrementVersion();
+            updateLiveViews();
         }
     }
 
@@ -384,28 +396,25 @@ public abstract class ElementImpl implements Element {
         Object oldValue = null;
         boolean res;
         synchronized (this) {
-            if (index >= attributes.length) {
-                Object[] newArray = new Object[index + 1];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                attributes = newArray;
-            } else {
-                oldValue = attributes[index];
-            }
+            Object[] newArray = copyAttributes(index);
+            oldValue = newArray[index];
 
             TimeMap dynamicValue = null;
             if (oldValue == null) {
                 try {
-                    attributes[index] = dynamicValue = (TimeMap) column.getTypeClass().newInstance();
+                    dynamicValue = (TimeMap) column.getTypeClass().newInstance();
                 } catch (InstantiationException ex) {
                     throw new RuntimeException(ex);
                 } catch (IllegalAccessException ex) {
                     throw new RuntimeException(ex);
                 }
             } else {
-                dynamicValue = (TimeMap) oldValue;
+                dynamicValue = ((TimeMap) oldValue).copy();
             }
 
             res = dynamicValue.put(timeObject, value);
+            newArray[index] = setIndexedValue(column, oldValue, dynamicValue);
+            attributes = newArray;
         }
 
         if (res && isValid()) {
@@ -415,7 +424,9 @@ public abstract class ElementImpl implements Element {
             }
         }
         if (isValid()) {
+            updateDynamicIndex((ColumnImpl) column);
             ((ColumnImpl) column).incrementVersion();
+            updateLiveViews();
         }
     }
 
@@ -450,15 +461,16 @@ public abstract class ElementImpl implements Element {
                     default:
                         throw new RuntimeException("Unrecognized time representation");
                 }
-                int index = GraphStoreConfiguration.ELEMENT_TIMESET_INDEX;
-                if (index >= attributes.length) {
-                    Object[] newArray = new Object[index + 1];
-                    System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                    attributes = newArray;
-                }
-                attributes[index] = timeSet;
+            } else if (!timeSet.contains(timeObject)) {
+                timeSet = timeSet.copy();
             }
             res = timeSet.add(timeObject);
+            if (res) {
+                int index = GraphStoreConfiguration.ELEMENT_TIMESET_INDEX;
+                Object[] newArray = copyAttributes(index);
+                newArray[index] = timeSet;
+                attributes = newArray;
+            }
         }
 
         if (res && isValid()) {
@@ -471,6 +483,7 @@ public abstract class ElementImpl implements Element {
                 Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.ELEMENT_TIMESET_INDEX);
                 ((ColumnImpl) column).incrementVersion();
             }
+            updateTimeViews();
         }
 
         return res;
@@ -495,8 +508,14 @@ public abstract class ElementImpl implements Element {
         boolean res = false;
         synchronized (this) {
             TimeSet timeSet = getTimeSet();
-            if (timeSet != null) {
+            if (timeSet != null && timeSet.contains(timeObject)) {
+                timeSet = timeSet.copy();
                 res = timeSet.remove(timeObject);
+
+                int index = GraphStoreConfiguration.ELEMENT_TIMESET_INDEX;
+                Object[] newArray = copyAttributes(index);
+                newArray[index] = timeSet;
+                attributes = newArray;
             }
         }
 
@@ -510,6 +529,7 @@ public abstract class ElementImpl implements Element {
                 Column column = columnStore.getColumnByIndex(GraphStoreConfiguration.ELEMENT_TIMESET_INDEX);
                 ((ColumnImpl) column).incrementVersion();
             }
+            updateTimeViews();
         }
 
         return res;
@@ -538,11 +558,9 @@ public abstract class ElementImpl implements Element {
     private Object getTimeSetArray() {
         checkEnabledTimeSet();
 
-        synchronized (this) {
-            TimeSet timeSet = getTimeSet();
-            if (timeSet != null) {
-                return timeSet.toPrimitiveArray();
-            }
+        TimeSet timeSet = getTimeSet();
+        if (timeSet != null) {
+            return timeSet.toPrimitiveArray();
         }
         return null;
     }
@@ -562,11 +580,9 @@ public abstract class ElementImpl implements Element {
     private boolean hasTime(Object timeObject) {
         checkEnabledTimeSet();
 
-        synchronized (this) {
-            TimeSet timeSet = getTimeSet();
-            if (timeSet != null) {
-                return timeSet.contains(timeObject);
-            }
+        TimeSet timeSet = getTimeSet();
+        if (timeSet != null) {
+            return timeSet.contains(timeObject);
         }
         return false;
     }
@@ -577,31 +593,35 @@ public abstract class ElementImpl implements Element {
         checkColumnDynamic(column);
 
         int index = column.getIndex();
+        final Object[] attributes = this.attributes;
         TimeMap dynamicValue = null;
-        synchronized (this) {
-            if (index < attributes.length) {
-                dynamicValue = (TimeMap) attributes[index];
+        if (index < attributes.length) {
+            dynamicValue = (TimeMap) attributes[index];
+        }
+        if (dynamicValue != null) {
+            Object[] values = dynamicValue.toValuesArray();
+            if (dynamicValue instanceof TimestampMap) {
+                return new TimeAttributeIterable(((TimestampMap) dynamicValue).getTimestamps(), values);
+            } else if (dynamicValue instanceof IntervalMap) {
+                return new TimeAttributeIterable(((IntervalMap) dynamicValue).toKeysArray(), values);
             }
-            if (dynamicValue != null) {
-                Object[] values = dynamicValue.toValuesArray();
-                if (dynamicValue instanceof TimestampMap) {
-                    return new TimeAttributeIterable(((TimestampMap) dynamicValue).getTimestamps(), values);
-                } else if (dynamicValue instanceof IntervalMap) {
-                    return new TimeAttributeIterable(((IntervalMap) dynamicValue).toKeysArray(), values);
-                }
-            }
-
         }
         return TimeAttributeIterable.EMPTY_ITERABLE;
     }
 
     private TimeSet getTimeSet() {
+        final Object[] attributes = this.attributes;
         if (GraphStoreConfiguration.ENABLE_ELEMENT_TIME_SET && GraphStoreConfiguration.ELEMENT_TIMESET_INDEX < attributes.length) {
             return (TimeSet) attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX];
         }
         return null;
     }
 
+    protected Object[] copyAttributes(int index) {
+        final Object[] attributes = this.attributes;
+        return Arrays.copyOf(attributes, Math.max(attributes.length, index + 1));
+    }
+
     protected void indexAttributes() {
         synchronized (this) {
             ColumnStore columnStore = getColumnStore();
@@ -616,6 +636,37 @@ public abstract class ElementImpl implements Element {
         }
     }
 
+    private Object setIndexedValue(Column column, Object oldValue, Object value) {
+        ColumnStore columnStore = getColumnStore();
+        if (((ColumnImpl) column).isIndexTracked() && columnStore != null && isValid()) {
+            return columnStore.indexStore.set(column, oldValue, value, this);
+        }
+        return value;
+    }
+
+    private void updateDynamicIndex(ColumnImpl column) {
+        if (column.dynamicIndexed) {
+            ColumnStore columnStore = getColumnStore();
+            if (columnStore != null) {
+                columnStore.indexStore.setDynamic(column, this);
+            }
+        }
+    }
+
+    protected void updateLiveViews() {
+        if (graphStore != null && graphStore.viewStore.liveViewCount > 0) {
+            graphStore.viewStore.updateElement(this);
+        }
+    }
+
+    protected void updateTimeViews() {
+        //A time change may also move the element in or out of time filtered views
+        if (graphStore != null
+                && (graphStore.viewStore.liveViewCount > 0 || graphStore.viewStore.intervalViewCount > 0)) {
+            graphStore.viewStore.updateElement(this);
+        }
+    }
+
     @Override
     public void clearAttributes() {
         synchronized (this) {
@@ -629,11 +680,8 @@ public abstract class ElementImpl implements Element {
                     timeIndexStore.clear(this);
                 }
             }
-            TimeSet timeSet = getTimeSet();
-            if (timeSet != null) {
-                timeSet.clear();
-            }
-
+            //The time set isn't cleared in place as readers may still hold it,
+            //it is dropped along with the attributes array
             Object[] newAttributes = new Object[GraphStoreConfiguration.ELEMENT_ID_INDEX + 1];
             newAttributes[GraphStoreConfiguration.ELEMENT_ID_INDEX] = attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX];
             attributes = newAttributes;
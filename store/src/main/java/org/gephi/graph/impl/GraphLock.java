@@ -15,46 +15,260 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import org.gephi.graph.api.LockPolicy;
 
 public class GraphLock {
 
-    protected final ReentrantReadWriteLock readWriteLock;
+    protected final InstrumentedReadWriteLock readWriteLock;
     protected final ReadLock readLock;
     protected final WriteLock writeLock;
+    protected final LockMetricsImpl metrics;
+    //Policy
+    protected final LockPolicy policy;
+    protected final boolean gated;
+    protected final AtomicInteger waitingWriters;
+    protected final Object readerGate;
+    protected int writePhase;
+    //Read scopes, per thread: depth, read holds taken before the scope and
+    //read locks taken inside the scope
+    protected final ThreadLocal<int[]> readScopes;
+    protected final AtomicInteger readScopeCount;
 
     public GraphLock() {
-        readWriteLock = new ReentrantReadWriteLock();
+        this(GraphStoreConfiguration.DEFAULT_LOCK_POLICY);
+    }
+
+    public GraphLock(LockPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("The lock policy can't be null");
+        }
+        this.policy = policy;
+        gated = policy.equals(LockPolicy.WRITER_PREFERRING) || policy.equals(LockPolicy.PHASE_FAIR);
+        waitingWriters = new AtomicInteger();
+        readerGate = new Object();
+        readWriteLock = new InstrumentedReadWriteLock(policy.equals(LockPolicy.FAIR) || policy.equals(LockPolicy.PHASE_FAIR));
         readLock = readWriteLock.readLock();
         writeLock = readWriteLock.writeLock();
+        readScopes = new ThreadLocal<int[]>() {
+
+            @Override
+            protected int[] initialValue() {
+                return new int[3];
+            }
+        };
+        readScopeCount = new AtomicInteger();
+        metrics = new LockMetricsImpl() {
+
+            @Override
+            public int getQueuedReaders() {
+                return readWriteLock.getQueuedReaderCount();
+            }
+
+            @Override
+            public int getQueuedWriters() {
+                return readWriteLock.getQueuedWriterCount();
+            }
+        };
     }
 
     public void readLock() {
-        readLock.lock();
+        if (isInReadScope()) {
+            readScopes.get()[2]++;
+        } else {
+            lockRead();
+        }
     }
 
     public void readUnlock() {
-        readLock.unlock();
+        if (isInReadScope()) {
+            int[] scope = readScopes.get();
+            if (scope[2] > 0) {
+                scope[2]--;
+            } else if (scope[1] > 0) {
+                //Releases a hold taken before the scope began
+                scope[1]--;
+                unlockRead();
+            }
+        } else {
+            unlockRead();
+        }
     }
 
     public void readUnlockAll() {
-        final int nReadLocks = readWriteLock.getReadHoldCount();
+        final boolean inReadScope = isInReadScope();
+        final int nReadLocks = readWriteLock.getReadHoldCount() - (inReadScope ? 1 : 0);
         for (int n = 0; n < nReadLocks; n++) {
             readLock.unlock();
         }
+        if (inReadScope) {
+            int[] scope = readScopes.get();
+            scope[1] = 0;
+            scope[2] = 0;
+        }
+        if (nReadLocks > 0 && !inReadScope && metrics.enabled) {
+            metrics.readUnlocked();
+        }
+    }
+
+    public void beginReadScope() {
+        int[] scope = readScopes.get();
+        if (scope[0] == 0) {
+            scope[1] = readWriteLock.getReadHoldCount();
+            scope[2] = 0;
+            lockRead();
+            readScopeCount.incrementAndGet();
+        }
+        scope[0]++;
+    }
+
+    public void endReadScope() {
+        int[] scope = readScopes.get();
+        if (scope[0] == 0) {
+            throw new IllegalMonitorStateException("No read scope open for the current thread");
+        }
+        if (--scope[0] == 0) {
+            //Only the scope's own hold is released, earlier holds stay with their owner
+            scope[1] = 0;
+            scope[2] = 0;
+            readScopeCount.decrementAndGet();
+            unlockRead();
+        }
+    }
+
+    protected boolean isInReadScope() {
+        return readScopeCount.get() > 0 && readScopes.get()[0] > 0;
+    }
+
+    private void lockRead() {
+        if (metrics.enabled) {
+            long start = System.nanoTime();
+            acquireRead();
+            metrics.readLocked(start, readWriteLock.getReadHoldCount() == 1);
+        } else {
+            acquireRead();
+        }
+    }
+
+    private void acquireRead() {
+        if (gated && waitingWriters.get() > 0 && readWriteLock.getReadHoldCount() == 0 && !readWriteLock.isWriteLockedByCurrentThread()) {
+            awaitWriters();
+            if (policy.equals(LockPolicy.PHASE_FAIR) && readLock.tryLock()) {
+                return;
+            }
+        }
+        readLock.lock();
+    }
+
+    private void awaitWriters() {
+        boolean interrupted = false;
+        synchronized (readerGate) {
+            int phase = writePhase;
+            while (waitingWriters.get() > 0 && (policy.equals(LockPolicy.WRITER_PREFERRING) || phase == writePhase)) {
+                try {
+                    readerGate.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void unlockRead() {
+        if (metrics.enabled) {
+            boolean last = readWriteLock.getReadHoldCount() == 1;
+            readLock.unlock();
+            if (last) {
+                metrics.readUnlocked();
+            }
+        } else {
+            readLock.unlock();
+        }
     }
 
     public void writeLock() {
-        if (readWriteLock.getReadHoldCount() > 0 && !readWriteLock.isWriteLockedByCurrentThread()) {
-            throw new IllegalMonitorStateException("Impossible to acquire a write lock when currently holding a read lock. Use toArray() methods on NodeIterable and EdgeIterable to avoid holding a readLock or wrap your loop with a write lock.");
+        checkNoReadLock();
+        long start = metrics.enabled ? System.nanoTime() : 0;
+        boolean queued = beginWriteWait();
+        try {
+            writeLock.lock();
+        } finally {
+            endWriteWait(queued);
+        }
+        if (metrics.enabled) {
+            metrics.writeLocked(start, readWriteLock.getWriteHoldCount() == 1);
+        }
+    }
+
+    public boolean tryWriteLock(long timeout, TimeUnit unit) {
+        checkNoReadLock();
+        long start = metrics.enabled ? System.nanoTime() : 0;
+        boolean queued = beginWriteWait();
+        boolean locked = false;
+        try {
+            locked = writeLock.tryLock(timeout, unit);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endWriteWait(queued);
+        }
+        if (locked && metrics.enabled) {
+            metrics.writeLocked(start, readWriteLock.getWriteHoldCount() == 1);
         }
-        writeLock.lock();
+        return locked;
     }
 
     public void writeUnlock() {
+        boolean last = readWriteLock.getWriteHoldCount() == 1;
         writeLock.unlock();
+        if (last) {
+            if (metrics.enabled) {
+                metrics.writeUnlocked();
+            }
+            if (gated) {
+                synchronized (readerGate) {
+                    writePhase++;
+                    readerGate.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void checkNoReadLock() {
+        if (readWriteLock.getReadHoldCount() > 0 && !readWriteLock.isWriteLockedByCurrentThread()) {
+            throw new IllegalMonitorStateException("Impossible to acquire a write lock when currently holding a read lock. Use toArray() methods on NodeIterable and EdgeIterable to avoid holding a readLock or wrap your loop with a write lock.");
+        }
+    }
+
+    private boolean beginWriteWait() {
+        if (gated && !readWriteLock.isWriteLockedByCurrentThread()) {
+            waitingWriters.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void endWriteWait(boolean queued) {
+        if (queued && waitingWriters.decrementAndGet() == 0) {
+            synchronized (readerGate) {
+                readerGate.notifyAll();
+            }
+        }
+    }
+
+    public boolean isWriteLockedByCurrentThread() {
+        return readWriteLock.isWriteLockedByCurrentThread();
+    }
+
+    public boolean canWriteLock() {
+        return readWriteLock.getReadHoldCount() == 0 || readWriteLock.isWriteLockedByCurrentThread();
     }
 
     public void checkHoldWriteLock() {
@@ -62,4 +276,19 @@ public class GraphLock {
             throw new IllegalMonitorStateException("Impossible to perform a write operation without lock. Wrap your code with a write lock to solve this.");
         }
     }
+
+    protected static class InstrumentedReadWriteLock extends ReentrantReadWriteLock {
+
+        public InstrumentedReadWriteLock(boolean fair) {
+            super(fair);
+        }
+
+        public int getQueuedReaderCount() {
+            return getQueuedReaderThreads().size();
+        }
+
+        public int getQueuedWriterCount() {
+            return getQueuedWriterThreads().size();
+        }
+    }
 }
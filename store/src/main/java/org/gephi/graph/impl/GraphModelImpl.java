@@ -15,14 +15,18 @@
  */
 package org.gephi.graph.impl;
 
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnStatistics;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Index;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.LockMetrics;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.ElementPredicate;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphBridge;
 import org.gephi.graph.api.GraphFactory;
@@ -206,6 +210,11 @@ public class GraphModelImpl implements GraphModel {
         return store.viewStore.createView(node, edge);
     }
 
+    @Override
+    public GraphView createView(ElementPredicate<Node> nodePredicate, ElementPredicate<Edge> edgePredicate) {
+        return store.viewStore.createView(nodePredicate, edgePredicate);
+    }
+
     @Override
     public GraphView copyView(GraphView view) {
         return store.viewStore.createView(view);
@@ -236,6 +245,11 @@ public class GraphModelImpl implements GraphModel {
         return store.edgeTable;
     }
 
+    @Override
+    public ColumnStatistics getColumnStatistics(Column column) {
+        return store.statisticsStore.getStatistics(column);
+    }
+
     @Override
     public Index getNodeIndex() {
         return getNodeIndex(store.mainGraphView);
@@ -375,6 +389,10 @@ public class GraphModelImpl implements GraphModel {
                     || store.edgeTypeStore.size() > 1) {
                 throw new IllegalStateException("The store should be empty when modifying the configuration");
             }
+            if (!config.getLockPolicy().equals(configuration.getLockPolicy())) {
+                //The lock is shared by all stores and may be held by other threads
+                throw new IllegalStateException("The lock policy can't be changed after the graph model is created");
+            }
             if (!config.getNodeIdType().equals(configuration.getNodeIdType())) {
                 TableImpl<Node> nodeTable = store.nodeTable;
                 nodeTable.store.removeColumn("id");
@@ -457,4 +475,30 @@ public class GraphModelImpl implements GraphModel {
             throw new RuntimeException("The observer doesn't belong to this store");
         }
     }
+
+    @Override
+    public void beginBatch() {
+        store.beginBatch();
+    }
+
+    @Override
+    public void commit() {
+        store.commitBatch();
+    }
+
+    @Override
+    public void abortBatch() {
+        store.abortBatch();
+    }
+
+    @Override
+    public LockMetrics getGraphLockMetrics() {
+        return store.lock.metrics;
+    }
+
+    @Override
+    public LockMetrics getTableLockMetrics(Table table) {
+        TableLock lock = ((TableImpl) table).store.lock;
+        return lock != null ? lock.metrics : null;
+    }
 }
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.TimeFormat;
@@ -38,6 +39,7 @@ import org.gephi.graph.api.Subgraph;
 import org.joda.time.DateTimeZone;
 import org.gephi.graph.api.TimeRepresentation;
 import org.gephi.graph.api.types.IntervalSet;
+import org.gephi.graph.api.ReadTask;
 
 public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
@@ -51,6 +53,7 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected final TableImpl<Edge> edgeTable;
     protected final GraphViewStore viewStore;
     protected final TimeStore timeStore;
+    protected final ColumnStatisticsStore statisticsStore;
     protected final GraphAttributesImpl attributes;
     //Factory
     protected final GraphFactoryImpl factory;
@@ -67,6 +70,9 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected TimeFormat timeFormat;
     //Time zone
     protected DateTimeZone timeZone;
+    //Batch
+    protected int batchDepth;
+    protected boolean batchAborted;
 
     public GraphStore() {
         this(null);
@@ -75,7 +81,7 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public GraphStore(GraphModelImpl model) {
         configuration = model != null ? model.configuration : new Configuration();
         graphModel = model;
-        lock = new GraphLock();
+        lock = new GraphLock(configuration.getLockPolicy());
         edgeTypeStore = new EdgeTypeStore();
         mainGraphView = new MainGraphView();
         viewStore = new GraphViewStore(this);
@@ -83,9 +89,10 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         observers = GraphStoreConfiguration.ENABLE_OBSERVERS ? new ArrayList<GraphObserverImpl>() : null;
         edgeStore = new EdgeStore(edgeTypeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore, GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
         nodeStore = new NodeStore(edgeStore, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, viewStore, GraphStoreConfiguration.ENABLE_OBSERVERS ? version : null);
-        nodeTable = new TableImpl<Node>(configuration, Node.class, GraphStoreConfiguration.ENABLE_INDEX_NODES);
-        edgeTable = new TableImpl<Edge>(configuration, Edge.class, GraphStoreConfiguration.ENABLE_INDEX_EDGES);
+        nodeTable = new TableImpl<Node>(this, configuration, Node.class, GraphStoreConfiguration.ENABLE_INDEX_NODES);
+        edgeTable = new TableImpl<Edge>(this, configuration, Edge.class, GraphStoreConfiguration.ENABLE_INDEX_EDGES);
         timeStore = new TimeStore(this, GraphStoreConfiguration.ENABLE_AUTO_LOCKING ? lock : null, GraphStoreConfiguration.ENABLE_INDEX_TIMESTAMP);
+        statisticsStore = new ColumnStatisticsStore(this);
         attributes = new GraphAttributesImpl();
         factory = new GraphFactoryImpl(this);
         timeFormat = GraphStoreConfiguration.DEFAULT_TIME_FORMAT;
@@ -126,6 +133,15 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean addAllNodes(final Collection<? extends Node> nodes) {
         autoWriteLock();
         try {
+            if (isBulkLoad(nodes, nodeStore.size())) {
+                //Indexes are rebuilt once, in parallel by column
+                nodeTable.store.beginBulk();
+                try {
+                    return nodeStore.addAll(nodes);
+                } finally {
+                    nodeTable.store.endBulk();
+                }
+            }
             return nodeStore.addAll(nodes);
         } finally {
             autoWriteUnlock();
@@ -154,6 +170,14 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean addAllEdges(Collection<? extends Edge> edges) {
         autoWriteLock();
         try {
+            if (isBulkLoad(edges, edgeStore.size())) {
+                edgeTable.store.beginBulk();
+                try {
+                    return edgeStore.addAll(edges);
+                } finally {
+                    edgeTable.store.endBulk();
+                }
+            }
             return edgeStore.addAll(edges);
         } finally {
             autoWriteUnlock();
@@ -575,9 +599,29 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         lock.readUnlockAll();
     }
 
+    @Override
+    public <T> T read(ReadTask<T> task) {
+        lock.beginReadScope();
+        try {
+            return task.run(this);
+        } finally {
+            lock.endReadScope();
+        }
+    }
+
     @Override
     public void writeLock() {
         lock.writeLock();
+        flushLiveViews();
+    }
+
+    @Override
+    public boolean tryWriteLock(long timeout, TimeUnit unit) {
+        if (lock.tryWriteLock(timeout, unit)) {
+            flushLiveViews();
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -585,6 +629,71 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         lock.writeUnlock();
     }
 
+    private void flushLiveViews() {
+        try {
+            viewStore.flushLiveViews();
+        } catch (RuntimeException e) {
+            lock.writeUnlock();
+            throw e;
+        }
+    }
+
+    protected void beginBatch() {
+        autoWriteLock();
+        if (batchDepth++ == 0) {
+            if (version != null) {
+                version.beginBatch();
+            }
+            viewStore.beginBatch();
+            nodeTable.store.beginBatch();
+            edgeTable.store.beginBatch();
+        }
+    }
+
+    protected void commitBatch() {
+        endBatch(false);
+    }
+
+    protected void abortBatch() {
+        endBatch(true);
+    }
+
+    private void endBatch(boolean abort) {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        batchAborted |= abort;
+        try {
+            if (--batchDepth == 0) {
+                boolean aborted = batchAborted;
+                batchAborted = false;
+                //Each store ends its batch even if a previous one failed
+                try {
+                    viewStore.commitBatch();
+                } finally {
+                    try {
+                        nodeTable.store.commitBatch(aborted);
+                    } finally {
+                        try {
+                            edgeTable.store.commitBatch(aborted);
+                        } finally {
+                            if (version != null) {
+                                version.commitBatch();
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            autoWriteUnlock();
+        }
+    }
+
+    private static boolean isBulkLoad(Collection<?> elements, int size) {
+        //Worth rebuilding the indexes when the store at least doubles
+        return elements != null && elements.size() >= GraphStoreConfiguration.INDEX_BULK_LOAD_THRESHOLD && elements.size() >= size;
+    }
+
     protected void autoReadLock() {
         if (GraphStoreConfiguration.ENABLE_AUTO_LOCKING) {
             readLock();
@@ -16,6 +16,7 @@
 package org.gephi.graph.impl;
 
 import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.LockPolicy;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.TimeRepresentation;
 import org.joda.time.DateTimeZone;
@@ -45,6 +46,8 @@ public final class GraphStoreConfiguration {
     //GraphView
     public static final int VIEW_DEFAULT_TYPE_COUNT = 1;
     public static final double VIEW_GROWING_FACTOR = 1.1;
+    //Index
+    public static final int INDEX_BULK_LOAD_THRESHOLD = 1 << 14;
     //Properties
     public static final boolean ENABLE_ELEMENT_LABEL = true;
     public static final boolean ENABLE_ELEMENT_TIME_SET = true;
@@ -69,6 +72,8 @@ public final class GraphStoreConfiguration {
     //Dynamics
     public static final Estimator DEFAULT_ESTIMATOR = Estimator.FIRST;
     public static final TimeRepresentation DEFAULT_TIME_REPRESENTATION = TimeRepresentation.TIMESTAMP;
+    //Locking
+    public static final LockPolicy DEFAULT_LOCK_POLICY = LockPolicy.UNFAIR;
     //Miscellaneous
     public static final double TIMESTAMP_STORE_GROWING_FACTOR = 1.1;
     public static final int NODE_DEFAULT_COLUMNS = 1 + (ENABLE_ELEMENT_LABEL ? 1 : 0) + (ENABLE_ELEMENT_TIME_SET ? 1 : 0);
@@ -22,12 +22,20 @@ public class GraphVersion {
     protected final Graph graph;
     protected int nodeVersion = Integer.MIN_VALUE + 1;
     protected int edgeVersion = Integer.MIN_VALUE + 1;
+    //Batch
+    protected boolean batch;
+    protected boolean batchNodeVersion;
+    protected boolean batchEdgeVersion;
 
     public GraphVersion(Graph graph) {
         this.graph = graph;
     }
 
     public int incrementAndGetNodeVersion() {
+        if (batch) {
+            batchNodeVersion = true;
+            return nodeVersion;
+        }
         nodeVersion++;
         if (nodeVersion == Integer.MAX_VALUE) {
             nodeVersion = Integer.MIN_VALUE + 1;
@@ -37,6 +45,10 @@ public class GraphVersion {
     }
 
     public int incrementAndGetEdgeVersion() {
+        if (batch) {
+            batchEdgeVersion = true;
+            return edgeVersion;
+        }
         edgeVersion++;
         if (edgeVersion == Integer.MAX_VALUE) {
             edgeVersion = Integer.MIN_VALUE + 1;
@@ -45,6 +57,22 @@ public class GraphVersion {
         return edgeVersion;
     }
 
+    public void beginBatch() {
+        batch = true;
+    }
+
+    public void commitBatch() {
+        batch = false;
+        if (batchNodeVersion) {
+            batchNodeVersion = false;
+            incrementAndGetNodeVersion();
+        }
+        if (batchEdgeVersion) {
+            batchEdgeVersion = false;
+            incrementAndGetEdgeVersion();
+        }
+    }
+
     private void handleNodeReset() {
         if (graph != null) {
             if (graph.getView().isMainView()) {
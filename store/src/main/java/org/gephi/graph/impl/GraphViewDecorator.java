@@ -18,6 +18,7 @@ package org.gephi.graph.impl;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -28,6 +29,7 @@ import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.UndirectedSubgraph;
+import org.gephi.graph.api.ReadTask;
 
 public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph {
 
@@ -46,7 +48,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.autoReadLock();
         try {
             EdgeImpl edge = graphStore.edgeStore.get(node1, node2);
-            if (edge != null && view.containsEdge(edge)) {
+            if (edge != null && containsEdge(edge)) {
                 return edge;
             }
             return null;
@@ -60,7 +62,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.autoReadLock();
         try {
             EdgeImpl edge = graphStore.edgeStore.get(node1, node2, type);
-            if (edge != null && view.containsEdge(edge)) {
+            if (edge != null && containsEdge(edge)) {
                 return edge;
             }
             return null;
@@ -74,7 +76,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.autoReadLock();
         try {
             EdgeImpl edge = graphStore.edgeStore.getMutualEdge(e);
-            if (edge != null && view.containsEdge(edge)) {
+            if (edge != null && containsEdge(edge)) {
                 return edge;
             }
             return null;
@@ -137,6 +139,16 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         checkValidInViewNodeObject(target);
         graphStore.autoReadLock();
         try {
+            if (view.isTimeFiltered()) {
+                int typeLength = graphStore.edgeStore.longDictionary.length;
+                for (int i = 0; i < typeLength; i++) {
+                    EdgeImpl edge = graphStore.edgeStore.get(source, target, i);
+                    if (edge != null && containsEdge(edge)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
             return graphStore.edgeStore.isAdjacent(source, target);
         } finally {
             graphStore.autoReadUnlock();
@@ -149,6 +161,10 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         checkValidInViewNodeObject(target);
         graphStore.autoReadLock();
         try {
+            if (view.isTimeFiltered()) {
+                EdgeImpl edge = graphStore.edgeStore.get(source, target, type);
+                return edge != null && containsEdge(edge);
+            }
             return graphStore.edgeStore.isAdjacent(source, target, type);
         } finally {
             graphStore.autoReadUnlock();
@@ -245,7 +261,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         checkValidNodeObject(node);
         graphStore.autoReadLock();
         try {
-            return view.containsNode((NodeImpl) node);
+            return containsNode((NodeImpl) node);
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -256,7 +272,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         checkValidEdgeObject(edge);
         graphStore.autoReadLock();
         try {
-            return view.containsEdge((EdgeImpl) edge);
+            return containsEdge((EdgeImpl) edge);
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -267,7 +283,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.autoReadLock();
         try {
             NodeImpl node = graphStore.getNode(id);
-            if (node != null && view.containsNode(node)) {
+            if (node != null && containsNode(node)) {
                 return node;
             }
             return null;
@@ -281,7 +297,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.autoReadLock();
         try {
             EdgeImpl edge = graphStore.getEdge(id);
-            if (edge != null && view.containsEdge(edge)) {
+            if (edge != null && containsEdge(edge)) {
                 return edge;
             }
             return null;
@@ -292,15 +308,19 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     @Override
     public NodeIterable getNodes() {
+        if (view.nodeView && !view.nodeBitVector.isDense() && !view.nodeBitVector.isFilled()) {
+            return graphStore.getNodeIterableWrapper(new NodeViewBitVectorIterator());
+        }
         return graphStore.getNodeIterableWrapper(new NodeViewIterator(graphStore.nodeStore.iterator()));
     }
 
     @Override
     public EdgeIterable getEdges() {
+        Iterator<Edge> edgeIterator = view.edgeBitVector.isDense() || view.edgeBitVector.isFilled() ? graphStore.edgeStore.iterator() : new EdgeViewBitVectorIterator();
         if (undirected) {
-            return graphStore.getEdgeIterableWrapper(new UndirectedEdgeViewIterator(graphStore.edgeStore.iterator()));
+            return graphStore.getEdgeIterableWrapper(new UndirectedEdgeViewIterator(edgeIterator));
         } else {
-            return graphStore.getEdgeIterableWrapper(new EdgeViewIterator(graphStore.edgeStore.iterator()));
+            return graphStore.getEdgeIterableWrapper(new EdgeViewIterator(edgeIterator));
         }
     }
 
@@ -344,11 +364,19 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     @Override
     public int getNodeCount() {
+        IntervalCounts intervalCounts = view.intervalCounts;
+        if (intervalCounts != null) {
+            return intervalCounts.getNodeCount();
+        }
         return view.getNodeCount();
     }
 
     @Override
     public int getEdgeCount() {
+        IntervalCounts intervalCounts = view.intervalCounts;
+        if (intervalCounts != null) {
+            return undirected ? intervalCounts.getUndirectedEdgeCount() : intervalCounts.getEdgeCount();
+        }
         if (undirected) {
             return view.getUndirectedEdgeCount();
         } else {
@@ -358,6 +386,10 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     @Override
     public int getEdgeCount(int type) {
+        IntervalCounts intervalCounts = view.intervalCounts;
+        if (intervalCounts != null) {
+            return undirected ? intervalCounts.getUndirectedEdgeCount(type) : intervalCounts.getEdgeCount(type);
+        }
         if (undirected) {
             return view.getUndirectedEdgeCount(type);
         } else {
@@ -375,57 +407,52 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
 
     @Override
     public int getDegree(Node node) {
-        if (undirected) {
-            int count = 0;
-            EdgeStore.EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
-            while (itr.hasNext()) {
-                EdgeImpl edge = itr.next();
-                if (view.containsEdge(edge) && !isUndirectedToIgnore(edge)) {
-                    count++;
-                    if (edge.isSelfLoop()) {
-                        count++;
-                    }
-                }
+        checkValidNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            IntervalCounts intervalCounts = view.intervalCounts;
+            if (intervalCounts != null) {
+                return undirected ? intervalCounts.getUndirectedDegree((NodeImpl) node) : intervalCounts
+                        .getDegree((NodeImpl) node);
             }
-            return count;
-        } else {
-            int count = 0;
-            EdgeStore.EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
-            while (itr.hasNext()) {
-                EdgeImpl edge = itr.next();
-                if (view.containsEdge(edge)) {
-                    count++;
-                    if (edge.isSelfLoop()) {
-                        count++;
-                    }
-                }
+            if (undirected) {
+                return view.getUndirectedDegree((NodeImpl) node);
+            } else {
+                return view.getDegree((NodeImpl) node);
             }
-            return count;
+        } finally {
+            graphStore.autoReadUnlock();
         }
     }
 
     @Override
     public int getInDegree(Node node) {
-        int count = 0;
-        EdgeStore.EdgeInIterator itr = graphStore.edgeStore.edgeInIterator(node);
-        while (itr.hasNext()) {
-            if (view.containsEdge(itr.next())) {
-                count++;
+        checkValidNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            IntervalCounts intervalCounts = view.intervalCounts;
+            if (intervalCounts != null) {
+                return intervalCounts.getInDegree((NodeImpl) node);
             }
+            return view.getInDegree((NodeImpl) node);
+        } finally {
+            graphStore.autoReadUnlock();
         }
-        return count;
     }
 
     @Override
     public int getOutDegree(Node node) {
-        int count = 0;
-        EdgeStore.EdgeOutIterator itr = graphStore.edgeStore.edgeOutIterator(node);
-        while (itr.hasNext()) {
-            if (view.containsEdge(itr.next())) {
-                count++;
+        checkValidNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            IntervalCounts intervalCounts = view.intervalCounts;
+            if (intervalCounts != null) {
+                return intervalCounts.getOutDegree((NodeImpl) node);
             }
+            return view.getOutDegree((NodeImpl) node);
+        } finally {
+            graphStore.autoReadUnlock();
         }
-        return count;
     }
 
     @Override
@@ -562,9 +589,24 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         graphStore.lock.readUnlockAll();
     }
 
+    @Override
+    public <T> T read(ReadTask<T> task) {
+        graphStore.lock.beginReadScope();
+        try {
+            return task.run(this);
+        } finally {
+            graphStore.lock.endReadScope();
+        }
+    }
+
     @Override
     public void writeLock() {
-        graphStore.lock.writeLock();
+        graphStore.writeLock();
+    }
+
+    @Override
+    public boolean tryWriteLock(long timeout, TimeUnit unit) {
+        return graphStore.tryWriteLock(timeout, unit);
     }
 
     @Override
@@ -647,7 +689,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
     void checkValidInViewNodeObject(final Node n) {
         checkValidNodeObject(n);
 
-        if (!view.containsNode((NodeImpl) n)) {
+        if (!containsNode((NodeImpl) n)) {
             throw new RuntimeException("Node doesn't belong to this view");
         }
     }
@@ -667,7 +709,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
     void checkValidInViewEdgeObject(final Edge e) {
         checkValidEdgeObject(e);
 
-        if (!view.containsEdge((EdgeImpl) e)) {
+        if (!containsEdge((EdgeImpl) e)) {
             throw new RuntimeException("Edge doesn't belong to this view");
         }
     }
@@ -684,22 +726,35 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
         }
     }
 
+    boolean containsNode(final NodeImpl node) {
+        return view.containsNode(node) && (!view.isTimeFiltered() || view.isNodeInTimeInterval(node));
+    }
+
+    boolean containsEdge(final EdgeImpl edge) {
+        return view.containsEdge(edge) && (!view.isTimeFiltered() || view.isEdgeInTimeInterval(edge));
+    }
+
     boolean isUndirectedToIgnore(final EdgeImpl edge) {
-        if (edge.isMutual() && edge.source.storeId < edge.target.storeId) {
-            if (view.containsEdge(graphStore.edgeStore.get(edge.target, edge.source, edge.type))) {
-                return true;
-            }
+        if (edge.isCanonical()) {
+            return false;
+        }
+        //In the interval, the edge stands for the pair when its mutual is filtered out
+        IntervalCounts intervalCounts = view.intervalCounts;
+        if (intervalCounts != null) {
+            return intervalCounts.isPaired(edge);
         }
-        return false;
+        return !view.isCanonicalEdge(edge);
     }
 
     protected final class NodeViewIterator implements Iterator<Node> {
 
         private final Iterator<Node> nodeIterator;
+        private final boolean timeFiltered;
         private NodeImpl pointer;
 
         public NodeViewIterator(Iterator<Node> nodeIterator) {
             this.nodeIterator = nodeIterator;
+            this.timeFiltered = view.isTimeFiltered();
         }
 
         @Override
@@ -710,7 +765,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
                     return false;
                 }
                 pointer = (NodeImpl) nodeIterator.next();
-                if (!view.containsNode(pointer)) {
+                if (!view.containsNode(pointer) || (timeFiltered && !view.isNodeInTimeInterval(pointer))) {
                     pointer = null;
                 }
             }
@@ -732,10 +787,12 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
     protected final class EdgeViewIterator implements Iterator<Edge> {
 
         private final Iterator<Edge> edgeIterator;
+        private final boolean timeFiltered;
         private EdgeImpl pointer;
 
         public EdgeViewIterator(Iterator<Edge> edgeIterator) {
             this.edgeIterator = edgeIterator;
+            this.timeFiltered = view.isTimeFiltered();
         }
 
         @Override
@@ -746,13 +803,100 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
                     return false;
                 }
                 pointer = (EdgeImpl) edgeIterator.next();
-                if (!view.containsEdge(pointer)) {
+                if (!view.containsEdge(pointer) || (timeFiltered && !view.isEdgeInTimeInterval(pointer))) {
+                    pointer = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Edge next() {
+            return pointer;
+        }
+
+        @Override
+        public void remove() {
+            checkWriteLock();
+            removeEdge(pointer);
+        }
+    }
+
+    protected final class NodeViewBitVectorIterator implements Iterator<Node> {
+
+        private final AdaptiveBitVector bitVector;
+        private final int maxStoreId;
+        private final boolean timeFiltered;
+        private int cursor;
+        private NodeImpl pointer;
+
+        public NodeViewBitVectorIterator() {
+            graphStore.nodeStore.readLock();
+            this.bitVector = view.nodeBitVector;
+            this.maxStoreId = Math.min(graphStore.nodeStore.maxStoreId(), bitVector.size());
+            this.timeFiltered = view.isTimeFiltered();
+        }
+
+        @Override
+        public boolean hasNext() {
+            pointer = null;
+            while (pointer == null) {
+                int id = cursor < maxStoreId ? bitVector.nextSetBit(cursor) : -1;
+                if (id < 0 || id >= maxStoreId) {
+                    cursor = maxStoreId;
+                    graphStore.nodeStore.readUnlock();
+                    return false;
+                }
+                cursor = id + 1;
+                pointer = graphStore.nodeStore.get(id);
+                if (pointer != null && timeFiltered && !view.isNodeInTimeInterval(pointer)) {
                     pointer = null;
                 }
             }
             return true;
         }
 
+        @Override
+        public Node next() {
+            return pointer;
+        }
+
+        @Override
+        public void remove() {
+            checkWriteLock();
+            removeNode(pointer);
+        }
+    }
+
+    protected final class EdgeViewBitVectorIterator implements Iterator<Edge> {
+
+        private final AdaptiveBitVector bitVector;
+        private final int maxStoreId;
+        private int cursor;
+        private EdgeImpl pointer;
+
+        public EdgeViewBitVectorIterator() {
+            graphStore.edgeStore.readLock();
+            this.bitVector = view.edgeBitVector;
+            this.maxStoreId = Math.min(graphStore.edgeStore.maxStoreId(), bitVector.size());
+        }
+
+        @Override
+        public boolean hasNext() {
+            pointer = null;
+            while (pointer == null) {
+                int id = cursor < maxStoreId ? bitVector.nextSetBit(cursor) : -1;
+                if (id < 0 || id >= maxStoreId) {
+                    cursor = maxStoreId;
+                    graphStore.edgeStore.readUnlock();
+                    return false;
+                }
+                cursor = id + 1;
+                pointer = graphStore.edgeStore.get(id);
+            }
+            return true;
+        }
+
         @Override
         public Edge next() {
             return pointer;
@@ -768,16 +912,18 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph
     protected final class UndirectedEdgeViewIterator implements Iterator<Edge> {
 
         protected final Iterator<Edge> itr;
+        protected final boolean timeFiltered;
         protected EdgeImpl pointer;
 
         public UndirectedEdgeViewIterator(Iterator<Edge> itr) {
             this.itr = itr;
+            this.timeFiltered = view.isTimeFiltered();
         }
 
         @Override
         public boolean hasNext() {
             pointer = null;
-            while (pointer == null || !view.containsEdge(pointer) || isUndirectedToIgnore(pointer)) {
+            while (pointer == null || !view.containsEdge(pointer) || isUndirectedToIgnore(pointer) || (timeFiltered && !view.isEdgeInTimeInterval(pointer))) {
                 if (!itr.hasNext()) {
                     return false;
                 }
@@ -15,8 +15,6 @@
  */
 package org.gephi.graph.impl;
 
-import cern.colt.bitvector.BitVector;
-import cern.colt.bitvector.QuickBitVector;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -25,6 +23,8 @@ import java.util.List;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.ElementPredicate;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
@@ -38,8 +38,10 @@ public class GraphViewImpl implements GraphView {
     protected final boolean nodeView;
     protected final boolean edgeView;
     protected final GraphAttributesImpl attributes;
-    protected BitVector nodeBitVector;
-    protected BitVector edgeBitVector;
+    protected AdaptiveBitVector nodeBitVector;
+    protected AdaptiveBitVector edgeBitVector;
+    //Non-canonical mutual edges standing for their pair, the opposite edge not being in the view
+    protected AdaptiveBitVector canonicalEdgeBitVector;
     protected int storeId;
     //Version
     protected final GraphVersion version;
@@ -53,8 +55,15 @@ public class GraphViewImpl implements GraphView {
     protected int[] typeCounts;
     protected int[] mutualEdgeTypeCounts;
     protected int mutualEdgesCount;
+    protected volatile int[] degrees;
+    protected boolean degreesShared;
     //Dynamic
     protected Interval interval;
+    //Counts restricted to the time interval, null when not time filtered
+    protected IntervalCounts intervalCounts;
+    //Predicates
+    protected ElementPredicate<Node> nodePredicate;
+    protected ElementPredicate<Edge> edgePredicate;
 
     public GraphViewImpl(final GraphStore store, boolean nodes, boolean edges) {
         this.graphStore = store;
@@ -62,11 +71,12 @@ public class GraphViewImpl implements GraphView {
         this.edgeView = edges;
         this.attributes = new GraphAttributesImpl();
         if (nodes) {
-            this.nodeBitVector = new BitVector(store.nodeStore.maxStoreId());
+            this.nodeBitVector = new AdaptiveBitVector(store.nodeStore.maxStoreId());
         } else {
             this.nodeBitVector = null;
         }
-        this.edgeBitVector = new BitVector(store.edgeStore.maxStoreId());
+        this.edgeBitVector = new AdaptiveBitVector(store.edgeStore.maxStoreId());
+        this.canonicalEdgeBitVector = new AdaptiveBitVector(store.edgeStore.maxStoreId());
         this.typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         this.mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
 
@@ -90,14 +100,22 @@ public class GraphViewImpl implements GraphView {
         }
         this.edgeCount = view.edgeCount;
         this.edgeBitVector = view.edgeBitVector.copy();
+        this.canonicalEdgeBitVector = view.canonicalEdgeBitVector.copy();
         this.typeCounts = new int[view.typeCounts.length];
         System.arraycopy(view.typeCounts, 0, typeCounts, 0, view.typeCounts.length);
         this.mutualEdgeTypeCounts = new int[view.mutualEdgeTypeCounts.length];
         System.arraycopy(view.mutualEdgeTypeCounts, 0, mutualEdgeTypeCounts, 0, view.mutualEdgeTypeCounts.length);
+        this.mutualEdgesCount = view.mutualEdgesCount;
+        if (view.degrees != null) {
+            this.degrees = view.degrees;
+            this.degreesShared = true;
+            view.degreesShared = true;
+        }
         this.directedDecorator = new GraphViewDecorator(graphStore, this, false);
         this.undirectedDecorator = new GraphViewDecorator(graphStore, this, true);
         this.version = graphStore.version != null ? new GraphVersion(directedDecorator) : null;
         this.observers = graphStore.version != null ? new ArrayList<GraphObserverImpl>() : null;
+        this.interval = Interval.INFINITY_INTERVAL;
     }
 
     protected DirectedSubgraph getDirectedGraph() {
@@ -119,6 +137,9 @@ public class GraphViewImpl implements GraphView {
         if (!isSet) {
             nodeBitVector.set(id);
             nodeCount++;
+            if (intervalCounts != null) {
+                intervalCounts.node(nodeImpl, true);
+            }
             incrementNodeVersion();
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
@@ -219,6 +240,9 @@ public class GraphViewImpl implements GraphView {
         if (isSet) {
             nodeBitVector.clear(id);
             nodeCount--;
+            if (intervalCounts != null) {
+                intervalCounts.node(nodeImpl, false);
+            }
             incrementNodeVersion();
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
@@ -307,11 +331,16 @@ public class GraphViewImpl implements GraphView {
             nodeBitVector.clear();
         }
         edgeBitVector.clear();
+        canonicalEdgeBitVector.clear();
+        degrees = null;
         nodeCount = 0;
         edgeCount = 0;
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
+        if (intervalCounts != null) {
+            intervalCounts.recount();
+        }
 
         if (nodeView) {
             IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
@@ -338,10 +367,15 @@ public class GraphViewImpl implements GraphView {
             incrementEdgeVersion();
         }
         edgeBitVector.clear();
+        canonicalEdgeBitVector.clear();
+        degrees = null;
         edgeCount = 0;
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
+        if (intervalCounts != null) {
+            intervalCounts.recount();
+        }
 
         IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
         if (edgeIndexStore != null) {
@@ -356,15 +390,17 @@ public class GraphViewImpl implements GraphView {
     public void fill() {
         if (nodeView) {
             if (nodeCount > 0) {
-                nodeBitVector = new BitVector(graphStore.nodeStore.maxStoreId());
+                nodeBitVector = new AdaptiveBitVector(graphStore.nodeStore.maxStoreId());
             }
             nodeBitVector.not();
             this.nodeCount = graphStore.nodeStore.size();
         }
         if (edgeCount > 0) {
-            edgeBitVector = new BitVector(graphStore.edgeStore.maxStoreId());
+            edgeBitVector = new AdaptiveBitVector(graphStore.edgeStore.maxStoreId());
         }
         edgeBitVector.not();
+        canonicalEdgeBitVector.clear();
+        degrees = null;
 
         this.edgeCount = graphStore.edgeStore.size();
         int typeLength = graphStore.edgeStore.longDictionary.length;
@@ -376,6 +412,9 @@ public class GraphViewImpl implements GraphView {
         this.mutualEdgeTypeCounts = new int[graphStore.edgeStore.mutualEdgesTypeSize.length];
         System.arraycopy(graphStore.edgeStore.mutualEdgesTypeSize, 0, this.mutualEdgeTypeCounts, 0, this.mutualEdgeTypeCounts.length);
         this.mutualEdgesCount = graphStore.edgeStore.mutualEdgesSize;
+        if (intervalCounts != null) {
+            intervalCounts.recount();
+        }
 
         if (edgeCount > 0) {
             incrementEdgeVersion();
@@ -416,57 +455,115 @@ public class GraphViewImpl implements GraphView {
     }
 
     public void intersection(final GraphViewImpl otherView) {
-        BitVector nodeOtherBitVector = otherView.nodeBitVector;
-        BitVector edgeOtherBitVector = otherView.edgeBitVector;
-
-        if (nodeView) {
-            int nodeSize = nodeBitVector.size();
-            for (int i = 0; i < nodeSize; i++) {
-                boolean t = nodeBitVector.get(i);
-                boolean o = nodeOtherBitVector.get(i);
-                if (t && !o) {
-                    removeNode(getNode(i));
+        boolean nodeChanged = false;
+        boolean edgeChanged = false;
+
+        if (nodeView && otherView.nodeView) {
+            AdaptiveBitVector otherBitVector = otherView.nodeBitVector;
+            int maxStoreId = graphStore.nodeStore.maxStoreId();
+            if (nodeBitVector.isDense() && otherBitVector.isDense()) {
+                long[] nodeWords = nodeBitVector.elements();
+                long[] otherWords = otherBitVector.elements();
+                for (int i = 0; i < nodeWords.length; i++) {
+                    long removed = nodeWords[i] & ~(i < otherWords.length ? otherWords[i] : 0l);
+                    if (removed != 0) {
+                        nodeBitVector.clearWordBits(i, removed);
+                        nodeChanged = true;
+                        while (removed != 0) {
+                            int id = (i << 6) + Long.numberOfTrailingZeros(removed);
+                            removed &= removed - 1;
+                            edgeChanged |= nodeRemoved(id, maxStoreId);
+                        }
+                    }
+                }
+                nodeBitVector.checkCompress();
+            } else {
+                for (int id = nodeBitVector.nextSetBit(0); id >= 0; id = nodeBitVector.nextSetBit(id + 1)) {
+                    if (id >= otherBitVector.size() || !otherBitVector.get(id)) {
+                        nodeBitVector.clear(id);
+                        nodeChanged = true;
+                        edgeChanged |= nodeRemoved(id, maxStoreId);
+                    }
                 }
             }
         }
 
         if (edgeView) {
-            int edgeSize = edgeBitVector.size();
-            for (int i = 0; i < edgeSize; i++) {
-                boolean t = edgeBitVector.get(i);
-                boolean o = edgeOtherBitVector.get(i);
-                if (t && !o) {
-                    removeEdge(getEdge(i));
+            AdaptiveBitVector otherBitVector = otherView.edgeBitVector;
+            int maxStoreId = graphStore.edgeStore.maxStoreId();
+            if (edgeBitVector.isDense() && otherBitVector.isDense()) {
+                long[] edgeWords = edgeBitVector.elements();
+                long[] otherWords = otherBitVector.elements();
+                for (int i = 0; i < edgeWords.length; i++) {
+                    long removed = edgeWords[i] & ~(i < otherWords.length ? otherWords[i] : 0l);
+                    if (removed != 0) {
+                        edgeChanged = true;
+                        while (removed != 0) {
+                            long bit = removed & -removed;
+                            removed ^= bit;
+                            edgeBitVector.clearWordBits(i, bit);
+                            edgeRemoved((i << 6) + Long.numberOfTrailingZeros(bit), maxStoreId);
+                        }
+                    }
+                }
+                edgeBitVector.checkCompress();
+            } else {
+                for (int id = edgeBitVector.nextSetBit(0); id >= 0; id = edgeBitVector.nextSetBit(id + 1)) {
+                    if (id >= otherBitVector.size() || !otherBitVector.get(id)) {
+                        edgeBitVector.clear(id);
+                        edgeChanged = true;
+                        edgeRemoved(id, maxStoreId);
+                    }
                 }
             }
         }
+
+        commitBitVectorChange(nodeChanged, edgeChanged);
     }
 
     public void union(final GraphViewImpl otherView) {
-        BitVector nodeOtherBitVector = otherView.nodeBitVector;
-        BitVector edgeOtherBitVector = otherView.edgeBitVector;
-
-        if (nodeView) {
-            int nodeSize = nodeBitVector.size();
-            for (int i = 0; i < nodeSize; i++) {
-                boolean t = nodeBitVector.get(i);
-                boolean o = nodeOtherBitVector.get(i);
-                if (!t && o) {
-                    addNode(getNode(i));
+        boolean nodeChanged = false;
+        boolean edgeChanged = false;
+
+        if (nodeView && otherView.nodeView) {
+            AdaptiveBitVector otherBitVector = otherView.nodeBitVector;
+            ensureNodeVectorSize(otherBitVector.size());
+            int maxStoreId = graphStore.nodeStore.maxStoreId();
+            for (int id = otherBitVector.nextSetBit(0); id >= 0; id = otherBitVector.nextSetBit(id + 1)) {
+                if (!nodeBitVector.get(id)) {
+                    NodeImpl node = id < maxStoreId ? getNode(id) : null;
+                    if (node != null) {
+                        nodeBitVector.set(id);
+                        nodeCount++;
+                        if (intervalCounts != null) {
+                            intervalCounts.node(node, true);
+                        }
+                        nodeChanged = true;
+                        if (!edgeView) {
+                            edgeChanged |= addEdges(node);
+                        }
+                    }
                 }
             }
         }
 
         if (edgeView) {
-            int edgeSize = edgeBitVector.size();
-            for (int i = 0; i < edgeSize; i++) {
-                boolean t = edgeBitVector.get(i);
-                boolean o = edgeOtherBitVector.get(i);
-                if (!t && o) {
-                    addEdge(getEdge(i));
+            AdaptiveBitVector otherBitVector = otherView.edgeBitVector;
+            ensureEdgeVectorSize(otherBitVector.size());
+            int maxStoreId = graphStore.edgeStore.maxStoreId();
+            for (int id = otherBitVector.nextSetBit(0); id >= 0; id = otherBitVector.nextSetBit(id + 1)) {
+                if (!edgeBitVector.get(id)) {
+                    EdgeImpl edge = id < maxStoreId ? getEdge(id) : null;
+                    if (edge != null && (!nodeView || (nodeBitVector.get(edge.source.storeId) && nodeBitVector.get(edge.target.storeId)))) {
+                        edgeBitVector.set(id);
+                        countEdge(edge, 1);
+                        edgeChanged = true;
+                    }
                 }
             }
         }
+
+        commitBitVectorChange(nodeChanged, edgeChanged);
     }
 
     public void not() {
@@ -475,43 +572,18 @@ public class GraphViewImpl implements GraphView {
             this.nodeCount = graphStore.nodeStore.size() - this.nodeCount;
         }
         edgeBitVector.not();
+        degrees = null;
 
         this.edgeCount = graphStore.edgeStore.size() - this.edgeCount;
         for (int i = 0; i < typeCounts.length; i++) {
             this.typeCounts[i] = graphStore.edgeStore.longDictionary[i].size() - this.typeCounts[i];
         }
-        for (int i = 0; i < mutualEdgeTypeCounts.length; i++) {
-            this.mutualEdgeTypeCounts[i] = graphStore.edgeStore.mutualEdgesTypeSize[i] - this.mutualEdgeTypeCounts[i];
+        countMutualEdges();
+        if (intervalCounts != null) {
+            intervalCounts.recount();
         }
-        this.mutualEdgesCount = graphStore.edgeStore.mutualEdgesSize - this.mutualEdgesCount;
 
-        if (nodeView) {
-            incrementNodeVersion();
-        }
-        incrementEdgeVersion();
-
-        if (nodeView) {
-            IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
-            if (nodeIndexStore != null) {
-                nodeIndexStore.clear(directedDecorator.view);
-                nodeIndexStore.indexView(directedDecorator);
-            }
-            TimeIndexStore nodeTimeIndexStore = graphStore.timeStore.nodeIndexStore;
-            if (nodeTimeIndexStore != null) {
-                nodeTimeIndexStore.clear(directedDecorator.view);
-                nodeTimeIndexStore.indexView(directedDecorator);
-            }
-        }
-        IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
-        if (edgeIndexStore != null) {
-            edgeIndexStore.clear(directedDecorator.view);
-            edgeIndexStore.indexView(directedDecorator);
-        }
-        TimeIndexStore edgeTimeIndexStore = graphStore.timeStore.edgeIndexStore;
-        if (edgeTimeIndexStore != null) {
-            edgeTimeIndexStore.clear(directedDecorator.view);
-            edgeTimeIndexStore.indexView(directedDecorator);
-        }
+        commitBitVectorChange(nodeView, true);
     }
 
     public void addEdgeInNodeView(EdgeImpl edge) {
@@ -522,6 +594,12 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
+    public void removeEdgeInNodeView(EdgeImpl edge) {
+        if (edge.storeId < edgeBitVector.size() && edgeBitVector.get(edge.storeId)) {
+            removeEdge(edge);
+        }
+    }
+
     public int getNodeCount() {
         if (nodeView) {
             return nodeCount;
@@ -533,6 +611,30 @@ public class GraphViewImpl implements GraphView {
         return edgeCount;
     }
 
+    public int getInDegree(final NodeImpl node) {
+        int[] d = ensureDegrees();
+        int index = node.storeId * 3;
+        return index >= 0 && index < d.length ? d[index] : 0;
+    }
+
+    public int getOutDegree(final NodeImpl node) {
+        int[] d = ensureDegrees();
+        int index = node.storeId * 3 + 1;
+        return index >= 0 && index < d.length ? d[index] : 0;
+    }
+
+    public int getDegree(final NodeImpl node) {
+        int[] d = ensureDegrees();
+        int index = node.storeId * 3;
+        return index >= 0 && index < d.length ? d[index] + d[index + 1] : 0;
+    }
+
+    public int getUndirectedDegree(final NodeImpl node) {
+        int[] d = ensureDegrees();
+        int index = node.storeId * 3;
+        return index >= 0 && index < d.length ? d[index] + d[index + 1] - d[index + 2] : 0;
+    }
+
     public int getUndirectedEdgeCount() {
         return edgeCount - mutualEdgesCount;
     }
@@ -575,7 +677,127 @@ public class GraphViewImpl implements GraphView {
         if (interval == null) {
             interval = Interval.INFINITY_INTERVAL;
         }
+        if (interval.equals(this.interval)) {
+            return;
+        }
         this.interval = interval;
+
+        if (nodeView) {
+            incrementNodeVersion();
+        }
+        incrementEdgeVersion();
+
+        Collection<Element> nodeChanges = null;
+        Collection<Element> edgeChanges = null;
+        TimeIndexStore nodeTimeIndexStore = graphStore.timeStore.nodeIndexStore;
+        if (nodeTimeIndexStore != null) {
+            nodeChanges = nodeTimeIndexStore.setTimeInterval(this, interval);
+        }
+        TimeIndexStore edgeTimeIndexStore = graphStore.timeStore.edgeIndexStore;
+        if (edgeTimeIndexStore != null) {
+            edgeChanges = edgeTimeIndexStore.setTimeInterval(this, interval);
+        }
+
+        if (!isTimeFiltered()) {
+            if (intervalCounts != null) {
+                intervalCounts = null;
+                graphStore.viewStore.intervalViewCount--;
+                reindexInterval();
+            }
+        } else if (intervalCounts == null || (nodeTimeIndexStore != null && nodeChanges == null)
+                || (edgeTimeIndexStore != null && edgeChanges == null)) {
+            if (intervalCounts == null) {
+                intervalCounts = new IntervalCounts(this);
+                graphStore.viewStore.intervalViewCount++;
+            }
+            intervalCounts.recount();
+            reindexInterval();
+        } else {
+            //Only the elements the interval filters have seen crossing the bounds are counted again
+            if (nodeChanges != null) {
+                for (Element node : nodeChanges) {
+                    updateInterval((NodeImpl) node);
+                }
+            }
+            if (edgeChanges != null) {
+                for (Element edge : edgeChanges) {
+                    updateInterval((EdgeImpl) edge);
+                }
+            }
+        }
+    }
+
+    protected void updateInterval(NodeImpl node) {
+        boolean inView = node.storeId != NodeStore.NULL_ID && (!nodeView || isInNodeVector(node));
+        if (intervalCounts.node(node, inView)) {
+            intervalChanged(node, intervalCounts.containsNode(node));
+            //Edges also depend on their endpoints being in the interval
+            EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
+            while (itr.hasNext()) {
+                updateInterval(itr.next());
+            }
+        }
+    }
+
+    protected void updateInterval(EdgeImpl edge) {
+        if (intervalCounts.edge(edge, isInEdgeVector(edge))) {
+            intervalChanged(edge, intervalCounts.containsEdge(edge));
+        }
+    }
+
+    private void reindexInterval() {
+        //View indexes only hold the elements in the interval
+        IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
+        if (nodeIndexStore != null) {
+            nodeIndexStore.indexView(directedDecorator);
+        }
+        IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
+        if (edgeIndexStore != null) {
+            edgeIndexStore.indexView(directedDecorator);
+        }
+    }
+
+    private void intervalChanged(NodeImpl node, boolean added) {
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        if (indexStore != null) {
+            if (added) {
+                indexStore.indexInView(node, this);
+            } else {
+                indexStore.clearInView(node, this);
+            }
+        }
+    }
+
+    private void intervalChanged(EdgeImpl edge, boolean added) {
+        IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
+        if (indexStore != null) {
+            if (added) {
+                indexStore.indexInView(edge, this);
+            } else {
+                indexStore.clearInView(edge, this);
+            }
+        }
+    }
+
+    public boolean isLive() {
+        return nodePredicate != null || edgePredicate != null;
+    }
+
+    public boolean isTimeFiltered() {
+        return !interval.equals(Interval.INFINITY_INTERVAL);
+    }
+
+    public boolean isNodeInTimeInterval(NodeImpl node) {
+        TimeIndexStore timeIndexStore = graphStore.timeStore.nodeIndexStore;
+        return timeIndexStore == null || timeIndexStore.isInTimeInterval(node, this);
+    }
+
+    public boolean isEdgeInTimeInterval(EdgeImpl edge) {
+        TimeIndexStore timeIndexStore = graphStore.timeStore.edgeIndexStore;
+        if (timeIndexStore != null && !timeIndexStore.isInTimeInterval(edge, this)) {
+            return false;
+        }
+        return isNodeInTimeInterval(edge.source) && isNodeInTimeInterval(edge.target);
     }
 
     @Override
@@ -613,19 +835,19 @@ public class GraphViewImpl implements GraphView {
         int sid = node.storeId;
         if (sid >= nodeBitVector.size()) {
             int newSize = Math.min(Math.max(sid + 1, (int) (sid * GraphStoreConfiguration.VIEW_GROWING_FACTOR)), Integer.MAX_VALUE);
-            nodeBitVector = growBitVector(nodeBitVector, newSize);
+            nodeBitVector.ensureSize(newSize);
         }
     }
 
     private void ensureNodeVectorSize(int size) {
         if (size > nodeBitVector.size()) {
-            nodeBitVector = growBitVector(nodeBitVector, size);
+            nodeBitVector.ensureSize(size);
         }
     }
 
     private void ensureEdgeVectorSize(int size) {
         if (size > edgeBitVector.size()) {
-            edgeBitVector = growBitVector(edgeBitVector, size);
+            edgeBitVector.ensureSize(size);
         }
     }
 
@@ -633,7 +855,7 @@ public class GraphViewImpl implements GraphView {
         int sid = edge.storeId;
         if (sid >= edgeBitVector.size()) {
             int newSize = Math.min(Math.max(sid + 1, (int) (sid * GraphStoreConfiguration.VIEW_GROWING_FACTOR)), Integer.MAX_VALUE);
-            edgeBitVector = growBitVector(edgeBitVector, newSize);
+            edgeBitVector.ensureSize(newSize);
         }
     }
 
@@ -641,17 +863,7 @@ public class GraphViewImpl implements GraphView {
         incrementEdgeVersion();
 
         edgeBitVector.set(edgeImpl.storeId);
-        edgeCount++;
-
-        int type = edgeImpl.type;
-        ensureTypeCountArrayCapacity(type);
-
-        typeCounts[type]++;
-
-        if (edgeImpl.isMutual() && edgeImpl.source.storeId < edgeImpl.target.storeId) {
-            mutualEdgeTypeCounts[type]++;
-            mutualEdgesCount++;
-        }
+        countEdge(edgeImpl, 1);
 
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
         if (indexStore != null) {
@@ -667,13 +879,7 @@ public class GraphViewImpl implements GraphView {
         incrementEdgeVersion();
 
         edgeBitVector.clear(edgeImpl.storeId);
-        edgeCount--;
-        typeCounts[edgeImpl.type]--;
-
-        if (edgeImpl.isMutual() && edgeImpl.source.storeId < edgeImpl.target.storeId) {
-            mutualEdgeTypeCounts[edgeImpl.type]--;
-            mutualEdgesCount--;
-        }
+        countEdge(edgeImpl, -1);
 
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
         if (indexStore != null) {
@@ -681,11 +887,217 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
-    private BitVector growBitVector(BitVector bitVector, int size) {
-        long[] elements = bitVector.elements();
-        long[] newElements = QuickBitVector.makeBitVector(size, 1);
-        System.arraycopy(elements, 0, newElements, 0, elements.length);
-        return new BitVector(newElements, size);
+    private boolean nodeRemoved(int id, int maxStoreId) {
+        NodeImpl node = id < maxStoreId ? getNode(id) : null;
+        if (node != null) {
+            nodeCount--;
+            if (intervalCounts != null) {
+                intervalCounts.node(node, false);
+            }
+            return clearEdges(node);
+        }
+        return false;
+    }
+
+    private void edgeRemoved(int id, int maxStoreId) {
+        EdgeImpl edge = id < maxStoreId ? getEdge(id) : null;
+        if (edge != null) {
+            countEdge(edge, -1);
+        }
+    }
+
+    private boolean clearEdges(NodeImpl node) {
+        boolean changed = false;
+        EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
+        while (itr.hasNext()) {
+            EdgeImpl edge = itr.next();
+            if (edgeBitVector.get(edge.storeId)) {
+                edgeBitVector.clear(edge.storeId);
+                countEdge(edge, -1);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean addEdges(NodeImpl node) {
+        boolean changed = false;
+        EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
+        while (itr.hasNext()) {
+            EdgeImpl edge = itr.next();
+            NodeImpl opposite = edge.source == node ? edge.target : edge.source;
+            if (nodeBitVector.get(opposite.storeId) && !edgeBitVector.get(edge.storeId)) {
+                edgeBitVector.set(edge.storeId);
+                countEdge(edge, 1);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void countEdge(EdgeImpl edgeImpl, int delta) {
+        int type = edgeImpl.type;
+        ensureTypeCountArrayCapacity(type);
+
+        edgeCount += delta;
+        typeCounts[type] += delta;
+
+        boolean paired = false;
+        if (edgeImpl.isMutual()) {
+            EdgeImpl mutual = graphStore.edgeStore.get(edgeImpl.target, edgeImpl.source, type);
+            paired = mutual != null && isInEdgeVector(mutual);
+            if (paired) {
+                mutualEdgeTypeCounts[type] += delta;
+                mutualEdgesCount += delta;
+            }
+            if (!edgeImpl.isCanonical()) {
+                setCanonicalEdge(edgeImpl, delta > 0 && !paired);
+            } else if (paired) {
+                setCanonicalEdge(mutual, delta < 0);
+            }
+        }
+        countDegree(edgeImpl, delta, paired);
+        if (intervalCounts != null) {
+            intervalCounts.edge(edgeImpl, delta > 0);
+        }
+    }
+
+    protected void addMutualEdge(EdgeImpl edge, EdgeImpl mutual) {
+        //The new edge isn't in the view yet so the existing one stands for the pair
+        if (!mutual.isCanonical() && isInEdgeVector(mutual)) {
+            setCanonicalEdge(mutual, true);
+        }
+    }
+
+    protected boolean isCanonicalEdge(EdgeImpl edge) {
+        int id = edge.storeId;
+        return id < canonicalEdgeBitVector.size() && canonicalEdgeBitVector.get(id);
+    }
+
+    private boolean isInNodeVector(NodeImpl node) {
+        int id = node.storeId;
+        return id < nodeBitVector.size() && nodeBitVector.get(id);
+    }
+
+    private boolean isInEdgeVector(EdgeImpl edge) {
+        int id = edge.storeId;
+        return id != EdgeStore.NULL_ID && id < edgeBitVector.size() && edgeBitVector.get(id);
+    }
+
+    private void setCanonicalEdge(EdgeImpl edge, boolean canonical) {
+        int id = edge.storeId;
+        if (canonical) {
+            if (id >= canonicalEdgeBitVector.size()) {
+                canonicalEdgeBitVector.ensureSize(Math.max(id + 1, edgeBitVector.size()));
+            }
+            canonicalEdgeBitVector.set(id);
+        } else if (id < canonicalEdgeBitVector.size()) {
+            canonicalEdgeBitVector.clear(id);
+        }
+    }
+
+    protected void countMutualEdges() {
+        canonicalEdgeBitVector = new AdaptiveBitVector(edgeBitVector.size());
+        mutualEdgeTypeCounts = new int[typeCounts.length];
+        mutualEdgesCount = 0;
+        int maxStoreId = graphStore.edgeStore.maxStoreId();
+        for (int id = edgeBitVector.nextSetBit(0); id >= 0 && id < maxStoreId; id = edgeBitVector.nextSetBit(id + 1)) {
+            EdgeImpl edge = getEdge(id);
+            if (edge != null && !edge.isCanonical()) {
+                EdgeImpl mutual = graphStore.edgeStore.get(edge.target, edge.source, edge.type);
+                if (mutual != null && isInEdgeVector(mutual)) {
+                    ensureTypeCountArrayCapacity(edge.type);
+                    mutualEdgeTypeCounts[edge.type]++;
+                    mutualEdgesCount++;
+                } else {
+                    canonicalEdgeBitVector.set(id);
+                }
+            }
+        }
+    }
+
+    private void countDegree(EdgeImpl edgeImpl, int delta, boolean paired) {
+        int[] d = degrees;
+        if (d == null) {
+            return;
+        }
+        int source = edgeImpl.source.storeId * 3;
+        int target = edgeImpl.target.storeId * 3;
+        int length = Math.max(source, target) + 3;
+        if (length > d.length || degreesShared) {
+            d = Arrays.copyOf(d, Math.max(d.length, Math.max(length, graphStore.nodeStore.maxStoreId() * 3)));
+            degrees = d;
+            degreesShared = false;
+        }
+        d[source + 1] += delta;
+        d[target] += delta;
+        if (paired) {
+            d[source + 2] += delta;
+            d[target + 2] += delta;
+        }
+    }
+
+    private int[] ensureDegrees() {
+        int[] d = degrees;
+        if (d == null) {
+            d = buildDegrees();
+        }
+        return d;
+    }
+
+    private synchronized int[] buildDegrees() {
+        if (degrees != null) {
+            return degrees;
+        }
+        int[] d = new int[graphStore.nodeStore.maxStoreId() * 3];
+        int maxStoreId = graphStore.edgeStore.maxStoreId();
+        for (int id = edgeBitVector.nextSetBit(0); id >= 0 && id < maxStoreId; id = edgeBitVector.nextSetBit(id + 1)) {
+            EdgeImpl edge = getEdge(id);
+            if (edge != null) {
+                int source = edge.source.storeId * 3;
+                int target = edge.target.storeId * 3;
+                d[source + 1]++;
+                d[target]++;
+                if (!edge.isCanonical() && !isCanonicalEdge(edge)) {
+                    d[source + 2]++;
+                    d[target + 2]++;
+                }
+            }
+        }
+        degrees = d;
+        degreesShared = false;
+        return d;
+    }
+
+    private void commitBitVectorChange(boolean nodes, boolean edges) {
+        if (nodes) {
+            incrementNodeVersion();
+
+            IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
+            if (nodeIndexStore != null) {
+                nodeIndexStore.clear(directedDecorator.view);
+                nodeIndexStore.indexView(directedDecorator);
+            }
+            TimeIndexStore nodeTimeIndexStore = graphStore.timeStore.nodeIndexStore;
+            if (nodeTimeIndexStore != null) {
+                nodeTimeIndexStore.clear(directedDecorator.view);
+                nodeTimeIndexStore.indexView(directedDecorator);
+            }
+        }
+        if (edges) {
+            incrementEdgeVersion();
+
+            IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
+            if (edgeIndexStore != null) {
+                edgeIndexStore.clear(directedDecorator.view);
+                edgeIndexStore.indexView(directedDecorator);
+            }
+            TimeIndexStore edgeTimeIndexStore = graphStore.timeStore.edgeIndexStore;
+            if (edgeTimeIndexStore != null) {
+                edgeTimeIndexStore.clear(directedDecorator.view);
+                edgeTimeIndexStore.indexView(directedDecorator);
+            }
+        }
     }
 
     private NodeImpl getNode(int id) {
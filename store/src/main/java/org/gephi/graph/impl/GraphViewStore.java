@@ -17,14 +17,24 @@ package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
 import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
+import java.util.Map;
+import java.util.Set;
+import org.gephi.graph.api.ColumnPredicate;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.ElementPredicate;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.UndirectedSubgraph;
+import org.gephi.graph.impl.EdgeStore.EdgeInOutIterator;
 
 public class GraphViewStore {
 
@@ -39,6 +49,15 @@ public class GraphViewStore {
     protected int length;
     //Visible view
     protected GraphView visibleView;
+    //Batch
+    protected boolean batch;
+    protected final ObjectList<EdgeImpl> batchEdges;
+    //Live views
+    protected volatile int liveViewCount;
+    protected final ObjectSet<ElementImpl> pendingElements;
+    protected volatile boolean liveViewsPending;
+    //Time filtered views
+    protected volatile int intervalViewCount;
 
     public GraphViewStore(GraphStore graphStore) {
         if (graphStore == null) {
@@ -48,6 +67,8 @@ public class GraphViewStore {
         this.views = new GraphViewImpl[DEFAULT_VIEWS];
         this.garbageQueue = new IntRBTreeSet();
         this.visibleView = graphStore.mainGraphView;
+        this.batchEdges = new ObjectArrayList<EdgeImpl>();
+        this.pendingElements = new ObjectOpenHashSet<ElementImpl>();
     }
 
     public GraphViewImpl createView() {
@@ -65,6 +86,50 @@ public class GraphViewStore {
         }
     }
 
+    public GraphViewImpl createView(ElementPredicate<Node> nodePredicate, ElementPredicate<Edge> edgePredicate) {
+        if (nodePredicate == null && edgePredicate == null) {
+            throw new IllegalArgumentException("At least one predicate should be non-null");
+        }
+        graphStore.autoWriteLock();
+        try {
+            GraphViewImpl graphView = new GraphViewImpl(graphStore, nodePredicate != null, edgePredicate != null);
+            graphView.nodePredicate = nodePredicate;
+            graphView.edgePredicate = edgePredicate;
+            addView(graphView);
+            liveViewCount++;
+
+            if (nodePredicate != null) {
+                Iterable<Node> nodes = getIndexedCandidates(nodePredicate, graphStore.nodeTable.store.indexStore);
+                boolean indexed = nodes != null;
+                if (!indexed) {
+                    nodes = graphStore.nodeStore;
+                }
+                for (Node node : nodes) {
+                    if (indexed || nodePredicate.evaluate(node)) {
+                        graphView.addNode(node);
+                    }
+                }
+            }
+            if (edgePredicate != null) {
+                Iterable<Edge> edges = getIndexedCandidates(edgePredicate, graphStore.edgeTable.store.indexStore);
+                boolean indexed = edges != null;
+                if (!indexed) {
+                    edges = graphStore.edgeStore;
+                }
+                for (Edge edge : edges) {
+                    EdgeImpl edgeImpl = (EdgeImpl) edge;
+                    if (graphView.containsNode(edgeImpl.source) && graphView.containsNode(edgeImpl.target)
+                            && (indexed || edgePredicate.evaluate(edge))) {
+                        graphView.addEdge(edge);
+                    }
+                }
+            }
+            return graphView;
+        } finally {
+            graphStore.autoWriteUnlock();
+        }
+    }
+
     public GraphViewImpl createView(GraphView view) {
         return createView(view, true, true);
     }
@@ -88,6 +153,15 @@ public class GraphViewStore {
             try {
                 GraphViewImpl graphView = new GraphViewImpl((GraphViewImpl) view, nodes, edges);
                 addView(graphView);
+
+                IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
+                if (nodeIndexStore != null && nodes && ((GraphViewImpl) view).nodeView) {
+                    nodeIndexStore.copyViewIndex(view, graphView);
+                }
+                IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
+                if (edgeIndexStore != null) {
+                    edgeIndexStore.copyViewIndex(view, graphView);
+                }
                 return graphView;
             } finally {
                 graphStore.autoWriteUnlock();
@@ -120,6 +194,13 @@ public class GraphViewStore {
                 edgeIndexStore.deleteViewIndex(((GraphViewImpl) view).getDirectedGraph());
             }
 
+            if (((GraphViewImpl) view).isLive()) {
+                liveViewCount--;
+            }
+            if (((GraphViewImpl) view).intervalCounts != null) {
+                ((GraphViewImpl) view).intervalCounts = null;
+                intervalViewCount--;
+            }
             removeView((GraphViewImpl) view);
         } finally {
             graphStore.autoWriteUnlock();
@@ -232,18 +313,185 @@ public class GraphViewStore {
     protected void removeNode(NodeImpl node) {
         if (views.length > 0) {
             for (GraphViewImpl view : views) {
-                view.removeNode(node);
+                if (view == null) {
+                    continue;
+                }
+                if (view.nodeView) {
+                    view.removeNode(node);
+                } else if (view.intervalCounts != null) {
+                    view.intervalCounts.node(node, false);
+                }
             }
         }
     }
 
     protected void addEdge(EdgeImpl edge) {
         if (views.length > 0) {
+            boolean deferred = false;
             for (GraphViewImpl view : views) {
+                if (view == null) {
+                    continue;
+                }
                 view.ensureEdgeVectorSize(edge);
 
                 if (view.nodeView && !view.edgeView) {
-                    view.addEdgeInNodeView(edge);
+                    if (!batch) {
+                        view.addEdgeInNodeView(edge);
+                    } else if (!deferred) {
+                        batchEdges.add(edge);
+                        deferred = true;
+                    }
+                }
+            }
+        }
+    }
+
+    protected void addMutualEdge(EdgeImpl edge, EdgeImpl mutual) {
+        if (views.length > 0) {
+            for (GraphViewImpl view : views) {
+                if (view != null) {
+                    view.addMutualEdge(edge, mutual);
+                }
+            }
+        }
+    }
+
+    protected void updateElement(ElementImpl element) {
+        if (!GraphStoreConfiguration.ENABLE_AUTO_LOCKING || graphStore.lock.isWriteLockedByCurrentThread()) {
+            applyElement(element);
+            return;
+        }
+        if (graphStore.lock.canWriteLock()) {
+            //The attribute write takes the write lock like other graph writes
+            graphStore.writeLock();
+            try {
+                applyElement(element);
+            } finally {
+                graphStore.writeUnlock();
+            }
+            return;
+        }
+        //Writers holding a read lock can't upgrade, the element waits for the next write lock
+        synchronized (pendingElements) {
+            pendingElements.add(element);
+        }
+        liveViewsPending = true;
+    }
+
+    protected void flushLiveViews() {
+        if (!liveViewsPending) {
+            return;
+        }
+        liveViewsPending = false;
+        ElementImpl[] elements;
+        synchronized (pendingElements) {
+            elements = pendingElements.toArray(new ElementImpl[pendingElements.size()]);
+            pendingElements.clear();
+        }
+        for (ElementImpl element : elements) {
+            applyElement(element);
+        }
+    }
+
+    private void applyElement(ElementImpl element) {
+        if (element.isValid()) {
+            if (element instanceof NodeImpl) {
+                updateNode((NodeImpl) element);
+            } else {
+                updateEdge((EdgeImpl) element);
+            }
+        }
+    }
+
+    protected void updateNode(NodeImpl node) {
+        if (liveViewCount > 0 || intervalViewCount > 0) {
+            for (GraphViewImpl view : views) {
+                if (view == null) {
+                    continue;
+                }
+                if (view.nodePredicate != null) {
+                    updateNode(view, node);
+                }
+                if (view.intervalCounts != null) {
+                    view.updateInterval(node);
+                }
+            }
+        }
+    }
+
+    protected void updateNode(GraphViewImpl view, NodeImpl node) {
+        boolean accepted = view.nodePredicate.evaluate(node);
+        boolean contained = view.containsNode(node);
+        if (accepted && !contained) {
+            view.addNode(node);
+            if (view.edgePredicate != null) {
+                EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node);
+                while (itr.hasNext()) {
+                    EdgeImpl edge = itr.next();
+                    NodeImpl opposite = edge.source == node ? edge.target : edge.source;
+                    if (view.containsNode(opposite) && !view.containsEdge(edge) && view.edgePredicate.evaluate(edge)) {
+                        view.addEdge(edge);
+                    }
+                }
+            }
+        } else if (!accepted && contained) {
+            view.removeNode(node);
+        }
+    }
+
+    protected void updateEdge(EdgeImpl edge) {
+        if (liveViewCount > 0 || intervalViewCount > 0) {
+            for (GraphViewImpl view : views) {
+                if (view == null) {
+                    continue;
+                }
+                if (view.edgePredicate != null) {
+                    updateEdge(view, edge);
+                }
+                if (view.intervalCounts != null) {
+                    view.updateInterval(edge);
+                }
+            }
+        }
+    }
+
+    protected void updateEdge(GraphViewImpl view, EdgeImpl edge) {
+        boolean accepted = view.containsNode(edge.source) && view.containsNode(edge.target)
+                && view.edgePredicate.evaluate(edge);
+        boolean contained = view.containsEdge(edge);
+        if (accepted && !contained) {
+            view.addEdge(edge);
+        } else if (!accepted && contained) {
+            view.removeEdge(edge);
+        }
+    }
+
+    protected void beginBatch() {
+        batch = true;
+        for (GraphViewImpl view : views) {
+            if (view != null && view.version != null) {
+                view.version.beginBatch();
+            }
+        }
+    }
+
+    protected void commitBatch() {
+        batch = false;
+        try {
+            for (GraphViewImpl view : views) {
+                if (view != null && view.nodeView && !view.edgeView) {
+                    for (EdgeImpl edge : batchEdges) {
+                        if (edge.isValid() && !view.containsEdge(edge)) {
+                            view.addEdgeInNodeView(edge);
+                        }
+                    }
+                }
+            }
+        } finally {
+            batchEdges.clear();
+            for (GraphViewImpl view : views) {
+                if (view != null && view.version != null) {
+                    view.version.commitBatch();
                 }
             }
         }
@@ -252,7 +500,14 @@ public class GraphViewStore {
     protected void removeEdge(EdgeImpl edge) {
         if (views.length > 0) {
             for (GraphViewImpl view : views) {
-                view.removeEdge(edge);
+                if (view == null) {
+                    continue;
+                }
+                if (view.edgeView) {
+                    view.removeEdge(edge);
+                } else {
+                    view.removeEdgeInNodeView(edge);
+                }
             }
         }
     }
@@ -270,6 +525,9 @@ public class GraphViewStore {
         }
         views[id] = view;
         view.storeId = id;
+        if (batch && view.version != null) {
+            view.version.beginBatch();
+        }
         return id;
     }
 
@@ -289,6 +547,30 @@ public class GraphViewStore {
         }
     }
 
+    private <T extends Element> Iterable<T> getIndexedCandidates(ElementPredicate<T> predicate, IndexStore<T> indexStore) {
+        if (indexStore == null || !(predicate instanceof ColumnPredicate)) {
+            return null;
+        }
+        ColumnPredicate<T> columnPredicate = (ColumnPredicate<T>) predicate;
+        ColumnImpl column = (ColumnImpl) columnPredicate.getColumn();
+        if (column == null || !column.isIndexed() || column.isArray() || !indexStore.hasColumn(column)) {
+            return null;
+        }
+        IndexImpl<T> index = indexStore.mainIndex;
+        ObjectList<T> candidates = new ObjectArrayList<T>();
+        index.lock();
+        try {
+            for (Map.Entry<Object, Set<T>> entry : index.get(column)) {
+                if (columnPredicate.evaluateValue(entry.getKey())) {
+                    candidates.addAll(entry.getValue());
+                }
+            }
+        } finally {
+            index.unlock();
+        }
+        return candidates;
+    }
+
     private void ensureArraySize(int index) {
         if (index >= views.length) {
             GraphViewImpl[] newArray = new GraphViewImpl[index + 1];
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gephi.graph.api.Element;
+
+public class IndexBuild<T extends Element> implements Runnable {
+
+    //States
+    protected static final int PENDING = 0;
+    protected static final int RUNNING = 1;
+    protected static final int DONE = 2;
+    protected static final int CANCELLED = 3;
+    //Store
+    protected final IndexStore<T> indexStore;
+    protected final ColumnImpl column;
+    protected final boolean lazy;
+    protected final AtomicInteger state;
+    //Snapshot, by element store id
+    protected ElementImpl[] elements;
+    protected Object[] values;
+    //Writes made after the snapshot started, latest value by element
+    protected final Map<T, Write> writes;
+    protected boolean cleared;
+
+    public IndexBuild(IndexStore<T> indexStore, ColumnImpl column, boolean lazy) {
+        this.indexStore = indexStore;
+        this.column = column;
+        this.lazy = lazy;
+        this.state = new AtomicInteger(PENDING);
+        this.writes = new Reference2ObjectOpenHashMap<T, Write>();
+    }
+
+    @Override
+    public void run() {
+        if (!start()) {
+            return;
+        }
+        try {
+            IndexImpl.AbstractIndex index = snapshot();
+            finish(index);
+        } catch (RuntimeException e) {
+            indexStore.cancelIndexBuild(this);
+            throw e;
+        }
+    }
+
+    protected boolean start() {
+        if (!state.compareAndSet(PENDING, RUNNING)) {
+            return false;
+        }
+        indexStore.lock();
+        try {
+            if (state.get() != RUNNING) {
+                return false;
+            }
+            column.indexBuild = this;
+        } finally {
+            indexStore.unlock();
+        }
+        return true;
+    }
+
+    protected IndexImpl.AbstractIndex snapshot() {
+        ColumnStore<T> columnStore = indexStore.columnStore;
+        GraphStore graphStore = columnStore.graphStore;
+        int columnIndex = column.getIndex();
+
+        graphStore.autoReadLock();
+        try {
+            int maxStoreId = columnStore.getMaxElementStoreId();
+            elements = new ElementImpl[maxStoreId];
+            values = new Object[maxStoreId];
+            for (int id = 0; id < maxStoreId; id++) {
+                ElementImpl element = columnStore.getElement(id);
+                if (element != null) {
+                    //Waits for writers that didn't see the build to publish their value
+                    synchronized (element) {
+                        Object[] attributes = element.attributes;
+                        values[id] = columnIndex < attributes.length ? attributes[columnIndex] : null;
+                    }
+                    elements[id] = element;
+                }
+            }
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+
+        IndexImpl.AbstractIndex index = indexStore.mainIndex.createIndex(column);
+        for (int id = 0; id < elements.length; id++) {
+            if (elements[id] != null) {
+                index.putValue(elements[id], values[id]);
+            }
+        }
+        return index;
+    }
+
+    protected void finish(IndexImpl.AbstractIndex index) {
+        indexStore.lock();
+        try {
+            if (state.get() != RUNNING) {
+                return;
+            }
+            if (cleared) {
+                index.clear();
+            }
+            //Removes snapshot values by store id, as removed elements lost theirs
+            for (Map.Entry<T, Write> entry : writes.entrySet()) {
+                int id = entry.getValue().storeId;
+                if (!cleared && id >= 0 && id < elements.length && elements[id] == entry.getKey()) {
+                    index.removeStoreId(id, values[id]);
+                }
+            }
+            for (Map.Entry<T, Write> entry : writes.entrySet()) {
+                Write write = entry.getValue();
+                if (!write.removed) {
+                    index.putValue(entry.getKey(), write.value);
+                }
+            }
+            elements = null;
+            values = null;
+            writes.clear();
+            state.set(DONE);
+            indexStore.addIndex(column, index);
+        } finally {
+            indexStore.unlock();
+        }
+    }
+
+    protected void write(T element, Object value, boolean removed) {
+        Write write = writes.get(element);
+        if (write == null) {
+            write = new Write(element.getStoreId());
+            writes.put(element, write);
+        }
+        write.value = value;
+        write.removed = removed;
+    }
+
+    protected void clear() {
+        if (column.indexBuild == this) {
+            writes.clear();
+            cleared = true;
+        }
+    }
+
+    protected boolean cancel() {
+        int s = state.get();
+        while (s == PENDING || s == RUNNING) {
+            if (state.compareAndSet(s, CANCELLED)) {
+                if (column.indexBuild == this) {
+                    column.indexBuild = null;
+                }
+                writes.clear();
+                return true;
+            }
+            s = state.get();
+        }
+        return false;
+    }
+
+    protected boolean isPending() {
+        return state.get() == PENDING;
+    }
+
+    protected static final class Write {
+
+        protected final int storeId;
+        protected Object value;
+        protected boolean removed;
+
+        public Write(int storeId) {
+            this.storeId = storeId;
+        }
+    }
+}
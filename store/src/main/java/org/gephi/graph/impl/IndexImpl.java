@@ -22,17 +22,28 @@ import it.unimi.dsi.fastutil.floats.Float2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectAVLTreeMap;
+import java.lang.reflect.Array;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ElementIterable;
 import org.gephi.graph.api.Index;
 import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Interval;
 
 public class IndexImpl<T extends Element> implements Index<T> {
 
@@ -40,10 +51,13 @@ public class IndexImpl<T extends Element> implements Index<T> {
     protected final ColumnStore<T> columnStore;
     protected AbstractIndex[] columns;
     protected int columnsCount;
+    //Indexes of dynamic columns, created on their first query
+    protected final Map<ColumnImpl, DynamicIndexImpl<T>> dynamicIndexes;
 
     public IndexImpl(ColumnStore<T> columnStore) {
         this.columnStore = columnStore;
         this.columns = new AbstractIndex[0];
+        this.dynamicIndexes = new Reference2ObjectOpenHashMap<ColumnImpl, DynamicIndexImpl<T>>();
         this.lock = columnStore.lock;
     }
 
@@ -60,10 +74,11 @@ public class IndexImpl<T extends Element> implements Index<T> {
     @Override
     public int count(Column column, Object value) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
 
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return index.getCount(value);
         } finally {
             unlock();
@@ -72,6 +87,7 @@ public class IndexImpl<T extends Element> implements Index<T> {
 
     public int count(String key, Object value) {
         checkNonNullObject(key);
+        flushBatch();
 
         AbstractIndex index = getIndex(key);
         return index.getCount(value);
@@ -79,32 +95,222 @@ public class IndexImpl<T extends Element> implements Index<T> {
 
     public Iterable<T> get(String key, Object value) {
         checkNonNullObject(key);
+        flushBatch();
 
         AbstractIndex index = getIndex(key);
-        return index.getValueSet(value);
+        Set<T> valueSet = index.getValueSet(value);
+        return valueSet == null ? Collections.<T>emptySet() : valueSet;
     }
 
     @Override
     public Iterable<T> get(Column column, Object value) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
 
         if (lock != null) {
             lock.lock();
-            AbstractIndex index = getIndex((ColumnImpl) column);
-            Set<T> valueSet = index.getValueSet(value);
-            return valueSet == null ? null : new LockableIterable<T>(index.getValueSet(value));
+            try {
+                AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+                Set<T> valueSet = index.getValueSet(value);
+                return valueSet == null ? Collections.<T>emptyList() : snapshot(valueSet, valueSet.size());
+            } finally {
+                lock.unlock();
+            }
+        }
+        AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+        Set<T> valueSet = index.getValueSet(value);
+        return valueSet == null ? Collections.<T>emptySet() : valueSet;
+    }
+
+    @Override
+    public Iterable<T> get(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
+
+        if (lock != null) {
+            lock.lock();
+            try {
+                AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+                //The submap can't be walked lazily once the lock is released, so it's
+                //copied in a single pass rather than counted first
+                return snapshot(index.getRange(low, high, lowInclusive, highInclusive), 16);
+            } finally {
+                lock.unlock();
+            }
+        }
+        AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+        return index.getRange(low, high, lowInclusive, highInclusive);
+    }
+
+    @Override
+    public int count(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
+
+        lock();
+        try {
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+            return index.countRange(low, high, lowInclusive, highInclusive);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values) {
+        checkQueryColumns(columns, values, columns != null ? columns.length : 0);
+
+        AbstractIndex[] scanIndexes = prepareIndexes(columns);
+
+        lock();
+        try {
+            Query query = new Query(columns, values, null, null, null, false, false, scanIndexes);
+            return query.getElements();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        checkQueryColumns(columns, values, columns != null ? columns.length - 1 : 0);
+
+        AbstractIndex[] scanIndexes = prepareIndexes(columns);
+
+        lock();
+        try {
+            Query query = new Query(columns, values, columns[columns.length - 1], low, high, lowInclusive, highInclusive, scanIndexes);
+            return query.getElements();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values) {
+        checkQueryColumns(columns, values, columns != null ? columns.length : 0);
+
+        AbstractIndex[] scanIndexes = prepareIndexes(columns);
+
+        lock();
+        try {
+            Query query = new Query(columns, values, null, null, null, false, false, scanIndexes);
+            return query.count();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        checkQueryColumns(columns, values, columns != null ? columns.length - 1 : 0);
+
+        AbstractIndex[] scanIndexes = prepareIndexes(columns);
+
+        lock();
+        try {
+            Query query = new Query(columns, values, columns[columns.length - 1], low, high, lowInclusive, highInclusive, scanIndexes);
+            return query.count();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public ElementIterable<T> iterateAscending(Column column) {
+        return iterate(column, false);
+    }
+
+    @Override
+    public ElementIterable<T> iterateDescending(Column column) {
+        return iterate(column, true);
+    }
+
+    @Override
+    public List<T> topK(Column column, int k) {
+        checkNonNullColumnObject(column);
+        if (k < 0) {
+            throw new IllegalArgumentException("k can't be negative");
+        }
+        AbstractIndex scanIndex = prepareIndex(column);
+
+        lock();
+        try {
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+            Iterator<T> itr = index.getSortedIterator(true, false);
+            List<T> result = new ArrayList<T>(Math.min(k, index.elements));
+            while (result.size() < k && itr.hasNext()) {
+                result.add(itr.next());
+            }
+            return result;
+        } finally {
+            unlock();
+        }
+    }
+
+    private ElementIterable<T> iterate(Column column, boolean descending) {
+        checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
+
+        lock();
+        try {
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
+            Iterator<T> itr = index.getSortedIterator(descending, true);
+            //Copied under the lock so the iterable doesn't hold it
+            List<T> elements = new ArrayList<T>(index.elements);
+            while (itr.hasNext()) {
+                elements.add(itr.next());
+            }
+            return new OrderedIterable(elements);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getByPrefix(Column column, String prefix) {
+        checkNonNullObject(prefix);
+        lock();
+        try {
+            AbstractIndex index = getTextIndex(column);
+            return index.search(index.dictionary.getByPrefix(prefix));
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getBySubstring(Column column, String text) {
+        checkNonNullObject(text);
+        lock();
+        try {
+            AbstractIndex index = getTextIndex(column);
+            return index.search(index.dictionary.getBySubstring(text));
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getByTokens(Column column, String text) {
+        checkNonNullObject(text);
+        lock();
+        try {
+            AbstractIndex index = getTextIndex(column);
+            return index.search(index.dictionary.getByTokens(text));
+        } finally {
+            unlock();
         }
-        AbstractIndex index = getIndex((ColumnImpl) column);
-        return index.getValueSet(value);
     }
 
     @Override
     public Number getMinValue(Column column) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
 
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return index.getMinValue();
         } finally {
             unlock();
@@ -114,9 +320,10 @@ public class IndexImpl<T extends Element> implements Index<T> {
     @Override
     public Number getMaxValue(Column column) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return index.getMaxValue();
         } finally {
             unlock();
@@ -125,6 +332,7 @@ public class IndexImpl<T extends Element> implements Index<T> {
 
     public Iterable<Map.Entry<Object, Set<T>>> get(Column column) {
         checkNonNullColumnObject(column);
+        flushBatch();
 
         AbstractIndex index = getIndex((ColumnImpl) column);
         return index;
@@ -133,10 +341,11 @@ public class IndexImpl<T extends Element> implements Index<T> {
     @Override
     public Collection values(Column column) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
 
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return new ArrayList(index.values());
         } finally {
             unlock();
@@ -146,9 +355,10 @@ public class IndexImpl<T extends Element> implements Index<T> {
     @Override
     public int countValues(Column column) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return index.countValues();
         } finally {
             unlock();
@@ -158,9 +368,10 @@ public class IndexImpl<T extends Element> implements Index<T> {
     @Override
     public int countElements(Column column) {
         checkNonNullColumnObject(column);
+        AbstractIndex scanIndex = prepareIndex(column);
         lock();
         try {
-            AbstractIndex index = getIndex((ColumnImpl) column);
+            AbstractIndex index = scanIndex != null ? scanIndex : getIndex((ColumnImpl) column);
             return index.elements;
         } finally {
             unlock();
@@ -215,6 +426,9 @@ public class IndexImpl<T extends Element> implements Index<T> {
                 ai.clear();
             }
         }
+        for (DynamicIndexImpl<T> dynamicIndex : dynamicIndexes.values()) {
+            dynamicIndex.invalidate();
+        }
     }
 
     protected void addColumn(ColumnImpl col) {
@@ -238,6 +452,7 @@ public class IndexImpl<T extends Element> implements Index<T> {
     }
 
     protected void removeColumn(ColumnImpl col) {
+        removeDynamicIndex(col);
         if (col.isIndexed()) {
             AbstractIndex index = columns[col.storeId];
             index.destroy();
@@ -269,6 +484,16 @@ public class IndexImpl<T extends Element> implements Index<T> {
         return null;
     }
 
+    protected AbstractIndex getTextIndex(Column column) {
+        checkNonNullColumnObject(column);
+        flushBatch();
+        AbstractIndex index = getIndex((ColumnImpl) column);
+        if (index == null || index.dictionary == null) {
+            throw new UnsupportedOperationException("The column '" + column.getId() + "' isn't text indexed");
+        }
+        return index;
+    }
+
     protected AbstractIndex getIndex(String key) {
         int id = columnStore.getColumnIndex(key);
         if (id != ColumnStore.NULL_ID && columns.length > id) {
@@ -285,13 +510,174 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
         columns = new AbstractIndex[0];
         columnsCount = 0;
+        for (DynamicIndexImpl<T> dynamicIndex : dynamicIndexes.values()) {
+            dynamicIndex.destroy();
+        }
+        dynamicIndexes.clear();
+    }
+
+    protected boolean accept(T element) {
+        return true;
     }
 
     protected int size() {
         return columnsCount;
     }
 
+    protected void addIndex(ColumnImpl col, AbstractIndex index) {
+        ensureColumnSize(col.storeId);
+        columns[col.storeId] = index;
+        columnsCount++;
+    }
+
+    protected AbstractIndex prepareIndex(Column column) {
+        ColumnImpl col = (ColumnImpl) column;
+        IndexStore<T> indexStore = columnStore.indexStore;
+        flushBatch();
+        if (col.dynamicIndexed && indexStore != null) {
+            //Answered by the index of the estimated values
+            return prepareDynamicIndex(col);
+        }
+        if (col.isIndexed() || indexStore == null) {
+            return null;
+        }
+        IndexBuild<T> indexBuild = indexStore.getIndexBuild(col);
+        if (indexBuild == null) {
+            return null;
+        }
+        if (indexBuild.lazy) {
+            indexBuild.run();
+            if (col.isIndexed()) {
+                return null;
+            }
+        }
+        //Still building in the background
+        return scan(col);
+    }
+
+    protected void flushBatch() {
+        //Writes of a batch in progress are applied before reading
+        IndexStore<T> indexStore = columnStore.indexStore;
+        if (indexStore != null && indexStore.batch) {
+            indexStore.flushBatch();
+        }
+    }
+
+    protected AbstractIndex[] prepareIndexes(Column[] cols) {
+        AbstractIndex[] scanIndexes = null;
+        for (int i = 0; i < cols.length; i++) {
+            if (cols[i].isDynamic()) {
+                continue;
+            }
+            AbstractIndex scanIndex = prepareIndex(cols[i]);
+            if (scanIndex != null) {
+                if (scanIndexes == null) {
+                    scanIndexes = new AbstractIndex[cols.length];
+                }
+                scanIndexes[i] = scanIndex;
+            }
+        }
+        return scanIndexes;
+    }
+
+    protected Interval getTimeInterval() {
+        return Interval.INFINITY_INTERVAL;
+    }
+
+    private AbstractIndex prepareDynamicIndex(ColumnImpl column) {
+        GraphStore graphStore = columnStore.graphStore;
+        graphStore.autoReadLock();
+        try {
+            lock();
+            try {
+                if (!column.dynamicIndexed) {
+                    return null;
+                }
+                DynamicIndexImpl<T> dynamicIndex = dynamicIndexes.get(column);
+                if (dynamicIndex == null) {
+                    dynamicIndex = new DynamicIndexImpl<T>(this, column);
+                    dynamicIndexes.put(column, dynamicIndex);
+                }
+                dynamicIndex.refresh(getTimeInterval());
+                return dynamicIndex.values;
+            } finally {
+                unlock();
+            }
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    protected void removeDynamicIndex(ColumnImpl col) {
+        DynamicIndexImpl<T> dynamicIndex = dynamicIndexes.remove(col);
+        if (dynamicIndex != null) {
+            dynamicIndex.destroy();
+        }
+    }
+
+    protected void invalidateDynamicIndexes() {
+        for (DynamicIndexImpl<T> dynamicIndex : dynamicIndexes.values()) {
+            dynamicIndex.invalidate();
+        }
+    }
+
+    protected void dynamicValueChanged(ColumnImpl col, T element) {
+        DynamicIndexImpl<T> dynamicIndex = dynamicIndexes.get(col);
+        if (dynamicIndex != null) {
+            dynamicIndex.elementChanged((ElementImpl) element);
+        }
+    }
+
+    protected void dynamicElementChanged(T element) {
+        for (DynamicIndexImpl<T> dynamicIndex : dynamicIndexes.values()) {
+            dynamicIndex.elementChanged((ElementImpl) element);
+        }
+    }
+
+    protected void dynamicElementRemoved(T element) {
+        for (DynamicIndexImpl<T> dynamicIndex : dynamicIndexes.values()) {
+            dynamicIndex.elementRemoved((ElementImpl) element);
+        }
+    }
+
+    AbstractIndex createDynamicValueIndex(ColumnImpl column) {
+        return new DynamicValueIndex(column);
+    }
+
+    private AbstractIndex scan(ColumnImpl column) {
+        AbstractIndex index = createIndex(column);
+        int columnIndex = column.getIndex();
+        GraphStore graphStore = columnStore.graphStore;
+        graphStore.autoReadLock();
+        try {
+            int maxStoreId = columnStore.getMaxElementStoreId();
+            for (int id = 0; id < maxStoreId; id++) {
+                ElementImpl element = columnStore.getElement(id);
+                if (element != null && accept((T) element)) {
+                    Object[] attributes = element.attributes;
+                    index.putValue(element, columnIndex < attributes.length ? attributes[columnIndex] : null);
+                }
+            }
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+        return index;
+    }
+
+    private boolean hasIndexBuild(ColumnImpl column) {
+        IndexStore<T> indexStore = columnStore.indexStore;
+        return indexStore != null && indexStore.getIndexBuild(column) != null;
+    }
+
     AbstractIndex createIndex(ColumnImpl column) {
+        AbstractIndex index = createColumnIndex(column);
+        if (column.isTextIndexed() && (column.getTypeClass().equals(String.class) || column.getTypeClass().equals(String[].class))) {
+            index.dictionary = new TextDictionary();
+        }
+        return index;
+    }
+
+    private AbstractIndex createColumnIndex(ColumnImpl column) {
         if (column.getTypeClass().equals(Byte.class)) {
             //Byte
             return new ByteIndex(column);
@@ -353,6 +739,318 @@ public class IndexImpl<T extends Element> implements Index<T> {
         return new DefaultIndex(column);
     }
 
+    protected static <K, V> Range<K, V> getSortedRange(Class type, SortedMap<K, V> sortedMap, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        Range<K, V> range = new Range<K, V>();
+        boolean integral = !type.equals(Double.class) && !type.equals(Float.class);
+        if (low != null) {
+            double d = low.doubleValue();
+            if (Double.isNaN(d)) {
+                throw new IllegalArgumentException("The low bound can't be NaN");
+            }
+            if (integral && !isIntegralNumber(low)) {
+                lowInclusive |= Math.ceil(d) != d;
+                d = Math.ceil(d);
+                low = d;
+            }
+            if (integral && d < getTypeMinValue(type)) {
+                low = null;
+            } else if (integral && d > getTypeMaxValue(type)) {
+                return range;
+            }
+        }
+        if (high != null) {
+            double d = high.doubleValue();
+            if (Double.isNaN(d)) {
+                throw new IllegalArgumentException("The high bound can't be NaN");
+            }
+            if (integral && !isIntegralNumber(high)) {
+                highInclusive |= Math.floor(d) != d;
+                d = Math.floor(d);
+                high = d;
+            }
+            if (integral && d > getTypeMaxValue(type)) {
+                high = null;
+            } else if (integral && d < getTypeMinValue(type)) {
+                return range;
+            }
+        }
+        K lowKey = low != null ? (K) toKey(type, low) : null;
+        K highKey = high != null ? (K) toKey(type, high) : null;
+        if (lowKey != null && highKey != null) {
+            int cmp = ((Comparable) lowKey).compareTo(highKey);
+            if (cmp > 0 || (cmp == 0 && (!lowInclusive || !highInclusive))) {
+                return range;
+            }
+            range.map = sortedMap.subMap(lowKey, highKey);
+        } else if (lowKey != null) {
+            range.map = sortedMap.tailMap(lowKey);
+        } else if (highKey != null) {
+            range.map = sortedMap.headMap(highKey);
+        } else {
+            range.map = sortedMap;
+        }
+        if (lowKey != null && !lowInclusive) {
+            range.lowToSkip = lowKey;
+        }
+        if (highKey != null && highInclusive) {
+            range.high = sortedMap.get(highKey);
+        }
+        return range;
+    }
+
+    protected static Object toKey(Class type, Number number) {
+        if (type.equals(Double.class)) {
+            return number.doubleValue();
+        } else if (type.equals(Float.class)) {
+            return number.floatValue();
+        } else if (type.equals(Long.class)) {
+            return number.longValue();
+        } else if (type.equals(Integer.class)) {
+            return number.intValue();
+        } else if (type.equals(Short.class)) {
+            return number.shortValue();
+        } else if (type.equals(Byte.class)) {
+            return number.byteValue();
+        }
+        throw new UnsupportedOperationException("Unsupported type " + type.getCanonicalName());
+    }
+
+    private static boolean isIntegralNumber(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private static double getTypeMinValue(Class type) {
+        if (type.equals(Integer.class)) {
+            return Integer.MIN_VALUE;
+        } else if (type.equals(Short.class)) {
+            return Short.MIN_VALUE;
+        } else if (type.equals(Byte.class)) {
+            return Byte.MIN_VALUE;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private static double getTypeMaxValue(Class type) {
+        if (type.equals(Integer.class)) {
+            return Integer.MAX_VALUE;
+        } else if (type.equals(Short.class)) {
+            return Short.MAX_VALUE;
+        } else if (type.equals(Byte.class)) {
+            return Byte.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static int compare(Number a, Number b) {
+        if (isIntegralNumber(a) && isIntegralNumber(b)) {
+            long la = a.longValue();
+            long lb = b.longValue();
+            return la < lb ? -1 : (la > lb ? 1 : 0);
+        }
+        double da = a.doubleValue();
+        double db = b.doubleValue();
+        return da < db ? -1 : (da > db ? 1 : 0);
+    }
+
+    protected final class Query {
+
+        //Conditions
+        private final ColumnImpl[] queryColumns;
+        private final Object[] values;
+        private final ColumnImpl rangeColumn;
+        private final Number low;
+        private final Number high;
+        private final boolean lowInclusive;
+        private final boolean highInclusive;
+        private final AbstractIndex[] scanIndexes;
+        //Plan
+        private int estimate = Integer.MAX_VALUE;
+        private AbstractIndex singleIndex;
+        private int singleColumn = -1;
+        private CompositeIndexImpl<T> compositeIndex;
+        private Object[] compositeValues;
+        private int prefixLength;
+        private boolean compositeRange;
+
+        public Query(Column[] columns, Object[] values, Column rangeColumn, Number low, Number high, boolean lowInclusive, boolean highInclusive, AbstractIndex[] scanIndexes) {
+            this.queryColumns = new ColumnImpl[values.length];
+            System.arraycopy(columns, 0, queryColumns, 0, values.length);
+            this.values = values;
+            this.rangeColumn = (ColumnImpl) rangeColumn;
+            this.low = low;
+            this.high = high;
+            this.lowInclusive = lowInclusive;
+            this.highInclusive = highInclusive;
+            this.scanIndexes = scanIndexes;
+            plan();
+        }
+
+        private void plan() {
+            for (int i = 0; i < queryColumns.length; i++) {
+                AbstractIndex index = getQueryIndex(i, queryColumns[i]);
+                int count = index.getCount(values[i]);
+                if (count < estimate) {
+                    estimate = count;
+                    singleIndex = index;
+                    singleColumn = i;
+                }
+            }
+            if (rangeColumn != null) {
+                AbstractIndex index = getQueryIndex(queryColumns.length, rangeColumn);
+                int count = index.countRange(low, high, lowInclusive, highInclusive);
+                if (count < estimate) {
+                    estimate = count;
+                    singleIndex = index;
+                    singleColumn = -1;
+                }
+            }
+            IndexStore<T> indexStore = columnStore.indexStore;
+            if (indexStore != null) {
+                for (CompositeIndexImpl<T> composite : indexStore.compositeIndexes) {
+                    int prefix = composite.matchPrefix(queryColumns);
+                    boolean range = rangeColumn != null && composite.isRangeColumn(prefix, rangeColumn);
+                    if (prefix + (range ? 1 : 0) < 2) {
+                        continue;
+                    }
+                    Object[] prefixValues = new Object[prefix];
+                    for (int i = 0; i < prefix; i++) {
+                        prefixValues[i] = values[indexOf(composite.columns[i])];
+                    }
+                    int count = range
+                            ? composite.count(prefixValues, prefix, low, high, lowInclusive, highInclusive)
+                            : composite.count(prefixValues, prefix);
+                    if (count < estimate) {
+                        estimate = count;
+                        compositeIndex = composite;
+                        compositeValues = prefixValues;
+                        prefixLength = prefix;
+                        compositeRange = range;
+                    }
+                }
+            }
+        }
+
+        public List<T> getElements() {
+            List<T> result = new ArrayList<T>(estimate);
+            if (estimate > 0) {
+                Iterator<T> itr = iterator();
+                while (itr.hasNext()) {
+                    T element = itr.next();
+                    if (matches(element)) {
+                        result.add(element);
+                    }
+                }
+            }
+            return result;
+        }
+
+        public int count() {
+            if (estimate == 0 || (compositeIndex == null && queryColumns.length + (rangeColumn != null ? 1 : 0) == 1)) {
+                return estimate;
+            }
+            int count = 0;
+            Iterator<T> itr = iterator();
+            while (itr.hasNext()) {
+                if (matches(itr.next())) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private Iterator<T> iterator() {
+            if (compositeIndex != null) {
+                return compositeRange
+                        ? compositeIndex.iterator(compositeValues, prefixLength, low, high, lowInclusive, highInclusive)
+                        : compositeIndex.iterator(compositeValues, prefixLength);
+            } else if (singleColumn >= 0) {
+                Set<T> valueSet = singleIndex.getValueSet(values[singleColumn]);
+                return valueSet == null ? Collections.<T>emptySet().iterator() : valueSet.iterator();
+            }
+            return singleIndex.getRange(low, high, lowInclusive, highInclusive).iterator();
+        }
+
+        private boolean matches(T element) {
+            if (compositeIndex != null && !accept(element)) {
+                return false;
+            }
+            Object[] attributes = ((ElementImpl) element).attributes;
+            for (int i = 0; i < queryColumns.length; i++) {
+                ColumnImpl column = queryColumns[i];
+                if (i == singleColumn && compositeIndex == null) {
+                    continue;
+                }
+                if (compositeIndex != null) {
+                    int position = compositeIndex.indexOf(column);
+                    if (position >= 0 && position < prefixLength) {
+                        continue;
+                    }
+                }
+                Object value = getAttribute(attributes, column);
+                Object expected = values[i];
+                if (expected == null ? value != null : !expected.equals(value)) {
+                    return false;
+                }
+            }
+            if (rangeColumn != null && !(compositeIndex != null ? compositeRange : singleColumn < 0)) {
+                Object value = getAttribute(attributes, rangeColumn);
+                if (value == null) {
+                    return false;
+                }
+                if (low != null) {
+                    int cmp = compare((Number) value, low);
+                    if (cmp < 0 || (cmp == 0 && !lowInclusive)) {
+                        return false;
+                    }
+                }
+                if (high != null) {
+                    int cmp = compare((Number) value, high);
+                    if (cmp > 0 || (cmp == 0 && !highInclusive)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private AbstractIndex getQueryIndex(int position, ColumnImpl column) {
+            if (scanIndexes != null && scanIndexes[position] != null) {
+                return scanIndexes[position];
+            }
+            return getIndex(column);
+        }
+
+        private Object getAttribute(Object[] attributes, ColumnImpl column) {
+            int index = column.getIndex();
+            return index < attributes.length ? attributes[index] : null;
+        }
+
+        private int indexOf(ColumnImpl column) {
+            for (int i = 0; i < queryColumns.length; i++) {
+                if (queryColumns[i] == column) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    protected static final class Range<K, V> {
+
+        protected SortedMap<K, V> map;
+        protected K lowToSkip;
+        protected V high;
+    }
+
+    private List<T> snapshot(Iterable<T> elements, int size) {
+        //Copied so the lock is released before the caller iterates
+        List<T> result = new ArrayList<T>(size);
+        for (T element : elements) {
+            result.add(element);
+        }
+        return result;
+    }
+
     private void ensureColumnSize(int index) {
         if (index >= columns.length) {
             AbstractIndex[] newArray = new AbstractIndex[index + 1];
@@ -379,6 +1077,26 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    void checkQueryColumns(final Column[] columns, final Object[] values, int valuesLength) {
+        checkNonNullObject(columns);
+        checkNonNullObject(values);
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        if (values.length != valuesLength) {
+            throw new IllegalArgumentException("Expected " + valuesLength + " values, got " + values.length);
+        }
+        for (Column column : columns) {
+            checkNonNullColumnObject(column);
+            if (!column.isIndexed() && !hasIndexBuild((ColumnImpl) column)) {
+                throw new IllegalArgumentException("The column '" + column.getId() + "' isn't indexed");
+            }
+            if (column.isArray()) {
+                throw new UnsupportedOperationException("Multi-column queries only apply to non-array columns");
+            }
+        }
+    }
+
     void checkNonNullColumnObject(final Object o) {
         if (o == null) {
             throw new NullPointerException();
@@ -397,12 +1115,13 @@ public class IndexImpl<T extends Element> implements Index<T> {
         protected final ColumnImpl column;
         protected final Set<T> nullSet;
         protected Map<K, Set<T>> map;
+        protected TextDictionary dictionary;
         //Variable
         protected int elements;
 
         public AbstractIndex(ColumnImpl column) {
             this.column = column;
-            this.nullSet = new ObjectOpenHashSet<T>();
+            this.nullSet = new ValueSet<K, T>(null);
         }
 
         public Object putValue(T element, Object value) {
@@ -424,13 +1143,27 @@ public class IndexImpl<T extends Element> implements Index<T> {
             return value;
         }
 
+        protected void addElement(K value, T element) {
+            Set<T> set = getValueSet(value);
+            if (set == null) {
+                set = addValue(value);
+            }
+            if (set.add(element)) {
+                elements++;
+            }
+        }
+
         public void removeValue(T element, Object value) {
             if (value == null) {
                 if (nullSet.remove(element)) {
                     elements--;
                 }
             } else {
+                //Views only hold the elements in their interval
                 Set<T> set = getValueSet((K) value);
+                if (set == null) {
+                    return;
+                }
                 if (set.remove(element)) {
                     elements--;
                 }
@@ -440,6 +1173,36 @@ public class IndexImpl<T extends Element> implements Index<T> {
             }
         }
 
+        protected void removeStoreId(int storeId, Object value) {
+            if (value != null && column.isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    removeKeyStoreId(storeId, (K) Array.get(value, i));
+                }
+            } else {
+                removeKeyStoreId(storeId, (K) value);
+            }
+        }
+
+        private void removeKeyStoreId(int storeId, K value) {
+            Set<T> set = getValueSet(value);
+            if (set != null && ((ValueSet) set).removeStoreId(storeId)) {
+                elements--;
+                if (value != null && set.isEmpty()) {
+                    removeValue(value);
+                }
+            }
+        }
+
+        protected void merge(AbstractIndex<K> index) {
+            //Partial indexes hold distinct elements, built over separate store id ranges
+            for (Map.Entry<K, Set<T>> entry : index) {
+                for (T element : entry.getValue()) {
+                    addElement(entry.getKey(), element);
+                }
+            }
+        }
+
         public Object replaceValue(T element, K oldValue, K newValue) {
             removeValue(element, oldValue);
             return putValue(element, newValue);
@@ -489,16 +1252,55 @@ public class IndexImpl<T extends Element> implements Index<T> {
             }
         }
 
+        public Iterable<T> getRange(Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+            final Range<K, Set<T>> range = getRangeMap(low, high, lowInclusive, highInclusive);
+            return new Iterable<T>() {
+                @Override
+                public Iterator<T> iterator() {
+                    return new RangeIterator(range);
+                }
+            };
+        }
+
+        public int countRange(Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+            Range<K, Set<T>> range = getRangeMap(low, high, lowInclusive, highInclusive);
+            int count = 0;
+            if (range.map != null) {
+                for (Map.Entry<K, Set<T>> entry : range.map.entrySet()) {
+                    if (range.lowToSkip == null || !range.lowToSkip.equals(entry.getKey())) {
+                        count += entry.getValue().size();
+                    }
+                }
+            }
+            if (range.high != null) {
+                count += range.high.size();
+            }
+            return count;
+        }
+
+        protected Range<K, Set<T>> getRangeMap(Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+            if (!isSortable() || column.isArray()) {
+                throw new UnsupportedOperationException("Range queries only apply to sortable, non-array columns");
+            }
+            return getSortedRange(column.getTypeClass(), (SortedMap<K, Set<T>>) map, low, high, lowInclusive, highInclusive);
+        }
+
         protected void destroy() {
             map = null;
             nullSet.clear();
             elements = 0;
+            if (dictionary != null) {
+                dictionary.clear();
+            }
         }
 
         protected void clear() {
             map.clear();
             nullSet.clear();
             elements = 0;
+            if (dictionary != null) {
+                dictionary.clear();
+            }
         }
 
         @Override
@@ -515,14 +1317,28 @@ public class IndexImpl<T extends Element> implements Index<T> {
 
         protected void removeValue(K value) {
             map.remove(value);
+            if (dictionary != null) {
+                dictionary.remove((String) value);
+            }
         }
 
         protected Set<T> addValue(K value) {
             ValueSet valueSet = new ValueSet(value);
             map.put(value, valueSet);
+            if (dictionary != null) {
+                dictionary.add((String) value);
+            }
             return valueSet;
         }
 
+        public Collection<T> search(Collection<String> values) {
+            Collection<T> result = column.isArray() ? new ObjectLinkedOpenHashSet<T>() : new ArrayList<T>();
+            for (String value : values) {
+                result.addAll(map.get((K) value));
+            }
+            return result;
+        }
+
         protected boolean isSortable() {
             return Number.class.isAssignableFrom(column.getTypeClass());
         }
@@ -697,6 +1513,112 @@ public class IndexImpl<T extends Element> implements Index<T> {
             }
         }
 
+        public Iterator<T> getSortedIterator(boolean descending, boolean withNulls) {
+            if (!isSortable() || column.isArray()) {
+                throw new UnsupportedOperationException("Ordered iteration only applies to sortable, non-array columns");
+            }
+            return new SortedIterator(descending, withNulls);
+        }
+
+        private final class SortedIterator implements Iterator<T> {
+
+            private final boolean descending;
+            private final ObjectBidirectionalIterator<Map.Entry<K, Set<T>>> entryIterator;
+            private boolean nulls;
+            private Iterator<T> setIterator;
+
+            public SortedIterator(boolean descending, boolean withNulls) {
+                ObjectSortedSet<Map.Entry<K, Set<T>>> entries = (ObjectSortedSet<Map.Entry<K, Set<T>>>) map.entrySet();
+                this.descending = descending;
+                if (!descending) {
+                    entryIterator = entries.iterator();
+                } else if (!entries.isEmpty()) {
+                    entryIterator = entries.iterator(entries.last());
+                } else {
+                    entryIterator = null;
+                }
+                nulls = withNulls && !nullSet.isEmpty();
+                if (nulls && !descending) {
+                    setIterator = nullSet.iterator();
+                    nulls = false;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (setIterator == null || !setIterator.hasNext()) {
+                    if (entryIterator != null && (descending ? entryIterator.hasPrevious() : entryIterator.hasNext())) {
+                        Map.Entry<K, Set<T>> entry = descending ? entryIterator.previous() : entryIterator.next();
+                        setIterator = entry.getValue().iterator();
+                    } else if (nulls) {
+                        setIterator = nullSet.iterator();
+                        nulls = false;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return setIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported operation.");
+            }
+        }
+
+        private final class RangeIterator implements Iterator<T> {
+
+            private final Iterator<Map.Entry<K, Set<T>>> mapIterator;
+            private final K lowToSkip;
+            private Set<T> highSet;
+            private Iterator<T> setIterator;
+
+            public RangeIterator(Range<K, Set<T>> range) {
+                this.mapIterator = range.map != null ? range.map.entrySet().iterator() : null;
+                this.lowToSkip = range.lowToSkip;
+                this.highSet = range.high;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (setIterator == null || !setIterator.hasNext()) {
+                    if (mapIterator != null && mapIterator.hasNext()) {
+                        Map.Entry<K, Set<T>> entry = mapIterator.next();
+                        if (lowToSkip == null || !lowToSkip.equals(entry.getKey())) {
+                            setIterator = entry.getValue().iterator();
+                        }
+                    } else if (highSet != null) {
+                        setIterator = highSet.iterator();
+                        highSet = null;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return setIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported operation.");
+            }
+        }
+
         private class NullEntry implements Map.Entry<K, Set<T>> {
 
             @Override
@@ -716,89 +1638,138 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
-    private static final class ValueSet<K, T> implements Set<T> {
+    static final class ValueSet<K, T> extends AbstractSet<T> {
 
         private final K value;
-        private final Set<T> set;
+        //Elements in a store, by store id
+        private final AdaptiveBitVector ids;
+        private GraphStore graphStore;
+        private boolean edges;
+        //Elements not in a store
+        private Set<T> detached;
 
         public ValueSet(K value) {
             this.value = value;
-            this.set = new ObjectOpenHashSet<T>();
+            this.ids = new AdaptiveBitVector(0);
         }
 
         @Override
         public int size() {
-            return set.size();
+            return ids.cardinality() + (detached != null ? detached.size() : 0);
         }
 
         @Override
         public boolean isEmpty() {
-            return set.isEmpty();
+            return size() == 0;
         }
 
         @Override
         public boolean contains(Object o) {
-            return set.contains(o);
+            int id = getStoreId(o);
+            if (id != NodeStore.NULL_ID) {
+                return id < ids.size() && ids.get(id);
+            }
+            return detached != null && detached.contains(o);
         }
 
         @Override
         public Iterator<T> iterator() {
-            return set.iterator();
-        }
-
-        @Override
-        public Object[] toArray() {
-            return set.toArray();
-        }
-
-        @Override
-        public <T> T[] toArray(T[] ts) {
-            return set.toArray(ts);
+            return new ValueSetIterator();
         }
 
         @Override
         public boolean add(T e) {
-            return set.add(e);
+            int id = getStoreId(e);
+            if (id != NodeStore.NULL_ID) {
+                if (id >= ids.size()) {
+                    ids.ensureSize(Math.max(id + 1, (int) Math.min(Integer.MAX_VALUE, ids.size() * 2l)));
+                } else if (ids.get(id)) {
+                    return false;
+                }
+                if (ids.cardinality() == 0) {
+                    graphStore = ((ElementImpl) e).graphStore;
+                    edges = e instanceof EdgeImpl;
+                }
+                ids.set(id);
+                return true;
+            }
+            if (detached == null) {
+                detached = new ObjectOpenHashSet<T>();
+            }
+            return detached.add(e);
         }
 
         @Override
         public boolean remove(Object o) {
-            return set.remove(o);
+            int id = getStoreId(o);
+            if (id != NodeStore.NULL_ID) {
+                return removeStoreId(id);
+            }
+            return detached != null && detached.remove(o);
         }
 
-        @Override
-        public boolean containsAll(Collection<?> clctn) {
-            return set.containsAll(clctn);
+        protected boolean removeStoreId(int id) {
+            if (id < ids.size() && ids.get(id)) {
+                ids.clear(id);
+                return true;
+            }
+            return false;
         }
 
         @Override
-        public boolean addAll(Collection<? extends T> clctn) {
-            throw new UnsupportedOperationException("Not supported operation.");
+        public void clear() {
+            ids.clear();
+            graphStore = null;
+            detached = null;
+        }
+
+        private int getStoreId(Object o) {
+            if (o instanceof ElementImpl) {
+                ElementImpl element = (ElementImpl) o;
+                if (element.graphStore != null && (ids.cardinality() == 0 || element.graphStore == graphStore)) {
+                    int id = o instanceof NodeImpl ? ((NodeImpl) o).storeId : ((EdgeImpl) o).storeId;
+                    if (id >= 0 && (ids.cardinality() == 0 || edges == o instanceof EdgeImpl)) {
+                        return id;
+                    }
+                }
+            }
+            return NodeStore.NULL_ID;
         }
 
-        @Override
-        public boolean retainAll(Collection<?> clctn) {
-            throw new UnsupportedOperationException("Not supported operation.");
-        }
+        private final class ValueSetIterator implements Iterator<T> {
 
-        @Override
-        public boolean removeAll(Collection<?> clctn) {
-            throw new UnsupportedOperationException("Not supported operation.");
-        }
+            private int id;
+            private Iterator<T> detachedIterator;
 
-        @Override
-        public void clear() {
-            throw new UnsupportedOperationException("Not supported operation.");
-        }
+            public ValueSetIterator() {
+                id = ids.nextSetBit(0);
+                if (detached != null) {
+                    detachedIterator = detached.iterator();
+                }
+            }
 
-        @Override
-        public boolean equals(Object o) {
-            return set.equals(o);
-        }
+            @Override
+            public boolean hasNext() {
+                return id >= 0 || (detachedIterator != null && detachedIterator.hasNext());
+            }
 
-        @Override
-        public int hashCode() {
-            return set.hashCode();
+            @Override
+            public T next() {
+                if (id >= 0) {
+                    T element = (T) (edges ? graphStore.edgeStore.get(id) : graphStore.nodeStore.get(id));
+                    id = ids.nextSetBit(id + 1);
+                    return element;
+                }
+                if (detachedIterator == null) {
+                    throw new NoSuchElementException();
+                }
+                return detachedIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported operation.");
+            }
         }
     }
 
@@ -829,6 +1800,24 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    protected class DynamicValueIndex extends DoubleIndex {
+
+        public DynamicValueIndex(ColumnImpl column) {
+            super(column);
+        }
+
+        @Override
+        protected Range<Double, Set<T>> getRangeMap(Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+            //Estimated values are doubles, whatever the column type
+            return getSortedRange(Double.class, (SortedMap<Double, Set<T>>) map, low, high, lowInclusive, highInclusive);
+        }
+
+        @Override
+        protected boolean isSortable() {
+            return true;
+        }
+    }
+
     protected class IntegerIndex extends AbstractIndex<Integer> {
 
         public IntegerIndex(ColumnImpl column) {
@@ -1219,45 +2208,31 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
-    private class LockableIterable<T> implements Iterable<T> {
+    private final class OrderedIterable implements ElementIterable<T> {
 
-        private final Iterable<T> ite;
+        private final List<T> elements;
 
-        public LockableIterable(Iterable<T> ite) {
-            this.ite = ite;
+        public OrderedIterable(List<T> elements) {
+            this.elements = Collections.unmodifiableList(elements);
         }
 
         @Override
         public Iterator<T> iterator() {
-            return new LockableIterator<T>(ite.iterator());
-        }
-    }
-
-    private class LockableIterator<T> implements Iterator<T> {
-
-        private final Iterator<T> itr;
-
-        public LockableIterator(Iterator<T> itr) {
-            this.itr = itr;
+            return elements.iterator();
         }
 
         @Override
-        public boolean hasNext() {
-            boolean n = itr.hasNext();
-            if (!n) {
-                lock.unlock();
-            }
-            return n;
+        public T[] toArray() {
+            return elements.toArray((T[]) Array.newInstance(columnStore.elementType, elements.size()));
         }
 
         @Override
-        public T next() {
-            return itr.next();
+        public List<T> toCollection() {
+            return new ArrayList<T>(elements);
         }
 
         @Override
-        public void remove() {
-            throw new UnsupportedOperationException("Not supported.");
+        public void doBreak() {
         }
     }
 }
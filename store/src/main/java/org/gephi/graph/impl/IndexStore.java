@@ -16,11 +16,25 @@
 package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.gephi.graph.api.Column;
-import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
@@ -29,30 +43,180 @@ import org.gephi.graph.api.Node;
 
 public class IndexStore<T extends Element> {
 
+    //Const
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
     protected final ColumnStore<T> columnStore;
     protected final TableLock lock;
     protected final IndexImpl<T> mainIndex;
-    protected final Map<GraphView, IndexImpl<T>> viewIndexes;
+    protected final Map<GraphView, ViewIndexImpl<T>> viewIndexes;
+    protected final List<CompositeIndexImpl<T>> compositeIndexes;
+    //Pending and running index builds
+    protected final Map<ColumnImpl, IndexBuild<T>> indexBuilds;
+    //Number of dynamic columns with a dynamic index
+    protected int dynamicIndexCount;
+    //Version, incremented when values change in the main index
+    protected volatile int version;
+    //Versions of each column, indexed by column store id
+    protected int[] columnVersions;
+    //Batch
+    protected boolean batch;
+    //Main index writes of the batch, per column, with the value each element is indexed with
+    protected final Map<ColumnImpl, Map<T, Object>> batchValues;
+    //Bulk load, the main index is rebuilt when it ends
+    protected boolean bulk;
+    //Writes made while the main index is rebuilt without the lock, in order
+    protected List<RebuildWrite<T>> rebuildWrites;
+    //Number of threads used to rebuild indexes of large stores
+    protected int parallelism;
+    //Pool running the rebuild tasks, created on first use
+    protected ThreadPoolExecutor executor;
 
     public IndexStore(ColumnStore<T> columnStore) {
         this.columnStore = columnStore;
         this.mainIndex = new IndexImpl<T>(columnStore);
-        this.viewIndexes = new Object2ObjectOpenHashMap<GraphView, IndexImpl<T>>();
+        this.viewIndexes = new Object2ObjectOpenHashMap<GraphView, ViewIndexImpl<T>>();
+        this.batchValues = new Reference2ObjectOpenHashMap<ColumnImpl, Map<T, Object>>();
+        this.compositeIndexes = new ArrayList<CompositeIndexImpl<T>>();
+        this.indexBuilds = new Reference2ObjectOpenHashMap<ColumnImpl, IndexBuild<T>>();
         this.lock = columnStore.lock;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.columnVersions = new int[0];
     }
 
     protected void addColumn(ColumnImpl col) {
         mainIndex.addColumn(col);
-        for (IndexImpl<T> index : viewIndexes.values()) {
+        IndexImpl.AbstractIndex columnIndex = mainIndex.getIndex(col);
+        if (columnIndex != null && !bulk && columnStore.graphStore != null) {
+            //Elements already in the store are indexed with the value they hold, null until set
+            final int maxStoreId = columnStore.getMaxElementStoreId();
+            for (int id = 0; id < maxStoreId; id++) {
+                ElementImpl element = columnStore.getElement(id);
+                if (element != null) {
+                    columnIndex.putValue(element, getAttribute(element, col));
+                }
+            }
+        }
+        for (ViewIndexImpl<T> index : viewIndexes.values()) {
             index.addColumn(col);
+            index.valid = false;
         }
     }
 
     protected void removeColumn(ColumnImpl col) {
+        batchValues.remove(col);
         mainIndex.removeColumn(col);
-        for (IndexImpl<T> index : viewIndexes.values()) {
+        for (ViewIndexImpl<T> index : viewIndexes.values()) {
             index.removeColumn(col);
         }
+        for (Iterator<CompositeIndexImpl<T>> itr = compositeIndexes.iterator(); itr.hasNext();) {
+            if (itr.next().hasColumn(col)) {
+                itr.remove();
+            }
+        }
+        IndexBuild<T> indexBuild = indexBuilds.remove(col);
+        if (indexBuild != null) {
+            indexBuild.cancel();
+        }
+        removeDynamicIndex(col);
+    }
+
+    protected IndexBuild<T> addIndexBuild(ColumnImpl col, boolean lazy) {
+        IndexBuild<T> indexBuild = new IndexBuild<T>(this, col, lazy);
+        indexBuilds.put(col, indexBuild);
+        return indexBuild;
+    }
+
+    protected IndexBuild<T> getIndexBuild(ColumnImpl col) {
+        lock();
+        try {
+            return indexBuilds.get(col);
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void cancelIndexBuild(IndexBuild<T> indexBuild) {
+        lock();
+        try {
+            if (indexBuilds.get(indexBuild.column) == indexBuild) {
+                indexBuilds.remove(indexBuild.column);
+            }
+            indexBuild.cancel();
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void addIndex(ColumnImpl col, IndexImpl.AbstractIndex index) {
+        indexBuilds.remove(col);
+        mainIndex.addIndex(col, index);
+        col.indexed = true;
+        col.indexBuild = null;
+        for (ViewIndexImpl<T> viewIndex : viewIndexes.values()) {
+            viewIndex.addColumn(col);
+            viewIndex.valid = false;
+        }
+    }
+
+    protected void addDynamicIndex(ColumnImpl col) {
+        col.dynamicIndexed = true;
+        dynamicIndexCount++;
+    }
+
+    protected void removeDynamicIndex(ColumnImpl col) {
+        if (col.dynamicIndexed) {
+            col.dynamicIndexed = false;
+            dynamicIndexCount--;
+            mainIndex.removeDynamicIndex(col);
+            for (ViewIndexImpl<T> viewIndex : viewIndexes.values()) {
+                viewIndex.removeDynamicIndex(col);
+            }
+        }
+    }
+
+    public void setDynamic(Column column, T element) {
+        lock();
+        try {
+            ColumnImpl col = (ColumnImpl) column;
+            mainIndex.dynamicValueChanged(col, element);
+            for (ViewIndexImpl<T> viewIndex : viewIndexes.values()) {
+                viewIndex.dynamicValueChanged(col, element);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    protected CompositeIndexImpl<T> getCompositeIndex(ColumnImpl[] cols) {
+        for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+            if (Arrays.equals(compositeIndex.columns, cols)) {
+                return compositeIndex;
+            }
+        }
+        return null;
+    }
+
+    protected CompositeIndexImpl<T> addCompositeIndex(ColumnImpl[] cols) {
+        flushBatch();
+        CompositeIndexImpl<T> compositeIndex = new CompositeIndexImpl<T>(cols);
+        IndexImpl.AbstractIndex firstIndex = mainIndex.getIndex(cols[0]);
+        Iterator<Map.Entry<Object, Set<T>>> itr = firstIndex.iterator();
+        while (itr.hasNext()) {
+            for (T element : itr.next().getValue()) {
+                compositeIndex.add(element, compositeIndex.getValues(element, null, null));
+            }
+        }
+        compositeIndexes.add(compositeIndex);
+        return compositeIndex;
+    }
+
+    protected boolean removeCompositeIndex(ColumnImpl[] cols) {
+        CompositeIndexImpl<T> compositeIndex = getCompositeIndex(cols);
+        if (compositeIndex != null) {
+            compositeIndexes.remove(compositeIndex);
+            return true;
+        }
+        return false;
     }
 
     protected boolean hasColumn(ColumnImpl col) {
@@ -66,7 +230,7 @@ public class IndexStore<T extends Element> {
         }
         lock();
         try {
-            IndexImpl<T> viewIndex = viewIndexes.get(graph.getView());
+            ViewIndexImpl<T> viewIndex = viewIndexes.get(graph.getView());
             if (viewIndex == null) {
                 viewIndex = createViewIndex(graph);
             }
@@ -76,28 +240,47 @@ public class IndexStore<T extends Element> {
         }
     }
 
-    protected IndexImpl createViewIndex(Graph graph) {
+    protected ViewIndexImpl<T> createViewIndex(Graph graph) {
         if (graph.getView().isMainView()) {
             throw new IllegalArgumentException("Can't create a view index for the main view");
         }
-        IndexImpl viewIndex = new IndexImpl<T>(columnStore);
+        ViewIndexImpl<T> viewIndex = new ViewIndexImpl<T>(this, (GraphViewImpl) graph.getView());
         ColumnImpl[] columns = columnStore.toArray();
         viewIndex.addAllColumns(columns);
         viewIndexes.put(graph.getView(), viewIndex);
 
-        indexView(graph);
-
         return viewIndex;
     }
 
+    protected void copyViewIndex(GraphView view, GraphView copy) {
+        lock();
+        try {
+            ViewIndexImpl<T> sourceIndex = viewIndexes.get(view);
+            if (sourceIndex != null) {
+                ViewIndexImpl<T> viewIndex = new ViewIndexImpl<T>(this, (GraphViewImpl) copy);
+                viewIndex.addAllColumns(columnStore.toArray());
+                //The copy isn't time filtered, the source index may miss elements out of its interval
+                if (((GraphViewImpl) view).isTimeFiltered()) {
+                    viewIndex.valid = false;
+                } else {
+                    viewIndex.share(sourceIndex);
+                }
+                viewIndexes.put(copy, viewIndex);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
     protected void deleteViewIndex(Graph graph) {
         if (graph.getView().isMainView()) {
             throw new IllegalArgumentException("Can't delete a view index for the main view");
         }
         lock();
         try {
-            IndexImpl<T> index = viewIndexes.remove(graph.getView());
+            ViewIndexImpl<T> index = viewIndexes.remove(graph.getView());
             if (index != null) {
+                index.membershipChanged();
                 index.destroy();
             }
         } finally {
@@ -108,16 +291,40 @@ public class IndexStore<T extends Element> {
     public Object set(Column column, Object oldValue, Object value, T element) {
         lock();
         try {
-            value = mainIndex.set(column, oldValue, value, element);
-
+            IndexBuild<T> indexBuild = ((ColumnImpl) column).indexBuild;
+            if (indexBuild != null) {
+                indexBuild.write(element, value, false);
+                return value;
+            } else if (!column.isIndexed() || bulk) {
+                if (rebuildWrites != null && column.isIndexed()) {
+                    Object[] oldValues = copyAttributes((ElementImpl) element);
+                    oldValues[column.getIndex()] = oldValue;
+                    Object[] values = Arrays.copyOf(oldValues, oldValues.length);
+                    values[column.getIndex()] = value;
+                    logWrite(element, oldValues, values);
+                }
+                return value;
+            }
             if (!viewIndexes.isEmpty()) {
-                for (Entry<GraphView, IndexImpl<T>> entry : viewIndexes.entrySet()) {
-                    GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
-                    DirectedSubgraph graph = graphView.getDirectedGraph();
-                    boolean inView = element instanceof Node ? graph.contains((Node) element) : graph.contains((Edge) element);
-                    if (inView) {
-                        entry.getValue().set(column, oldValue, value, element);
-                    }
+                valueChanged((ColumnImpl) column, oldValue, element);
+            }
+            if (batch) {
+                //Applied column by column when the batch ends, repeated writes are coalesced
+                Map<T, Object> values = batchValues.get(column);
+                if (values == null) {
+                    values = new Object2ObjectOpenHashMap<T, Object>();
+                    batchValues.put((ColumnImpl) column, values);
+                }
+                if (!values.containsKey(element)) {
+                    values.put(element, oldValue);
+                }
+                return value;
+            }
+            value = mainIndex.set(column, oldValue, value, element);
+            for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+                if (compositeIndex.hasColumn(column)) {
+                    compositeIndex.remove(element, compositeIndex.getValues(element, column, oldValue));
+                    compositeIndex.add(element, compositeIndex.getValues(element, column, value));
                 }
             }
 
@@ -132,23 +339,38 @@ public class IndexStore<T extends Element> {
 
         lock();
         try {
+            //The element is removed with the values it's indexed with
+            flushBatch();
+            if (rebuildWrites != null) {
+                logWrite(element, copyAttributes(elementImpl), null);
+            }
             final int length = columnStore.length;
             final ColumnImpl[] cols = columnStore.columns;
             for (int i = 0; i < length; i++) {
-                Column c = cols[i];
+                ColumnImpl c = cols[i];
                 if (c != null && c.isIndexed()) {
-                    Object value = elementImpl.attributes[c.getIndex()];
-                    mainIndex.remove(c, value, element);
-                    for (Entry<GraphView, IndexImpl<T>> entry : viewIndexes.entrySet()) {
-                        GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
-                        DirectedSubgraph graph = graphView.getDirectedGraph();
-                        boolean inView = element instanceof Node ? graph.contains((Node) element) : graph.contains((Edge) element);
-                        if (inView) {
-                            entry.getValue().remove(c, value, element);
-                        }
+                    if (!bulk) {
+                        Object value = getAttribute(elementImpl, c);
+                        mainIndex.remove(c, value, element);
                     }
+                } else if (c != null && c.indexBuild != null) {
+                    c.indexBuild.write(element, null, true);
                 }
             }
+            if (!bulk) {
+                for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+                    compositeIndex.remove(element, compositeIndex.getValues(element, null, null));
+                }
+            }
+            if (dynamicIndexCount > 0) {
+                mainIndex.dynamicElementRemoved(element);
+                for (ViewIndexImpl<T> viewIndex : viewIndexes.values()) {
+                    viewIndex.dynamicElementRemoved(element);
+                }
+            }
+            if (!viewIndexes.isEmpty()) {
+                clearInViews(elementImpl);
+            }
         } finally {
             unlock();
         }
@@ -156,58 +378,84 @@ public class IndexStore<T extends Element> {
 
     public void index(T element) {
         ElementImpl elementImpl = (ElementImpl) element;
-        lock();
-        try {
-            ensureAttributeArrayLength(elementImpl, columnStore.length);
+        synchronized (elementImpl) {
+            lock();
+            try {
+                final Object[] attributes = copyAttributes(elementImpl);
 
-            final int length = columnStore.length;
-            final ColumnImpl[] cols = columnStore.columns;
-            for (int i = 0; i < length; i++) {
-                Column c = cols[i];
-                if (c != null && c.isIndexed()) {
-                    Object value = elementImpl.attributes[c.getIndex()];
-                    value = mainIndex.put(c, value, element);
-                    elementImpl.attributes[c.getIndex()] = value;
+                final int length = columnStore.length;
+                final ColumnImpl[] cols = columnStore.columns;
+                for (int i = 0; i < length; i++) {
+                    ColumnImpl c = cols[i];
+                    if (c != null && c.isIndexed()) {
+                        if (!bulk) {
+                            Object value = attributes[c.getIndex()];
+                            attributes[c.getIndex()] = mainIndex.put(c, value, element);
+                        }
+                    } else if (c != null && c.indexBuild != null) {
+                        c.indexBuild.write(element, attributes[c.getIndex()], false);
+                    }
                 }
+                elementImpl.attributes = attributes;
+                if (rebuildWrites != null) {
+                    logWrite(element, null, attributes);
+                }
+                if (!bulk) {
+                    for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+                        compositeIndex.add(element, compositeIndex.getValues(element, null, null));
+                    }
+                }
+                if (dynamicIndexCount > 0) {
+                    mainIndex.dynamicElementChanged(element);
+                }
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    public void indexView(Graph graph) {
+        lock();
+        try {
+            ViewIndexImpl<T> viewIndex = viewIndexes.get(graph.getView());
+            if (viewIndex != null) {
+                viewIndex.membershipChanged();
+                viewIndex.valid = false;
+                viewIndex.invalidateDynamicIndexes();
             }
         } finally {
             unlock();
         }
     }
 
-    public void indexView(Graph graph) {
-        IndexImpl viewIndex = viewIndexes.get(graph.getView());
-        if (viewIndex != null) {
-            graph.readLock();
+    protected void refreshViewIndex(ViewIndexImpl<T> viewIndex) {
+        Graph graph = viewIndex.view.getDirectedGraph();
+        graph.readLock();
+        try {
+            lock();
             try {
-                Iterator<T> iterator = null;
-                if (columnStore.elementType.equals(Node.class)) {
-                    iterator = (Iterator<T>) graph.getNodes().iterator();
-                } else if (columnStore.elementType.equals(Edge.class)) {
-                    iterator = (Iterator<T>) graph.getEdges().iterator();
-                }
-
-                if (iterator != null) {
-                    while (iterator.hasNext()) {
-                        ElementImpl element = (ElementImpl) iterator.next();
-                        ensureAttributeArrayLength(element, columnStore.length);
-
-                        final ColumnImpl[] cols = columnStore.columns;
-                        synchronized (element) {
-                            int length = columnStore.length;
-                            for (int i = 0; i < length; i++) {
-                                Column c = cols[i];
-                                if (c != null && c.isIndexed()) {
-                                    Object value = element.attributes[c.getIndex()];
-                                    viewIndex.put(c, value, element);
-                                }
-                            }
+                if (viewIndexes.get(viewIndex.view) == viewIndex && viewIndex.isStale()) {
+                    //Views are derived from the main index, which must be up to date
+                    flushBatch();
+                    if (!viewIndex.valid) {
+                        viewIndex.rebuild(mainIndex);
+                    } else {
+                        //Only the columns rebuilt in the main index are copied again
+                        viewIndex.rebuild(mainIndex, columnVersions);
+                        for (Entry<T, Object[]> entry : viewIndex.pendingValues.entrySet()) {
+                            applyPendingValues(viewIndex, entry.getKey(), entry.getValue());
                         }
                     }
+                    viewIndex.pendingValues.clear();
+                    viewIndex.version = version;
+                    viewIndex.columnVersions = Arrays.copyOf(columnVersions, columnVersions.length);
+                    viewIndex.valid = true;
                 }
             } finally {
-                graph.readUnlock();
+                unlock();
             }
+        } finally {
+            graph.readUnlock();
         }
     }
 
@@ -215,14 +463,22 @@ public class IndexStore<T extends Element> {
         ElementImpl elementImpl = (ElementImpl) element;
         lock();
         try {
-            IndexImpl<T> index = viewIndexes.get(view);
+            ViewIndexImpl<T> index = viewIndexes.get(view);
             if (index != null) {
+                index.membershipChanged();
+                if (dynamicIndexCount > 0) {
+                    index.dynamicElementChanged(element);
+                }
+            }
+            if (index != null && !index.valid) {
+                //Rebuilt on next access
+            } else if (index != null && index.isInView(element)) {
                 final int length = columnStore.length;
                 final ColumnImpl[] cols = columnStore.columns;
                 for (int i = 0; i < length; i++) {
-                    Column c = cols[i];
-                    if (c != null && c.isIndexed()) {
-                        Object value = elementImpl.attributes[c.getIndex()];
+                    ColumnImpl c = cols[i];
+                    if (c != null && c.isIndexed() && !index.isStale(c)) {
+                        Object value = getAttribute(elementImpl, c);
                         index.put(c, value, element);
                     }
                 }
@@ -236,14 +492,22 @@ public class IndexStore<T extends Element> {
         ElementImpl elementImpl = (ElementImpl) element;
         lock();
         try {
-            IndexImpl<T> index = viewIndexes.get(view);
+            ViewIndexImpl<T> index = viewIndexes.get(view);
             if (index != null) {
+                index.membershipChanged();
+                if (dynamicIndexCount > 0) {
+                    index.dynamicElementChanged(element);
+                }
+            }
+            if (index != null && !index.valid) {
+                //Rebuilt on next access
+            } else if (index != null) {
                 final int length = columnStore.length;
                 final ColumnImpl[] cols = columnStore.columns;
                 for (int i = 0; i < length; i++) {
-                    Column c = cols[i];
-                    if (c != null && c.isIndexed()) {
-                        Object value = elementImpl.attributes[c.getIndex()];
+                    ColumnImpl c = cols[i];
+                    if (c != null && c.isIndexed() && !index.isStale(c)) {
+                        Object value = getAttribute(elementImpl, c);
                         index.remove(c, value, element);
                     }
                 }
@@ -256,9 +520,11 @@ public class IndexStore<T extends Element> {
     public void clear(GraphView view) {
         lock();
         try {
-            IndexImpl<T> index = viewIndexes.get(view);
+            ViewIndexImpl<T> index = viewIndexes.get(view);
             if (index != null) {
+                index.membershipChanged();
                 index.clear();
+                index.valid = false;
             }
         } finally {
             unlock();
@@ -269,35 +535,531 @@ public class IndexStore<T extends Element> {
         lock();
         try {
             mainIndex.clear();
-            for (IndexImpl index : viewIndexes.values()) {
+            for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+                compositeIndex.clear();
+            }
+            for (IndexBuild<T> indexBuild : indexBuilds.values()) {
+                indexBuild.clear();
+            }
+            for (ViewIndexImpl<T> index : viewIndexes.values()) {
                 index.clear();
+                index.valid = false;
             }
+            batchValues.clear();
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void beginBatch() {
+        lock();
+        try {
+            batch = true;
         } finally {
             unlock();
         }
     }
 
-    private void ensureAttributeArrayLength(ElementImpl element, int size) {
-        synchronized (element) {
-            final Object[] attributes = element.attributes;
-            if (size > attributes.length) {
-                Object[] newArray = new Object[size];
-                System.arraycopy(attributes, 0, newArray, 0, attributes.length);
-                element.attributes = newArray;
+    protected void commitBatch(boolean aborted) {
+        lock();
+        try {
+            batch = false;
+            if (aborted && !batchValues.isEmpty()) {
+                //Recorded writes are discarded, the indexes are rebuilt from the element values instead
+                batchValues.clear();
+                rebuild(getThreads());
+            } else {
+                flushBatch();
             }
+        } finally {
+            unlock();
         }
+    }
 
+    protected void flushBatch() {
+        lock();
+        try {
+            if (batchValues.isEmpty()) {
+                return;
+            }
+            boolean flushed = false;
+            try {
+                flushBatchValues();
+                flushed = true;
+            } finally {
+                batchValues.clear();
+                if (!flushed) {
+                    //Recovered from the element values
+                    rebuild(getThreads());
+                }
+            }
+        } finally {
+            unlock();
+        }
     }
 
-    private void lock() {
+    private void flushBatchValues() {
+        //Composite indexes hold the tuples of the values indexed before the batch
+        for (CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+            Set<T> elements = new ObjectOpenHashSet<T>();
+            for (ColumnImpl c : compositeIndex.columns) {
+                Map<T, Object> values = batchValues.get(c);
+                if (values != null) {
+                    elements.addAll(values.keySet());
+                }
+            }
+            for (T element : elements) {
+                compositeIndex.remove(element, getBatchValues(compositeIndex, element));
+                compositeIndex.add(element, compositeIndex.getValues(element, null, null));
+            }
+        }
+
+        //Each column index is independent, they are updated by their own task
+        List<Runnable> tasks = new ArrayList<Runnable>(batchValues.size());
+        for (Entry<ColumnImpl, Map<T, Object>> entry : batchValues.entrySet()) {
+            final IndexImpl.AbstractIndex index = mainIndex.getIndex(entry.getKey());
+            final Map<T, Object> values = entry.getValue();
+            if (index != null) {
+                final int columnIndex = entry.getKey().getIndex();
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (Entry<T, Object> valueEntry : values.entrySet()) {
+                            ElementImpl element = (ElementImpl) valueEntry.getKey();
+                            Object[] attributes = element.attributes;
+                            Object value = columnIndex < attributes.length ? attributes[columnIndex] : null;
+                            index.replaceValue(element, valueEntry.getValue(), value);
+                        }
+                    }
+                });
+            }
+        }
+        execute(tasks, getThreads());
+    }
+
+    private Object[] getBatchValues(CompositeIndexImpl<T> compositeIndex, T element) {
+        Object[] values = compositeIndex.getValues(element, null, null);
+        for (int i = 0; i < values.length; i++) {
+            Map<T, Object> columnValues = batchValues.get(compositeIndex.columns[i]);
+            if (columnValues != null && columnValues.containsKey(element)) {
+                values[i] = columnValues.get(element);
+            }
+        }
+        return values;
+    }
+
+    protected void beginBulk() {
+        lock();
+        try {
+            bulk = true;
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void endBulk() {
+        final ColumnImpl[] cols;
+        final int maxStoreId;
+        final int threads;
+        lock();
+        try {
+            if (!bulk) {
+                return;
+            }
+            cols = getIndexedColumns();
+            maxStoreId = columnStore.getMaxElementStoreId();
+            threads = getThreads();
+            //Writes made during the scan are logged and replayed once the new indexes are in
+            rebuildWrites = new ArrayList<RebuildWrite<T>>();
+        } finally {
+            unlock();
+        }
+
+        //Elements are scanned without the lock, like index builds do
+        IndexImpl.AbstractIndex[] indexes = null;
+        try {
+            indexes = build(cols, maxStoreId, threads, true);
+        } finally {
+            endRebuild(cols, indexes);
+        }
+    }
+
+    protected void endRebuild(ColumnImpl[] cols, IndexImpl.AbstractIndex[] indexes) {
+        lock();
+        try {
+            List<RebuildWrite<T>> writes = rebuildWrites;
+            rebuildWrites = null;
+            bulk = false;
+            if (indexes == null) {
+                //The scan failed, recovered from the element values
+                rebuild(getThreads());
+                return;
+            }
+            replay(cols, indexes, writes);
+            swap(cols, indexes);
+
+            //Columns added during the scan are built now
+            Set<ColumnImpl> built = new ReferenceOpenHashSet<ColumnImpl>(cols);
+            List<ColumnImpl> added = new ArrayList<ColumnImpl>();
+            for (ColumnImpl c : getIndexedColumns()) {
+                if (!built.contains(c)) {
+                    added.add(c);
+                }
+            }
+            if (!added.isEmpty()) {
+                ColumnImpl[] addedCols = added.toArray(new ColumnImpl[0]);
+                swap(addedCols, build(addedCols, columnStore.getMaxElementStoreId(), 1, false));
+            }
+            rebuildCompositeIndexes(getThreads());
+        } finally {
+            unlock();
+        }
+    }
+
+    protected void rebuild(int threads) {
+        ColumnImpl[] cols = getIndexedColumns();
+        swap(cols, build(cols, columnStore.getMaxElementStoreId(), threads, false));
+        rebuildCompositeIndexes(threads);
+    }
+
+    protected ColumnImpl[] getIndexedColumns() {
+        final int length = columnStore.length;
+        final ColumnImpl[] cols = columnStore.columns;
+        List<ColumnImpl> indexed = new ArrayList<ColumnImpl>();
+        for (int i = 0; i < length; i++) {
+            ColumnImpl c = cols[i];
+            if (c != null && c.isIndexed() && mainIndex.getIndex(c) != null) {
+                indexed.add(c);
+            }
+        }
+        return indexed.toArray(new ColumnImpl[0]);
+    }
+
+    protected IndexImpl.AbstractIndex[] build(final ColumnImpl[] cols, int maxStoreId, int threads, final boolean unlocked) {
+        //Each task scans its own store id range into partial indexes, merged column by column after
+        final int ranges = Math.max(1, Math.min(threads, maxStoreId));
+        final IndexImpl.AbstractIndex[][] partials = new IndexImpl.AbstractIndex[ranges][];
+        List<Runnable> tasks = new ArrayList<Runnable>(Math.max(ranges, cols.length));
+        for (int r = 0; r < ranges; r++) {
+            final int range = r;
+            final int from = (int) ((long) maxStoreId * r / ranges);
+            final int to = (int) ((long) maxStoreId * (r + 1) / ranges);
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    partials[range] = scan(cols, from, to, unlocked);
+                }
+            });
+        }
+        execute(tasks, threads);
+
+        final IndexImpl.AbstractIndex[] indexes = partials[0];
+        if (ranges > 1) {
+            tasks.clear();
+            for (int i = 0; i < cols.length; i++) {
+                final int position = i;
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int r = 1; r < ranges; r++) {
+                            indexes[position].merge(partials[r][position]);
+                            partials[r][position] = null;
+                        }
+                    }
+                });
+            }
+            execute(tasks, threads);
+        }
+        return indexes;
+    }
+
+    private IndexImpl.AbstractIndex[] scan(ColumnImpl[] cols, int from, int to, boolean unlocked) {
+        IndexImpl.AbstractIndex[] indexes = new IndexImpl.AbstractIndex[cols.length];
+        for (int i = 0; i < cols.length; i++) {
+            indexes[i] = mainIndex.createIndex(cols[i]);
+        }
+        for (int id = from; id < to; id++) {
+            ElementImpl element = columnStore.getElement(id);
+            if (element != null) {
+                //The published attributes array is only read, never written back
+                Object[] attributes;
+                if (unlocked) {
+                    //Waits for writers that didn't see the rebuild to publish their value
+                    synchronized (element) {
+                        attributes = element.attributes;
+                    }
+                } else {
+                    attributes = element.attributes;
+                }
+                for (int i = 0; i < cols.length; i++) {
+                    indexes[i].putValue(element, getValue(attributes, cols[i].getIndex()));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private void replay(ColumnImpl[] cols, IndexImpl.AbstractIndex[] indexes, List<RebuildWrite<T>> writes) {
+        //Values held during the scan are removed by store id, as removed elements lost theirs
+        Map<T, Object[]> latest = new Reference2ObjectOpenHashMap<T, Object[]>();
+        for (RebuildWrite<T> write : writes) {
+            for (int i = 0; i < cols.length; i++) {
+                int columnIndex = cols[i].getIndex();
+                if (write.oldValues != null) {
+                    indexes[i].removeStoreId(write.storeId, getValue(write.oldValues, columnIndex));
+                }
+                if (write.values != null) {
+                    indexes[i].removeStoreId(write.storeId, getValue(write.values, columnIndex));
+                }
+            }
+            latest.put(write.element, write.values);
+        }
+        for (Entry<T, Object[]> entry : latest.entrySet()) {
+            Object[] values = entry.getValue();
+            if (values != null) {
+                for (int i = 0; i < cols.length; i++) {
+                    indexes[i].putValue(entry.getKey(), getValue(values, cols[i].getIndex()));
+                }
+            }
+        }
+    }
+
+    private void swap(ColumnImpl[] cols, IndexImpl.AbstractIndex[] indexes) {
+        for (int i = 0; i < cols.length; i++) {
+            //Columns removed meanwhile are skipped
+            if (mainIndex.getIndex(cols[i]) != null) {
+                mainIndex.columns[cols[i].storeId] = indexes[i];
+                if (!viewIndexes.isEmpty()) {
+                    columnChanged(cols[i]);
+                }
+            }
+        }
+    }
+
+    private void rebuildCompositeIndexes(int threads) {
+        final int maxStoreId = columnStore.getMaxElementStoreId();
+        //Composite indexes read the values the column indexes have shared
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (final CompositeIndexImpl<T> compositeIndex : compositeIndexes) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    compositeIndex.clear();
+                    for (int id = 0; id < maxStoreId; id++) {
+                        ElementImpl element = columnStore.getElement(id);
+                        if (element != null) {
+                            compositeIndex.add((T) element, compositeIndex.getValues((T) element, null, null));
+                        }
+                    }
+                }
+            });
+        }
+        execute(tasks, threads);
+    }
+
+    private void logWrite(T element, Object[] oldValues, Object[] values) {
+        RebuildWrite<T> write = new RebuildWrite<T>(element, element.getStoreId());
+        write.oldValues = oldValues;
+        write.values = values;
+        rebuildWrites.add(write);
+    }
+
+    protected int getThreads() {
+        if (columnStore.graphStore != null && columnStore.getMaxElementStoreId() >= PARALLEL_THRESHOLD) {
+            return parallelism;
+        }
+        return 1;
+    }
+
+    protected void execute(List<Runnable> tasks, int threads) {
+        threads = Math.min(threads, tasks.size());
+        if (threads > 1) {
+            //Each worker takes the next task until none is left
+            final List<Runnable> queue = tasks;
+            final AtomicInteger next = new AtomicInteger();
+            Runnable worker = new Runnable() {
+                @Override
+                public void run() {
+                    int i;
+                    while ((i = next.getAndIncrement()) < queue.size()) {
+                        queue.get(i).run();
+                    }
+                }
+            };
+            ExecutorService executorService = getExecutor();
+            List<Future<?>> futures = new ArrayList<Future<?>>(threads);
+            try {
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executorService.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                //Remaining tasks are skipped after a failure
+                next.set(queue.size());
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                    }
+                }
+            }
+        } else {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+
+    private void columnChanged(ColumnImpl column) {
+        int id = column.storeId;
+        if (id >= columnVersions.length) {
+            columnVersions = Arrays.copyOf(columnVersions, id + 1);
+        }
+        columnVersions[id]++;
+        version++;
+    }
+
+    private void valueChanged(ColumnImpl column, Object oldValue, T element) {
+        //Views are updated element by element when next accessed
+        for (ViewIndexImpl<T> index : viewIndexes.values()) {
+            if (!index.valid || index.isStale(column)) {
+                continue;
+            }
+            Object[] oldValues = index.pendingValues.get(element);
+            if (oldValues == null) {
+                GraphViewImpl graphView = index.view;
+                int viewSize = columnStore.elementType.equals(Node.class) ? graphView.getNodeCount() : graphView
+                        .getEdgeCount();
+                if (index.pendingValues.size() * 2 > viewSize) {
+                    //Rebuilding is cheaper than replaying that many changes
+                    index.valid = false;
+                    index.pendingValues.clear();
+                    continue;
+                }
+                oldValues = copyAttributes((ElementImpl) element);
+                oldValues[column.getIndex()] = oldValue;
+                index.pendingValues.put(element, oldValues);
+            }
+        }
+    }
+
+    private void clearInViews(ElementImpl element) {
+        //Removed elements have already left their views, others are removed from the views holding them
+        for (ViewIndexImpl<T> index : viewIndexes.values()) {
+            if (index.valid && index.isInView((T) element)) {
+                final int length = columnStore.length;
+                final ColumnImpl[] cols = columnStore.columns;
+                for (int i = 0; i < length; i++) {
+                    ColumnImpl c = cols[i];
+                    if (c != null && c.isIndexed() && !index.isStale(c)) {
+                        index.remove(c, getAttribute(element, c), (T) element);
+                    }
+                }
+            }
+        }
+    }
+
+    protected synchronized void destroy() {
+        //Idle threads are stopped now, the pool is created again if the store is used after
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            //Idle threads terminate so stores don't keep threads alive
+            executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "IndexStore rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private void applyPendingValues(ViewIndexImpl<T> index, T element, Object[] oldValues) {
+        ElementImpl elementImpl = (ElementImpl) element;
+        boolean inView = false;
+        if (elementImpl.isValid()) {
+            inView = index.isInView(element);
+        }
+        Object[] attributes = elementImpl.attributes;
+
+        final int length = columnStore.length;
+        final ColumnImpl[] cols = columnStore.columns;
+        for (int i = 0; i < length; i++) {
+            ColumnImpl c = cols[i];
+            if (c != null && c.isIndexed() && !index.isStale(c)) {
+                int columnIndex = c.getIndex();
+                Object value = inView && columnIndex < attributes.length ? attributes[columnIndex] : null;
+                if (oldValues != null) {
+                    Object oldValue = oldValues[columnIndex];
+                    if (inView && (oldValue == value || (oldValue != null && oldValue.equals(value)))) {
+                        continue;
+                    }
+                    index.remove(c, oldValue, element);
+                }
+                if (inView) {
+                    index.put(c, value, element);
+                }
+            }
+        }
+    }
+
+    private static Object getValue(Object[] values, int index) {
+        return index < values.length ? values[index] : null;
+    }
+
+    private static Object getAttribute(ElementImpl element, Column column) {
+        //Elements added before the column may not have a value
+        Object[] attributes = element.attributes;
+        int index = column.getIndex();
+        return index < attributes.length ? attributes[index] : null;
+    }
+
+    private Object[] copyAttributes(ElementImpl element) {
+        Object[] attributes = element.attributes;
+        return Arrays.copyOf(attributes, Math.max(attributes.length, columnStore.length));
+    }
+
+    void lock() {
         if (lock != null) {
             lock.lock();
         }
     }
 
-    private void unlock() {
+    void unlock() {
         if (lock != null) {
             lock.unlock();
         }
     }
+
+    protected static final class RebuildWrite<T> {
+
+        protected final T element;
+        protected final int storeId;
+        //Values before and after the write, null when the element was added or removed
+        protected Object[] oldValues;
+        protected Object[] values;
+
+        public RebuildWrite(T element, int storeId) {
+            this.element = element;
+            this.storeId = storeId;
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import org.gephi.graph.api.Node;
+
+/**
+ * Counts and degrees of a time filtered view, restricted to the nodes and
+ * edges in the view's time interval.
+ * <p>
+ * Kept up to date element by element, like the view's own counts, as elements
+ * enter or leave the view or the interval.
+ */
+public class IntervalCounts {
+
+    protected final GraphViewImpl view;
+    protected final GraphStore graphStore;
+    //Elements counted, in the view and its interval
+    protected AdaptiveBitVector nodeBitVector;
+    protected AdaptiveBitVector edgeBitVector;
+    //Stats
+    protected int nodeCount;
+    protected int edgeCount;
+    protected int[] typeCounts;
+    protected int[] mutualEdgeTypeCounts;
+    protected int mutualEdgesCount;
+    //In, out and mutual degrees, indexed by node store id * 3
+    protected int[] degrees;
+
+    public IntervalCounts(GraphViewImpl view) {
+        this.view = view;
+        this.graphStore = view.graphStore;
+        this.nodeBitVector = new AdaptiveBitVector(0);
+        this.edgeBitVector = new AdaptiveBitVector(0);
+        this.typeCounts = new int[0];
+        this.mutualEdgeTypeCounts = new int[0];
+        this.degrees = new int[0];
+    }
+
+    protected void recount() {
+        nodeBitVector = new AdaptiveBitVector(graphStore.nodeStore.maxStoreId());
+        edgeBitVector = new AdaptiveBitVector(graphStore.edgeStore.maxStoreId());
+        nodeCount = 0;
+        edgeCount = 0;
+        typeCounts = new int[0];
+        mutualEdgeTypeCounts = new int[0];
+        mutualEdgesCount = 0;
+        degrees = new int[graphStore.nodeStore.maxStoreId() * 3];
+
+        if (view.nodeView) {
+            int maxStoreId = graphStore.nodeStore.maxStoreId();
+            AdaptiveBitVector bitVector = view.nodeBitVector;
+            for (int id = bitVector.nextSetBit(0); id >= 0 && id < maxStoreId; id = bitVector.nextSetBit(id + 1)) {
+                NodeImpl node = graphStore.nodeStore.get(id);
+                if (node != null) {
+                    node(node, true);
+                }
+            }
+        } else {
+            for (Node node : graphStore.nodeStore) {
+                node((NodeImpl) node, true);
+            }
+        }
+        int maxStoreId = graphStore.edgeStore.maxStoreId();
+        AdaptiveBitVector bitVector = view.edgeBitVector;
+        for (int id = bitVector.nextSetBit(0); id >= 0 && id < maxStoreId; id = bitVector.nextSetBit(id + 1)) {
+            EdgeImpl edge = graphStore.edgeStore.get(id);
+            if (edge != null) {
+                edge(edge, true);
+            }
+        }
+    }
+
+    protected boolean node(NodeImpl node, boolean inView) {
+        int id = node.storeId;
+        if (id == NodeStore.NULL_ID) {
+            return false;
+        }
+        boolean counted = contains(nodeBitVector, id);
+        if (counted == (inView && view.isNodeInTimeInterval(node))) {
+            return false;
+        }
+        if (counted) {
+            nodeBitVector.clear(id);
+            nodeCount--;
+        } else {
+            ensureSize(nodeBitVector, id);
+            nodeBitVector.set(id);
+            nodeCount++;
+        }
+        return true;
+    }
+
+    protected boolean edge(EdgeImpl edge, boolean inView) {
+        int id = edge.storeId;
+        if (id == EdgeStore.NULL_ID) {
+            return false;
+        }
+        boolean counted = contains(edgeBitVector, id);
+        if (counted == (inView && view.isEdgeInTimeInterval(edge))) {
+            return false;
+        }
+        if (counted) {
+            edgeBitVector.clear(id);
+            countEdge(edge, -1);
+        } else {
+            ensureSize(edgeBitVector, id);
+            edgeBitVector.set(id);
+            countEdge(edge, 1);
+        }
+        return true;
+    }
+
+    protected boolean containsNode(NodeImpl node) {
+        return contains(nodeBitVector, node.storeId);
+    }
+
+    protected boolean containsEdge(EdgeImpl edge) {
+        return contains(edgeBitVector, edge.storeId);
+    }
+
+    protected boolean isPaired(EdgeImpl edge) {
+        EdgeImpl mutual = getMutual(edge);
+        return mutual != null && containsEdge(mutual);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getUndirectedEdgeCount() {
+        return edgeCount - mutualEdgesCount;
+    }
+
+    public int getEdgeCount(int type) {
+        return type >= 0 && type < typeCounts.length ? typeCounts[type] : 0;
+    }
+
+    public int getUndirectedEdgeCount(int type) {
+        return type >= 0 && type < typeCounts.length ? typeCounts[type] - mutualEdgeTypeCounts[type] : 0;
+    }
+
+    public int getInDegree(NodeImpl node) {
+        int index = node.storeId * 3;
+        return index >= 0 && index < degrees.length ? degrees[index] : 0;
+    }
+
+    public int getOutDegree(NodeImpl node) {
+        int index = node.storeId * 3;
+        return index >= 0 && index < degrees.length ? degrees[index + 1] : 0;
+    }
+
+    public int getDegree(NodeImpl node) {
+        int index = node.storeId * 3;
+        return index >= 0 && index < degrees.length ? degrees[index] + degrees[index + 1] : 0;
+    }
+
+    public int getUndirectedDegree(NodeImpl node) {
+        int index = node.storeId * 3;
+        return index >= 0 && index < degrees.length ? degrees[index] + degrees[index + 1] - degrees[index + 2] : 0;
+    }
+
+    private void countEdge(EdgeImpl edge, int delta) {
+        int type = edge.type;
+        if (type >= typeCounts.length) {
+            typeCounts = Arrays.copyOf(typeCounts, type + 1);
+            mutualEdgeTypeCounts = Arrays.copyOf(mutualEdgeTypeCounts, type + 1);
+        }
+        edgeCount += delta;
+        typeCounts[type] += delta;
+
+        //The pair is counted once both edges are counted
+        boolean paired = isPaired(edge);
+        if (paired) {
+            mutualEdgeTypeCounts[type] += delta;
+            mutualEdgesCount += delta;
+        }
+
+        int source = edge.source.storeId * 3;
+        int target = edge.target.storeId * 3;
+        int length = Math.max(source, target) + 3;
+        if (length > degrees.length) {
+            degrees = Arrays.copyOf(degrees, Math.max(length, graphStore.nodeStore.maxStoreId() * 3));
+        }
+        degrees[source + 1] += delta;
+        degrees[target] += delta;
+        if (paired) {
+            degrees[source + 2] += delta;
+            degrees[target + 2] += delta;
+        }
+    }
+
+    private EdgeImpl getMutual(EdgeImpl edge) {
+        if (!edge.isMutual()) {
+            return null;
+        }
+        EdgeImpl mutual = graphStore.edgeStore.get(edge.target, edge.source, edge.type);
+        return mutual != edge ? mutual : null;
+    }
+
+    private static boolean contains(AdaptiveBitVector bitVector, int id) {
+        return id >= 0 && id < bitVector.size() && bitVector.get(id);
+    }
+
+    private static void ensureSize(AdaptiveBitVector bitVector, int id) {
+        if (id >= bitVector.size()) {
+            bitVector.ensureSize(Math.max(id + 1, (int) (id * GraphStoreConfiguration.VIEW_GROWING_FACTOR)));
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.Collection;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
@@ -137,6 +138,33 @@ public class IntervalIndexStore<T extends Element> implements TimeIndexStore<Int
         //TODO
     }
 
+    @Override
+    public Collection<Element> setTimeInterval(GraphView view, Interval interval) {
+        return null;
+    }
+
+    @Override
+    public boolean isInTimeInterval(Element element, GraphView view) {
+        Interval interval = view.getTimeInterval();
+        if (interval == null || interval.equals(Interval.INFINITY_INTERVAL)) {
+            return true;
+        }
+        Object[] attributes = element.getAttributes();
+        if (GraphStoreConfiguration.ENABLE_ELEMENT_TIME_SET && GraphStoreConfiguration.ELEMENT_TIMESET_INDEX < attributes.length) {
+            IntervalSet set = (IntervalSet) attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX];
+            if (set != null && !set.isEmpty()) {
+                double[] intervals = set.getIntervals();
+                for (int i = 0; i < intervals.length; i += 2) {
+                    if (intervals[i] <= interval.getHigh() && intervals[i + 1] >= interval.getLow()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean hasIndex() {
         return false;
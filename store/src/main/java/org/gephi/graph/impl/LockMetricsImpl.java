@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.gephi.graph.api.LockMetrics;
+
+public abstract class LockMetricsImpl implements LockMetrics {
+
+    protected volatile boolean enabled;
+    //Counts
+    protected final AtomicLong readCount = new AtomicLong();
+    protected final AtomicLong writeCount = new AtomicLong();
+    //Histograms
+    protected final AtomicLongArray readWaitTimes = new AtomicLongArray(HISTOGRAM_SIZE);
+    protected final AtomicLongArray writeWaitTimes = new AtomicLongArray(HISTOGRAM_SIZE);
+    protected final AtomicLongArray readHoldTimes = new AtomicLongArray(HISTOGRAM_SIZE);
+    protected final AtomicLongArray writeHoldTimes = new AtomicLongArray(HISTOGRAM_SIZE);
+    //Holders
+    protected final Map<Thread, Long> readHolders = new ConcurrentHashMap<Thread, Long>();
+    protected final Map<Thread, Long> writeHolders = new ConcurrentHashMap<Thread, Long>();
+
+    protected void readLocked(long waitStart, boolean outermost) {
+        long now = System.nanoTime();
+        readCount.incrementAndGet();
+        record(readWaitTimes, now - waitStart);
+        if (outermost) {
+            readHolders.put(Thread.currentThread(), now);
+        }
+    }
+
+    protected void readUnlocked() {
+        Long start = readHolders.remove(Thread.currentThread());
+        if (start != null) {
+            record(readHoldTimes, System.nanoTime() - start);
+        }
+    }
+
+    protected void writeLocked(long waitStart, boolean outermost) {
+        long now = System.nanoTime();
+        writeCount.incrementAndGet();
+        record(writeWaitTimes, now - waitStart);
+        if (outermost) {
+            writeHolders.put(Thread.currentThread(), now);
+        }
+    }
+
+    protected void writeUnlocked() {
+        Long start = writeHolders.remove(Thread.currentThread());
+        if (start != null) {
+            record(writeHoldTimes, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            readHolders.clear();
+            writeHolders.clear();
+        }
+    }
+
+    @Override
+    public void reset() {
+        readCount.set(0);
+        writeCount.set(0);
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            readWaitTimes.set(i, 0);
+            writeWaitTimes.set(i, 0);
+            readHoldTimes.set(i, 0);
+            writeHoldTimes.set(i, 0);
+        }
+    }
+
+    @Override
+    public long getReadLockCount() {
+        return readCount.get();
+    }
+
+    @Override
+    public long getWriteLockCount() {
+        return writeCount.get();
+    }
+
+    @Override
+    public long[] getReadWaitTimeHistogram() {
+        return toArray(readWaitTimes);
+    }
+
+    @Override
+    public long[] getWriteWaitTimeHistogram() {
+        return toArray(writeWaitTimes);
+    }
+
+    @Override
+    public long[] getReadHoldTimeHistogram() {
+        return toArray(readHoldTimes);
+    }
+
+    @Override
+    public long[] getWriteHoldTimeHistogram() {
+        return toArray(writeHoldTimes);
+    }
+
+    @Override
+    public Thread getLongestHolder() {
+        Map.Entry<Thread, Long> holder = getLongestHolderEntry();
+        return holder != null ? holder.getKey() : null;
+    }
+
+    @Override
+    public long getLongestHoldTime() {
+        Map.Entry<Thread, Long> holder = getLongestHolderEntry();
+        return holder != null ? System.nanoTime() - holder.getValue() : 0l;
+    }
+
+    @Override
+    public StackTraceElement[] getLongestHolderStackTrace() {
+        Map.Entry<Thread, Long> holder = getLongestHolderEntry();
+        return holder != null ? holder.getKey().getStackTrace() : new StackTraceElement[0];
+    }
+
+    private Map.Entry<Thread, Long> getLongestHolderEntry() {
+        Map.Entry<Thread, Long> longest = null;
+        for (Map.Entry<Thread, Long> entry : writeHolders.entrySet()) {
+            if (longest == null || entry.getValue() - longest.getValue() < 0) {
+                longest = entry;
+            }
+        }
+        for (Map.Entry<Thread, Long> entry : readHolders.entrySet()) {
+            if (longest == null || entry.getValue() - longest.getValue() < 0) {
+                longest = entry;
+            }
+        }
+        return longest;
+    }
+
+    protected static int getBucket(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_SIZE - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private static void record(AtomicLongArray histogram, long nanos) {
+        histogram.incrementAndGet(getBucket(nanos));
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] res = new long[HISTOGRAM_SIZE];
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            res[i] = histogram.get(i);
+        }
+        return res;
+    }
+}
@@ -250,6 +250,9 @@ public class NodeStore implements Collection<Node>, NodeIterable {
                 viewStore.addNode(node);
             }
             node.indexAttributes();
+            if (viewStore != null) {
+                viewStore.updateNode(node);
+            }
 
             size++;
 
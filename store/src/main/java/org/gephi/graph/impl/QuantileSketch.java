@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class QuantileSketch {
+
+    //Const
+    public static final int DEFAULT_CAPACITY = 256;
+    //Data
+    protected final int capacity;
+    protected double[][] levels;
+    protected int[] sizes;
+    protected long count;
+    //Alternates the items kept by compactions
+    protected boolean offset;
+
+    public QuantileSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public QuantileSketch(int capacity) {
+        if (capacity < 2 || capacity % 2 != 0) {
+            throw new IllegalArgumentException("The capacity must be even and at least 2");
+        }
+        this.capacity = capacity;
+        this.levels = new double[1][capacity];
+        this.sizes = new int[1];
+    }
+
+    public void add(double value) {
+        insert(0, value);
+        count++;
+    }
+
+    public void merge(QuantileSketch other) {
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                insert(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getQuantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double[] values = new double[getItemCount()];
+        long[] weights = new long[values.length];
+        sortedItems(values, weights);
+        long rank = (long) Math.floor(q * (count - 1));
+        long cumulative = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulative += weights[i];
+            if (cumulative > rank) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    public int[] getHistogram(double min, double max, int bins) {
+        int[] histogram = new int[bins];
+        for (int level = 0; level < levels.length; level++) {
+            long weight = 1l << level;
+            for (int i = 0; i < sizes[level]; i++) {
+                histogram[getBin(levels[level][i], min, max, bins)] += weight;
+            }
+        }
+        return histogram;
+    }
+
+    protected static int getBin(double value, double min, double max, int bins) {
+        if (max <= min) {
+            return 0;
+        }
+        int bin = (int) ((value - min) / (max - min) * bins);
+        return Math.max(0, Math.min(bins - 1, bin));
+    }
+
+    private void insert(int level, double value) {
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            levels[level] = new double[capacity];
+            sizes = Arrays.copyOf(sizes, level + 1);
+        }
+        if (sizes[level] == capacity) {
+            compact(level);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    private void compact(int level) {
+        double[] items = levels[level];
+        int size = sizes[level];
+        Arrays.sort(items, 0, size);
+        sizes[level] = 0;
+        for (int i = offset ? 1 : 0; i < size; i += 2) {
+            insert(level + 1, items[i]);
+        }
+        offset = !offset;
+    }
+
+    private int getItemCount() {
+        int n = 0;
+        for (int size : sizes) {
+            n += size;
+        }
+        return n;
+    }
+
+    private void sortedItems(double[] values, long[] weights) {
+        final double[] items = new double[values.length];
+        final int[] itemLevels = new int[values.length];
+        Integer[] order = new Integer[values.length];
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                items[n] = levels[level][i];
+                itemLevels[n] = level;
+                order[n] = n;
+                n++;
+            }
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(items[a], items[b]);
+            }
+        });
+        for (int i = 0; i < n; i++) {
+            values[i] = items[order[i]];
+            weights[i] = 1l << itemLevels[order[i]];
+        }
+    }
+}
@@ -290,8 +290,16 @@ public class Serialization {
 
         //Nodes and edges
         int nodesAndEdges = (Integer) deserialize(is);
-        for (int i = 0; i < nodesAndEdges; i++) {
-            deserialize(is);
+        //Indexes are rebuilt once all elements are read
+        model.store.nodeTable.store.beginBulk();
+        model.store.edgeTable.store.beginBulk();
+        try {
+            for (int i = 0; i < nodesAndEdges; i++) {
+                deserialize(is);
+            }
+        } finally {
+            model.store.nodeTable.store.endBulk();
+            model.store.edgeTable.store.endBulk();
         }
 
         //ViewStore
@@ -546,8 +554,8 @@ public class Serialization {
         serialize(out, view.nodeCount);
         serialize(out, view.edgeCount);
 
-        serialize(out, view.nodeBitVector);
-        serialize(out, view.edgeBitVector);
+        serialize(out, view.nodeBitVector != null ? view.nodeBitVector.toBitVector() : null);
+        serialize(out, view.edgeBitVector.toBitVector());
 
         serialize(out, view.typeCounts);
         serialize(out, view.mutualEdgeTypeCounts);
@@ -576,13 +584,14 @@ public class Serialization {
 
         view.nodeCount = nodeCount;
         view.edgeCount = edgeCount;
-        view.nodeBitVector = nodeCountVector;
-        view.edgeBitVector = edgeCountVector;
+        view.nodeBitVector = AdaptiveBitVector.fromBitVector(nodeCountVector);
+        view.edgeBitVector = AdaptiveBitVector.fromBitVector(edgeCountVector);
         view.storeId = storeId;
 
         view.typeCounts = typeCounts;
         view.mutualEdgesCount = mutualEdgesCount;
         view.mutualEdgeTypeCounts = mutualEdgeTypeCounts;
+        view.countMutualEdges();
 
         view.version.nodeVersion = version.nodeVersion;
         view.version.edgeVersion = version.edgeVersion;
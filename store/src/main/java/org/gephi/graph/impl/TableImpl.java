@@ -17,6 +17,8 @@ package org.gephi.graph.impl;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.gephi.graph.api.AttributeUtils;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
@@ -35,7 +37,11 @@ public class TableImpl<T extends Element> implements Table {
     }
 
     public TableImpl(Configuration configuration, Class<T> elementType, boolean indexed) {
-        store = new ColumnStore<T>(configuration, elementType, indexed);
+        this(null, configuration, elementType, indexed);
+    }
+
+    public TableImpl(GraphStore graphStore, Configuration configuration, Class<T> elementType, boolean indexed) {
+        store = new ColumnStore<T>(graphStore, configuration, elementType, indexed);
     }
 
     @Override
@@ -55,11 +61,17 @@ public class TableImpl<T extends Element> implements Table {
 
     @Override
     public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed) {
+        return addColumn(id, title, type, origin, defaultValue, indexed, false);
+    }
+
+    @Override
+    public Column addColumn(String id, String title, Class type, Origin origin, Object defaultValue, boolean indexed, boolean textIndexed) {
         checkValidId(id);
         checkSupportedTypes(type);
         checkDefaultValue(defaultValue, type);
 
         type = AttributeUtils.getStandardizedType(type);
+        checkTextIndexed(textIndexed, indexed, type);
         if (defaultValue != null) {
             defaultValue = AttributeUtils.standardizeValue(defaultValue);
         }
@@ -72,9 +84,10 @@ public class TableImpl<T extends Element> implements Table {
 
         if (indexed && store.indexStore == null) {
             indexed = false;
+            textIndexed = false;
         }
 
-        ColumnImpl column = new ColumnImpl(this, id, type, title, defaultValue, origin, indexed, false);
+        ColumnImpl column = new ColumnImpl(this, id, type, title, defaultValue, origin, indexed, textIndexed, false);
         store.addColumn(column);
 
         return column;
@@ -130,6 +143,46 @@ public class TableImpl<T extends Element> implements Table {
         store.removeColumn(id.toLowerCase());
     }
 
+    @Override
+    public void addIndex(Column column, boolean lazy) {
+        store.addIndex(column, lazy);
+    }
+
+    @Override
+    public Future<?> addIndex(Column column, ExecutorService executor) {
+        return store.addIndex(column, executor);
+    }
+
+    @Override
+    public void addCompositeIndex(Column... columns) {
+        store.addCompositeIndex(columns);
+    }
+
+    @Override
+    public boolean hasCompositeIndex(Column... columns) {
+        return store.hasCompositeIndex(columns);
+    }
+
+    @Override
+    public void removeCompositeIndex(Column... columns) {
+        store.removeCompositeIndex(columns);
+    }
+
+    @Override
+    public void addDynamicIndex(Column column) {
+        store.addDynamicIndex(column);
+    }
+
+    @Override
+    public boolean hasDynamicIndex(Column column) {
+        return store.hasDynamicIndex(column);
+    }
+
+    @Override
+    public void removeDynamicIndex(Column column) {
+        store.removeDynamicIndex(column);
+    }
+
     @Override
     public TableObserver createTableObserver(boolean withDiff) {
         return store.createTableObserver(this, withDiff);
@@ -177,6 +230,17 @@ public class TableImpl<T extends Element> implements Table {
         }
     }
 
+    private void checkTextIndexed(boolean textIndexed, boolean indexed, Class type) {
+        if (textIndexed) {
+            if (!indexed) {
+                throw new IllegalArgumentException("A text indexed column must be indexed");
+            }
+            if (!type.equals(String.class) && !type.equals(String[].class)) {
+                throw new IllegalArgumentException("Only String and String[] columns can be text indexed");
+            }
+        }
+    }
+
     private void checkDefaultValue(Object defaultValue, Class type) {
         if (defaultValue != null) {
             if (defaultValue.getClass() != type) {
@@ -20,16 +20,43 @@ import java.util.concurrent.locks.ReentrantLock;
 public class TableLock {
 
     protected final ReentrantLock lock;
+    protected final LockMetricsImpl metrics;
 
     public TableLock() {
         lock = new ReentrantLock();
+        metrics = new LockMetricsImpl() {
+
+            @Override
+            public int getQueuedReaders() {
+                return 0;
+            }
+
+            @Override
+            public int getQueuedWriters() {
+                return lock.getQueueLength();
+            }
+        };
     }
 
     public void lock() {
-        lock.lock();
+        if (metrics.enabled) {
+            long start = System.nanoTime();
+            lock.lock();
+            metrics.writeLocked(start, lock.getHoldCount() == 1);
+        } else {
+            lock.lock();
+        }
     }
 
     public void unlock() {
-        lock.unlock();
+        if (metrics.enabled) {
+            boolean last = lock.getHoldCount() == 1;
+            lock.unlock();
+            if (last) {
+                metrics.writeUnlocked();
+            }
+        } else {
+            lock.unlock();
+        }
     }
 }
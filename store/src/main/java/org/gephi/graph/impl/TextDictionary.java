@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+public class TextDictionary {
+
+    //Const
+    public static final int GRAM_LENGTH = 3;
+    //Lower case term to values
+    protected final SortedMap<String, Set<String>> terms;
+    //Token to values
+    protected final Map<String, Set<String>> tokens;
+    //N-gram to values
+    protected final Map<String, Set<String>> grams;
+
+    public TextDictionary() {
+        terms = new Object2ObjectAVLTreeMap<String, Set<String>>();
+        tokens = new Object2ObjectOpenHashMap<String, Set<String>>();
+        grams = new Object2ObjectOpenHashMap<String, Set<String>>();
+    }
+
+    public void add(String value) {
+        String term = normalize(value);
+        addTo(terms, term, value);
+        for (String token : tokenize(term)) {
+            addTo(tokens, token, value);
+        }
+        for (String gram : getGrams(term)) {
+            addTo(grams, gram, value);
+        }
+    }
+
+    public void remove(String value) {
+        String term = normalize(value);
+        removeFrom(terms, term, value);
+        for (String token : tokenize(term)) {
+            removeFrom(tokens, token, value);
+        }
+        for (String gram : getGrams(term)) {
+            removeFrom(grams, gram, value);
+        }
+    }
+
+    public void clear() {
+        terms.clear();
+        tokens.clear();
+        grams.clear();
+    }
+
+    public Collection<String> getByPrefix(String prefix) {
+        String term = normalize(prefix);
+        List<String> values = new ArrayList<String>();
+        for (Map.Entry<String, Set<String>> entry : terms.tailMap(term).entrySet()) {
+            if (!entry.getKey().startsWith(term)) {
+                break;
+            }
+            values.addAll(entry.getValue());
+        }
+        return values;
+    }
+
+    public Collection<String> getBySubstring(String text) {
+        String term = normalize(text);
+        List<String> values = new ArrayList<String>();
+        if (term.length() < GRAM_LENGTH) {
+            for (Map.Entry<String, Set<String>> entry : terms.entrySet()) {
+                if (entry.getKey().contains(term)) {
+                    values.addAll(entry.getValue());
+                }
+            }
+            return values;
+        }
+        Set<String> candidates = null;
+        for (String gram : getGrams(term)) {
+            Set<String> set = grams.get(gram);
+            if (set == null) {
+                return values;
+            }
+            if (candidates == null || set.size() < candidates.size()) {
+                candidates = set;
+            }
+        }
+        for (String value : candidates) {
+            if (normalize(value).contains(term)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    public Collection<String> getByTokens(String text) {
+        List<String> queryTokens = tokenize(normalize(text));
+        List<String> values = new ArrayList<String>();
+        if (queryTokens.isEmpty()) {
+            return values;
+        }
+        Set<String> candidates = null;
+        for (String token : queryTokens) {
+            Set<String> set = tokens.get(token);
+            if (set == null) {
+                return values;
+            }
+            if (candidates == null || set.size() < candidates.size()) {
+                candidates = set;
+            }
+        }
+        for (String value : candidates) {
+            if (queryTokens.size() == 1 || tokenize(normalize(value)).containsAll(queryTokens)) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Set<String> set : terms.values()) {
+            size += set.size();
+        }
+        return size;
+    }
+
+    protected static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    protected static List<String> tokenize(String term) {
+        List<String> result = new ArrayList<String>();
+        int start = -1;
+        for (int i = 0; i <= term.length(); i++) {
+            boolean letter = i < term.length() && Character.isLetterOrDigit(term.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                result.add(term.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    protected static Set<String> getGrams(String term) {
+        Set<String> result = new ObjectOpenHashSet<String>();
+        for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+            result.add(term.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private static void addTo(Map<String, Set<String>> map, String key, String value) {
+        Set<String> set = map.get(key);
+        if (set == null) {
+            set = new ObjectOpenHashSet<String>(1);
+            map.put(key, set);
+        }
+        set.add(value);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> map, String key, String value) {
+        Set<String> set = map.get(key);
+        if (set != null) {
+            set.remove(value);
+            if (set.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -15,9 +15,11 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.Collection;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.TimeIndex;
 import org.gephi.graph.api.types.TimeMap;
 import org.gephi.graph.api.types.TimeSet;
@@ -62,6 +64,11 @@ public interface TimeIndexStore<K, S extends TimeSet, M extends TimeMap> {
 
     public void deleteViewIndex(Graph graph);
 
+    //Returns the elements whose presence in the view interval may have changed, or null if any may have
+    public Collection<Element> setTimeInterval(GraphView view, Interval interval);
+
+    public boolean isInTimeInterval(Element element, GraphView view);
+
     public boolean hasIndex();
 
     public boolean deepEquals(TimeIndexStore obj);
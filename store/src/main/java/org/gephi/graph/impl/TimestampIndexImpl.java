@@ -40,6 +40,8 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
     protected final boolean mainIndex;
     protected TimestampIndexEntry[] timestamps;
     protected int elementCount;
+    // View, the entries are derived from the main index
+    protected GraphViewImpl view;
 
     public TimestampIndexImpl(TimestampIndexStore store, boolean main) {
         timestampIndexStore = store;
@@ -48,6 +50,11 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
         lock = store.graphLock;
     }
 
+    public TimestampIndexImpl(TimestampIndexStore store, GraphViewImpl view) {
+        this(store, false);
+        this.view = view;
+    }
+
     @Override
     public double getMinTimestamp() {
         if (mainIndex) {
@@ -62,12 +69,8 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
                 while (bi.hasNext()) {
                     Double2IntMap.Entry entry = bi.next();
                     double timestamp = entry.getDoubleKey();
-                    int index = entry.getIntValue();
-                    if (index < timestamps.length) {
-                        TimestampIndexEntry timestampEntry = timestamps[index];
-                        if (timestampEntry != null) {
-                            return timestamp;
-                        }
+                    if (hasElementsInView(entry.getIntValue())) {
+                        return timestamp;
                     }
                 }
             }
@@ -89,12 +92,8 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
                 while (bi.hasPrevious()) {
                     Double2IntMap.Entry entry = bi.previous();
                     double timestamp = entry.getDoubleKey();
-                    int index = entry.getIntValue();
-                    if (index < timestamps.length) {
-                        TimestampIndexEntry timestampEntry = timestamps[index];
-                        if (timestampEntry != null) {
-                            return timestamp;
-                        }
+                    if (hasElementsInView(entry.getIntValue())) {
+                        return timestamp;
                     }
                 }
             }
@@ -109,9 +108,16 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
         readLock();
         int index = timestampIndexStore.getTimestampIndex(timestamp);
         if (index != NULL_INDEX) {
-            TimestampIndexEntry ts = timestamps[index];
+            TimestampIndexEntry ts = getEntry(index);
             if (ts != null) {
-                return new ElementIterableImpl(new ElementIteratorImpl(ts.elementSet.iterator()));
+                if (mainIndex) {
+                    return new ElementIterableImpl(new ElementIteratorImpl(ts.elementSet.iterator()));
+                }
+                ObjectSet<Element> elements = new ObjectOpenHashSet<Element>();
+                addElementsInView(ts, elements);
+                if (!elements.isEmpty()) {
+                    return new ElementIterableImpl(new ElementIteratorImpl(elements.iterator()));
+                }
             }
         }
         readUnlock();
@@ -131,9 +137,13 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
                 double timestamp = entry.getDoubleKey();
                 int index = entry.getIntValue();
                 if (timestamp <= interval.getHigh()) {
-                    TimestampIndexEntry ts = timestamps[index];
+                    TimestampIndexEntry ts = getEntry(index);
                     if (ts != null) {
-                        elements.addAll(ts.elementSet);
+                        if (mainIndex) {
+                            elements.addAll(ts.elementSet);
+                        } else {
+                            addElementsInView(ts, elements);
+                        }
                     }
                 } else {
                     break;
@@ -148,7 +158,18 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
     }
 
     public boolean hasElements() {
-        return elementCount > 0;
+        if (mainIndex) {
+            return elementCount > 0;
+        }
+        if (view != null) {
+            TimestampIndexEntry[] entries = timestampIndexStore.mainIndex.timestamps;
+            for (int i = 0; i < entries.length; i++) {
+                if (hasElementsInView(i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public void clear() {
@@ -156,6 +177,52 @@ public class TimestampIndexImpl<T extends Element> implements TimeIndex<T> {
         elementCount = 0;
     }
 
+    protected void destroy() {
+        clear();
+        view = null;
+    }
+
+    private TimestampIndexEntry getEntry(int index) {
+        if (mainIndex) {
+            return timestamps[index];
+        }
+        if (view == null) {
+            return null;
+        }
+        TimestampIndexEntry[] entries = timestampIndexStore.mainIndex.timestamps;
+        return index < entries.length ? entries[index] : null;
+    }
+
+    private boolean hasElementsInView(int index) {
+        TimestampIndexEntry entry = getEntry(index);
+        if (entry != null) {
+            if (mainIndex) {
+                return true;
+            }
+            for (Element element : entry.elementSet) {
+                if (isInView(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addElementsInView(TimestampIndexEntry entry, ObjectSet<Element> elements) {
+        for (Element element : entry.elementSet) {
+            if (isInView(element)) {
+                elements.add(element);
+            }
+        }
+    }
+
+    private boolean isInView(Element element) {
+        if (element instanceof NodeImpl) {
+            return view.containsNode((NodeImpl) element);
+        }
+        return view.containsEdge((EdgeImpl) element);
+    }
+
     protected void add(int timestampIndex, Element element) {
         ensureArraySize(timestampIndex);
         TimestampIndexEntry entry = timestamps[timestampIndex];
@@ -21,16 +21,16 @@ import it.unimi.dsi.fastutil.doubles.Double2IntSortedMap;
 import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
 import it.unimi.dsi.fastutil.ints.IntSortedSet;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-import java.util.Iterator;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.gephi.graph.api.types.TimestampSet;
-import org.gephi.graph.api.DirectedSubgraph;
-import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
-import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.TimeIndex;
 import org.gephi.graph.api.types.TimestampMap;
 import org.gephi.graph.impl.utils.MapDeepEquals;
@@ -51,6 +51,9 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
     //Index
     protected final TimestampIndexImpl mainIndex;
     protected final Map<GraphView, TimestampIndexImpl> viewIndexes;
+    //Interval filters
+    protected IntervalFilter[] intervalFilters;
+    protected int intervalFilterCount;
 
     public TimestampIndexStore(Class<T> type, GraphLock lock, boolean indexed) {
         elementType = type;
@@ -63,6 +66,7 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
 
         mainIndex = indexed ? new TimestampIndexImpl<T>(this, true) : null;
         viewIndexes = indexed ? new Object2ObjectOpenHashMap<GraphView, TimestampIndexImpl>() : null;
+        intervalFilters = new IntervalFilter[0];
     }
 
     @Override
@@ -93,18 +97,7 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
 
         if (mainIndex != null) {
             mainIndex.add(timestampIndex, element);
-
-            if (!viewIndexes.isEmpty()) {
-                for (Entry<GraphView, TimestampIndexImpl> entry : viewIndexes.entrySet()) {
-                    GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
-                    DirectedSubgraph graph = graphView.getDirectedGraph();
-                    boolean node = element instanceof Node;
-                    if (node ? graph.contains((Node) element) : graph.contains((Edge) element)) {
-                        entry.getValue().add(timestampIndex, element);
-                    }
-                }
-
-            }
+            countInFilters(timestamp, element, 1);
         }
 
         return timestampIndex;
@@ -145,20 +138,7 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
 
         if (mainIndex != null) {
             mainIndex.remove(timestampIndex, element);
-
-            if (!viewIndexes.isEmpty()) {
-                for (Entry<GraphView, TimestampIndexImpl> entry : viewIndexes.entrySet()) {
-                    GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
-                    DirectedSubgraph graph = graphView.getDirectedGraph();
-                    if (element instanceof Node) {
-                        if (graph.contains((Node) element)) {
-                            entry.getValue().remove(timestampIndex, element);
-                        }
-                    } else if (graph.contains((Edge) element)) {
-                        entry.getValue().remove(timestampIndex, element);
-                    }
-                }
-            }
+            countInFilters(timestamp, element, -1);
         }
 
         return timestampIndex;
@@ -206,6 +186,7 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
             for (int i = 0; i < tsLength; i++) {
                 int timestampIndex = getTimestampIndex(ts[i]);
                 mainIndex.add(timestampIndex, element);
+                countInFilters(ts[i], element, 1);
             }
         }
     }
@@ -220,20 +201,7 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
             for (int i = 0; i < tsLength; i++) {
                 int timestampIndex = getTimestampIndex(ts[i]);
                 mainIndex.remove(timestampIndex, element);
-            }
-
-            if (!viewIndexes.isEmpty()) {
-                for (Entry<GraphView, TimestampIndexImpl> entry : viewIndexes.entrySet()) {
-                    GraphViewImpl graphView = (GraphViewImpl) entry.getKey();
-                    DirectedSubgraph graph = graphView.getDirectedGraph();
-                    boolean node = element instanceof Node;
-                    if (node ? graph.contains((Node) element) : graph.contains((Edge) element)) {
-                        for (int i = 0; i < tsLength; i++) {
-                            int timestampIndex = getTimestampIndex(ts[i]);
-                            entry.getValue().remove(timestampIndex, element);
-                        }
-                    }
-                }
+                countInFilters(ts[i], element, -1);
             }
         }
 
@@ -259,9 +227,9 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
         if (mainIndex != null) {
             mainIndex.clear();
 
-            if (!viewIndexes.isEmpty()) {
-                for (TimestampIndexImpl index : viewIndexes.values()) {
-                    index.clear();
+            for (IntervalFilter filter : intervalFilters) {
+                if (filter != null) {
+                    filter.counts = new int[0];
                 }
             }
         }
@@ -296,12 +264,10 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
             throw new IllegalArgumentException("Can't create a view index for the main view");
         }
 
-        TimestampIndexImpl viewIndex = new TimestampIndexImpl(this, false);
+        TimestampIndexImpl viewIndex = new TimestampIndexImpl(this, (GraphViewImpl) graph.getView());
         // TODO: Check view doesn't exist already
         viewIndexes.put(graph.getView(), viewIndex);
 
-        indexView(graph);
-
         return viewIndex;
     }
 
@@ -312,83 +278,107 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
         }
         TimestampIndexImpl index = viewIndexes.remove(graph.getView());
         if (index != null) {
-            index.clear();
+            index.destroy();
         }
+        setTimeInterval(graph.getView(), Interval.INFINITY_INTERVAL);
     }
 
     @Override
-    public void indexView(Graph graph) {
-        TimestampIndexImpl viewIndex = viewIndexes.get(graph.getView());
-        if (viewIndex != null) {
-            graph.readLock();
-            try {
-                Iterator<T> iterator = null;
-
-                if (elementType.equals(Node.class)) {
-                    iterator = (Iterator<T>) graph.getNodes().iterator();
-                } else if (elementType.equals(Edge.class)) {
-                    iterator = (Iterator<T>) graph.getEdges().iterator();
+    public Collection<Element> setTimeInterval(GraphView view, Interval interval) {
+        if (mainIndex == null) {
+            return null;
+        }
+        int id = ((GraphViewImpl) view).storeId;
+        IntervalFilter filter = getIntervalFilter(view);
+        if (interval == null || isInfinite(interval)) {
+            if (filter != null) {
+                intervalFilters[id] = null;
+                intervalFilterCount--;
+            }
+            return null;
+        }
+        if (filter == null) {
+            ensureFilterArraySize(id);
+            if (intervalFilters[id] == null) {
+                intervalFilterCount++;
+            }
+            filter = new IntervalFilter(view);
+            intervalFilters[id] = filter;
+            countRange(filter, interval.getLow(), true, interval.getHigh(), true, 1);
+            filter.interval = interval;
+            //Elements with no timestamp in the interval have left it as well
+            return null;
+        }
+        //Elements whose count crosses zero are the ones entering or leaving the interval
+        ObjectList<Element> changes = new ObjectArrayList<Element>();
+        filter.changes = changes;
+        try {
+            Interval old = filter.interval;
+            if (old.getHigh() < interval.getLow() || old.getLow() > interval.getHigh()) {
+                countRange(filter, old.getLow(), true, old.getHigh(), true, -1);
+                countRange(filter, interval.getLow(), true, interval.getHigh(), true, 1);
+            } else {
+                if (old.getLow() < interval.getLow()) {
+                    countRange(filter, old.getLow(), true, interval.getLow(), false, -1);
                 }
-
-                if (iterator != null) {
-                    while (iterator.hasNext()) {
-                        Element element = iterator.next();
-                        TimestampSet set = getTimeSet(element);
-                        if (set != null) {
-                            double[] ts = set.toPrimitiveArray();
-                            int tsLength = ts.length;
-                            for (int i = 0; i < tsLength; i++) {
-                                int timestamp = getTimestampIndex(ts[i]);
-                                viewIndex.add(timestamp, element);
-                            }
-                        }
-                    }
+                if (old.getHigh() > interval.getHigh()) {
+                    countRange(filter, interval.getHigh(), false, old.getHigh(), true, -1);
+                }
+                if (interval.getLow() < old.getLow()) {
+                    countRange(filter, interval.getLow(), true, old.getLow(), false, 1);
+                }
+                if (interval.getHigh() > old.getHigh()) {
+                    countRange(filter, old.getHigh(), false, interval.getHigh(), true, 1);
                 }
-            } finally {
-                graph.readUnlock();
             }
+        } finally {
+            filter.changes = null;
         }
+        filter.interval = interval;
+        return changes;
+    }
+
+    @Override
+    public boolean isInTimeInterval(Element element, GraphView view) {
+        Interval interval = view.getTimeInterval();
+        if (interval == null || isInfinite(interval)) {
+            return true;
+        }
+        TimestampSet set = getTimeSet(element);
+        if (set == null || set.isEmpty()) {
+            return true;
+        }
+        IntervalFilter filter = getIntervalFilter(view);
+        if (filter != null) {
+            int id = element.getStoreId();
+            return id >= 0 && id < filter.counts.length && filter.counts[id] > 0;
+        }
+        double[] ts = set.toPrimitiveArray();
+        int pos = Arrays.binarySearch(ts, interval.getLow());
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return pos < ts.length && ts[pos] <= interval.getHigh();
+    }
+
+    @Override
+    public void indexView(Graph graph) {
+        //View indexes are derived from the main index and the view membership
     }
 
     @Override
     public void indexInView(Element element, GraphView view) {
-        TimestampIndexImpl viewIndex = viewIndexes.get(view);
-        if (viewIndex != null) {
-            TimestampSet set = getTimeSet(element);
-            if (set != null) {
-                double[] ts = set.toPrimitiveArray();
-                int tsLength = ts.length;
-                for (int i = 0; i < tsLength; i++) {
-                    int timestampIndex = getTimestampIndex(ts[i]);
-                    viewIndex.add(timestampIndex, element);
-                }
-            }
-        }
+        //View indexes are derived from the main index and the view membership
     }
 
     @Override
     public void clearInView(Element element, GraphView view) {
-        ElementImpl elementImpl = (ElementImpl) element;
-        TimestampIndexImpl viewIndex = viewIndexes.get(view);
-        if (viewIndex != null) {
-            TimestampSet set = getTimeSet(element);
-            if (set != null) {
-                double[] ts = set.toPrimitiveArray();
-                int tsLength = ts.length;
-                for (int i = 0; i < tsLength; i++) {
-                    int timestampIndex = getTimestampIndex(ts[i]);
-                    viewIndex.remove(timestampIndex, elementImpl);
-                }
-            }
-        }
+        //View indexes are derived from the main index and the view membership
     }
 
     @Override
     public void clear(GraphView view) {
-        TimestampIndexImpl viewIndex = viewIndexes.get(view);
-        if (viewIndex != null) {
-            viewIndex.clear();
-        }
+        //View indexes are derived from the main index and the view membership
     }
 
     @Override
@@ -396,6 +386,60 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
         return mainIndex != null;
     }
 
+    private IntervalFilter getIntervalFilter(GraphView view) {
+        if (intervalFilterCount > 0 && !view.isMainView()) {
+            int id = ((GraphViewImpl) view).storeId;
+            if (id >= 0 && id < intervalFilters.length) {
+                IntervalFilter filter = intervalFilters[id];
+                if (filter != null && filter.view == view) {
+                    return filter;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void countInFilters(double timestamp, Element element, int delta) {
+        if (intervalFilterCount > 0) {
+            for (IntervalFilter filter : intervalFilters) {
+                if (filter != null && timestamp >= filter.interval.getLow() && timestamp <= filter.interval.getHigh()) {
+                    filter.count(element, delta);
+                }
+            }
+        }
+    }
+
+    private void countRange(IntervalFilter filter, double low, boolean lowInclusive, double high, boolean highInclusive, int delta) {
+        TimestampIndexImpl.TimestampIndexEntry[] entries = mainIndex.timestamps;
+        for (Double2IntMap.Entry entry : timestampSortedMap.tailMap(low).double2IntEntrySet()) {
+            double timestamp = entry.getDoubleKey();
+            if (timestamp > high || (!highInclusive && timestamp == high)) {
+                break;
+            }
+            if (!lowInclusive && timestamp == low) {
+                continue;
+            }
+            int index = entry.getIntValue();
+            if (index < entries.length && entries[index] != null) {
+                for (Element element : entries[index].elementSet) {
+                    filter.count(element, delta);
+                }
+            }
+        }
+    }
+
+    private void ensureFilterArraySize(int index) {
+        if (index >= intervalFilters.length) {
+            IntervalFilter[] newArray = new IntervalFilter[index + 1];
+            System.arraycopy(intervalFilters, 0, newArray, 0, intervalFilters.length);
+            intervalFilters = newArray;
+        }
+    }
+
+    private boolean isInfinite(Interval interval) {
+        return interval.getLow() == Double.NEGATIVE_INFINITY && interval.getHigh() == Double.POSITIVE_INFINITY;
+    }
+
     private TimestampSet getTimeSet(Element element) {
         Object[] attributes = element.getAttributes();
         if (GraphStoreConfiguration.ENABLE_ELEMENT_TIME_SET && GraphStoreConfiguration.ELEMENT_TIMESET_INDEX < attributes.length) {
@@ -460,4 +504,33 @@ public class TimestampIndexStore<T extends Element> implements TimeIndexStore<Do
         }
         return true;
     }
+
+    protected static class IntervalFilter {
+
+        protected final GraphView view;
+        protected Interval interval;
+        protected int[] counts;
+        //Collects the elements entering or leaving the interval while it's set
+        protected ObjectList<Element> changes;
+
+        public IntervalFilter(GraphView view) {
+            this.view = view;
+            this.counts = new int[0];
+        }
+
+        public void count(Element element, int delta) {
+            int id = element.getStoreId();
+            if (id < 0) {
+                return;
+            }
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(id + 1, (int) (id * GraphStoreConfiguration.VIEW_GROWING_FACTOR)));
+            }
+            int count = counts[id];
+            counts[id] = count + delta;
+            if (changes != null && (count == 0 || count + delta == 0)) {
+                changes.add(element);
+            }
+        }
+    }
 }
@@ -17,6 +17,7 @@ package org.gephi.graph.impl;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
@@ -27,6 +28,7 @@ import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.UndirectedGraph;
 import org.gephi.graph.api.UndirectedSubgraph;
+import org.gephi.graph.api.ReadTask;
 
 public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph {
 
@@ -277,11 +279,26 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         store.readUnlockAll();
     }
 
+    @Override
+    public <T> T read(ReadTask<T> task) {
+        store.lock.beginReadScope();
+        try {
+            return task.run(this);
+        } finally {
+            store.lock.endReadScope();
+        }
+    }
+
     @Override
     public void writeLock() {
         store.writeLock();
     }
 
+    @Override
+    public boolean tryWriteLock(long timeout, TimeUnit unit) {
+        return store.tryWriteLock(timeout, unit);
+    }
+
     @Override
     public void writeUnlock() {
         store.writeUnlock();
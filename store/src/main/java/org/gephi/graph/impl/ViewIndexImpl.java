@@ -0,0 +1,400 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Interval;
+
+public class ViewIndexImpl<T extends Element> extends IndexImpl<T> {
+
+    protected final IndexStore<T> indexStore;
+    protected final GraphViewImpl view;
+    //Versions of the main index and its columns this index has been built against
+    protected int version;
+    protected int[] columnVersions;
+    protected boolean valid;
+    //Elements whose values changed since the last refresh, with the values indexed then
+    protected final Map<T, Object[]> pendingValues;
+    //Membership changes counter
+    protected int modCount;
+    //Index of the view this view was copied from, shared until either diverge
+    protected ViewIndexImpl<T> source;
+    protected int sourceModCount;
+
+    public ViewIndexImpl(IndexStore<T> indexStore, GraphViewImpl view) {
+        super(indexStore.columnStore);
+        this.indexStore = indexStore;
+        this.view = view;
+        this.columnVersions = new int[0];
+        this.pendingValues = new Object2ObjectOpenHashMap<T, Object[]>();
+    }
+
+    @Override
+    public int count(Column column, Object value) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.count(column, value);
+        }
+        refresh();
+        return super.count(column, value);
+    }
+
+    @Override
+    public int count(String key, Object value) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.count(key, value);
+        }
+        refresh();
+        return super.count(key, value);
+    }
+
+    @Override
+    public Iterable<T> get(String key, Object value) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.get(key, value);
+        }
+        refresh();
+        return super.get(key, value);
+    }
+
+    @Override
+    public Iterable<T> get(Column column, Object value) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.get(column, value);
+        }
+        refresh();
+        return super.get(column, value);
+    }
+
+    @Override
+    public Iterable<T> get(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.get(column, low, high, lowInclusive, highInclusive);
+        }
+        refresh();
+        return super.get(column, low, high, lowInclusive, highInclusive);
+    }
+
+    @Override
+    public int count(Column column, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.count(column, low, high, lowInclusive, highInclusive);
+        }
+        refresh();
+        return super.count(column, low, high, lowInclusive, highInclusive);
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.get(columns, values);
+        }
+        refresh();
+        return super.get(columns, values);
+    }
+
+    @Override
+    public Iterable<T> get(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.get(columns, values, low, high, lowInclusive, highInclusive);
+        }
+        refresh();
+        return super.get(columns, values, low, high, lowInclusive, highInclusive);
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.count(columns, values);
+        }
+        refresh();
+        return super.count(columns, values);
+    }
+
+    @Override
+    public int count(Column[] columns, Object[] values, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null) {
+            return sharedIndex.count(columns, values, low, high, lowInclusive, highInclusive);
+        }
+        refresh();
+        return super.count(columns, values, low, high, lowInclusive, highInclusive);
+    }
+
+    @Override
+    public ElementIterable<T> iterateAscending(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.iterateAscending(column);
+        }
+        refresh();
+        return super.iterateAscending(column);
+    }
+
+    @Override
+    public ElementIterable<T> iterateDescending(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.iterateDescending(column);
+        }
+        refresh();
+        return super.iterateDescending(column);
+    }
+
+    @Override
+    public List<T> topK(Column column, int k) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.topK(column, k);
+        }
+        refresh();
+        return super.topK(column, k);
+    }
+
+    @Override
+    public Iterable<T> getByPrefix(Column column, String prefix) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.getByPrefix(column, prefix);
+        }
+        refresh();
+        return super.getByPrefix(column, prefix);
+    }
+
+    @Override
+    public Iterable<T> getBySubstring(Column column, String text) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.getBySubstring(column, text);
+        }
+        refresh();
+        return super.getBySubstring(column, text);
+    }
+
+    @Override
+    public Iterable<T> getByTokens(Column column, String text) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.getByTokens(column, text);
+        }
+        refresh();
+        return super.getByTokens(column, text);
+    }
+
+    @Override
+    public Number getMinValue(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.getMinValue(column);
+        }
+        refresh();
+        return super.getMinValue(column);
+    }
+
+    @Override
+    public Number getMaxValue(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.getMaxValue(column);
+        }
+        refresh();
+        return super.getMaxValue(column);
+    }
+
+    @Override
+    public Iterable<Map.Entry<Object, Set<T>>> get(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.get(column);
+        }
+        refresh();
+        return super.get(column);
+    }
+
+    @Override
+    public Collection values(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.values(column);
+        }
+        refresh();
+        return super.values(column);
+    }
+
+    @Override
+    public int countValues(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.countValues(column);
+        }
+        refresh();
+        return super.countValues(column);
+    }
+
+    @Override
+    public int countElements(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource(column);
+        if (sharedIndex != null) {
+            return sharedIndex.countElements(column);
+        }
+        refresh();
+        return super.countElements(column);
+    }
+
+    protected void rebuild(IndexImpl<T> mainIndex) {
+        //Refreshed at query time, on the calling thread
+        rebuild(mainIndex, 1);
+    }
+
+    protected void rebuild(IndexImpl<T> mainIndex, int threads) {
+        clear();
+        int length = Math.min(columns.length, mainIndex.columns.length);
+        //Columns are copied in parallel, each task filling its own column index
+        List<Runnable> tasks = new ArrayList<Runnable>(length);
+        for (int i = 0; i < length; i++) {
+            final AbstractIndex viewColumnIndex = columns[i];
+            final AbstractIndex mainColumnIndex = mainIndex.columns[i];
+            if (viewColumnIndex != null && mainColumnIndex != null) {
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        copy(mainColumnIndex, viewColumnIndex);
+                    }
+                });
+            }
+        }
+        indexStore.execute(tasks, threads);
+    }
+
+    protected void rebuild(IndexImpl<T> mainIndex, int[] mainColumnVersions) {
+        int length = Math.min(columns.length, mainIndex.columns.length);
+        for (int i = 0; i < length; i++) {
+            AbstractIndex viewColumnIndex = columns[i];
+            AbstractIndex mainColumnIndex = mainIndex.columns[i];
+            if (viewColumnIndex != null && mainColumnIndex != null && getVersion(columnVersions, i) != getVersion(mainColumnVersions, i)) {
+                viewColumnIndex.clear();
+                copy(mainColumnIndex, viewColumnIndex);
+            }
+        }
+    }
+
+    private static int getVersion(int[] versions, int index) {
+        return index < versions.length ? versions[index] : 0;
+    }
+
+    private void copy(AbstractIndex mainColumnIndex, AbstractIndex viewColumnIndex) {
+        Iterator<Map.Entry<Object, Set<T>>> itr = mainColumnIndex.iterator();
+        while (itr.hasNext()) {
+            Map.Entry<Object, Set<T>> entry = itr.next();
+            for (T element : entry.getValue()) {
+                if (isInView(element)) {
+                    viewColumnIndex.addElement(entry.getKey(), element);
+                }
+            }
+        }
+    }
+
+    protected void share(ViewIndexImpl<T> sourceIndex) {
+        source = sourceIndex;
+        sourceModCount = sourceIndex.modCount;
+    }
+
+    protected void membershipChanged() {
+        modCount++;
+        if (source != null) {
+            source = null;
+            valid = false;
+        }
+    }
+
+    private ViewIndexImpl<T> getSource() {
+        ViewIndexImpl<T> sharedIndex = source;
+        if (sharedIndex != null && sharedIndex.modCount != sourceModCount) {
+            source = null;
+            valid = false;
+            return null;
+        }
+        return sharedIndex;
+    }
+
+    private ViewIndexImpl<T> getSource(Column column) {
+        ViewIndexImpl<T> sharedIndex = getSource();
+        if (sharedIndex != null && column.isDynamic() && !sharedIndex.view.getTimeInterval().equals(view.getTimeInterval())) {
+            //Dynamic values are estimated at each view's own interval
+            return null;
+        }
+        return sharedIndex;
+    }
+
+    protected boolean isStale() {
+        return !valid || version != indexStore.version || !pendingValues.isEmpty();
+    }
+
+    protected boolean isStale(ColumnImpl column) {
+        //Stale columns are rebuilt on next access and don't need updates
+        int id = column.storeId;
+        return getVersion(columnVersions, id) != getVersion(indexStore.columnVersions, id);
+    }
+
+    @Override
+    protected boolean accept(T element) {
+        return isInView(element);
+    }
+
+    protected boolean isInView(T element) {
+        //Time filtered views only index the elements in their interval
+        if (element instanceof NodeImpl) {
+            return view.directedDecorator.containsNode((NodeImpl) element);
+        }
+        return view.directedDecorator.containsEdge((EdgeImpl) element);
+    }
+
+    @Override
+    protected Interval getTimeInterval() {
+        return view.getTimeInterval();
+    }
+
+    @Override
+    protected AbstractIndex prepareIndex(Column column) {
+        AbstractIndex scanIndex = super.prepareIndex(column);
+        //A lazy build may just have added the column
+        refresh();
+        return scanIndex;
+    }
+
+    protected void refresh() {
+        if (isStale()) {
+            indexStore.refreshViewIndex(this);
+        }
+    }
+}
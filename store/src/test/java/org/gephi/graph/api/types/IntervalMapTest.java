@@ -574,6 +574,22 @@ public class IntervalMapTest {
         Assert.assertEquals(map2.size(), 2);
     }
 
+    @Test
+    public void testCopy() {
+        for (IntervalMap set : getAllInstances()) {
+            Object[] defaultValues = getTestValues(set);
+            set.put(new Interval(1.0, 2.0), defaultValues[0]);
+
+            IntervalMap copy = set.copy();
+            Assert.assertEquals(copy.getClass(), set.getClass());
+            Assert.assertTrue(copy.equals(set));
+            copy.put(new Interval(3.0, 4.0), defaultValues[1]);
+            copy.put(new Interval(0.0, 0.5), defaultValues[1]);
+            testValues(set, new Interval[]{new Interval(1.0, 2.0)}, new Object[]{defaultValues[0]});
+            testValues(copy, new Interval[]{new Interval(0.0, 0.5), new Interval(1.0, 2.0), new Interval(3.0, 4.0)}, new Object[]{defaultValues[1], defaultValues[0], defaultValues[1]});
+        }
+    }
+
     @Test
     public void testToStringDouble() {
         IntervalStringMap map1 = new IntervalStringMap();
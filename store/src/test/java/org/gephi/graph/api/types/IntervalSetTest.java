@@ -313,6 +313,20 @@ public class IntervalSetTest {
         Assert.assertEquals(set2.size(), 2);
     }
 
+    @Test
+    public void testCopy() {
+        IntervalSet set1 = new IntervalSet();
+        set1.add(new Interval(1.0, 2.0));
+        set1.add(new Interval(4.0, 5.0));
+
+        IntervalSet set2 = set1.copy();
+        Assert.assertTrue(set1.equals(set2));
+        set2.add(new Interval(2.5, 3.0));
+        set2.remove(new Interval(4.0, 5.0));
+        Assert.assertEquals(set1.toArray(), new Interval[]{new Interval(1.0, 2.0), new Interval(4.0, 5.0)});
+        Assert.assertEquals(set2.toArray(), new Interval[]{new Interval(1.0, 2.0), new Interval(2.5, 3.0)});
+    }
+
     @Test
     public void testToStringDouble() {
         IntervalSet set1 = new IntervalSet();
@@ -585,6 +585,24 @@ public class TimestampMapTest {
         Assert.assertEquals(set2.size(), 2);
     }
 
+    @Test
+    public void testCopy() {
+        for (TimestampMap set : getAllInstances()) {
+            Object[] defaultValues = getTestValues(set);
+            set.put(1.0, defaultValues[0]);
+            set.put(6.0, defaultValues[1]);
+            set.remove(6.0);
+
+            TimestampMap copy = set.copy();
+            Assert.assertEquals(copy.getClass(), set.getClass());
+            Assert.assertTrue(copy.equals(set));
+            copy.put(6.0, defaultValues[1]);
+            copy.put(0.5, defaultValues[1]);
+            testValues(set, new double[]{1.0}, new Object[]{defaultValues[0]});
+            testValues(copy, new double[]{0.5, 1.0, 6.0}, new Object[]{defaultValues[1], defaultValues[0], defaultValues[1]});
+        }
+    }
+
     @Test
     public void testToStringDouble() {
         TimestampStringMap map1 = new TimestampStringMap();
@@ -263,6 +263,20 @@ public class TimestampSetTest {
         Assert.assertEquals(set2.size(), 2);
     }
 
+    @Test
+    public void testCopy() {
+        TimestampSet set1 = new TimestampSet();
+        set1.add(1.0);
+        set1.add(4.0);
+
+        TimestampSet set2 = set1.copy();
+        Assert.assertTrue(set1.equals(set2));
+        set2.add(2.0);
+        set2.remove(4.0);
+        Assert.assertEquals(set1.toPrimitiveArray(), new double[]{1.0, 4.0});
+        Assert.assertEquals(set2.toPrimitiveArray(), new double[]{1.0, 2.0});
+    }
+
     @Test
     public void testToStringDouble() {
         TimestampSet set1 = new TimestampSet();
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import cern.colt.bitvector.BitVector;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AdaptiveBitVectorTest {
+
+    @Test
+    public void testEmpty() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000000);
+        Assert.assertEquals(bitVector.size(), 1000000);
+        Assert.assertEquals(bitVector.cardinality(), 0);
+        Assert.assertFalse(bitVector.isDense());
+        Assert.assertFalse(bitVector.get(0));
+        Assert.assertFalse(bitVector.get(999999));
+        Assert.assertEquals(bitVector.nextSetBit(0), -1);
+    }
+
+    @Test
+    public void testSetGetClear() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000000);
+        bitVector.set(5);
+        bitVector.set(70000);
+        bitVector.set(999999);
+        Assert.assertTrue(bitVector.get(5));
+        Assert.assertTrue(bitVector.get(70000));
+        Assert.assertTrue(bitVector.get(999999));
+        Assert.assertFalse(bitVector.get(6));
+        Assert.assertEquals(bitVector.cardinality(), 3);
+
+        bitVector.set(5);
+        Assert.assertEquals(bitVector.cardinality(), 3);
+
+        bitVector.clear(70000);
+        Assert.assertFalse(bitVector.get(70000));
+        Assert.assertEquals(bitVector.cardinality(), 2);
+
+        bitVector.clear(70000);
+        Assert.assertEquals(bitVector.cardinality(), 2);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testSetOutOfBounds() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(10);
+        bitVector.set(10);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(10);
+        bitVector.get(-1);
+    }
+
+    @Test
+    public void testBitmapContainer() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(10000000);
+        for (int i = 0; i < 10000; i++) {
+            bitVector.set(i * 2);
+        }
+        Assert.assertFalse(bitVector.isDense());
+        Assert.assertEquals(bitVector.cardinality(), 10000);
+        for (int i = 0; i < 20000; i++) {
+            Assert.assertEquals(bitVector.get(i), i % 2 == 0);
+        }
+        for (int i = 0; i < 10000; i++) {
+            bitVector.clear(i * 2);
+        }
+        Assert.assertEquals(bitVector.cardinality(), 0);
+        Assert.assertEquals(bitVector.nextSetBit(0), -1);
+    }
+
+    @Test
+    public void testDenseSwitch() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000);
+        for (int i = 0; i < 1000; i++) {
+            bitVector.set(i);
+        }
+        Assert.assertTrue(bitVector.isDense());
+        Assert.assertNotNull(bitVector.elements());
+        Assert.assertEquals(bitVector.cardinality(), 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            bitVector.clear(i);
+        }
+        Assert.assertFalse(bitVector.isDense());
+        Assert.assertNull(bitVector.elements());
+        Assert.assertEquals(bitVector.cardinality(), 0);
+    }
+
+    @Test
+    public void testNextSetBit() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000000);
+        int[] ids = new int[]{3, 64, 65535, 65536, 200000, 999999};
+        for (int id : ids) {
+            bitVector.set(id);
+        }
+        int i = 0;
+        for (int id = bitVector.nextSetBit(0); id >= 0; id = bitVector.nextSetBit(id + 1)) {
+            Assert.assertEquals(id, ids[i++]);
+        }
+        Assert.assertEquals(i, ids.length);
+    }
+
+    @Test
+    public void testNot() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(100);
+        bitVector.set(10);
+        bitVector.not();
+        Assert.assertEquals(bitVector.cardinality(), 99);
+        Assert.assertFalse(bitVector.get(10));
+        Assert.assertTrue(bitVector.get(99));
+
+        bitVector.ensureSize(200);
+        Assert.assertFalse(bitVector.get(100));
+        Assert.assertEquals(bitVector.cardinality(), 99);
+    }
+
+    @Test
+    public void testFilled() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000000);
+        bitVector.not();
+        Assert.assertTrue(bitVector.isFilled());
+        Assert.assertEquals(bitVector.getMemorySize(), 0l);
+        Assert.assertEquals(bitVector.cardinality(), 1000000);
+        Assert.assertTrue(bitVector.get(999999));
+        Assert.assertEquals(bitVector.nextSetBit(500), 500);
+
+        bitVector.ensureSize(1000100);
+        Assert.assertTrue(bitVector.isFilled());
+        Assert.assertFalse(bitVector.get(1000000));
+        Assert.assertEquals(bitVector.nextSetBit(1000000), -1);
+
+        bitVector.set(1000000);
+        bitVector.clear(1000000);
+        bitVector.clear(999999);
+        Assert.assertTrue(bitVector.isFilled());
+        Assert.assertEquals(bitVector.cardinality(), 999999);
+
+        AdaptiveBitVector copy = bitVector.copy();
+        Assert.assertTrue(copy.isFilled());
+        copy.clear(10);
+        Assert.assertFalse(copy.isFilled());
+        Assert.assertFalse(copy.get(10));
+        Assert.assertTrue(copy.get(11));
+        Assert.assertEquals(copy.cardinality(), 999998);
+        Assert.assertTrue(bitVector.get(10));
+        Assert.assertNotEquals(copy, bitVector);
+        copy.set(10);
+        Assert.assertEquals(copy, bitVector);
+        Assert.assertEquals(copy.hashCode(), bitVector.hashCode());
+    }
+
+    @Test
+    public void testFilledNot() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(100);
+        bitVector.not();
+        bitVector.not();
+        Assert.assertFalse(bitVector.isFilled());
+        Assert.assertEquals(bitVector.cardinality(), 0);
+        Assert.assertEquals(bitVector.nextSetBit(0), -1);
+
+        bitVector.not();
+        bitVector.ensureSize(200);
+        bitVector.not();
+        Assert.assertFalse(bitVector.isFilled());
+        Assert.assertEquals(bitVector.cardinality(), 100);
+        Assert.assertFalse(bitVector.get(99));
+        Assert.assertTrue(bitVector.get(100));
+        Assert.assertTrue(bitVector.get(199));
+    }
+
+    @Test
+    public void testEnsureSize() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(10);
+        bitVector.set(9);
+        bitVector.ensureSize(100000);
+        Assert.assertEquals(bitVector.size(), 100000);
+        Assert.assertTrue(bitVector.get(9));
+        bitVector.set(99999);
+        Assert.assertTrue(bitVector.get(99999));
+        Assert.assertEquals(bitVector.cardinality(), 2);
+    }
+
+    @Test
+    public void testCopy() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(100000);
+        bitVector.set(1);
+        bitVector.set(80000);
+        AdaptiveBitVector copy = bitVector.copy();
+        Assert.assertEquals(copy, bitVector);
+        copy.set(2);
+        Assert.assertFalse(bitVector.get(2));
+        Assert.assertNotEquals(copy, bitVector);
+    }
+
+    @Test
+    public void testCopyIsShared() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(200000);
+        bitVector.set(1);
+        bitVector.set(70000);
+        AdaptiveBitVector copy = bitVector.copy();
+        Assert.assertSame(copy.arrays, bitVector.arrays);
+
+        copy.set(2);
+        Assert.assertNotSame(copy.arrays, bitVector.arrays);
+        Assert.assertSame(copy.arrays[1], bitVector.arrays[1]);
+        Assert.assertNotSame(copy.arrays[0], bitVector.arrays[0]);
+
+        bitVector.clear(70000);
+        Assert.assertTrue(copy.get(70000));
+        Assert.assertFalse(bitVector.get(2));
+        Assert.assertEquals(copy.cardinality(), 3);
+        Assert.assertEquals(bitVector.cardinality(), 1);
+    }
+
+    @Test
+    public void testCopyDenseIsShared() {
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(1000);
+        for (int i = 0; i < 500; i++) {
+            bitVector.set(i);
+        }
+        AdaptiveBitVector copy = bitVector.copy();
+        Assert.assertSame(copy.elements(), bitVector.elements());
+
+        copy.clear(0);
+        bitVector.clearWordBits(1, -1l);
+        Assert.assertTrue(bitVector.get(0));
+        Assert.assertFalse(bitVector.get(64));
+        Assert.assertFalse(copy.get(0));
+        Assert.assertTrue(copy.get(64));
+
+        copy.not();
+        Assert.assertTrue(copy.get(0));
+        Assert.assertTrue(bitVector.get(1));
+        Assert.assertEquals(bitVector.cardinality(), 436);
+    }
+
+    @Test
+    public void testRandomCopies() {
+        Random random = new Random(321);
+        int size = 300000;
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(size);
+        BitVector expected = new BitVector(size);
+        AdaptiveBitVector[] copies = new AdaptiveBitVector[8];
+        BitVector[] expectedCopies = new BitVector[8];
+        for (int i = 0; i < 100000; i++) {
+            int id = random.nextInt(size);
+            int target = random.nextInt(copies.length + 1) - 1;
+            AdaptiveBitVector vector = target < 0 ? bitVector : copies[target];
+            BitVector expectedVector = target < 0 ? expected : expectedCopies[target];
+            if (vector == null) {
+                copies[target] = bitVector.copy();
+                expectedCopies[target] = expected.copy();
+            } else if (random.nextInt(3) == 0) {
+                vector.clear(id);
+                expectedVector.clear(id);
+            } else {
+                vector.set(id);
+                expectedVector.set(id);
+            }
+        }
+        for (int c = 0; c < copies.length; c++) {
+            Assert.assertEquals(copies[c].toBitVector(), expectedCopies[c]);
+        }
+        Assert.assertEquals(bitVector.toBitVector(), expected);
+    }
+
+    @Test
+    public void testEqualsAcrossRepresentations() {
+        AdaptiveBitVector dense = new AdaptiveBitVector(1000);
+        for (int i = 0; i < 1000; i++) {
+            dense.set(i);
+        }
+        for (int i = 1; i < 1000; i++) {
+            dense.clear(i);
+        }
+        AdaptiveBitVector compressed = new AdaptiveBitVector(1000);
+        compressed.set(0);
+        Assert.assertEquals(dense.cardinality(), compressed.cardinality());
+        Assert.assertEquals(dense, compressed);
+        Assert.assertEquals(dense.hashCode(), compressed.hashCode());
+    }
+
+    @Test
+    public void testBitVectorRoundTrip() {
+        Random random = new Random(42);
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(300000);
+        BitVector expected = new BitVector(300000);
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(300000);
+            bitVector.set(id);
+            expected.set(id);
+        }
+        Assert.assertEquals(bitVector.toBitVector(), expected);
+        Assert.assertEquals(AdaptiveBitVector.fromBitVector(expected), bitVector);
+        Assert.assertNull(AdaptiveBitVector.fromBitVector(null));
+    }
+
+    @Test
+    public void testRandomAgainstBitVector() {
+        Random random = new Random(123);
+        int size = 500000;
+        AdaptiveBitVector bitVector = new AdaptiveBitVector(size);
+        BitVector expected = new BitVector(size);
+        for (int i = 0; i < 200000; i++) {
+            int id = random.nextInt(size);
+            if (random.nextInt(3) == 0) {
+                bitVector.clear(id);
+                expected.clear(id);
+            } else {
+                bitVector.set(id);
+                expected.set(id);
+            }
+        }
+        Assert.assertEquals(bitVector.cardinality(), expected.cardinality());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(bitVector.get(i), expected.get(i));
+        }
+    }
+
+    @Test
+    public void testSparseMemorySize() {
+        AdaptiveBitVector sparse = new AdaptiveBitVector(10000000);
+        for (int i = 0; i < 100; i++) {
+            sparse.set(i * 1000);
+        }
+        AdaptiveBitVector dense = new AdaptiveBitVector(10000000);
+        dense.not();
+        dense.clear(5);
+        Assert.assertTrue(dense.isDense());
+        Assert.assertTrue(sparse.getMemorySize() * 100 < dense.getMemorySize());
+    }
+}
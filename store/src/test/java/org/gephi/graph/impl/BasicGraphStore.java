@@ -34,6 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.ColumnIterable;
 import org.gephi.graph.api.DirectedGraph;
@@ -46,6 +47,7 @@ import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.TextProperties;
+import org.gephi.graph.api.ReadTask;
 import org.gephi.graph.spi.LayoutData;
 
 /**
@@ -345,10 +347,20 @@ public class BasicGraphStore implements DirectedGraph {
     public void readUnlockAll() {
     }
 
+    @Override
+    public <T> T read(ReadTask<T> task) {
+        return task.run(this);
+    }
+
     @Override
     public void writeLock() {
     }
 
+    @Override
+    public boolean tryWriteLock(long timeout, TimeUnit unit) {
+        return true;
+    }
+
     @Override
     public void writeUnlock() {
     }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnStatistics;
+import org.gephi.graph.api.Origin;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnStatisticsStoreTest {
+
+    @Test
+    public void testIndexedStatistics() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("age", Integer.class);
+        addNodes(graphStore, column, new Integer[]{1, 2, 2, 3, 4, null, 8});
+
+        ColumnStatistics statistics = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertFalse(statistics.isApproximate());
+        Assert.assertEquals(statistics.getCount(), 6);
+        Assert.assertEquals(statistics.getNullCount(), 1);
+        Assert.assertEquals(statistics.getDistinctCount(), 5);
+        Assert.assertEquals(statistics.getMin(), 1);
+        Assert.assertEquals(statistics.getMax(), 8);
+        Assert.assertEquals(statistics.getMean(), 20 / 6.0, 1e-9);
+        Assert.assertEquals(statistics.getStandardDeviation(), Math.sqrt(((20 / 6.0) * (20 / 6.0) * -6 + 98) / 6), 1e-9);
+        Assert.assertEquals(statistics.getQuantile(0.5), 2.0);
+        Assert.assertEquals(statistics.getQuantile(1), 8.0);
+        Assert.assertEquals(statistics.getHistogram(2), new int[]{5, 1});
+    }
+
+    @Test
+    public void testScanStatistics() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("age", null, Integer.class, Origin.DATA, null, false);
+        addNodes(graphStore, column, new Integer[]{1, 2, 2, 3, 4, null, 8});
+
+        ColumnStatistics statistics = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertTrue(statistics.isApproximate());
+        Assert.assertEquals(statistics.getCount(), 6);
+        Assert.assertEquals(statistics.getNullCount(), 1);
+        Assert.assertEquals(statistics.getDistinctCount(), 5);
+        Assert.assertEquals(statistics.getMin(), 1);
+        Assert.assertEquals(statistics.getMax(), 8);
+        Assert.assertEquals(statistics.getMean(), 20 / 6.0, 1e-9);
+        Assert.assertEquals(statistics.getQuantile(0.5), 2.0);
+        Assert.assertEquals(statistics.getHistogram(2), new int[]{5, 1});
+    }
+
+    @Test
+    public void testStringStatistics() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("type", null, String.class, Origin.DATA, null, false);
+        addNodes(graphStore, column, new String[]{"a", "b", "a", null});
+
+        ColumnStatistics statistics = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertEquals(statistics.getCount(), 3);
+        Assert.assertEquals(statistics.getDistinctCount(), 2);
+        Assert.assertNull(statistics.getMin());
+        Assert.assertTrue(Double.isNaN(statistics.getMean()));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testHistogramNotNumerical() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("type", String.class);
+        graphStore.statisticsStore.getStatistics(column).getHistogram(10);
+    }
+
+    @Test
+    public void testCachedUntilVersionChange() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("age", Integer.class);
+        NodeImpl[] nodes = addNodes(graphStore, column, new Integer[]{1, 2, 3});
+
+        ColumnStatistics statistics = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertSame(graphStore.statisticsStore.getStatistics(column), statistics);
+
+        nodes[0].setAttribute(column, 10);
+        ColumnStatistics updated = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertNotSame(updated, statistics);
+        Assert.assertEquals(updated.getMax(), 10);
+
+        graphStore.removeNode(nodes[0]);
+        ColumnStatistics removed = graphStore.statisticsStore.getStatistics(column);
+        Assert.assertNotSame(removed, updated);
+        Assert.assertEquals(removed.getMax(), 3);
+    }
+
+    @Test
+    public void testParallelScan() {
+        GraphStore graphStore = new GraphStore();
+        ColumnImpl column = (ColumnImpl) graphStore.nodeTable.addColumn("score", null, Double.class, Origin.DATA, null, false);
+        Random random = new Random(42);
+        Double[] values = new Double[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 50 == 0 ? null : (double) random.nextInt(1000);
+        }
+        addNodes(graphStore, column, values);
+
+        ColumnStatisticsImpl sequential = graphStore.statisticsStore.computeFromScan(column, 1);
+        ColumnStatisticsImpl parallel = graphStore.statisticsStore.computeFromScan(column, 4);
+        ExecutorService executor = graphStore.nodeTable.store.indexStore.executor;
+        Assert.assertNotNull(executor);
+        graphStore.statisticsStore.computeFromScan(column, 4);
+        Assert.assertSame(graphStore.nodeTable.store.indexStore.executor, executor);
+        Assert.assertEquals(parallel.getCount(), sequential.getCount());
+        Assert.assertEquals(parallel.getNullCount(), 400);
+        Assert.assertEquals(parallel.getMin(), sequential.getMin());
+        Assert.assertEquals(parallel.getMax(), sequential.getMax());
+        Assert.assertEquals(parallel.getMean(), sequential.getMean(), 1e-9);
+        Assert.assertEquals(parallel.getStandardDeviation(), sequential.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(parallel.getDistinctCount(), sequential.getDistinctCount());
+        Assert.assertEquals(parallel.getDistinctCount(), 1000, 50);
+        Assert.assertEquals(parallel.getQuantile(0.5), 500, 30);
+        int total = 0;
+        for (int c : parallel.getHistogram(10)) {
+            total += c;
+        }
+        Assert.assertEquals(total, parallel.getCount());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testColumnNotInStore() {
+        GraphStore graphStore = new GraphStore();
+        graphStore.statisticsStore.getStatistics(new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, false, false));
+    }
+
+    //UTILITY
+    private NodeImpl[] addNodes(GraphStore graphStore, Column column, Object[] values) {
+        NodeImpl[] nodes = new NodeImpl[values.length];
+        for (int i = 0; i < values.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+            nodes[i].setAttribute(column, values[i]);
+        }
+        return nodes;
+    }
+}
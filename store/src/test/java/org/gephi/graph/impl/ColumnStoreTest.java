@@ -97,6 +97,11 @@ public class ColumnStoreTest {
                 throw new UnsupportedOperationException("Not supported yet.");
             }
 
+            @Override
+            public boolean isTextIndexed() {
+                throw new UnsupportedOperationException("Not supported yet.");
+            }
+
             @Override
             public boolean isArray() {
                 throw new UnsupportedOperationException("Not supported yet.");
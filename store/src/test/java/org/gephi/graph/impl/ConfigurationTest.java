@@ -16,6 +16,7 @@
 package org.gephi.graph.impl;
 
 import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.LockPolicy;
 import org.gephi.graph.api.TimeRepresentation;
 import org.gephi.graph.api.types.IntervalDoubleMap;
 import org.gephi.graph.api.types.TimestampDoubleMap;
@@ -71,6 +72,22 @@ public class ConfigurationTest {
         Assert.assertEquals(c.getTimeRepresentation(), TimeRepresentation.INTERVAL);
     }
 
+    @Test
+    public void testSetLockPolicy() {
+        Configuration c = new Configuration();
+        Assert.assertEquals(c.getLockPolicy(), LockPolicy.UNFAIR);
+        c.setLockPolicy(LockPolicy.PHASE_FAIR);
+        Assert.assertEquals(c.getLockPolicy(), LockPolicy.PHASE_FAIR);
+        Assert.assertEquals(c.copy().getLockPolicy(), LockPolicy.PHASE_FAIR);
+        Assert.assertNotEquals(c, new Configuration());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSetNullLockPolicy() {
+        Configuration c = new Configuration();
+        c.setLockPolicy(null);
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testSetNodeIdTypeUnsupported() {
         Configuration c = new Configuration();
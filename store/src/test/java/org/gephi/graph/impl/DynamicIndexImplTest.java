@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Estimator;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.gephi.graph.api.types.TimestampIntegerMap;
+import org.gephi.graph.api.types.TimestampStringMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DynamicIndexImplTest {
+
+    @Test
+    public void testRangeQuery() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(1));
+        graphStore.nodeTable.addDynamicIndex(column);
+        Assert.assertTrue(graphStore.nodeTable.hasDynamicIndex(column));
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertRanges(index, graphStore, column, graphStore.getView());
+    }
+
+    @Test
+    public void testIntegerColumn() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampIntegerMap.class);
+        Random random = new Random(2);
+        for (Node node : graphStore.getNodes().toArray()) {
+            node.setAttribute(column, random.nextInt(10), random.nextInt(10));
+        }
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertRanges(index, graphStore, column, graphStore.getView());
+        Assert.assertEquals(index.count(column, 2.5, 7.5, true, true), expected(graphStore, column, graphStore.getView(), 2.5, 7.5).size());
+    }
+
+    @Test
+    public void testIntervalShift() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        Random random = new Random(3);
+        setValues(graphStore, column, random);
+        column.setEstimator(Estimator.AVERAGE);
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        for (int i = 0; i < 20; i++) {
+            double low = random.nextInt(100);
+            graphStore.viewStore.setTimeInterval(view, new Interval(low, low + random.nextInt(30)));
+            assertRanges(index, graphStore, column, view);
+        }
+        graphStore.viewStore.setTimeInterval(view, null);
+        assertRanges(index, graphStore, column, view);
+    }
+
+    @Test
+    public void testValueChanges() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        Random random = new Random(4);
+        setValues(graphStore, column, random);
+        column.setEstimator(Estimator.MAX);
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        graphStore.viewStore.setTimeInterval(view, new Interval(20, 60));
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        assertRanges(index, graphStore, column, view);
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        nodes[0].setAttribute(column, 1000.0, 30.0);
+        nodes[1].removeAttribute(column);
+        TimestampDoubleMap map = new TimestampDoubleMap();
+        map.put(40.0, -5.0);
+        nodes[2].setAttribute(column, map);
+        for (double timestamp : ((TimestampDoubleMap) nodes[3].getAttribute(column)).getTimestamps()) {
+            nodes[3].removeAttribute(column, timestamp);
+        }
+        assertRanges(index, graphStore, column, view);
+        Assert.assertEquals(index.getMaxValue(column), 1000.0);
+        Assert.assertEquals(getNodes(index.get(column, 1000.0, null, true, true)), set(nodes[0]));
+    }
+
+    @Test
+    public void testElementRemoved() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(5));
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertRanges(index, graphStore, column, graphStore.getView());
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        graphStore.removeNode(nodes[0]);
+        graphStore.removeNode(nodes[1]);
+        assertRanges(index, graphStore, column, graphStore.getView());
+
+        //Reuses the store id of a removed node
+        NodeImpl node = new NodeImpl("new", graphStore);
+        node.setAttribute(column, 7.0, 1.0);
+        graphStore.addNode(node);
+        assertRanges(index, graphStore, column, graphStore.getView());
+        Assert.assertTrue(getNodes(index.get(column, 7.0, 7.0, true, true)).contains(node));
+    }
+
+    @Test
+    public void testViewMembership() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(6));
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Node[] nodes = graphStore.getNodes().toArray();
+        view.addNode(nodes[0]);
+        view.addNode(nodes[1]);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        assertRanges(index, graphStore, column, view);
+        Assert.assertEquals(index.countElements(column), 2);
+
+        view.removeNode(nodes[0]);
+        view.addNode(nodes[2]);
+        assertRanges(index, graphStore, column, view);
+
+        view.fill();
+        assertRanges(index, graphStore, column, view);
+        Assert.assertEquals(index.countElements(column), nodes.length);
+    }
+
+    @Test
+    public void testCopiedView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(7));
+        column.setEstimator(Estimator.SUM);
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        graphStore.viewStore.setTimeInterval(view, new Interval(0, 50));
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        assertRanges(index, graphStore, column, view);
+
+        GraphViewImpl copy = graphStore.viewStore.createView(view);
+        graphStore.viewStore.setTimeInterval(copy, new Interval(50, 100));
+        IndexImpl<Node> copyIndex = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(copy));
+        assertRanges(copyIndex, graphStore, column, copy);
+        assertRanges(index, graphStore, column, view);
+    }
+
+    @Test
+    public void testEstimatorChange() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(8));
+        graphStore.nodeTable.addDynamicIndex(column);
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertRanges(index, graphStore, column, graphStore.getView());
+        column.setEstimator(Estimator.MIN);
+        assertRanges(index, graphStore, column, graphStore.getView());
+    }
+
+    @Test
+    public void testRemoveDynamicIndex() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        setValues(graphStore, column, new Random(9));
+        graphStore.nodeTable.addDynamicIndex(column);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertRanges(index, graphStore, column, graphStore.getView());
+
+        graphStore.nodeTable.removeDynamicIndex(column);
+        Assert.assertFalse(graphStore.nodeTable.hasDynamicIndex(column));
+        Assert.assertTrue(index.dynamicIndexes.isEmpty());
+
+        graphStore.nodeTable.addDynamicIndex(column);
+        graphStore.nodeTable.removeColumn(column);
+        Assert.assertFalse(graphStore.nodeTable.hasDynamicIndex(column));
+        Assert.assertEquals(graphStore.nodeTable.store.indexStore.dynamicIndexCount, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddDynamicIndexTwice() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        graphStore.nodeTable.addDynamicIndex(column);
+        graphStore.nodeTable.addDynamicIndex(column);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddDynamicIndexStaticColumn() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = graphStore.nodeTable.addColumn("static", Double.class);
+        graphStore.nodeTable.addDynamicIndex(column);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddDynamicIndexStringColumn() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampStringMap.class);
+        graphStore.nodeTable.addDynamicIndex(column);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRemoveMissingDynamicIndex() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore, TimestampDoubleMap.class);
+        graphStore.nodeTable.removeDynamicIndex(column);
+    }
+
+    //UTILITY
+    private Column addColumn(GraphStore graphStore, Class type) {
+        return graphStore.nodeTable.addColumn("score", type);
+    }
+
+    private void setValues(GraphStore graphStore, Column column, Random random) {
+        for (Node node : graphStore.getNodes().toArray()) {
+            int count = random.nextInt(5);
+            for (int i = 0; i < count; i++) {
+                node.setAttribute(column, (double) random.nextInt(20), random.nextInt(100));
+            }
+        }
+    }
+
+    private void assertRanges(IndexImpl<Node> index, GraphStore graphStore, Column column, GraphView view) {
+        Double[][] ranges = {{null, null}, {5.0, 15.0}, {null, 10.0}, {10.0, null}, {3.0, 3.0}};
+        for (Double[] range : ranges) {
+            Set<Node> expected = expected(graphStore, column, view, range[0], range[1]);
+            Assert.assertEquals(getNodes(index.get(column, range[0], range[1], true, true)), expected);
+            Assert.assertEquals(index.count(column, range[0], range[1], true, true), expected.size());
+        }
+    }
+
+    private Set<Node> expected(GraphStore graphStore, Column column, GraphView view, Double low, Double high) {
+        Set<Node> expected = new HashSet<Node>();
+        for (Node node : graphStore.getNodes()) {
+            if (!view.isMainView() && !((GraphViewImpl) view).containsNode((NodeImpl) node)) {
+                continue;
+            }
+            Object value = node.getAttribute(column, view);
+            if (value != null) {
+                double d = ((Number) value).doubleValue();
+                if ((low == null || d >= low) && (high == null || d <= high)) {
+                    expected.add(node);
+                }
+            }
+        }
+        return expected;
+    }
+
+    private Set<Node> getNodes(Iterable<Node> iterable) {
+        Set<Node> nodes = new HashSet<Node>();
+        for (Node node : iterable) {
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private Set<Node> set(Node... nodes) {
+        Set<Node> set = new HashSet<Node>();
+        for (Node node : nodes) {
+            set.add(node);
+        }
+        return set;
+    }
+}
@@ -78,6 +78,30 @@ public class EdgeImplTest {
         Assert.assertEquals(e.getWeight(2.0), 10.0);
     }
 
+    @Test
+    public void testSetTimestampWeightCopyOnWrite() {
+        Configuration config = new Configuration();
+        config.setEdgeWeightType(TimestampDoubleMap.class);
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore(config);
+        EdgeImpl e = graphStore.getEdge("0");
+        e.setWeight(42.0, 1.0);
+        TimestampDoubleMap map = (TimestampDoubleMap) e.attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX];
+        e.setWeight(10.0, 2.0);
+        Assert.assertEquals(map.size(), 1);
+        Assert.assertEquals(map.get(2.0, 0.0), 0.0);
+        Assert.assertEquals(e.getWeight(2.0), 10.0);
+    }
+
+    @Test
+    public void testSetWeightCopyOnWrite() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        EdgeImpl e = graphStore.getEdge("0");
+        Object[] attributes = e.attributes;
+        e.setWeight(42.0);
+        Assert.assertNotSame(e.attributes, attributes);
+        Assert.assertEquals(e.getWeight(), 42.0);
+    }
+
     @Test
     public void testSetIntervalWeight() {
         Configuration config = new Configuration();
@@ -1194,6 +1194,32 @@ public class EdgeStoreTest {
         Assert.assertTrue(mutualEdges > 0);
     }
 
+    @Test
+    public void testMutualCanonical() {
+        EdgeImpl[] edges = GraphGenerator.generateEdgeList(1000);
+        EdgeStore edgeStore = new EdgeStore();
+        edgeStore.addAll(Arrays.asList(edges));
+
+        for (EdgeImpl e : edges) {
+            EdgeImpl mutual = edgeStore.get(e.target, e.source, e.type);
+            if (e.isMutual()) {
+                Assert.assertTrue(e.isCanonical() ^ mutual.isCanonical());
+                Assert.assertEquals(e.isCanonical(), e.source.storeId > e.target.storeId);
+            } else {
+                Assert.assertTrue(e.isCanonical());
+            }
+        }
+
+        for (EdgeImpl e : edges) {
+            if (e.isMutual()) {
+                EdgeImpl mutual = edgeStore.get(e.target, e.source, e.type);
+                edgeStore.remove(e);
+                Assert.assertTrue(mutual.isCanonical());
+                break;
+            }
+        }
+    }
+
     @Test
     public void testAddSelfLoop() {
         EdgeStore edgeStore = new EdgeStore();
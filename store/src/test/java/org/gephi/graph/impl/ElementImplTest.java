@@ -30,6 +30,7 @@ import org.gephi.graph.api.types.TimestampCharMap;
 import org.gephi.graph.api.types.TimestampDoubleMap;
 import org.gephi.graph.api.types.TimestampFloatMap;
 import org.gephi.graph.api.types.TimestampIntegerMap;
+import org.gephi.graph.api.types.TimestampSet;
 import org.gephi.graph.api.types.TimestampLongMap;
 import org.gephi.graph.api.types.TimestampShortMap;
 import org.gephi.graph.api.types.TimestampStringMap;
@@ -848,6 +849,79 @@ public class ElementImplTest {
         Assert.assertEquals(node.getAttribute("age", view), 15.0);
     }
 
+    @Test
+    public void testSetAttributeCopyOnWrite() {
+        GraphStore store = new GraphStore();
+        Column column = generateBasicColumn(store);
+
+        NodeImpl node = new NodeImpl("0", store);
+        node.setAttribute(column, 1);
+        Object[] attributes = node.attributes;
+
+        node.setAttribute(column, 2);
+        Assert.assertNotSame(node.attributes, attributes);
+        Assert.assertEquals(attributes[column.getIndex()], 1);
+        Assert.assertEquals(node.getAttribute(column), 2);
+
+        attributes = node.attributes;
+        node.removeAttribute(column);
+        Assert.assertEquals(attributes[column.getIndex()], 2);
+        Assert.assertNull(node.getAttribute(column));
+    }
+
+    @Test
+    public void testSetTimestampAttributeCopyOnWrite() {
+        GraphStore store = new GraphStore();
+        Column column = generateTimestampColumn(store);
+
+        NodeImpl node = new NodeImpl("0", store);
+        node.setAttribute(column, 10, 1.0);
+        TimestampIntegerMap map = (TimestampIntegerMap) node.getAttribute(column);
+
+        node.setAttribute(column, 20, 2.0);
+        Assert.assertEquals(map.size(), 1);
+        Assert.assertNotSame(node.getAttribute(column), map);
+        Assert.assertEquals(node.getAttribute(column, 2.0), 20);
+
+        map = (TimestampIntegerMap) node.getAttribute(column);
+        node.removeAttribute(column, 1.0);
+        Assert.assertEquals(map.size(), 2);
+        Assert.assertEquals(((TimestampIntegerMap) node.getAttribute(column)).size(), 1);
+    }
+
+    @Test
+    public void testAddTimestampCopyOnWrite() {
+        GraphStore store = new GraphStore();
+        NodeImpl node = new NodeImpl("0", store);
+
+        node.addTimestamp(1.0);
+        double[] timestamps = node.getTimestamps();
+        Object timeSet = node.attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX];
+
+        node.addTimestamp(2.0);
+        Assert.assertNotSame(node.attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX], timeSet);
+        Assert.assertEquals(timestamps, new double[]{1.0});
+        Assert.assertEquals(node.getTimestamps(), new double[]{1.0, 2.0});
+
+        node.removeTimestamp(1.0);
+        Assert.assertEquals(node.getTimestamps(), new double[]{2.0});
+        Assert.assertTrue(node.hasTimestamp(2.0));
+    }
+
+    @Test
+    public void testClearAttributesKeepsTimeSetSnapshot() {
+        GraphStore store = new GraphStore();
+        NodeImpl node = new NodeImpl("0", store);
+        store.addNode(node);
+        node.addTimestamp(1.0);
+        TimestampSet timeSet = (TimestampSet) node.attributes[GraphStoreConfiguration.ELEMENT_TIMESET_INDEX];
+
+        node.clearAttributes();
+        Assert.assertEquals(node.getTimestamps(), new double[0]);
+        Assert.assertFalse(node.hasTimestamp(1.0));
+        Assert.assertEquals(timeSet.toPrimitiveArray(), new double[]{1.0});
+    }
+
     @Test
     public void testCheckType() {
         GraphStore store = new GraphStore();
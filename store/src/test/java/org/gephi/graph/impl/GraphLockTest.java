@@ -15,6 +15,10 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gephi.graph.api.LockMetrics;
+import org.gephi.graph.api.LockPolicy;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -57,4 +61,329 @@ public class GraphLockTest {
         GraphLock lock = new GraphLock();
         lock.checkHoldWriteLock();
     }
+
+    @Test
+    public void testMetricsDisabled() {
+        GraphLock lock = new GraphLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.writeLock();
+        lock.writeUnlock();
+        Assert.assertFalse(lock.metrics.isEnabled());
+        Assert.assertEquals(lock.metrics.getReadLockCount(), 0);
+        Assert.assertEquals(lock.metrics.getWriteLockCount(), 0);
+    }
+
+    @Test
+    public void testMetricsCounts() {
+        GraphLock lock = new GraphLock();
+        lock.metrics.setEnabled(true);
+        lock.readLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.readUnlock();
+        lock.writeLock();
+        lock.writeUnlock();
+        Assert.assertEquals(lock.metrics.getReadLockCount(), 2);
+        Assert.assertEquals(lock.metrics.getWriteLockCount(), 1);
+        Assert.assertEquals(sum(lock.metrics.getReadWaitTimeHistogram()), 2);
+        Assert.assertEquals(sum(lock.metrics.getReadHoldTimeHistogram()), 1);
+        Assert.assertEquals(sum(lock.metrics.getWriteWaitTimeHistogram()), 1);
+        Assert.assertEquals(sum(lock.metrics.getWriteHoldTimeHistogram()), 1);
+
+        lock.metrics.reset();
+        Assert.assertEquals(lock.metrics.getReadLockCount(), 0);
+        Assert.assertEquals(sum(lock.metrics.getReadHoldTimeHistogram()), 0);
+    }
+
+    @Test
+    public void testMetricsLongestHolder() {
+        GraphLock lock = new GraphLock();
+        lock.metrics.setEnabled(true);
+        Assert.assertNull(lock.metrics.getLongestHolder());
+        Assert.assertEquals(lock.metrics.getLongestHoldTime(), 0l);
+        Assert.assertEquals(lock.metrics.getLongestHolderStackTrace().length, 0);
+
+        lock.writeLock();
+        Assert.assertSame(lock.metrics.getLongestHolder(), Thread.currentThread());
+        Assert.assertTrue(lock.metrics.getLongestHolderStackTrace().length > 0);
+        lock.writeUnlock();
+        Assert.assertNull(lock.metrics.getLongestHolder());
+    }
+
+    @Test
+    public void testMetricsReadUnlockAll() {
+        GraphLock lock = new GraphLock();
+        lock.metrics.setEnabled(true);
+        lock.readLock();
+        lock.readLock();
+        lock.readUnlockAll();
+        Assert.assertNull(lock.metrics.getLongestHolder());
+        Assert.assertEquals(sum(lock.metrics.getReadHoldTimeHistogram()), 1);
+    }
+
+    @Test
+    public void testMetricsQueued() throws InterruptedException {
+        final GraphLock lock = new GraphLock();
+        lock.metrics.setEnabled(true);
+        lock.writeLock();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.readLock();
+                lock.readUnlock();
+            }
+        });
+        reader.start();
+        while (lock.metrics.getQueuedReaders() == 0) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(lock.metrics.getQueuedWriters(), 0);
+        lock.writeUnlock();
+        reader.join();
+        Assert.assertEquals(lock.metrics.getQueuedReaders(), 0);
+        Assert.assertEquals(lock.metrics.getReadLockCount(), 1);
+    }
+
+    @Test
+    public void testTableLockMetrics() {
+        TableLock lock = new TableLock();
+        lock.metrics.setEnabled(true);
+        lock.lock();
+        lock.lock();
+        Assert.assertSame(lock.metrics.getLongestHolder(), Thread.currentThread());
+        lock.unlock();
+        lock.unlock();
+        Assert.assertEquals(lock.metrics.getWriteLockCount(), 2);
+        Assert.assertEquals(sum(lock.metrics.getWriteHoldTimeHistogram()), 1);
+        Assert.assertEquals(lock.metrics.getReadLockCount(), 0);
+    }
+
+    @Test
+    public void testMetricsBucket() {
+        Assert.assertEquals(LockMetricsImpl.getBucket(0), 0);
+        Assert.assertEquals(LockMetricsImpl.getBucket(999), 0);
+        Assert.assertEquals(LockMetricsImpl.getBucket(1000), 1);
+        Assert.assertEquals(LockMetricsImpl.getBucket(3000), 2);
+        Assert.assertEquals(LockMetricsImpl.getBucket(Long.MAX_VALUE), LockMetrics.HISTOGRAM_SIZE - 1);
+    }
+
+    @Test
+    public void testReadScope() {
+        GraphLock lock = new GraphLock();
+        lock.beginReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.readLock();
+        lock.readLock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.readUnlock();
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testReadScopeReleasesEarlierHold() {
+        GraphLock lock = new GraphLock();
+        lock.readLock();
+        lock.beginReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 2);
+        lock.readLock();
+        lock.readUnlock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 2);
+        lock.readUnlock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.readUnlock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testReadScopeKeepsEarlierHold() {
+        GraphLock lock = new GraphLock();
+        lock.readLock();
+        lock.beginReadScope();
+        lock.readLock();
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.readUnlock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testNestedReadScope() {
+        GraphLock lock = new GraphLock();
+        lock.beginReadScope();
+        lock.beginReadScope();
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testEndReadScopeWithoutBegin() {
+        GraphLock lock = new GraphLock();
+        lock.endReadScope();
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testWriteLockInReadScope() {
+        GraphLock lock = new GraphLock();
+        lock.beginReadScope();
+        lock.writeLock();
+    }
+
+    @Test
+    public void testReadUnlockAllInReadScope() {
+        GraphLock lock = new GraphLock();
+        lock.beginReadScope();
+        lock.readUnlockAll();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 1);
+        lock.endReadScope();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testFairness() {
+        Assert.assertFalse(new GraphLock().readWriteLock.isFair());
+        Assert.assertFalse(new GraphLock(LockPolicy.WRITER_PREFERRING).readWriteLock.isFair());
+        Assert.assertTrue(new GraphLock(LockPolicy.FAIR).readWriteLock.isFair());
+        Assert.assertTrue(new GraphLock(LockPolicy.PHASE_FAIR).readWriteLock.isFair());
+    }
+
+    @Test
+    public void testTryWriteLock() {
+        GraphLock lock = new GraphLock();
+        Assert.assertTrue(lock.tryWriteLock(10, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(lock.tryWriteLock(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(lock.readWriteLock.getWriteHoldCount(), 2);
+        lock.writeUnlock();
+        lock.writeUnlock();
+    }
+
+    @Test(timeOut = 10000)
+    public void testTryWriteLockTimeout() throws InterruptedException {
+        final GraphLock lock = new GraphLock(LockPolicy.WRITER_PREFERRING);
+        lock.readLock();
+        final boolean[] res = new boolean[]{true};
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                res[0] = lock.tryWriteLock(10, TimeUnit.MILLISECONDS);
+            }
+        });
+        writer.start();
+        writer.join();
+        lock.readUnlock();
+        Assert.assertFalse(res[0]);
+        Assert.assertEquals(lock.waitingWriters.get(), 0);
+        Assert.assertTrue(lock.tryWriteLock(10, TimeUnit.MILLISECONDS));
+        lock.writeUnlock();
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testTryWriteLockWithReadLock() {
+        GraphLock lock = new GraphLock();
+        lock.readLock();
+        lock.tryWriteLock(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeOut = 10000)
+    public void testWriterPreferring() throws InterruptedException {
+        final GraphLock lock = new GraphLock(LockPolicy.WRITER_PREFERRING);
+        final AtomicInteger order = new AtomicInteger();
+        final int[] res = new int[2];
+        lock.readLock();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.writeLock();
+                res[0] = order.incrementAndGet();
+                lock.writeUnlock();
+            }
+        });
+        writer.start();
+        while (lock.waitingWriters.get() == 0) {
+            Thread.sleep(1);
+        }
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.readLock();
+                res[1] = order.incrementAndGet();
+                lock.readUnlock();
+            }
+        });
+        reader.start();
+        lock.readLock();
+        lock.readUnlock();
+        Thread.sleep(20);
+        Assert.assertEquals(order.get(), 0);
+        lock.readUnlock();
+        writer.join();
+        reader.join();
+        Assert.assertEquals(res[0], 1);
+        Assert.assertEquals(res[1], 2);
+    }
+
+    @Test(timeOut = 10000)
+    public void testPhaseFairReentrantRead() throws InterruptedException {
+        final GraphLock lock = new GraphLock(LockPolicy.PHASE_FAIR);
+        lock.readLock();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.writeLock();
+                lock.writeUnlock();
+            }
+        });
+        writer.start();
+        while (lock.waitingWriters.get() == 0) {
+            Thread.sleep(1);
+        }
+        lock.readLock();
+        Assert.assertEquals(lock.readWriteLock.getReadHoldCount(), 2);
+        lock.readUnlockAll();
+        writer.join();
+        Assert.assertEquals(lock.writePhase, 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testPhaseFairReaderWaitsOnePhase() throws InterruptedException {
+        final GraphLock lock = new GraphLock(LockPolicy.PHASE_FAIR);
+        lock.writeLock();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.writeLock();
+                lock.writeUnlock();
+            }
+        });
+        writer.start();
+        while (lock.waitingWriters.get() == 0) {
+            Thread.sleep(1);
+        }
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lock.readLock();
+                lock.readUnlock();
+            }
+        });
+        reader.start();
+        lock.writeUnlock();
+        reader.join();
+        writer.join();
+        Assert.assertEquals(lock.writePhase, 2);
+        Assert.assertEquals(lock.waitingWriters.get(), 0);
+    }
+
+    private static long sum(long[] histogram) {
+        long sum = 0;
+        for (long l : histogram) {
+            sum += l;
+        }
+        return sum;
+    }
 }
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Index;
+import org.gephi.graph.api.LockPolicy;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.Interval;
@@ -502,10 +503,314 @@ public class GraphModelTest {
         graphModelImpl.setConfiguration(new Configuration());
     }
 
+    @Test
+    public void testSetConfigurationLockPolicy() {
+        Configuration config = new Configuration();
+        config.setLockPolicy(LockPolicy.FAIR);
+        GraphModelImpl graphModelImpl = new GraphModelImpl(config);
+        Configuration newConfig = new Configuration();
+        newConfig.setLockPolicy(LockPolicy.FAIR);
+        newConfig.setTimeRepresentation(TimeRepresentation.INTERVAL);
+        graphModelImpl.setConfiguration(newConfig);
+        Assert.assertEquals(graphModelImpl.getConfiguration(), newConfig);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testSetConfigurationWithLockPolicy() {
+        GraphModelImpl graphModelImpl = new GraphModelImpl();
+        Configuration config = new Configuration();
+        config.setLockPolicy(LockPolicy.WRITER_PREFERRING);
+        try {
+            graphModelImpl.setConfiguration(config);
+        } finally {
+            Assert.assertEquals(graphModelImpl.store.lock.policy, GraphStoreConfiguration.DEFAULT_LOCK_POLICY);
+            Assert.assertFalse(graphModelImpl.store.lock.readWriteLock.isWriteLockedByCurrentThread());
+        }
+    }
+
     @Test(expectedExceptions = IllegalStateException.class)
     public void testSetConfigurationWithEdgeType() {
         GraphModelImpl graphModelImpl = new GraphModelImpl();
         graphModelImpl.store.edgeTypeStore.addType("foo");
         graphModelImpl.setConfiguration(new Configuration());
     }
+
+    @Test
+    public void testBatchVersion() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        int nodeVersion = store.version.nodeVersion;
+        int edgeVersion = store.version.edgeVersion;
+
+        graphModel.beginBatch();
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addNode(n1);
+        store.addNode(n2);
+        store.addEdge(graphModel.factory().newEdge(n1, n2));
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion);
+        Assert.assertEquals(store.version.edgeVersion, edgeVersion);
+        graphModel.commit();
+
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(store.version.edgeVersion, edgeVersion + 1);
+    }
+
+    @Test
+    public void testBatchColumnVersion() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.getStore().addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+        int version = ((ColumnImpl) column).version.version.get();
+
+        graphModel.beginBatch();
+        n1.setAttribute(column, 1);
+        n2.setAttribute(column, 2);
+        Assert.assertEquals(((ColumnImpl) column).version.version.get(), version);
+        graphModel.commit();
+
+        Assert.assertEquals(((ColumnImpl) column).version.version.get(), version + 1);
+    }
+
+    @Test
+    public void testBatchNested() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        int nodeVersion = store.version.nodeVersion;
+
+        graphModel.beginBatch();
+        graphModel.beginBatch();
+        store.addNode(graphModel.factory().newNode("1"));
+        graphModel.commit();
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion);
+        graphModel.commit();
+
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertFalse(store.lock.readWriteLock.isWriteLockedByCurrentThread());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCommitWithoutBatch() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.commit();
+    }
+
+    @Test
+    public void testBatchNodeView() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+
+        GraphView view = graphModel.createView(true, false);
+        graphModel.getGraph(view).addNode(n1);
+        graphModel.getGraph(view).addNode(n2);
+
+        graphModel.beginBatch();
+        Edge edge = graphModel.factory().newEdge(n1, n2);
+        store.addEdge(edge);
+        Assert.assertFalse(graphModel.getGraph(view).contains(edge));
+        graphModel.commit();
+
+        Assert.assertTrue(graphModel.getGraph(view).contains(edge));
+        Assert.assertEquals(graphModel.getGraph(view).getEdgeCount(), 1);
+    }
+
+    @Test
+    public void testBatchViewIndex() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        GraphView view = graphModel.createView();
+        Node[] nodes = new Node[10];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            store.addNode(nodes[i]);
+            nodes[i].setAttribute(column, 1);
+            graphModel.getGraph(view).addNode(nodes[i]);
+        }
+        Index<Node> index = graphModel.getNodeIndex(view);
+        Assert.assertEquals(index.count(column, 1), 10);
+
+        graphModel.beginBatch();
+        nodes[0].setAttribute(column, 2);
+        nodes[0].setAttribute(column, 3);
+        graphModel.getGraph(view).removeNode(nodes[1]);
+        graphModel.commit();
+
+        Assert.assertEquals(index.count(column, 1), 8);
+        Assert.assertEquals(index.count(column, 2), 0);
+        Assert.assertEquals(index.count(column, 3), 1);
+        Assert.assertEquals(graphModel.getNodeIndex().count(column, 1), 9);
+    }
+
+    @Test
+    public void testBatchViewIndexRebuild() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+
+        GraphView view = graphModel.createView();
+        graphModel.getGraph(view).addNode(n1);
+        Index<Node> index = graphModel.getNodeIndex(view);
+
+        graphModel.beginBatch();
+        n1.setAttribute(column, 5);
+        graphModel.getGraph(view).addNode(n2);
+        n2.setAttribute(column, 5);
+        graphModel.commit();
+
+        Assert.assertEquals(index.count(column, 5), 2);
+        Assert.assertEquals(index.count(column, null), 0);
+    }
+
+    @Test
+    public void testBatchMainIndex() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Column other = graphModel.getNodeTable().addColumn("bar", String.class);
+        graphModel.getNodeTable().addCompositeIndex(column, other);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+        IndexStore<Node> indexStore = store.nodeTable.store.indexStore;
+        Index<Node> index = graphModel.getNodeIndex();
+
+        graphModel.beginBatch();
+        n1.setAttribute(column, 1);
+        n1.setAttribute(column, 2);
+        n1.setAttribute(other, "a");
+        n2.setAttribute(column, 2);
+        Assert.assertEquals(indexStore.batchValues.size(), 2);
+        Assert.assertEquals(indexStore.mainIndex.getIndex((ColumnImpl) column).getCount(2), 0);
+        graphModel.commit();
+
+        Assert.assertTrue(indexStore.batchValues.isEmpty());
+        Assert.assertEquals(index.count(column, 1), 0);
+        Assert.assertEquals(index.count(column, 2), 2);
+        Assert.assertEquals(index.count(column, null), 0);
+        Assert.assertEquals(index.count(new Column[]{column, other}, new Object[]{2, "a"}), 1);
+        Assert.assertEquals(index.count(new Column[]{column, other}, new Object[]{null, null}), 0);
+    }
+
+    @Test
+    public void testBatchMainIndexRead() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+        Index<Node> index = graphModel.getNodeIndex();
+
+        graphModel.beginBatch();
+        n1.setAttribute(column, 1);
+        Assert.assertEquals(index.count(column, 1), 1);
+        n2.setAttribute(column, 1);
+        store.removeNode(n1);
+        graphModel.commit();
+
+        Assert.assertEquals(index.count(column, 1), 1);
+        Assert.assertEquals(index.countElements(column), 1);
+    }
+
+    @Test
+    public void testBatchAbort() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        store.addAllNodes(Arrays.asList(new Node[]{n1, n2}));
+        GraphView view = graphModel.createView();
+        graphModel.getGraph(view).addNode(n1);
+        Index<Node> index = graphModel.getNodeIndex(view);
+        Assert.assertEquals(index.count(column, null), 1);
+        int nodeVersion = store.version.nodeVersion;
+
+        graphModel.beginBatch();
+        try {
+            n1.setAttribute(column, 5);
+            store.addNode(graphModel.factory().newNode("3"));
+            n2.setAttribute(column, "bar");
+            graphModel.commit();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            graphModel.abortBatch();
+        }
+
+        Assert.assertFalse(store.lock.readWriteLock.isWriteLockedByCurrentThread());
+        Assert.assertEquals(store.batchDepth, 0);
+        Assert.assertFalse(store.nodeTable.store.batch);
+        Assert.assertFalse(store.nodeTable.store.indexStore.batch);
+        Assert.assertTrue(store.nodeTable.store.indexStore.batchValues.isEmpty());
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(index.count(column, 5), 1);
+        Assert.assertEquals(index.count(column, null), 0);
+
+        //The store isn't wedged
+        graphModel.beginBatch();
+        n2.setAttribute(column, 6);
+        graphModel.commit();
+        Assert.assertEquals(graphModel.getNodeIndex().count(column, 6), 1);
+    }
+
+    @Test
+    public void testBatchAbortNested() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+
+        graphModel.beginBatch();
+        graphModel.beginBatch();
+        store.addNode(graphModel.factory().newNode("1"));
+        graphModel.abortBatch();
+        Assert.assertTrue(store.batchAborted);
+        graphModel.commit();
+
+        Assert.assertFalse(store.batchAborted);
+        Assert.assertFalse(store.lock.readWriteLock.isWriteLockedByCurrentThread());
+    }
+
+    @Test
+    public void testBatchCommitInFinally() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        int nodeVersion = store.version.nodeVersion;
+
+        try {
+            graphModel.beginBatch();
+            try {
+                store.addNode(graphModel.factory().newNode("1"));
+                throw new IllegalStateException();
+            } finally {
+                graphModel.commit();
+            }
+        } catch (IllegalStateException e) {
+        }
+
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(store.batchDepth, 0);
+        Assert.assertFalse(store.lock.readWriteLock.isWriteLockedByCurrentThread());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAbortWithoutBatch() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.abortBatch();
+    }
+
+    @Test
+    public void testLockMetrics() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertSame(graphModel.getGraphLockMetrics(), graphModel.store.lock.metrics);
+        Assert.assertSame(graphModel.getTableLockMetrics(graphModel.getNodeTable()), graphModel.store.nodeTable.store.lock.metrics);
+        Assert.assertSame(graphModel.getTableLockMetrics(graphModel.getEdgeTable()), graphModel.store.edgeTable.store.lock.metrics);
+    }
 }
@@ -30,10 +30,12 @@ import org.gephi.graph.api.ColumnIterable;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.ReadTask;
 import org.gephi.graph.api.TextProperties;
 import org.gephi.graph.spi.LayoutData;
 import org.testng.Assert;
@@ -800,6 +802,59 @@ public class GraphStoreTest {
         Assert.assertEquals(edgeSet.size(), 0);
     }
 
+    @Test
+    public void testRead() {
+        final GraphStore graphStore = new GraphStore();
+        NodeImpl[] nodes = GraphGenerator.generateSmallNodeList();
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        graphStore.addAllEdges(Arrays.asList(GraphGenerator.generateEdgeList(graphStore.nodeStore, 50, 0, true, false)));
+
+        int count = graphStore.read(new ReadTask<Integer>() {
+            @Override
+            public Integer run(Graph graph) {
+                Assert.assertSame(graph, graphStore);
+                int count = 0;
+                for (Node n : graph.getNodes()) {
+                    for (Node m : graph.getNeighbors(n)) {
+                        for (Node o : graph.getNeighbors(m)) {
+                            count++;
+                        }
+                    }
+                    for (Edge e : graph.getEdges()) {
+                        break;
+                    }
+                }
+                Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 1);
+                return count;
+            }
+        });
+
+        int expected = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            for (Node m : graphStore.getNeighbors(n).toArray()) {
+                expected += graphStore.getNeighbors(m).toArray().length;
+            }
+        }
+        Assert.assertEquals(count, expected);
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testReadException() {
+        GraphStore graphStore = new GraphStore();
+        try {
+            graphStore.read(new ReadTask<Object>() {
+                @Override
+                public Object run(Graph graph) {
+                    throw new RuntimeException();
+                }
+            });
+            Assert.fail();
+        } catch (RuntimeException e) {
+        }
+        Assert.assertEquals(graphStore.lock.readWriteLock.getReadHoldCount(), 0);
+    }
+
     private void testBasicStoreEquals(GraphStore graphStore, BasicGraphStore basicGraphStore) {
         BasicGraphStore.BasicEdgeStore basicEdgeStore = basicGraphStore.edgeStore;
         BasicGraphStore.BasicNodeStore basicNodeStore = basicGraphStore.nodeStore;
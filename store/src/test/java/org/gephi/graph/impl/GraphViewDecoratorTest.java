@@ -17,12 +17,17 @@ package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Random;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.ElementIterable;
+import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.UndirectedSubgraph;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -100,10 +105,11 @@ public class GraphViewDecoratorTest {
             Assert.assertTrue(a);
             Assert.assertFalse(b);
             Assert.assertTrue(graph.contains(e));
-            boolean mutualToIgnore = graphStore.edgeStore.isUndirectedToIgnore((EdgeImpl) e);
-            if (!mutualToIgnore) {
-                Assert.assertEquals(graph.getEdgeCount(), ++count);
+            if (!isMutualInView(graph, (EdgeImpl) e)) {
+                ++count;
             }
+            Assert.assertEquals(graph.getEdgeCount(), count);
+            Assert.assertEquals(graph.getEdges().toArray().length, count);
         }
         graph.writeUnlock();
         Assert.assertEquals(graph.getEdgeCount(), graphStore.undirectedDecorator.getEdgeCount());
@@ -233,10 +239,11 @@ public class GraphViewDecoratorTest {
             Assert.assertTrue(a);
             Assert.assertFalse(b);
             Assert.assertFalse(graph.contains(e));
-            boolean mutualToIgnore = graphStore.edgeStore.isUndirectedToIgnore((EdgeImpl) e);
-            if (!mutualToIgnore) {
-                Assert.assertEquals(graph.getEdgeCount(), --count);
+            if (!isMutualInView(graph, (EdgeImpl) e)) {
+                --count;
             }
+            Assert.assertEquals(graph.getEdgeCount(), count);
+            Assert.assertEquals(graph.getEdges().toArray().length, count);
         }
         graph.writeUnlock();
         Assert.assertEquals(graph.getEdgeCount(), 0);
@@ -729,6 +736,7 @@ public class GraphViewDecoratorTest {
 
         Edge edge = graphStore.factory.newEdge("edge", n1, n1, EdgeTypeStore.NULL_LABEL, 1.0, true);
         graphStore.addEdge(edge);
+        view.addEdge(edge);
         Assert.assertTrue(graph.isIncident(edge, graph.getEdge("0")));
     }
 
@@ -829,6 +837,105 @@ public class GraphViewDecoratorTest {
         return store;
     }
 
+    @Test
+    public void testSparseViewIteration() {
+        GraphStore graphStore = generateMediumGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        addSparseElements(graphStore, view);
+        Assert.assertFalse(view.nodeBitVector.isDense());
+        Assert.assertFalse(view.edgeBitVector.isDense());
+
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        ObjectSet<Node> nodes = new ObjectOpenHashSet<Node>();
+        for (Node n : graph.getNodes()) {
+            Assert.assertTrue(view.containsNode((NodeImpl) n));
+            Assert.assertTrue(nodes.add(n));
+        }
+        Assert.assertEquals(nodes.size(), view.getNodeCount());
+
+        ObjectSet<Edge> edges = new ObjectOpenHashSet<Edge>();
+        for (Edge e : graph.getEdges()) {
+            Assert.assertTrue(view.containsEdge((EdgeImpl) e));
+            Assert.assertTrue(edges.add(e));
+        }
+        Assert.assertEquals(edges.size(), view.getEdgeCount());
+        Assert.assertEquals(graph.getNodes().toArray().length, graph.getNodeCount());
+        Assert.assertEquals(graph.getEdges().toArray().length, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testSparseViewUndirectedIteration() {
+        GraphStore graphStore = generateMediumGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        addSparseElements(graphStore, view);
+
+        UndirectedSubgraph graph = store.getUndirectedGraph(view);
+        int count = 0;
+        for (Edge e : graph.getEdges()) {
+            Assert.assertTrue(view.containsEdge((EdgeImpl) e));
+            count++;
+        }
+        Assert.assertEquals(count, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testSparseViewIterationAfterStoreRemoval() {
+        GraphStore graphStore = generateMediumGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        addSparseElements(graphStore, view);
+
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        Node node = graph.getNodes().toArray()[0];
+        graphStore.removeNode(node);
+
+        int count = 0;
+        for (Node n : graph.getNodes()) {
+            Assert.assertNotSame(n, node);
+            count++;
+        }
+        Assert.assertEquals(count, graph.getNodeCount());
+        Assert.assertEquals(graph.getEdges().toArray().length, graph.getEdgeCount());
+    }
+
+    @Test
+    public void testSparseViewIteratorRemove() {
+        GraphStore graphStore = generateMediumGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        addSparseElements(graphStore, view);
+
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        int storeCount = graphStore.getNodeCount();
+        graph.writeLock();
+        try {
+            for (Iterator<Node> itr = graph.getNodes().iterator(); itr.hasNext();) {
+                itr.next();
+                itr.remove();
+            }
+        } finally {
+            graph.writeUnlock();
+        }
+        Assert.assertEquals(graph.getNodeCount(), 0);
+        Assert.assertEquals(graph.getEdgeCount(), 0);
+        Assert.assertEquals(graphStore.getNodeCount(), storeCount);
+    }
+
+    @Test
+    public void testDenseViewIteration() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+        Assert.assertTrue(view.nodeBitVector.isFilled());
+
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        Assert.assertEquals(graph.getNodes().toArray().length, graphStore.getNodeCount());
+        Assert.assertEquals(graph.getEdges().toArray().length, graphStore.getEdgeCount());
+    }
+
     private void addSomeElements(GraphStore store, GraphViewImpl view) {
         double perc = 0.8;
         Random rand = new Random(98324);
@@ -845,4 +952,410 @@ public class GraphViewDecoratorTest {
             }
         }
     }
+
+    @Test
+    public void testDegreeAfterViewChanges() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        assertDegrees(store, view);
+
+        Random rand = new Random(4378);
+        for (Node n : graphStore.getNodes()) {
+            if (rand.nextDouble() < 0.7) {
+                view.addNode(n);
+            }
+        }
+        for (Edge e : graphStore.getEdges()) {
+            if (view.containsNode((NodeImpl) e.getSource()) && view.containsNode((NodeImpl) e.getTarget()) && rand.nextDouble() < 0.8) {
+                view.addEdge(e);
+            }
+        }
+        assertDegrees(store, view);
+
+        for (Edge e : graphStore.getEdges().toArray()) {
+            if (view.containsEdge((EdgeImpl) e) && rand.nextDouble() < 0.3) {
+                view.removeEdge(e);
+            }
+        }
+        assertDegrees(store, view);
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        view.removeNode(nodes[0]);
+        graphStore.removeNode(nodes[1]);
+        assertDegrees(store, view);
+
+        GraphViewImpl other = store.createView();
+        for (Edge e : graphStore.getEdges()) {
+            if (rand.nextDouble() < 0.5) {
+                other.addNode(e.getSource());
+                other.addNode(e.getTarget());
+                other.addEdge(e);
+            }
+        }
+        GraphViewImpl union = store.createView(view);
+        union.union(other);
+        assertDegrees(store, union);
+
+        GraphViewImpl intersection = store.createView(view);
+        assertDegrees(store, intersection);
+        intersection.intersection(other);
+        assertDegrees(store, intersection);
+
+        view.not();
+        assertDegrees(store, view);
+
+        view.fill();
+        assertDegrees(store, view);
+
+        view.clearEdges();
+        assertDegrees(store, view);
+    }
+
+    @Test
+    public void testDegreeAfterCopyView() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+        assertDegrees(store, view);
+
+        GraphViewImpl copy = store.createView(view);
+        assertDegrees(store, copy);
+        Assert.assertEquals(store.getUndirectedGraph(copy).getEdgeCount(), store.getUndirectedGraph(view).getEdgeCount());
+
+        Edge[] edges = graphStore.getEdges().toArray();
+        copy.removeEdge(edges[0]);
+        assertDegrees(store, copy);
+        assertDegrees(store, view);
+
+        view.removeEdge(edges[1]);
+        view.removeNode(edges[2].getSource());
+        assertDegrees(store, view);
+        assertDegrees(store, copy);
+    }
+
+    @Test
+    public void testUndirectedSingleDirection() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        for (Edge e : graphStore.getEdges()) {
+            EdgeImpl edge = (EdgeImpl) e;
+            if (edge.isMutual() && !edge.isCanonical()) {
+                view.addNode(e.getSource());
+                view.addNode(e.getTarget());
+                view.addEdge(e);
+            }
+        }
+        UndirectedSubgraph undirected = store.getUndirectedGraph(view);
+        Assert.assertTrue(undirected.getEdgeCount() > 0);
+        Assert.assertEquals(undirected.getEdgeCount(), view.getEdgeCount());
+        Assert.assertEquals(undirected.getEdges().toArray().length, view.getEdgeCount());
+        assertDegrees(store, view);
+
+        view.fill();
+        Assert.assertEquals(undirected.getEdgeCount(), graphStore.undirectedDecorator.getEdgeCount());
+        Assert.assertEquals(undirected.getEdges().toArray().length, undirected.getEdgeCount());
+        assertDegrees(store, view);
+
+        view.not();
+        view.addAllNodes(graphStore.getNodes().toCollection());
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i += 3) {
+            view.addEdge(edges[i]);
+        }
+        Assert.assertEquals(undirected.getEdges().toArray().length, undirected.getEdgeCount());
+        assertDegrees(store, view);
+
+        view.not();
+        Assert.assertEquals(undirected.getEdges().toArray().length, undirected.getEdgeCount());
+        assertDegrees(store, view);
+    }
+
+    @Test
+    public void testUndirectedMutualAdded() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        GraphViewImpl nodeView = store.createView(true, false);
+        Edge edge = graphStore.getEdges().toArray()[0];
+        view.addNode(edge.getSource());
+        view.addNode(edge.getTarget());
+        view.addEdge(edge);
+        nodeView.addNode(edge.getSource());
+        nodeView.addNode(edge.getTarget());
+
+        EdgeImpl mutual = new EdgeImpl("mutual", graphStore, (NodeImpl) edge.getTarget(), (NodeImpl) edge.getSource(), edge.getType(), 1.0, true);
+        graphStore.addEdge(mutual);
+
+        UndirectedSubgraph undirected = store.getUndirectedGraph(view);
+        Assert.assertEquals(undirected.getEdgeCount(), 1);
+        Assert.assertEquals(undirected.getEdges().toArray().length, 1);
+        Assert.assertEquals(undirected.getDegree(edge.getSource()), 1);
+        Assert.assertEquals(store.getUndirectedGraph(nodeView).getEdgeCount(), 1);
+        Assert.assertEquals(store.getUndirectedGraph(nodeView).getEdges().toArray().length, 1);
+        assertDegrees(store, nodeView);
+
+        view.addEdge(mutual);
+        Assert.assertEquals(undirected.getEdgeCount(), 1);
+        Assert.assertEquals(undirected.getEdges().toArray().length, 1);
+        assertDegrees(store, view);
+
+        graphStore.removeEdge(edge);
+        Assert.assertEquals(undirected.getEdgeCount(), 1);
+        Assert.assertEquals(undirected.getEdges().toArray().length, 1);
+        Assert.assertSame(undirected.getEdges().toArray()[0], mutual);
+        assertDegrees(store, view);
+        Assert.assertEquals(nodeView.getEdgeCount(), 1);
+        assertDegrees(store, nodeView);
+    }
+
+    @Test
+    public void testDegreeNodeView() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView(true, false);
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            view.addNode(nodes[i]);
+        }
+        assertDegrees(store, view);
+
+        Node source = nodes[0];
+        Node target = nodes[2];
+        if (graphStore.getEdge(source, target) == null) {
+            graphStore.addEdge(new EdgeImpl("new1", (NodeImpl) source, (NodeImpl) target, 0, 1.0, true));
+        }
+        if (graphStore.getEdge(target, source) == null) {
+            graphStore.addEdge(new EdgeImpl("new2", (NodeImpl) target, (NodeImpl) source, 0, 1.0, true));
+        }
+        assertDegrees(store, view);
+
+        view.removeNode(target);
+        assertDegrees(store, view);
+    }
+
+    private GraphStore generateMutualGraphStore() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(40, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        Random rand = new Random(1289);
+        int edgeId = 0;
+        for (int i = 0; i < 300; i++) {
+            NodeImpl source = nodes[rand.nextInt(nodes.length)];
+            NodeImpl target = nodes[rand.nextInt(nodes.length)];
+            if (graphStore.getEdge(source, target) == null) {
+                graphStore.addEdge(new EdgeImpl(String.valueOf(edgeId++), source, target, 0, 1.0, true));
+            }
+            if (rand.nextBoolean() && graphStore.getEdge(target, source) == null) {
+                graphStore.addEdge(new EdgeImpl(String.valueOf(edgeId++), target, source, 0, 1.0, true));
+            }
+        }
+        return graphStore;
+    }
+
+    private boolean isMutualInView(UndirectedSubgraph graph, EdgeImpl edge) {
+        if (!edge.isMutual()) {
+            return false;
+        }
+        Edge mutual = graph.getView().getGraphModel().getGraph().getEdge(edge.getTarget(), edge.getSource(), edge.getType());
+        return graph.contains(mutual);
+    }
+
+    private void assertDegrees(GraphViewStore store, GraphViewImpl view) {
+        DirectedSubgraph directed = store.getDirectedGraph(view);
+        UndirectedSubgraph undirected = store.getUndirectedGraph(view);
+        for (Node n : directed.getNodes().toArray()) {
+            int degree = 0;
+            for (Edge e : directed.getEdges(n)) {
+                degree += e.isSelfLoop() ? 2 : 1;
+            }
+            int undirectedDegree = 0;
+            for (Edge e : undirected.getEdges(n)) {
+                undirectedDegree += e.isSelfLoop() ? 2 : 1;
+            }
+            Assert.assertEquals(directed.getDegree(n), degree);
+            Assert.assertEquals(directed.getInDegree(n), directed.getInEdges(n).toArray().length);
+            Assert.assertEquals(directed.getOutDegree(n), directed.getOutEdges(n).toArray().length);
+            Assert.assertEquals(undirected.getDegree(n), undirectedDegree);
+        }
+    }
+
+    @Test
+    public void testTimeIntervalIteration() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].addTimestamp(i % 3 == 0 ? 1.0 : 5.0);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i++) {
+            if (i % 2 == 0) {
+                edges[i].addTimestamp(1.0);
+            }
+        }
+        store.setTimeInterval(view, new Interval(0.0, 2.0));
+
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        int nodeCount = 0;
+        for (Node n : graph.getNodes()) {
+            Assert.assertEquals(n.getTimestamps()[0], 1.0);
+            nodeCount++;
+        }
+        Assert.assertEquals(nodeCount, (nodes.length + 2) / 3);
+
+        for (Edge e : graph.getEdges()) {
+            Assert.assertTrue(e.getTimestamps().length == 0 || e.getTimestamps()[0] == 1.0);
+            Assert.assertEquals(e.getSource().getTimestamps()[0], 1.0);
+            Assert.assertEquals(e.getTarget().getTimestamps()[0], 1.0);
+        }
+        for (Node n : graph.getNodes()) {
+            for (Node m : graph.getNeighbors(n)) {
+                Assert.assertEquals(m.getTimestamps()[0], 1.0);
+            }
+        }
+
+        store.setTimeInterval(view, null);
+        Assert.assertEquals(graph.getNodes().toArray().length, nodes.length);
+        Assert.assertEquals(graph.getEdges().toArray().length, edges.length);
+    }
+
+    @Test
+    public void testTimeIntervalMembership() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView();
+        view.fill();
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].addTimestamp(i % 3 == 0 ? 1.0 : 5.0);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i++) {
+            if (i % 2 == 0) {
+                edges[i].addTimestamp(1.0);
+            }
+        }
+        store.setTimeInterval(view, new Interval(0.0, 2.0));
+
+        DirectedSubgraph directed = store.getDirectedGraph(view);
+        UndirectedSubgraph undirected = store.getUndirectedGraph(view);
+        Node[] viewNodes = directed.getNodes().toArray();
+        Edge[] viewEdges = directed.getEdges().toArray();
+        Assert.assertEquals(directed.getNodeCount(), viewNodes.length);
+        Assert.assertEquals(directed.getEdgeCount(), viewEdges.length);
+        Assert.assertEquals(undirected.getNodeCount(), undirected.getNodes().toArray().length);
+        Assert.assertEquals(undirected.getEdgeCount(), undirected.getEdges().toArray().length);
+        Assert.assertEquals(directed.getEdgeCount(0), viewEdges.length);
+
+        ObjectSet<Node> nodeSet = new ObjectOpenHashSet<Node>(viewNodes);
+        for (Node n : nodes) {
+            Assert.assertEquals(directed.contains(n), nodeSet.contains(n));
+            Assert.assertEquals(directed.getNode(n.getId()) != null, nodeSet.contains(n));
+        }
+        ObjectSet<Edge> edgeSet = new ObjectOpenHashSet<Edge>(viewEdges);
+        for (Edge e : edges) {
+            Assert.assertEquals(directed.contains(e), edgeSet.contains(e));
+            Assert.assertEquals(directed.getEdge(e.getId()) != null, edgeSet.contains(e));
+            Assert.assertEquals(directed.getEdge(e.getSource(), e.getTarget()) != null, edgeSet.contains(e));
+            if (nodeSet.contains(e.getSource()) && nodeSet.contains(e.getTarget())) {
+                Assert.assertEquals(directed.isAdjacent(e.getSource(), e.getTarget()), edgeSet.contains(e));
+            }
+        }
+        assertDegrees(store, view);
+    }
+
+    @Test
+    public void testTimeIntervalCountsUpdated() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        ColumnImpl column = new ColumnImpl("foo", String.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        GraphViewImpl view = store.createView();
+        view.fill();
+
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].setAttribute(column, "bar");
+            nodes[i].addTimestamp(i % 3 == 0 ? 1.0 : 5.0);
+        }
+        Edge[] edges = graphStore.getEdges().toArray();
+        for (int i = 0; i < edges.length; i++) {
+            if (i % 2 == 0) {
+                edges[i].addTimestamp(1.0);
+            }
+        }
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graph);
+
+        store.setTimeInterval(view, new Interval(0.0, 2.0));
+        Assert.assertEquals(graph.getNodeCount(), (nodes.length + 2) / 3);
+        assertIntervalCounts(store, view, index, column);
+
+        store.setTimeInterval(view, new Interval(0.5, 6.0));
+        Assert.assertEquals(graph.getNodeCount(), nodes.length);
+        assertIntervalCounts(store, view, index, column);
+
+        store.setTimeInterval(view, new Interval(4.0, 6.0));
+        Assert.assertFalse(graph.contains(nodes[0]));
+        assertIntervalCounts(store, view, index, column);
+
+        nodes[0].addTimestamp(5.0);
+        Assert.assertTrue(graph.contains(nodes[0]));
+        assertIntervalCounts(store, view, index, column);
+
+        nodes[0].removeTimestamp(5.0);
+        Assert.assertFalse(graph.contains(nodes[0]));
+        assertIntervalCounts(store, view, index, column);
+
+        graphStore.removeNode(nodes[1]);
+        assertIntervalCounts(store, view, index, column);
+
+        store.setTimeInterval(view, null);
+        Assert.assertEquals(graph.getNodeCount(), nodes.length - 1);
+        assertIntervalCounts(store, view, index, column);
+    }
+
+    private void assertIntervalCounts(GraphViewStore store, GraphViewImpl view, IndexImpl<Node> index, Column column) {
+        DirectedSubgraph directed = store.getDirectedGraph(view);
+        UndirectedSubgraph undirected = store.getUndirectedGraph(view);
+        Assert.assertEquals(directed.getNodeCount(), directed.getNodes().toArray().length);
+        Assert.assertEquals(directed.getEdgeCount(), directed.getEdges().toArray().length);
+        Assert.assertEquals(directed.getEdgeCount(0), directed.getEdges().toArray().length);
+        Assert.assertEquals(undirected.getEdgeCount(), undirected.getEdges().toArray().length);
+        Assert.assertEquals(index.count(column, "bar"), directed.getNodeCount());
+        for (Node n : index.get(column, "bar")) {
+            Assert.assertTrue(directed.contains(n));
+        }
+        assertDegrees(store, view);
+    }
+
+    private GraphStore generateMediumGraphStore() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(5000, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator.generateEdgeList(graphStore.nodeStore, 50000, 0, true, true);
+        graphStore.addAllEdges(Arrays.asList(edges));
+        return graphStore;
+    }
+
+    private void addSparseElements(GraphStore store, GraphViewImpl view) {
+        Random rand = new Random(7541);
+        for (Node n : store.getNodes()) {
+            if (rand.nextDouble() <= 0.05) {
+                view.addNode(n);
+            }
+        }
+        for (Edge e : store.getEdges()) {
+            if (view.containsNode((NodeImpl) e.getSource()) && view.containsNode((NodeImpl) e.getTarget())) {
+                view.addEdge(e);
+            }
+        }
+    }
 }
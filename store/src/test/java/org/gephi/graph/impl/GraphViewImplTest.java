@@ -16,10 +16,12 @@
 package org.gephi.graph.impl;
 
 import java.util.Arrays;
+import java.util.Random;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.UndirectedSubgraph;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -224,6 +226,144 @@ public class GraphViewImplTest {
         Assert.assertTrue(view.containsEdge(e2));
     }
 
+    @Test
+    public void testViewIntersectionCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, true, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, true, 2);
+
+        GraphViewImpl expected = store.createView();
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            if (view.containsNode(node) && view2.containsNode(node)) {
+                expected.addNode(node);
+            }
+        }
+        for (EdgeImpl edge : graphStore.edgeStore.toArray()) {
+            if (view.containsEdge(edge) && view2.containsEdge(edge) && expected.containsNode(edge.source) && expected.containsNode(edge.target)) {
+                expected.addEdge(edge);
+            }
+        }
+
+        view.intersection(view2);
+        assertSameContent(graphStore, view, expected);
+    }
+
+    @Test
+    public void testViewIntersectionNodeViewCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, false, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, false, 2);
+
+        GraphViewImpl expected = store.createView(true, false);
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            if (view.containsNode(node) && view2.containsNode(node)) {
+                expected.addNode(node);
+            }
+        }
+
+        view.intersection(view2);
+        assertSameContent(graphStore, view, expected);
+    }
+
+    @Test
+    public void testViewUnionCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, true, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, true, 2);
+
+        GraphViewImpl expected = store.createView();
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            if (view.containsNode(node) || view2.containsNode(node)) {
+                expected.addNode(node);
+            }
+        }
+        for (EdgeImpl edge : graphStore.edgeStore.toArray()) {
+            if (view.containsEdge(edge) || view2.containsEdge(edge)) {
+                expected.addEdge(edge);
+            }
+        }
+
+        view.union(view2);
+        assertSameContent(graphStore, view, expected);
+    }
+
+    @Test
+    public void testViewUnionNodeViewCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, false, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, false, 2);
+
+        GraphViewImpl expected = store.createView(true, false);
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            if (view.containsNode(node) || view2.containsNode(node)) {
+                expected.addNode(node);
+            }
+        }
+
+        view.union(view2);
+        assertSameContent(graphStore, view, expected);
+    }
+
+    @Test
+    public void testViewUnionEdgeViewCounts() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, false, true, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, false, true, 2);
+
+        GraphViewImpl expected = store.createView(false, true);
+        for (EdgeImpl edge : graphStore.edgeStore.toArray()) {
+            if (view.containsEdge(edge) || view2.containsEdge(edge)) {
+                expected.addEdge(edge);
+            }
+        }
+
+        view.union(view2);
+        assertSameContent(graphStore, view, expected);
+    }
+
+    @Test
+    public void testViewUnionIndex() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            node.setAttribute(column, 1);
+        }
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, true, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, true, 2);
+        IndexImpl index = graphStore.nodeTable.store.indexStore.getIndex(store.getGraph(view));
+
+        view.union(view2);
+        Assert.assertEquals(index.count(column, 1), view.getNodeCount());
+
+        view.intersection(view2);
+        Assert.assertEquals(index.count(column, 1), view2.getNodeCount());
+    }
+
+    @Test
+    public void testViewUnionVersion() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = createRandomView(graphStore, true, true, 1);
+        GraphViewImpl view2 = createRandomView(graphStore, true, true, 2);
+
+        int nodeVersion = view.version.nodeVersion;
+        int edgeVersion = view.version.edgeVersion;
+        view.union(view2);
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(view.version.edgeVersion, edgeVersion + 1);
+
+        view.union(view2);
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(view.version.edgeVersion, edgeVersion + 1);
+    }
+
     @Test
     public void testViewUnion() {
         GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
@@ -432,4 +572,41 @@ public class GraphViewImplTest {
         Assert.assertNotNull(view);
         Assert.assertEquals(view, graphStore.mainGraphView);
     }
+
+    //Utility
+    private GraphViewImpl createRandomView(GraphStore graphStore, boolean nodes, boolean edges, int seed) {
+        Random random = new Random(seed);
+        GraphViewImpl view = graphStore.viewStore.createView(nodes, edges);
+        if (nodes) {
+            for (NodeImpl node : graphStore.nodeStore.toArray()) {
+                if (random.nextBoolean()) {
+                    view.addNode(node);
+                }
+            }
+        }
+        if (edges) {
+            for (EdgeImpl edge : graphStore.edgeStore.toArray()) {
+                if (view.containsNode(edge.source) && view.containsNode(edge.target) && random.nextBoolean()) {
+                    view.addEdge(edge);
+                }
+            }
+        }
+        return view;
+    }
+
+    private void assertSameContent(GraphStore graphStore, GraphViewImpl view, GraphViewImpl expected) {
+        Assert.assertEquals(view.getNodeCount(), expected.getNodeCount());
+        Assert.assertEquals(view.getEdgeCount(), expected.getEdgeCount());
+        Assert.assertEquals(view.getUndirectedEdgeCount(), expected.getUndirectedEdgeCount());
+        for (int type = 0; type < expected.typeCounts.length; type++) {
+            Assert.assertEquals(view.getEdgeCount(type), expected.getEdgeCount(type));
+            Assert.assertEquals(view.getUndirectedEdgeCount(type), expected.getUndirectedEdgeCount(type));
+        }
+        for (NodeImpl node : graphStore.nodeStore.toArray()) {
+            Assert.assertEquals(view.containsNode(node), expected.containsNode(node));
+        }
+        for (EdgeImpl edge : graphStore.edgeStore.toArray()) {
+            Assert.assertEquals(view.containsEdge(edge), expected.containsEdge(edge));
+        }
+    }
 }
@@ -15,12 +15,16 @@
  */
 package org.gephi.graph.impl;
 
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnPredicate;
+import org.gephi.graph.api.ElementPredicate;
 import org.gephi.graph.api.Interval;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.UndirectedSubgraph;
 import org.testng.Assert;
@@ -386,4 +390,256 @@ public class GraphViewStoreTest {
         store.setVisibleView(graphStore.mainGraphView);
         Assert.assertEquals(visibleView, graphStore.mainGraphView);
     }
+
+    @Test
+    public void testCopyMainViewIsLazy() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView(graphStore.mainGraphView);
+        Assert.assertTrue(view.nodeBitVector.isFilled());
+        Assert.assertTrue(view.edgeBitVector.isFilled());
+        Assert.assertEquals(view.nodeBitVector.getMemorySize() + view.edgeBitVector.getMemorySize(), 0l);
+        Assert.assertEquals(store.getGraph(view).getNodes().toArray().length, graphStore.getNodeCount());
+        Assert.assertEquals(store.getGraph(view).getEdges().toArray().length, graphStore.getEdgeCount());
+
+        GraphViewImpl copy = store.createView(view);
+        Assert.assertTrue(copy.edgeBitVector.isFilled());
+        Node node = graphStore.getNodes().toArray()[0];
+        copy.removeNode(node);
+        Assert.assertFalse(copy.containsNode((NodeImpl) node));
+        Assert.assertTrue(view.containsNode((NodeImpl) node));
+        Assert.assertEquals(store.getGraph(copy).getNodes().toArray().length, graphStore.getNodeCount() - 1);
+        Assert.assertEquals(store.getGraph(view).getNodes().toArray().length, graphStore.getNodeCount());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPredicateViewNull() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        graphStore.viewStore.createView(null, null);
+    }
+
+    @Test
+    public void testPredicateViewIndexed() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+
+        GraphViewImpl view = graphStore.viewStore.createView(new MinValuePredicate(column, 5), null);
+        Assert.assertTrue(view.isLive());
+        assertNodesInView(view, nodes, 5, 10);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 4);
+
+        nodes[2].setAttribute(column, 7);
+        nodes[7].setAttribute(column, 0);
+        Assert.assertTrue(view.getDirectedGraph().contains(nodes[2]));
+        Assert.assertFalse(view.getDirectedGraph().contains(nodes[7]));
+        Assert.assertEquals(view.getDirectedGraph().getNodeCount(), 5);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 2);
+
+        Node node = graphModel.factory().newNode("new");
+        graphModel.getGraph().addNode(node);
+        Assert.assertFalse(view.getDirectedGraph().contains(node));
+        node.setAttribute(column, 9);
+        Assert.assertTrue(view.getDirectedGraph().contains(node));
+
+        Edge edge = graphModel.factory().newEdge(node, nodes[9]);
+        graphModel.getGraph().addEdge(edge);
+        Assert.assertTrue(view.getDirectedGraph().contains(edge));
+    }
+
+    @Test
+    public void testPredicateViewScan() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", null, Integer.class, Origin.DATA, null, false);
+        Node[] nodes = generateChain(graphModel, column);
+
+        ElementPredicate<Node> predicate = new ElementPredicate<Node>() {
+            @Override
+            public boolean evaluate(Node element) {
+                Integer value = (Integer) element.getAttribute("age");
+                return value != null && value % 2 == 0;
+            }
+        };
+        GraphViewImpl view = graphStore.viewStore.createView(predicate, null);
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(view.getDirectedGraph().contains(nodes[i]), i % 2 == 0);
+        }
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 0);
+
+        nodes[1].setAttribute(column, 4);
+        Assert.assertTrue(view.getDirectedGraph().contains(nodes[1]));
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 2);
+
+        nodes[1].removeAttribute(column);
+        Assert.assertFalse(view.getDirectedGraph().contains(nodes[1]));
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 0);
+    }
+
+    @Test
+    public void testPredicateEdgeView() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+
+        ElementPredicate<Edge> predicate = new ElementPredicate<Edge>() {
+            @Override
+            public boolean evaluate(Edge element) {
+                return element.getWeight() > 1.0;
+            }
+        };
+        Edge[] edges = graphModel.getGraph().getEdges().toArray();
+        edges[0].setWeight(2.0);
+
+        GraphViewImpl view = graphStore.viewStore.createView(null, predicate);
+        Assert.assertFalse(view.nodeView);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 1);
+        Assert.assertTrue(view.getDirectedGraph().contains(edges[0]));
+
+        edges[0].setWeight(1.0);
+        edges[1].setWeight(3.0);
+        Assert.assertFalse(view.getDirectedGraph().contains(edges[0]));
+        Assert.assertTrue(view.getDirectedGraph().contains(edges[1]));
+
+        Edge edge = graphModel.factory().newEdge(nodes[0], nodes[9], 0, 5.0, true);
+        graphModel.getGraph().addEdge(edge);
+        Assert.assertTrue(view.getDirectedGraph().contains(edge));
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 2);
+    }
+
+    @Test
+    public void testPredicateViewNodesAndEdges() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+        Edge[] edges = graphModel.getGraph().getEdges().toArray();
+        edges[6].setWeight(2.0);
+        edges[7].setWeight(2.0);
+
+        ElementPredicate<Edge> predicate = new ElementPredicate<Edge>() {
+            @Override
+            public boolean evaluate(Edge element) {
+                return element.getWeight() > 1.0;
+            }
+        };
+        GraphViewImpl view = graphStore.viewStore.createView(new MinValuePredicate(column, 5), predicate);
+        assertNodesInView(view, nodes, 5, 10);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 2);
+
+        nodes[7].setAttribute(column, 0);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 0);
+
+        nodes[7].setAttribute(column, 7);
+        Assert.assertEquals(view.getDirectedGraph().getEdgeCount(), 2);
+        Assert.assertTrue(view.getDirectedGraph().contains(edges[6]));
+        Assert.assertTrue(view.getDirectedGraph().contains(edges[7]));
+    }
+
+    @Test
+    public void testPredicateViewDestroy() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+
+        GraphViewImpl view = graphStore.viewStore.createView(new MinValuePredicate(column, 5), null);
+        Assert.assertEquals(graphStore.viewStore.liveViewCount, 1);
+        graphStore.viewStore.destroyView(view);
+        Assert.assertEquals(graphStore.viewStore.liveViewCount, 0);
+
+        nodes[0].setAttribute(column, 8);
+        Assert.assertFalse(view.containsNode((NodeImpl) nodes[0]));
+    }
+
+    @Test
+    public void testPredicateViewUpdatedAfterReading() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+
+        GraphViewImpl view = graphStore.viewStore.createView(new MinValuePredicate(column, 5), null);
+        for (Node n : graphModel.getGraph().getNodes()) {
+            n.setAttribute(column, 9);
+        }
+        Assert.assertTrue(graphStore.viewStore.liveViewsPending);
+        assertNodesInView(view, nodes, 5, 10);
+        Assert.assertTrue(graphStore.viewStore.liveViewsPending);
+
+        graphModel.getGraph().writeLock();
+        graphModel.getGraph().writeUnlock();
+        Assert.assertFalse(graphStore.viewStore.liveViewsPending);
+        assertNodesInView(view, nodes, 0, 10);
+    }
+
+    @Test
+    public void testPredicateViewUpdatedOnWriteLock() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore graphStore = graphModel.store;
+        Column column = graphModel.getNodeTable().addColumn("age", Integer.class);
+        Node[] nodes = generateChain(graphModel, column);
+
+        GraphViewImpl view = graphStore.viewStore.createView(new MinValuePredicate(column, 5), null);
+        nodes[0].setAttribute(column, 9);
+        Assert.assertTrue(view.containsNode((NodeImpl) nodes[0]));
+        Assert.assertFalse(graphStore.viewStore.liveViewsPending);
+
+        graphModel.getGraph().writeLock();
+        try {
+            nodes[1].setAttribute(column, 9);
+            Assert.assertTrue(view.containsNode((NodeImpl) nodes[1]));
+        } finally {
+            graphModel.getGraph().writeUnlock();
+        }
+    }
+
+    //UTILITY
+    private Node[] generateChain(GraphModelImpl graphModel, Column column) {
+        Node[] nodes = new Node[10];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            graphModel.getGraph().addNode(nodes[i]);
+            nodes[i].setAttribute(column, i);
+        }
+        for (int i = 1; i < nodes.length; i++) {
+            graphModel.getGraph().addEdge(graphModel.factory().newEdge(nodes[i - 1], nodes[i]));
+        }
+        return nodes;
+    }
+
+    private void assertNodesInView(GraphViewImpl view, Node[] nodes, int from, int to) {
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(view.getDirectedGraph().contains(nodes[i]), i >= from && i < to);
+        }
+        Assert.assertEquals(view.getDirectedGraph().getNodeCount(), to - from);
+    }
+
+    private static class MinValuePredicate implements ColumnPredicate<Node> {
+
+        private final Column column;
+        private final int min;
+
+        public MinValuePredicate(Column column, int min) {
+            this.column = column;
+            this.min = min;
+        }
+
+        @Override
+        public Column getColumn() {
+            return column;
+        }
+
+        @Override
+        public boolean evaluateValue(Object value) {
+            return value != null && (Integer) value >= min;
+        }
+
+        @Override
+        public boolean evaluate(Node element) {
+            return evaluateValue(element.getAttribute(column));
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testEmpty() {
+        Assert.assertEquals(new HyperLogLog().estimate(), 0);
+    }
+
+    @Test
+    public void testSmallCardinality() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            hll.add(i % 10);
+        }
+        Assert.assertEquals(hll.estimate(), 10);
+    }
+
+    @Test
+    public void testLargeCardinality() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 200000; i++) {
+            hll.add("value" + i);
+        }
+        Assert.assertEquals(hll.estimate(), 200000, 200000 * 0.05);
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog hll1 = new HyperLogLog();
+        HyperLogLog hll2 = new HyperLogLog();
+        for (int i = 0; i < 50000; i++) {
+            hll1.add((double) i);
+            hll2.add((double) (i + 25000));
+        }
+        hll1.merge(hll2);
+        Assert.assertEquals(hll1.estimate(), 75000, 75000 * 0.05);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMergeDifferentPrecision() {
+        new HyperLogLog(10).merge(new HyperLogLog(12));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IndexBuildTest {
+
+    @Test
+    public void testAddIndex() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        setValues(graphStore, column);
+
+        graphStore.nodeTable.addIndex(column, false);
+        Assert.assertTrue(column.isIndexed());
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertIndex(index, graphStore, column);
+        Node node = graphStore.getNodes().toArray()[0];
+        node.setAttribute(column, 42);
+        Assert.assertEquals(getNodes(index.get(column, 42)), set(node));
+    }
+
+    @Test
+    public void testAddIndexLazy() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+
+        graphStore.nodeTable.addIndex(column, true);
+        Assert.assertFalse(column.isIndexed());
+        setValues(graphStore, column);
+        Assert.assertFalse(column.isIndexed());
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        assertIndex(index, graphStore, column);
+        Assert.assertTrue(column.isIndexed());
+        Assert.assertNull(graphStore.nodeTable.store.indexStore.getIndexBuild((ColumnImpl) column));
+    }
+
+    @Test
+    public void testAddIndexLazyInView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        setValues(graphStore, column);
+        graphStore.nodeTable.addIndex(column, true);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        Node[] nodes = graphStore.getNodes().toArray();
+        view.addNode(nodes[0]);
+        view.addNode(nodes[1]);
+
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.count(column, nodes[0].getAttribute(column)), 1);
+        Assert.assertEquals(index.countElements(column), 2);
+    }
+
+    @Test
+    public void testBuildReplaysWrites() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        setValues(graphStore, column);
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+
+        IndexBuild<Node> build = columnStore.addIndex(column, true);
+        Assert.assertTrue(build.start());
+        IndexImpl.AbstractIndex columnIndex = build.snapshot();
+
+        //Writes between the snapshot and the swap
+        Node[] nodes = graphStore.getNodes().toArray();
+        nodes[0].setAttribute(column, 100);
+        nodes[1].removeAttribute(column);
+        graphStore.removeNode(nodes[2]);
+        NodeImpl added = new NodeImpl("added", graphStore);
+        graphStore.addNode(added);
+        added.setAttribute(column, 100);
+
+        //Queries scan until the swap
+        Assert.assertFalse(column.isIndexed());
+        Assert.assertEquals(getNodes(index.get(column, 100)), set(nodes[0], added));
+        assertIndex(index, graphStore, column);
+
+        build.finish(columnIndex);
+        Assert.assertTrue(column.isIndexed());
+        Assert.assertEquals(getNodes(index.get(column, 100)), set(nodes[0], added));
+        assertIndex(index, graphStore, column);
+    }
+
+    @Test
+    public void testBuildReplaysClear() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        setValues(graphStore, column);
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+
+        IndexBuild<Node> build = columnStore.addIndex(column, true);
+        build.start();
+        IndexImpl.AbstractIndex columnIndex = build.snapshot();
+        graphStore.clear();
+        NodeImpl added = new NodeImpl("added", graphStore);
+        graphStore.addNode(added);
+        added.setAttribute(column, 7);
+        build.finish(columnIndex);
+
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Assert.assertEquals(index.countElements(column), 1);
+        Assert.assertEquals(getNodes(index.get(column, 7)), set(added));
+    }
+
+    @Test
+    public void testAddIndexInBackground() throws Exception {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        setValues(graphStore, column);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> future = graphStore.nodeTable.addIndex(column, executor);
+            future.get();
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(column.isIndexed());
+        assertIndex(graphStore.nodeTable.store.indexStore.mainIndex, graphStore, column);
+    }
+
+    @Test
+    public void testRemoveColumnCancelsBuild() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        Column column = addColumn(graphStore);
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+
+        IndexBuild<Node> build = columnStore.addIndex(column, true);
+        build.start();
+        IndexImpl.AbstractIndex columnIndex = build.snapshot();
+        graphStore.nodeTable.removeColumn(column);
+        build.finish(columnIndex);
+
+        Assert.assertFalse(column.isIndexed());
+        Assert.assertNull(((ColumnImpl) column).indexBuild);
+        Assert.assertEquals(columnStore.indexStore.mainIndex.size(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddIndexAlreadyIndexed() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("foo", Integer.class);
+        graphStore.nodeTable.addIndex(column, false);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddIndexTwice() {
+        GraphStore graphStore = new GraphStore();
+        Column column = addColumn(graphStore);
+        graphStore.nodeTable.addIndex(column, true);
+        graphStore.nodeTable.addIndex(column, true);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddIndexProperty() {
+        GraphStore graphStore = new GraphStore();
+        graphStore.nodeTable.addIndex(graphStore.nodeTable.getColumn("label"), false);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAddIndexWithoutGraphStore() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        Column column = table.addColumn("foo", null, Integer.class, Origin.DATA, null, false);
+        table.addIndex(column, false);
+    }
+
+    //UTILITY
+    private Column addColumn(GraphStore graphStore) {
+        return graphStore.nodeTable.addColumn("foo", null, Integer.class, Origin.DATA, null, false);
+    }
+
+    private void setValues(GraphStore graphStore, Column column) {
+        int i = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            if (i % 4 != 3) {
+                n.setAttribute(column, i % 5);
+            }
+            i++;
+        }
+    }
+
+    private void assertIndex(IndexImpl<Node> index, GraphStore graphStore, Column column) {
+        int elements = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            Object value = n.getAttribute(column);
+            Assert.assertTrue(getNodes(index.get(column, value)).contains(n));
+            elements++;
+        }
+        Assert.assertEquals(index.countElements(column), elements);
+        Assert.assertEquals(getNodes(index.get(column, 0, 2, true, false)).size(), index.count(column, 0) + index.count(column, 1));
+    }
+
+    private Set<Node> getNodes(Iterable<Node> iterable) {
+        Set<Node> nodes = new HashSet<Node>();
+        if (iterable != null) {
+            for (Node n : iterable) {
+                nodes.add(n);
+            }
+        }
+        return nodes;
+    }
+
+    private Set<Node> set(Node... nodes) {
+        Set<Node> set = new HashSet<Node>();
+        for (Node n : nodes) {
+            set.add(n);
+        }
+        return set;
+    }
+}
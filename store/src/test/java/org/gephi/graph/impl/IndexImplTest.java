@@ -23,6 +23,7 @@ import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,7 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ElementIterable;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Node;
 import org.testng.Assert;
@@ -232,6 +234,304 @@ public class IndexImplTest {
         index.getMaxValue(index.columnStore.getColumn("foo"));
     }
 
+    @Test
+    public void testRange() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        NodeImpl[] nodes = generateNodesWithUniqueAttributes(index, true);
+        putAll(nodes, index);
+
+        Column ageCol = index.columnStore.getColumn("age");
+        int min = index.getMinValue(ageCol).intValue();
+        int max = index.getMaxValue(ageCol).intValue();
+        Random random = new Random(4535);
+        for (int i = 0; i < 200; i++) {
+            Number low = random.nextInt(10) == 0 ? null : (Number) (min - 10 + random.nextInt(max - min + 20));
+            Number high = random.nextInt(10) == 0 ? null : (Number) (min - 10 + random.nextInt(max - min + 20));
+            if (random.nextBoolean()) {
+                low = low != null ? low.doubleValue() + 0.5 : null;
+                high = high != null ? high.doubleValue() - 0.5 : null;
+            }
+            boolean lowInclusive = random.nextBoolean();
+            boolean highInclusive = random.nextBoolean();
+
+            Set<Node> expected = new HashSet<Node>();
+            for (NodeImpl n : nodes) {
+                Integer v = (Integer) n.getAttribute(ageCol);
+                if (v != null && isInRange(v, low, high, lowInclusive, highInclusive)) {
+                    expected.add(n);
+                }
+            }
+            Node[] actual = getIterable(index.get(ageCol, low, high, lowInclusive, highInclusive));
+            Assert.assertEquals(actual.length, expected.size());
+            Assert.assertEquals(new HashSet<Node>(Arrays.asList(actual)), expected);
+            Assert.assertEquals(index.count(ageCol, low, high, lowInclusive, highInclusive), expected.size());
+        }
+    }
+
+    @Test
+    public void testRangeSorted() {
+        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        Column column = new ColumnImpl("score", Double.class, "Score", null, Origin.DATA, true, false);
+        columnStore.addColumn(column);
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        for (int i = 0; i < 10; i++) {
+            index.put(column, i / 10.0, new NodeImpl(String.valueOf(i)));
+        }
+
+        Node[] nodes = getIterable(index.get(column, 0.3, 0.6, true, false));
+        Assert.assertEquals(nodes.length, 3);
+        Assert.assertEquals(nodes[0].getId(), "3");
+        Assert.assertEquals(nodes[2].getId(), "5");
+        Assert.assertEquals(index.count(column, 0.3, 0.6, false, true), 3);
+        Assert.assertEquals(index.count(column, 1, null, true, true), 0);
+        Assert.assertEquals(index.count(column, null, 0, true, true), 1);
+        Assert.assertEquals(index.count(column, 0.5, 0.5, true, true), 1);
+        Assert.assertEquals(index.count(column, 0.5, 0.5, true, false), 0);
+        Assert.assertEquals(index.count(column, 0.6, 0.3, true, true), 0);
+        Assert.assertEquals(getIterable(index.get(column, 0.6, 0.3, true, true)).length, 0);
+    }
+
+    @Test
+    public void testGetSnapshot() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        Iterable<Node> result = index.get(column, 0.8);
+        Iterable<Node> range = index.get(column, 0.5, null, true, true);
+        ElementIterable<Node> ordered = index.iterateAscending(column);
+        assertUnlocked(index);
+
+        NodeImpl node = new NodeImpl("new");
+        index.put(column, 0.8, node);
+        Assert.assertEquals(getIterable(result).length, 2);
+        Assert.assertEquals(getIterable(range).length, 5);
+        Assert.assertEquals(ordered.toArray().length, 12);
+        Assert.assertEquals(getIterable(index.get(column, 0.8)).length, 3);
+        Assert.assertEquals(getIterable(index.get(column, 0.5, null, true, true)).length, 6);
+    }
+
+    @Test
+    public void testGetNotFound() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        Iterable<Node> result = index.get(column, 42.0);
+        Assert.assertNotNull(result);
+        Assert.assertFalse(result.iterator().hasNext());
+    }
+
+    @Test
+    public void testGetDoesntBlockWriters() throws Exception {
+        IndexImpl<Node> index = generateSortedIndex();
+        final Column column = index.columnStore.getColumn("score");
+        final IndexStore<Node> indexStore = index.columnStore.indexStore;
+        final Node node = index.get(column, 0.9).iterator().next();
+
+        Iterator<Node> itr = index.get(column, 0.8).iterator();
+        itr.next();
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                indexStore.set(column, 0.9, 0.7, node);
+            }
+        });
+        writer.start();
+        writer.join(10000);
+        Assert.assertFalse(writer.isAlive());
+        Assert.assertTrue(itr.hasNext());
+        Assert.assertEquals(index.count(column, 0.7), 1);
+    }
+
+    @Test
+    public void testIterateDoesntBlockWriters() throws Exception {
+        IndexImpl<Node> index = generateSortedIndex();
+        final Column column = index.columnStore.getColumn("score");
+        final IndexStore<Node> indexStore = index.columnStore.indexStore;
+        final Node node = index.get(column, 0.9).iterator().next();
+
+        Iterator<Node> itr = index.iterateDescending(column).iterator();
+        Assert.assertSame(itr.next(), node);
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                indexStore.set(column, 0.9, 0.7, node);
+            }
+        });
+        writer.start();
+        writer.join(10000);
+        Assert.assertFalse(writer.isAlive());
+        Assert.assertTrue(itr.hasNext());
+        Assert.assertEquals(index.count(column, 0.7), 1);
+    }
+
+    @Test
+    public void testIterateAscending() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        Node[] nodes = index.iterateAscending(column).toArray();
+        Assert.assertEquals(nodes.length, 12);
+        Assert.assertNull(nodes[0].getAttribute(column));
+        Assert.assertNull(nodes[1].getAttribute(column));
+        for (int i = 3; i < nodes.length; i++) {
+            Assert.assertTrue((Double) nodes[i - 1].getAttribute(column) <= (Double) nodes[i].getAttribute(column));
+        }
+        assertUnlocked(index);
+    }
+
+    @Test
+    public void testIterateDescending() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        Node[] nodes = index.iterateDescending(column).toArray();
+        Assert.assertEquals(nodes.length, 12);
+        for (int i = 1; i < 10; i++) {
+            Assert.assertTrue((Double) nodes[i - 1].getAttribute(column) >= (Double) nodes[i].getAttribute(column));
+        }
+        Assert.assertNull(nodes[10].getAttribute(column));
+        Assert.assertNull(nodes[11].getAttribute(column));
+
+        ElementIterable<Node> iterable = index.iterateDescending(column);
+        Iterator<Node> itr = iterable.iterator();
+        Assert.assertEquals(itr.next().getAttribute(column), 0.9);
+        iterable.doBreak();
+        assertUnlocked(index);
+    }
+
+    @Test
+    public void testIterateEarlyBreak() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        for (Node node : index.iterateDescending(column)) {
+            Assert.assertEquals(node.getAttribute(column), 0.9);
+            break;
+        }
+        assertUnlocked(index);
+    }
+
+    @Test
+    public void testIterateTwice() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        ElementIterable<Node> iterable = index.iterateAscending(column);
+        List<Node> first = new ArrayList<Node>();
+        for (Node node : iterable) {
+            first.add(node);
+        }
+        List<Node> second = new ArrayList<Node>();
+        for (Node node : iterable) {
+            second.add(node);
+        }
+        Assert.assertEquals(first.size(), 12);
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(Arrays.asList(iterable.toArray()), first);
+    }
+
+    @Test
+    public void testIterateOnOtherThread() throws InterruptedException {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        final ElementIterable<Node> iterable = index.iterateDescending(column);
+        final List<Node> nodes = new ArrayList<Node>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (Node node : iterable) {
+                    nodes.add(node);
+                }
+                iterable.doBreak();
+            }
+        });
+        reader.start();
+        reader.join(10000);
+        Assert.assertFalse(reader.isAlive());
+        Assert.assertEquals(nodes.size(), 12);
+    }
+
+    @Test
+    public void testTopK() {
+        IndexImpl<Node> index = generateSortedIndex();
+        Column column = index.columnStore.getColumn("score");
+
+        List<Node> top = index.topK(column, 3);
+        Assert.assertEquals(top.size(), 3);
+        Assert.assertEquals(top.get(0).getAttribute(column), 0.9);
+        Assert.assertEquals(top.get(1).getAttribute(column), 0.8);
+        Assert.assertEquals(top.get(2).getAttribute(column), 0.8);
+        Assert.assertEquals(index.topK(column, 100).size(), 10);
+        Assert.assertTrue(index.topK(column, 0).isEmpty());
+        assertUnlocked(index);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testTopKNoNumber() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.topK(index.columnStore.getColumn("foo"), 1);
+    }
+
+    @Test
+    public void testTextIndex() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("name", null, String.class, Origin.DATA, null, true, true);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        String[] labels = new String[]{"Paris Hilton", "Paris", "Parisian Cafe", "New York", "York", null};
+        NodeImpl[] nodes = new NodeImpl[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+            nodes[i].setAttribute(column, labels[i]);
+        }
+
+        Assert.assertEquals(getIds(index.getByPrefix(column, "paris")), new HashSet<String>(Arrays.asList("0", "1", "2")));
+        Assert.assertEquals(getIds(index.getByPrefix(column, "York")), new HashSet<String>(Arrays.asList("4")));
+        Assert.assertEquals(getIds(index.getBySubstring(column, "YORK")), new HashSet<String>(Arrays.asList("3", "4")));
+        Assert.assertEquals(getIds(index.getBySubstring(column, "an c")), new HashSet<String>(Arrays.asList("2")));
+        Assert.assertEquals(getIds(index.getBySubstring(column, "w")), new HashSet<String>(Arrays.asList("3")));
+        Assert.assertEquals(getIds(index.getByTokens(column, "paris")), new HashSet<String>(Arrays.asList("0", "1")));
+        Assert.assertEquals(getIds(index.getByTokens(column, "york, new")), new HashSet<String>(Arrays.asList("3")));
+        Assert.assertTrue(getIds(index.getByTokens(column, "london")).isEmpty());
+
+        //Maintained incrementally
+        nodes[1].setAttribute(column, "London");
+        graphStore.removeNode(nodes[0]);
+        Assert.assertEquals(getIds(index.getByPrefix(column, "paris")), new HashSet<String>(Arrays.asList("2")));
+        Assert.assertEquals(getIds(index.getByTokens(column, "london")), new HashSet<String>(Arrays.asList("1")));
+        Assert.assertTrue(getIds(index.getBySubstring(column, "hilton")).isEmpty());
+    }
+
+    @Test
+    public void testTextIndexArray() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("tags", null, String[].class, Origin.DATA, null, true, true);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        graphStore.addNode(n1);
+        graphStore.addNode(n2);
+        n1.setAttribute(column, new String[]{"graph", "graphics"});
+        n2.setAttribute(column, new String[]{"network"});
+
+        Node[] nodes = getIterable(index.getByPrefix(column, "graph"));
+        Assert.assertEquals(nodes, new Node[]{n1});
+        Assert.assertEquals(getIds(index.getBySubstring(column, "work")), new HashSet<String>(Arrays.asList("2")));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testTextIndexNotConfigured() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getByPrefix(index.columnStore.getColumn("foo"), "a");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testRangeNoNumber() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.count(index.columnStore.getColumn("foo"), 0, 1, true, true);
+    }
+
     @Test
     public void testValues() {
         IndexImpl<Node> index = generateEmptyIndex();
@@ -690,6 +990,13 @@ public class IndexImplTest {
         return nodes;
     }
 
+    private boolean isInRange(int value, Number low, Number high, boolean lowInclusive, boolean highInclusive) {
+        if (low != null && (lowInclusive ? value < low.doubleValue() : value <= low.doubleValue())) {
+            return false;
+        }
+        return high == null || (highInclusive ? value <= high.doubleValue() : value < high.doubleValue());
+    }
+
     private void putAll(NodeImpl[] nodes, IndexImpl<Node> index) {
         for (NodeImpl n : nodes) {
             for (Column col : index.columnStore) {
@@ -701,6 +1008,28 @@ public class IndexImplTest {
         }
     }
 
+    private IndexImpl<Node> generateSortedIndex() {
+        ColumnStore<Node> columnStore = generateEmptyNodeStore();
+        Column column = new ColumnImpl("score", Double.class, "Score", null, Origin.DATA, true, false);
+        columnStore.addColumn(column);
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        double[] values = new double[]{0.5, 0.1, 0.9, 0.3, 0.8, 0.2, 0.8, 0.4, 0.0, 0.6};
+        for (int i = 0; i < values.length; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i));
+            node.setAttribute(column, values[i]);
+            index.put(column, values[i], node);
+        }
+        index.put(column, null, new NodeImpl("null1"));
+        index.put(column, null, new NodeImpl("null2"));
+        return index;
+    }
+
+    private void assertUnlocked(IndexImpl<Node> index) {
+        if (index.lock != null) {
+            Assert.assertFalse(index.lock.lock.isHeldByCurrentThread());
+        }
+    }
+
     private IndexImpl<Node> generateEmptyIndex() {
         ColumnStore<Node> columnStore = generateEmptyNodeStore();
         columnStore.addColumn(new ColumnImpl("foo", String.class, "foo", null, Origin.DATA, true, false));
@@ -714,6 +1043,14 @@ public class IndexImplTest {
         return columnStore;
     }
 
+    private Set<String> getIds(Iterable<Node> itr) {
+        Set<String> ids = new HashSet<String>();
+        for (Node n : itr) {
+            ids.add((String) n.getId());
+        }
+        return ids;
+    }
+
     private Node[] getIterable(Iterable<Node> itr) {
         List<Node> list = new ArrayList<Node>();
         for (Node n : itr) {
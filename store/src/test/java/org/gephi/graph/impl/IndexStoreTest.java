@@ -16,7 +16,11 @@
 package org.gephi.graph.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Origin;
 import org.gephi.graph.api.Graph;
@@ -104,10 +108,10 @@ public class IndexStoreTest {
         Assert.assertTrue(mainIndex.values(col2).contains(20));
 
         Assert.assertSame(getIterable(mainIndex.get(col1, "A"))[0], n);
-        Assert.assertNull(mainIndex.get(col1, "B"));
+        Assert.assertFalse(mainIndex.get(col1, "B").iterator().hasNext());
 
         Assert.assertSame(getIterable(mainIndex.get("foo", "A"))[0], n);
-        Assert.assertNull(mainIndex.get("foo", "B"));
+        Assert.assertFalse(mainIndex.get("foo", "B").iterator().hasNext());
     }
 
     @Test
@@ -454,7 +458,567 @@ public class IndexStoreTest {
         Assert.assertEquals(index.count(column, "bar"), 0);
     }
 
+    @Test
+    public void testSetWithViewIsLazy() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", String.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        ViewIndexImpl<Node> index = indexStore.createViewIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.count(column, null), 1);
+        Assert.assertFalse(index.isStale());
+
+        n1.setAttribute(column, "foo");
+        n2.setAttribute(column, "foo");
+        Assert.assertTrue(index.isStale());
+        Assert.assertEquals(index.count(column, "foo"), 1);
+        Assert.assertFalse(index.isStale());
+
+        view.addNode(n2);
+        Assert.assertFalse(index.isStale());
+        Assert.assertEquals(index.count(column, "foo"), 2);
+
+        view.removeNode(n1);
+        Assert.assertEquals(index.count(column, "foo"), 1);
+        List<Node> nodes = new ArrayList<Node>();
+        for (Node n : index.get(column, "foo")) {
+            nodes.add(n);
+        }
+        Assert.assertEquals(nodes.size(), 1);
+        Assert.assertSame(nodes.get(0), n2);
+    }
+
+    @Test
+    public void testSetWithViewQueuesChange() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", String.class, "Foo", null, Origin.DATA, true, false);
+        ColumnImpl otherColumn = new ColumnImpl("bar", String.class, "Bar", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        graphStore.nodeTable.store.addColumn(otherColumn);
+        n1.setAttribute(otherColumn, "bar");
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        ViewIndexImpl<Node> index = indexStore.createViewIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.count(otherColumn, "bar"), 1);
+
+        n1.setAttribute(column, "foo");
+        n1.setAttribute(column, "baz");
+        Assert.assertTrue(index.isStale());
+        Assert.assertFalse(index.isStale(column));
+        Assert.assertEquals(index.pendingValues.size(), 1);
+
+        view.addNode(n2);
+        Assert.assertEquals(index.count(otherColumn, null), 1);
+        Assert.assertEquals(index.count(column, "foo"), 0);
+        Assert.assertEquals(index.count(column, "baz"), 1);
+        Assert.assertEquals(index.count(column, null), 1);
+        Assert.assertFalse(index.isStale());
+        Assert.assertTrue(index.pendingValues.isEmpty());
+    }
+
+    @Test
+    public void testClearAttributesWithView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", String.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        n1.setAttribute(column, "foo");
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        ViewIndexImpl<Node> index = indexStore.createViewIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.count(column, "foo"), 1);
+
+        n1.clearAttributes();
+        Assert.assertFalse(index.isStale());
+        Assert.assertEquals(index.count(column, "foo"), 0);
+        Assert.assertEquals(index.countElements(column), 0);
+    }
+
+    @Test
+    public void testSetWithMultipleViews() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+
+        GraphViewImpl view1 = graphStore.viewStore.createView();
+        view1.addNode(n1);
+        GraphViewImpl view2 = graphStore.viewStore.createView();
+        view2.fill();
+        IndexImpl index1 = indexStore.getIndex(graphStore.viewStore.getGraph(view1));
+        IndexImpl index2 = indexStore.getIndex(graphStore.viewStore.getGraph(view2));
+
+        n1.setAttribute(column, 1);
+        n2.setAttribute(column, 2);
+
+        Assert.assertEquals(index1.countElements(column), 1);
+        Assert.assertEquals(index1.getMaxValue(column), 1);
+        Assert.assertEquals(index2.countElements(column), 2);
+        Assert.assertEquals(index2.getMaxValue(column), 2);
+
+        n2.setAttribute(column, 0);
+        Assert.assertEquals(index1.getMinValue(column), 1);
+        Assert.assertEquals(index2.getMinValue(column), 0);
+        Assert.assertEquals(index2.values(column).size(), 2);
+    }
+
+    @Test
+    public void testCopyViewIndexIsShared() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        n1.setAttribute(column, 1);
+        n2.setAttribute(column, 2);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        view.addNode(n2);
+        ViewIndexImpl<Node> index = indexStore.createViewIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.countElements(column), 2);
+
+        GraphViewImpl copy = graphStore.viewStore.createView(view);
+        ViewIndexImpl<Node> copyIndex = (ViewIndexImpl<Node>) indexStore.getIndex(graphStore.viewStore.getGraph(copy));
+        Assert.assertSame(copyIndex.source, index);
+        Assert.assertEquals(copyIndex.countElements(column), 2);
+        Assert.assertEquals(copyIndex.getMaxValue(column), 2);
+
+        n2.setAttribute(column, 3);
+        Assert.assertSame(copyIndex.source, index);
+        Assert.assertEquals(copyIndex.getMaxValue(column), 3);
+
+        copy.removeNode(n2);
+        Assert.assertNull(copyIndex.source);
+        Assert.assertEquals(copyIndex.countElements(column), 1);
+        Assert.assertEquals(copyIndex.getMaxValue(column), 1);
+        Assert.assertEquals(index.countElements(column), 2);
+    }
+
+    @Test
+    public void testCopyViewIndexParentChanges() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        n1.setAttribute(column, 1);
+        n2.setAttribute(column, 2);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        view.addNode(n2);
+        ViewIndexImpl<Node> index = indexStore.createViewIndex(graphStore.viewStore.getGraph(view));
+
+        GraphViewImpl copy = graphStore.viewStore.createView(view);
+        ViewIndexImpl<Node> copyIndex = (ViewIndexImpl<Node>) indexStore.getIndex(graphStore.viewStore.getGraph(copy));
+
+        view.removeNode(n1);
+        Assert.assertEquals(index.countElements(column), 1);
+        Assert.assertEquals(copyIndex.countElements(column), 2);
+        Assert.assertNull(copyIndex.source);
+
+        graphStore.viewStore.destroyView(view);
+        Assert.assertEquals(copyIndex.getMinValue(column), 1);
+    }
+
+    @Test
+    public void testViewIndexRange() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        GraphViewImpl view = graphStore.viewStore.createView();
+        int i = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            n.setAttribute(column, i);
+            if (i % 2 == 0) {
+                view.addNode(n);
+            }
+            i++;
+        }
+
+        IndexImpl<Node> index = indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        Assert.assertEquals(index.count(column, 4, 10, true, true), 4);
+        Assert.assertEquals(indexStore.mainIndex.count(column, 4, 10, true, true), 7);
+        int count = 0;
+        for (Node n : index.get(column, 4, 10, true, false)) {
+            Assert.assertTrue(view.containsNode((NodeImpl) n));
+            count++;
+        }
+        Assert.assertEquals(count, 3);
+    }
+
+    @Test
+    public void testViewIndexOrdered() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        ColumnImpl column = new ColumnImpl("foo", Integer.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        GraphViewImpl view = graphStore.viewStore.createView();
+        int i = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            n.setAttribute(column, i);
+            if (i % 2 == 0) {
+                view.addNode(n);
+            }
+            i++;
+        }
+
+        IndexImpl<Node> index = indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        List<Node> top = index.topK(column, 3);
+        Assert.assertEquals(top.size(), 3);
+        Assert.assertEquals(top.get(0).getAttribute(column), 14);
+        Assert.assertEquals(top.get(2).getAttribute(column), 10);
+        Node[] ascending = index.iterateAscending(column).toArray();
+        Assert.assertEquals(ascending.length, 8);
+        Assert.assertEquals(ascending[0].getAttribute(column), 0);
+        Assert.assertEquals(ascending[7].getAttribute(column), 14);
+    }
+
+    @Test
+    public void testValueSetByStoreId() {
+        GraphStore graphStore = new GraphStore();
+        ColumnImpl column = new ColumnImpl("foo", Boolean.class, "Foo", null, Origin.DATA, true, false);
+        graphStore.nodeTable.store.addColumn(column);
+        IndexImpl<Node> index = graphStore.nodeTable.store.indexStore.mainIndex;
+        NodeImpl[] nodes = new NodeImpl[10000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+            nodes[i].setAttribute(column, i % 3 == 0);
+        }
+        Assert.assertEquals(index.count(column, true), 3334);
+        Assert.assertEquals(index.count(column, false), 6666);
+
+        for (int i = 0; i < nodes.length; i += 2) {
+            graphStore.removeNode(nodes[i]);
+        }
+        nodes[1].setAttribute(column, null);
+        Assert.assertEquals(index.count(column, true), 1667);
+        Assert.assertEquals(index.count(column, null), 1);
+
+        int count = 0;
+        for (Node n : index.get(column, true)) {
+            Assert.assertTrue(graphStore.contains(n));
+            Assert.assertEquals(n.getAttribute(column), Boolean.TRUE);
+            count++;
+        }
+        Assert.assertEquals(count, 1667);
+        Assert.assertSame(getIterable(index.get(column, null))[0], nodes[1]);
+    }
+
+    @Test
+    public void testCompositeIndex() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        ColumnImpl type = new ColumnImpl("type", String.class, "Type", null, Origin.DATA, true, false);
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(type);
+        columnStore.addColumn(year);
+        NodeImpl[] nodes = new NodeImpl[100];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+            nodes[i].setAttribute(type, i % 10 == 9 ? null : "t" + (i % 3));
+            nodes[i].setAttribute(year, 2000 + i % 7);
+        }
+        graphStore.nodeTable.addCompositeIndex(type, year);
+        Assert.assertTrue(graphStore.nodeTable.hasCompositeIndex(type, year));
+        Assert.assertFalse(graphStore.nodeTable.hasCompositeIndex(year, type));
+
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Column[] columns = new Column[]{type, year};
+        assertQuery(index, graphStore, columns, new Object[]{"t1", 2003});
+        assertQuery(index, graphStore, columns, new Object[]{null, 2002});
+        assertQuery(index, graphStore, columns, new Object[]{"t2", 2003, 2001, 2005});
+
+        //Maintained on set, remove and add
+        nodes[1].setAttribute(year, 2003);
+        nodes[4].setAttribute(type, "t2");
+        graphStore.removeNode(nodes[10]);
+        NodeImpl node = new NodeImpl("new", graphStore);
+        node.setAttribute(type, "t1");
+        node.setAttribute(year, 2003);
+        graphStore.addNode(node);
+        assertQuery(index, graphStore, columns, new Object[]{"t1", 2003});
+        assertQuery(index, graphStore, columns, new Object[]{"t2", 2003, 2001, 2005});
+        assertQuery(index, graphStore, new Column[]{year, type}, new Object[]{2003, "t2"});
+
+        columnStore.removeColumn(year);
+        Assert.assertTrue(columnStore.indexStore.compositeIndexes.isEmpty());
+    }
+
+    @Test
+    public void testCompositeIndexInView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        ColumnImpl type = new ColumnImpl("type", String.class, "Type", null, Origin.DATA, true, false);
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(type);
+        columnStore.addColumn(year);
+        graphStore.nodeTable.addCompositeIndex(type, year);
+        GraphViewImpl view = graphStore.viewStore.createView();
+        int i = 0;
+        for (Node n : graphStore.getNodes().toArray()) {
+            n.setAttribute(type, "t" + (i % 2));
+            n.setAttribute(year, 2000 + i % 3);
+            if (i % 3 != 1) {
+                view.addNode(n);
+            }
+            i++;
+        }
+
+        IndexImpl<Node> index = columnStore.indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        Column[] columns = new Column[]{type, year};
+        int count = 0;
+        for (Node n : index.get(columns, new Object[]{"t0", 2000})) {
+            Assert.assertTrue(view.containsNode((NodeImpl) n));
+            Assert.assertEquals(n.getAttribute(type), "t0");
+            Assert.assertEquals(n.getAttribute(year), 2000);
+            count++;
+        }
+        Assert.assertEquals(index.count(columns, new Object[]{"t0", 2000}), count);
+        Assert.assertEquals(index.count(columns, new Object[]{"t1"}, 2001, null, true, true), index.count(columns, new Object[]{"t1", 2002}));
+    }
+
+    @Test
+    public void testBulkLoad() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        IndexStore<Node> indexStore = columnStore.indexStore;
+        ColumnImpl type = new ColumnImpl("type", String.class, "Type", null, Origin.DATA, true, false);
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(type);
+        columnStore.addColumn(year);
+        graphStore.nodeTable.addCompositeIndex(type, year);
+        NodeImpl[] nodes = new NodeImpl[200];
+        for (int i = 0; i < 50; i++) {
+            nodes[i] = addNode(graphStore, i, type, year);
+        }
+
+        indexStore.beginBulk();
+        for (int i = 50; i < nodes.length; i++) {
+            nodes[i] = addNode(graphStore, i, type, year);
+        }
+        nodes[3].setAttribute(year, 2010);
+        graphStore.removeNode(nodes[4]);
+        graphStore.removeNode(nodes[60]);
+        indexStore.endBulk();
+
+        IndexImpl<Node> index = indexStore.mainIndex;
+        Assert.assertEquals(index.countElements(year), 198);
+        Assert.assertEquals(index.count(year, 2010), 1);
+        Assert.assertEquals(index.count(type, null), 20);
+        Column[] columns = new Column[]{type, year};
+        assertQuery(index, graphStore, columns, new Object[]{"t1", 2003});
+        assertQuery(index, graphStore, columns, new Object[]{"t2", 2003, 2001, 2005});
+
+        //Maintained after
+        nodes[5].setAttribute(year, 2010);
+        graphStore.removeNode(nodes[3]);
+        Assert.assertEquals(index.count(year, 2010), 1);
+        assertQuery(index, graphStore, columns, new Object[]{"t1", 2003});
+    }
+
+    @Test
+    public void testParallelRebuild() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        IndexStore<Node> indexStore = columnStore.indexStore;
+        ColumnImpl type = new ColumnImpl("type", String.class, "Type", null, Origin.DATA, true, false);
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(type);
+        columnStore.addColumn(year);
+        graphStore.nodeTable.addCompositeIndex(type, year);
+        for (int i = 0; i < 1000; i++) {
+            addNode(graphStore, i, type, year);
+        }
+        IndexImpl<Node> index = indexStore.mainIndex;
+        int typeCount = index.count(type, "t0");
+        int yearCount = index.count(year, 2003, 2005, true, true);
+
+        NodeImpl node = graphStore.getNode("0");
+        Object[] attributes = node.attributes;
+        Object[] values = Arrays.copyOf(attributes, attributes.length);
+        indexStore.rebuild(4);
+        Assert.assertSame(node.attributes, attributes);
+        Assert.assertEquals(attributes, values);
+        ThreadPoolExecutor executor = indexStore.executor;
+        Assert.assertNotNull(executor);
+        indexStore.rebuild(4);
+        Assert.assertSame(indexStore.executor, executor);
+        Assert.assertEquals(index.count(type, "t0"), typeCount);
+        Assert.assertEquals(index.count(year, 2003, 2005, true, true), yearCount);
+        Assert.assertEquals(index.countElements(type), 1000);
+        assertQuery(index, graphStore, new Column[]{type, year}, new Object[]{"t1", 2003});
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        for (Node n : graphStore.getNodes().toArray()) {
+            if ((Integer) n.getAttribute(year) < 2003) {
+                view.addNode(n);
+            }
+        }
+        ViewIndexImpl<Node> viewIndex = (ViewIndexImpl<Node>) indexStore.getIndex(graphStore.viewStore.getGraph(view));
+        viewIndex.rebuild(index, 4);
+        Assert.assertEquals(viewIndex.countElements(year), view.getNodeCount());
+        Assert.assertEquals(viewIndex.count(year, 2003, null, true, true), 0);
+        Assert.assertEquals(viewIndex.count(year, 2002), index.count(year, 2002));
+    }
+
+    @Test
+    public void testBulkLoadWritesDuringScan() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        IndexStore<Node> indexStore = columnStore.indexStore;
+        ColumnImpl type = new ColumnImpl("type", String.class, "Type", null, Origin.DATA, true, false);
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(type);
+        columnStore.addColumn(year);
+        graphStore.nodeTable.addCompositeIndex(type, year);
+        NodeImpl[] nodes = new NodeImpl[200];
+        for (int i = 0; i < 100; i++) {
+            nodes[i] = addNode(graphStore, i, type, year);
+        }
+        indexStore.beginBulk();
+        for (int i = 100; i < nodes.length; i++) {
+            nodes[i] = addNode(graphStore, i, type, year);
+        }
+
+        //Same steps as endBulk, with writes before and after the ranges are scanned
+        ColumnImpl[] cols = indexStore.getIndexedColumns();
+        indexStore.rebuildWrites = new ArrayList<IndexStore.RebuildWrite<Node>>();
+        nodes[5].setAttribute(year, 2010);
+        IndexImpl.AbstractIndex[] indexes = indexStore.build(cols, columnStore.getMaxElementStoreId(), 4, true);
+        nodes[6].setAttribute(year, 2011);
+        nodes[6].setAttribute(year, 2012);
+        graphStore.removeNode(nodes[7]);
+        NodeImpl added = new NodeImpl("added", graphStore);
+        graphStore.addNode(added);
+        added.setAttribute(year, 2013);
+        indexStore.endRebuild(cols, indexes);
+
+        IndexImpl<Node> index = indexStore.mainIndex;
+        Assert.assertFalse(indexStore.bulk);
+        Assert.assertNull(indexStore.rebuildWrites);
+        Assert.assertEquals(index.countElements(year), 200);
+        Assert.assertEquals(index.count(year, 2010), 1);
+        Assert.assertEquals(index.count(year, 2011), 0);
+        Assert.assertEquals(index.count(year, 2012), 1);
+        Assert.assertEquals(index.count(year, 2013), 1);
+        Assert.assertEquals(index.count(type, null), 21);
+        Assert.assertTrue(index.get(year, 2013).iterator().next() == added);
+        Column[] columns = new Column[]{type, year};
+        assertQuery(index, graphStore, columns, new Object[]{"t1", 2003});
+        assertQuery(index, graphStore, columns, new Object[]{"t0", 2012});
+    }
+
+    @Test
+    public void testDestroyShutsDownExecutor() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        IndexStore<Node> indexStore = columnStore.indexStore;
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(year);
+        for (int i = 0; i < 100; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(node);
+            node.setAttribute(year, 2000 + i % 7);
+        }
+        indexStore.rebuild(4);
+        ThreadPoolExecutor executor = indexStore.executor;
+        Assert.assertNotNull(executor);
+
+        indexStore.destroy();
+        Assert.assertNull(indexStore.executor);
+        Assert.assertTrue(executor.isShutdown());
+
+        //Created again when needed
+        indexStore.rebuild(4);
+        Assert.assertNotNull(indexStore.executor);
+        Assert.assertNotSame(indexStore.executor, executor);
+        Assert.assertEquals(indexStore.mainIndex.countElements(year), 100);
+    }
+
+    @Test
+    public void testAddAllNodesBulkLoad() {
+        GraphStore graphStore = new GraphStore();
+        ColumnStore<Node> columnStore = graphStore.nodeTable.store;
+        ColumnImpl year = new ColumnImpl("year", Integer.class, "Year", null, Origin.DATA, true, false);
+        columnStore.addColumn(year);
+        List<Node> nodes = new ArrayList<Node>();
+        for (int i = 0; i < GraphStoreConfiguration.INDEX_BULK_LOAD_THRESHOLD; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i), graphStore);
+            node.setAttribute(year, 2000 + i % 7);
+            nodes.add(node);
+        }
+        graphStore.addAllNodes(nodes);
+
+        IndexImpl<Node> index = columnStore.indexStore.mainIndex;
+        Assert.assertFalse(columnStore.indexStore.bulk);
+        Assert.assertEquals(index.countElements(year), nodes.size());
+        Assert.assertEquals(index.count(year, 2000), (nodes.size() + 6) / 7);
+        nodes.get(0).setAttribute(year, 1999);
+        Assert.assertEquals(index.count(year, 1999), 1);
+    }
+
+    private void assertQuery(IndexImpl<Node> index, GraphStore graphStore, Column[] columns, Object[] query) {
+        boolean range = query.length > columns.length;
+        Object[] values = Arrays.copyOf(query, range ? columns.length - 1 : columns.length);
+        Set<Node> expected = new HashSet<Node>();
+        for (Node n : graphStore.getNodes()) {
+            boolean match = true;
+            for (int i = 0; i < values.length; i++) {
+                Object value = n.getAttribute(columns[i]);
+                match &= values[i] == null ? value == null : values[i].equals(value);
+            }
+            if (range) {
+                Integer value = (Integer) n.getAttribute(columns[columns.length - 1]);
+                match &= value != null && value >= (Integer) query[values.length] && value <= (Integer) query[values.length + 1];
+            }
+            if (match) {
+                expected.add(n);
+            }
+        }
+        Iterable<Node> result;
+        int count;
+        if (range) {
+            Number low = (Number) query[values.length];
+            Number high = (Number) query[values.length + 1];
+            result = index.get(columns, values, low, high, true, true);
+            count = index.count(columns, values, low, high, true, true);
+        } else {
+            result = index.get(columns, values);
+            count = index.count(columns, values);
+        }
+        Assert.assertEquals(new HashSet<Node>(Arrays.asList(getIterable(result))), expected);
+        Assert.assertEquals(count, expected.size());
+    }
+
     //UTILITY
+    private NodeImpl addNode(GraphStore graphStore, int i, Column type, Column year) {
+        NodeImpl node = new NodeImpl(String.valueOf(i), graphStore);
+        graphStore.addNode(node);
+        node.setAttribute(type, i % 10 == 9 ? null : "t" + (i % 3));
+        node.setAttribute(year, 2000 + i % 7);
+        return node;
+    }
+
     private NodeImpl[] generateNodesWithUniqueAttributes(ColumnStore<Node> columnStore) {
         int count = 100;
         NodeImpl[] nodes = new NodeImpl[count];
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void testEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        Assert.assertEquals(sketch.getCount(), 0);
+        Assert.assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    }
+
+    @Test
+    public void testExactBelowCapacity() {
+        QuantileSketch sketch = new QuantileSketch(16);
+        for (int i = 10; i > 0; i--) {
+            sketch.add(i);
+        }
+        Assert.assertEquals(sketch.getQuantile(0), 1.0);
+        Assert.assertEquals(sketch.getQuantile(0.5), 5.0);
+        Assert.assertEquals(sketch.getQuantile(1), 10.0);
+    }
+
+    @Test
+    public void testQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            sketch.add(random.nextDouble());
+        }
+        Assert.assertEquals(sketch.getCount(), 100000);
+        Assert.assertEquals(sketch.getQuantile(0.1), 0.1, 0.02);
+        Assert.assertEquals(sketch.getQuantile(0.5), 0.5, 0.02);
+        Assert.assertEquals(sketch.getQuantile(0.9), 0.9, 0.02);
+        int total = 0;
+        for (int c : sketch.getHistogram(0, 1, 4)) {
+            Assert.assertEquals(c, 25000, 2000);
+            total += c;
+        }
+        Assert.assertEquals(total, 100000);
+    }
+
+    @Test
+    public void testMerge() {
+        QuantileSketch sketch1 = new QuantileSketch();
+        QuantileSketch sketch2 = new QuantileSketch();
+        for (int i = 0; i < 50000; i++) {
+            sketch1.add(i);
+            sketch2.add(50000 + i);
+        }
+        sketch1.merge(sketch2);
+        Assert.assertEquals(sketch1.getCount(), 100000);
+        Assert.assertEquals(sketch1.getQuantile(0.5), 50000, 2000);
+    }
+}
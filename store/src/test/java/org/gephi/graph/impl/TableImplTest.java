@@ -203,6 +203,50 @@ public class TableImplTest {
         Assert.assertEquals(table.countColumns(), 1);
     }
 
+    @Test
+    public void testAddColumnTextIndexed() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        Column col = table.addColumn("Label", null, String.class, Origin.DATA, null, true, true);
+        Assert.assertTrue(col.isTextIndexed());
+        Assert.assertFalse(table.addColumn("Other", String.class).isTextIndexed());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddColumnTextIndexedWrongType() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        table.addColumn("Age", null, Integer.class, Origin.DATA, null, true, true);
+    }
+
+    @Test
+    public void testCompositeIndex() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        Column type = table.addColumn("Type", String.class);
+        Column year = table.addColumn("Year", Integer.class);
+
+        table.addCompositeIndex(type, year);
+        Assert.assertTrue(table.hasCompositeIndex(type, year));
+        Assert.assertFalse(table.hasCompositeIndex(year, type));
+        table.removeCompositeIndex(type, year);
+        Assert.assertFalse(table.hasCompositeIndex(type, year));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddCompositeIndexTwice() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        Column type = table.addColumn("Type", String.class);
+        Column year = table.addColumn("Year", Integer.class);
+        table.addCompositeIndex(type, year);
+        table.addCompositeIndex(type, year);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddCompositeIndexNotIndexed() {
+        TableImpl<Node> table = new TableImpl<Node>(Node.class, true);
+        Column type = table.addColumn("Type", String.class);
+        Column year = table.addColumn("Year", null, Integer.class, Origin.DATA, null, false);
+        table.addCompositeIndex(type, year);
+    }
+
     @Test
     public void testGetElementClass() {
         TableImpl<Node> table = new TableImpl<Node>(Node.class, false);
@@ -19,6 +19,7 @@ import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphView;
@@ -622,6 +623,172 @@ public class TimestampIndexStoreTest {
         Assert.assertFalse(index.hasElements());
     }
 
+    @Test
+    public void testAddTimestampWithViews() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+
+        GraphViewImpl view1 = graphStore.viewStore.createView();
+        view1.addNode(n1);
+        GraphViewImpl view2 = graphStore.viewStore.createView();
+        view2.fill();
+        TimestampIndexImpl index1 = store.createViewIndex(graphStore.viewStore.getGraph(view1));
+        TimestampIndexImpl index2 = store.createViewIndex(graphStore.viewStore.getGraph(view2));
+
+        n1.addTimestamp(2.0);
+        n2.addTimestamp(1.0);
+        n2.addTimestamp(3.0);
+
+        Assert.assertEquals(index1.getMinTimestamp(), 2.0);
+        Assert.assertEquals(index1.getMaxTimestamp(), 2.0);
+        Assert.assertEquals(index2.getMinTimestamp(), 1.0);
+        Assert.assertEquals(index2.getMaxTimestamp(), 3.0);
+        Assert.assertEquals(getArrayFromIterable(index1.get(new Interval(1.0, 3.0))).length, 1);
+        Assert.assertEquals(getArrayFromIterable(index2.get(new Interval(1.0, 3.0))).length, 2);
+        Assert.assertEquals(getArrayFromIterable(index1.get(1.0)).length, 0);
+
+        view1.addNode(n2);
+        Assert.assertEquals(index1.getMinTimestamp(), 1.0);
+        n2.removeTimestamp(1.0);
+        Assert.assertEquals(index1.getMinTimestamp(), 2.0);
+        Assert.assertEquals(index2.getMinTimestamp(), 2.0);
+    }
+
+    @Test
+    public void testTimeInterval() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        NodeImpl n2 = graphStore.getNode("2");
+        n1.addTimestamp(1.0);
+        n1.addTimestamp(5.0);
+        n2.addTimestamp(3.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.setTimeInterval(new Interval(0.0, 2.0));
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+        Assert.assertFalse(store.isInTimeInterval(n2, view));
+
+        view.setTimeInterval(new Interval(2.0, 4.0));
+        Assert.assertFalse(store.isInTimeInterval(n1, view));
+        Assert.assertTrue(store.isInTimeInterval(n2, view));
+
+        view.setTimeInterval(new Interval(3.0, 5.0));
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+        Assert.assertTrue(store.isInTimeInterval(n2, view));
+
+        view.setTimeInterval(new Interval(6.0, 7.0));
+        Assert.assertFalse(store.isInTimeInterval(n1, view));
+        Assert.assertFalse(store.isInTimeInterval(n2, view));
+    }
+
+    @Test
+    public void testTimeIntervalAddRemoveTimestamp() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        n1.addTimestamp(1.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.setTimeInterval(new Interval(2.0, 4.0));
+        Assert.assertFalse(store.isInTimeInterval(n1, view));
+
+        n1.addTimestamp(3.0);
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+
+        n1.removeTimestamp(3.0);
+        Assert.assertFalse(store.isInTimeInterval(n1, view));
+
+        n1.removeTimestamp(1.0);
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+    }
+
+    @Test
+    public void testTimeIntervalStaticElement() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.setTimeInterval(new Interval(2.0, 4.0));
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+    }
+
+    @Test
+    public void testTimeIntervalRemoveElement() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        n1.addTimestamp(1.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.setTimeInterval(new Interval(0.0, 2.0));
+        graphStore.removeNode(n1);
+
+        NodeImpl n3 = new NodeImpl("3", graphStore);
+        n3.addTimestamp(5.0);
+        graphStore.addNode(n3);
+        Assert.assertEquals(n3.getStoreId(), 0);
+        Assert.assertFalse(store.isInTimeInterval(n3, view));
+
+        n3.addTimestamp(1.5);
+        Assert.assertTrue(store.isInTimeInterval(n3, view));
+    }
+
+    @Test
+    public void testTimeIntervalReset() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl n1 = graphStore.getNode("1");
+        n1.addTimestamp(1.0);
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.setTimeInterval(new Interval(2.0, 4.0));
+        Assert.assertEquals(store.intervalFilterCount, 1);
+
+        view.setTimeInterval(null);
+        Assert.assertEquals(store.intervalFilterCount, 0);
+        Assert.assertTrue(store.isInTimeInterval(n1, view));
+
+        view.setTimeInterval(new Interval(2.0, 4.0));
+        graphStore.viewStore.destroyView(view);
+        Assert.assertEquals(store.intervalFilterCount, 0);
+    }
+
+    @Test
+    public void testTimeIntervalScrubbing() {
+        GraphStore graphStore = new GraphStore();
+        Random rand = new Random(843);
+        NodeImpl[] nodes = new NodeImpl[200];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+            graphStore.addNode(nodes[i]);
+            for (int j = 0; j < 3; j++) {
+                nodes[i].addTimestamp((double) rand.nextInt(100));
+            }
+        }
+
+        TimestampIndexStore store = (TimestampIndexStore) graphStore.timeStore.nodeIndexStore;
+        GraphViewImpl view = graphStore.viewStore.createView();
+        for (int i = 0; i < 50; i++) {
+            double low = rand.nextInt(100);
+            double high = low + rand.nextInt(30);
+            view.setTimeInterval(new Interval(low, high));
+            for (NodeImpl node : nodes) {
+                boolean expected = false;
+                for (double t : node.getTimestamps()) {
+                    if (t >= low && t <= high) {
+                        expected = true;
+                    }
+                }
+                Assert.assertEquals(store.isInTimeInterval(node, view), expected);
+            }
+        }
+    }
+
     //UTILITY
     private <T> Object[] getArrayFromIterable(Iterable<T> iterable) {
         List<T> list = new ArrayList<T>();